@@ -43,6 +43,9 @@ public class XcspCmd extends AbstractBenchmarkCmd {
 	@Option(name="-h", usage="Heuristics")
 	protected Integer heuristic;
 
+	@Option(name="-decay", usage="Decay of the constraint weights after each failure")
+	protected Double decay;
+
 
 	public XcspCmd() {
 		super(new XcspSettings());
@@ -62,6 +65,9 @@ public class XcspCmd extends AbstractBenchmarkCmd {
         }
 		if( heuristic != null){
             set.putEnum(XcspSettings.HEURISTIC, XcspSettings.match(heuristic));
+        }
+		if( decay != null){
+            set.putDouble(XcspSettings.WEIGHT_DECAY, decay);
         }
 	}
 
@@ -50,10 +50,16 @@ import choco.cp.solver.goals.GoalSearchSolver;
 import choco.cp.solver.propagation.ChocoEngine;
 import choco.cp.solver.search.GlobalSearchStrategy;
 import choco.cp.solver.search.GoalSearchLoop;
+import choco.cp.solver.search.SearchLimitManager;
+import choco.cp.solver.search.SolutionCounter;
+import choco.cp.solver.search.SolutionHint;
+import choco.cp.solver.search.SolutionIterator;
 import choco.cp.solver.search.integer.branching.AssignVar;
 import choco.cp.solver.search.integer.branching.ImpactBasedBranching;
 import choco.cp.solver.search.integer.valiterator.IncreasingDomain;
+import choco.cp.solver.search.integer.valiterator.SolutionHintValIterator;
 import choco.cp.solver.search.integer.valselector.RandomIntValSelector;
+import choco.cp.solver.search.integer.valselector.SolutionHintValSelector;
 import choco.cp.solver.search.integer.varselector.RandomIntVarSelector;
 import choco.cp.solver.search.real.AssignInterval;
 import choco.cp.solver.search.real.CyclicRealVarSelector;
@@ -97,10 +103,13 @@ import choco.kernel.solver.propagation.PropagationEngine;
 import choco.kernel.solver.propagation.Propagator;
 import choco.kernel.solver.propagation.listener.PropagationEngineListener;
 import choco.kernel.solver.propagation.listener.SetPropagator;
+import choco.kernel.solver.propagation.profiling.PropagationProfiler;
 import choco.kernel.solver.search.*;
 import choco.kernel.solver.search.integer.AbstractIntVarSelector;
 import choco.kernel.solver.search.limit.AbstractGlobalSearchLimit;
+import choco.kernel.solver.search.limit.CancellationToken;
 import choco.kernel.solver.search.limit.Limit;
+import choco.kernel.solver.search.measure.IProgressMonitor;
 import choco.kernel.solver.search.set.AbstractSetVarSelector;
 import choco.kernel.solver.variables.AbstractVar;
 import choco.kernel.solver.variables.Var;
@@ -114,6 +123,7 @@ import choco.kernel.solver.variables.set.SetVar;
 import gnu.trove.TLongObjectHashMap;
 
 import java.lang.reflect.Array;
+import java.math.BigInteger;
 import java.util.*;
 import java.util.logging.Level;
 
@@ -303,6 +313,11 @@ public class CPSolver implements Solver {
 	 */
 	private ValSelector<RealVar> valRealSelector = null;
 
+	/**
+	 * Solution toward which the value ordering of the default branching is biased
+	 */
+	private SolutionHint solutionHint = null;
+
 	/**
 	 * Value selector for set
 	 */
@@ -329,6 +344,10 @@ public class CPSolver implements Solver {
 
 	private ISolutionMonitor solutionMonitor;
 
+	private IProgressMonitor progressMonitor;
+
+	private volatile CancellationToken cancellationToken = new CancellationToken();
+
 	public CPSolver() {
 		this(new EnvironmentTrailing());
 	}
@@ -338,7 +357,8 @@ public class CPSolver implements Solver {
 	}
 
 	public CPSolver(Configuration configuration) {
-		this(new EnvironmentTrailing(), configuration);
+		this(new EnvironmentTrailing(configuration != null
+				&& configuration.readBoolean(Configuration.TRAIL_OFF_HEAP, false)), configuration);
 	}
 
 
@@ -359,6 +379,7 @@ public class CPSolver implements Solver {
 		intconstantVars = new HashMap<Integer, IntDomainVar>(10);
 		realconstantVars = new HashMap<Double, RealIntervalConstant>(8);
 		this.propagationEngine = new ChocoEngine(this);
+		((ChocoEngine) propagationEngine).setCancellationToken(cancellationToken);
 		this.constraints = env.makePartiallyStoredVector();
 		indexfactory = new IndexFactory();
 		this.indexOfLastInitializedStaticConstraint = env.makeInt(PartiallyStoredVector.getFirstStaticIndex() - 1);
@@ -416,6 +437,7 @@ public class CPSolver implements Solver {
 		 this.varIntSelector = null;
 		 this.valIntIterator = null;
 		 this.valIntSelector = null;
+		 this.solutionHint = null;
 		 this.varSetSelector = null;
 		 this.valSetIterator = null;
 		 this.valSetIterator = null;
@@ -423,6 +445,7 @@ public class CPSolver implements Solver {
 		 this.varRealSelector = null;
 		 this.solutionDisplay = null;
 		 this.solutionMonitor = null;
+		 this.progressMonitor = null;
 		 this.model = null;
 	 }
 
@@ -442,6 +465,52 @@ public class CPSolver implements Solver {
 		 this.solutionMonitor = solutionMonitor;
 	 }
 
+	 /**
+	  * Sets a monitor receiving a report on the search every {@link Configuration#PROGRESS_PERIOD} milliseconds.
+	  * @param progressMonitor the monitor, or null to stop the reports
+	  */
+	 public final void setProgressMonitor(IProgressMonitor progressMonitor) {
+		 this.progressMonitor = progressMonitor;
+		 if (strategy != null) {
+			 ((SearchLimitManager) strategy.limitManager).setProgressMonitor(progressMonitor,
+					 configuration.readLong(Configuration.PROGRESS_PERIOD));
+		 }
+	 }
+
+	 public final IProgressMonitor getProgressMonitor() {
+		 return progressMonitor;
+	 }
+
+	 /**
+	  * Requests the search to stop, possibly from another thread.
+	  * The search stops at its next node, and a long propagation stops after a few propagators.
+	  * The solver stays cancelled: a new token must be set before solving again.
+	  * A cancelled search has encountered a limit: it is never reported infeasible.
+	  */
+	 public final void cancel() {
+		 cancellationToken.cancel();
+	 }
+
+	 public final boolean isCancelled() {
+		 return cancellationToken.isCancelled();
+	 }
+
+	 public final CancellationToken getCancellationToken() {
+		 return cancellationToken;
+	 }
+
+	 /**
+	  * Sets the token checked by the search and the propagation. A token shared by several solvers cancels them at once.
+	  * @param cancellationToken a token, a new one if null
+	  */
+	 public final void setCancellationToken(CancellationToken cancellationToken) {
+		 this.cancellationToken = cancellationToken == null ? new CancellationToken() : cancellationToken;
+		 ((ChocoEngine) propagationEngine).setCancellationToken(this.cancellationToken);
+		 if (strategy != null) {
+			 ((SearchLimitManager) strategy.limitManager).getInterruptLimit().setCancellationToken(this.cancellationToken);
+		 }
+	 }
+
 	 public final IndexFactory getIndexfactory() {
 		 return indexfactory;
 	 }
@@ -578,6 +647,55 @@ public class CPSolver implements Solver {
 		 }
 	 }
 
+	 /**
+	  * Reads a model constraint and adds it as a cut, see {@link #postCut(SConstraint)}.
+	  * The constraint is not recorded in the map of the constraints, so that it can be removed by
+	  * {@link #eraseConstraint(SConstraint)} and read again later on.
+	  * Unlike {@link #addConstraint(Constraint...)}, it can be called above the root world:
+	  * the variables of the constraint must have been read beforehand, only its constants are read,
+	  * and an expression is posted in extension.
+	  *
+	  * @param ic the model constraint
+	  * @return the solver constraint
+	  */
+	 public SConstraint postCut(Constraint ic) {
+		 final Iterator<Variable> it = ic.getVariableIterator();
+		 while (it.hasNext()) {
+			 _readConstant(it.next());
+		 }
+		 ic.findManager(model.properties);
+		 //an expression is not decomposed, which would introduce new variables
+		 final SConstraint c = mod2sol.makeSConstraint(ic, Boolean.FALSE);
+		 postCut(c);
+		 return c;
+	 }
+
+	 private void _readConstant(Variable v) {
+		 switch (v.getVariableType()) {
+		 case CONSTANT_INTEGER:
+		 case CONSTANT_DOUBLE:
+		 case CONSTANT_SET:
+			 if (!mapvariables.containsKey(v.getIndex())) {
+				 _readVariable(v);
+			 }
+			 break;
+		 case INTEGER_EXPRESSION:
+		 case SET_EXPRESSION:
+		 case REAL_EXPRESSION:
+		 case MULTIPLE_VARIABLES:
+			 v.findManager(model.properties);
+			 final Iterator<Variable> it = v.getVariableIterator();
+			 while (it.hasNext()) {
+				 _readConstant(it.next());
+			 }
+			 break;
+		 default:
+			 if (!mapvariables.containsKey(v.getIndex())) {
+				 throw new SolverException("the variable " + v.pretty() + " has not been read by the solver");
+			 }
+		 }
+	 }
+
 	 private void _readVariable(Variable v) {
 		 v.findManager(model.properties);
 		 switch (v.getVariableType()) {
@@ -777,8 +895,14 @@ public class CPSolver implements Solver {
 		  assert strategy != null;
 		  strategy.setSolutionPool(StrategyFactory.createSolutionPool(strategy));
 		  strategy.setSolutionMonitor(solutionMonitor);
+		  if (solutionHint != null && strategy instanceof AbstractOptimize) {
+			  ((AbstractOptimize) strategy).setSolutionHint(solutionHint.getSolution());
+		  }
 		  generateSearchLoop();
-		  strategy.setLimitManager(LimitFactory.createLimitManager(strategy));
+		  final SearchLimitManager limitManager = LimitFactory.createLimitManager(strategy);
+		  limitManager.getInterruptLimit().setCancellationToken(cancellationToken);
+		  limitManager.setProgressMonitor(progressMonitor, configuration.readLong(Configuration.PROGRESS_PERIOD));
+		  strategy.setLimitManager(limitManager);
 		  strategy.setShavingTools(StrategyFactory.createShavingTools(this));
 
 		  if (ilogGoal == null) {
@@ -860,7 +984,16 @@ public class CPSolver implements Solver {
 		  if (valIntIterator == null && valIntSelector == null) {
 			  valIntIterator = new IncreasingDomain();
 		  }
+		  if (solutionHint != null) {
+			  return generateDefaultIntGoal(
+					  valIntIterator == null ? null : new SolutionHintValIterator(solutionHint, valIntIterator),
+					  valIntIterator == null ? new SolutionHintValSelector(solutionHint, valIntSelector) : null);
+		  }
+		  return generateDefaultIntGoal(valIntIterator, valIntSelector);
+	  }
 
+	  private AbstractIntBranchingStrategy generateDefaultIntGoal(ValIterator<IntDomainVar> valIntIterator,
+			  ValSelector<IntDomainVar> valIntSelector) {
 		  if (varIntSelector == null) {
 			  if (intDecisionVars.isEmpty()) {
 				  return valIntIterator == null ? incDomWDegBin(this, valIntSelector) : incDomWDeg(this, valIntIterator);
@@ -1265,6 +1398,10 @@ public class CPSolver implements Solver {
 		  this.valIntIterator = valIterator;
 	  }
 
+	  public ValIterator<IntDomainVar> getValIntIterator() {
+		  return valIntIterator;
+	  }
+
 	  /**
 	   * Sets the real value iterator the search should use
 	   */
@@ -1286,6 +1423,39 @@ public class CPSolver implements Solver {
 		  this.valIntSelector = valSelector;
 	  }
 
+	  /**
+	   * Warm starts the search from a solution, for instance the solution of a close problem.
+	   * The value ordering of the default integer branching tries the hinted values first.
+	   * An optimization search checks the hint by propagation at the root node: if it is a solution,
+	   * it is recorded as the incumbent solution and bounds the objective before the search.
+	   * The hint must be set before the generation of the branching to bias its value ordering.
+	   *
+	   * @param hint a (partial) solution of this solver, or null to remove the hint
+	   */
+	  public void setSolutionHint(Solution hint) {
+		  if (hint == null) {
+			  if (solutionHint != null) {
+				  solutionHint.clear();
+			  }
+		  } else {
+			  if (solutionHint == null) {
+				  solutionHint = new SolutionHint();
+			  }
+			  solutionHint.set(this, hint);
+		  }
+		  if (strategy instanceof AbstractOptimize) {
+			  ((AbstractOptimize) strategy).setSolutionHint(hint);
+		  }
+	  }
+
+	  public final Solution getSolutionHint() {
+		  return solutionHint == null ? null : solutionHint.getSolution();
+	  }
+
+	  public ValSelector<IntDomainVar> getValIntSelector() {
+		  return valIntSelector;
+	  }
+
 	  /**
 	   * Sets the integer value selector the search should use
 	   */
@@ -1552,6 +1722,33 @@ public class CPSolver implements Solver {
 		  return propagationEngine;
 	  }
 
+	  /**
+	   * Turns on or off the profiling of the propagation: calls, failures and time of each propagator.
+	   * When on, the profile is appended to the {@link #runtimeStatistics()}.
+	   *
+	   * @param profiling true to install a new profiler, false to remove it
+	   * @return the installed profiler, null if profiling is turned off
+	   */
+	  public PropagationProfiler setPropagationProfiling(boolean profiling) {
+		  final ChocoEngine engine = (ChocoEngine) propagationEngine;
+		  if (profiling) {
+			  if (engine.getProfiler() == null) {
+				  engine.setProfiler(new PropagationProfiler());
+			  }
+		  } else {
+			  engine.setProfiler(null);
+		  }
+		  return engine.getProfiler();
+	  }
+
+	  /**
+	   * Returns the profiler of the propagation, null if profiling is off.
+	   * It can be exported through JMX, see {@link PropagationProfiler#register(String)}.
+	   */
+	  public PropagationProfiler getPropagationProfiler() {
+		  return propagationEngine instanceof ChocoEngine ? ((ChocoEngine) propagationEngine).getProfiler() : null;
+	  }
+
 	  /**
 	   * get the list of decision integer variables.
 	   *
@@ -2169,6 +2366,22 @@ public class CPSolver implements Solver {
 		  return solve(true);
 	  }
 
+	  /**
+	   * Enumerates the solutions on demand, without storing them: the search only advances when the next solution is asked.
+	   * @return an iterator over the solutions, whose buffer is reused from one solution to the next
+	   */
+	  public SolutionIterator solutionIterator() {
+		  return new SolutionIterator(this);
+	  }
+
+	  /**
+	   * Counts the solutions without recording them, see {@link SolutionCounter}.
+	   * @return the number of solutions, or null if the solver has been cancelled
+	   */
+	  public BigInteger countSolutions() {
+		  return new SolutionCounter(this).count();
+	  }
+
 	  public Boolean nextSolution() {
 		  return strategy.nextSolution();
 	  }
@@ -2243,10 +2456,12 @@ public class CPSolver implements Solver {
 	   * @return
 	   */
 	  public String runtimeStatistics() {
+		  final PropagationProfiler profiler = getPropagationProfiler();
+		  final String profile = profiler == null ? "" : "\n" + profiler.report(10);
 		  if (strategy != null) {
-			  return StringUtils.pretty(strategy) + " - " + strategy.limitManager.pretty();
+			  return StringUtils.pretty(strategy) + " - " + strategy.limitManager.pretty() + profile;
 		  } else {
-			  return "";
+			  return profile;
 		  }
 	  }
 
@@ -27,6 +27,7 @@
 
 package choco.cp.solver.configure;
 
+import static choco.kernel.solver.Configuration.MEMORY_BUDGET;
 import static choco.kernel.solver.Configuration.RESTART_LIMIT;
 import static choco.kernel.solver.Configuration.RESTART_LIMIT_BOUND;
 import static choco.kernel.solver.Configuration.SEARCH_LIMIT;
@@ -39,6 +40,8 @@ import choco.kernel.solver.search.limit.AbstractGlobalSearchLimit;
 import choco.kernel.solver.search.limit.BackTrackLimit;
 import choco.kernel.solver.search.limit.FailLimit;
 import choco.kernel.solver.search.limit.Limit;
+import choco.kernel.solver.search.limit.InterruptLimit;
+import choco.kernel.solver.search.limit.MemoryLimit;
 import choco.kernel.solver.search.limit.NodeLimit;
 import choco.kernel.solver.search.limit.RestartLimit;
 import choco.kernel.solver.search.limit.SolutionLimit;
@@ -100,6 +103,11 @@ public final class LimitFactory {
 			return new FailLimit(strategy, theLimit);
 		}
 		case SOLUTION : return new SolutionLimit(strategy, theLimit);
+		case MEMORY: {
+			strategy.solver.getEnvironment().setMemoryBudget(theLimit);
+			return new MemoryLimit(strategy, theLimit);
+		}
+		case INTERRUPT: return new InterruptLimit(strategy);
 		default: 
 			return null;
 		}
@@ -109,10 +117,24 @@ public final class LimitFactory {
 		return solver.getConfiguration().readEnum(Configuration.RESTART_POLICY_LIMIT, Limit.class);
 	}
 
+	public final static void setMemoryBudget(Configuration conf, long budget) {
+		conf.putLong(MEMORY_BUDGET, budget);
+	}
+
+	public final static void setMemoryBudget(Solver solver, long budget) {
+		setMemoryBudget(solver.getConfiguration(), budget);
+	}
+
+	public final static AbstractGlobalSearchLimit makeMemoryLimit(AbstractGlobalSearchStrategy strategy) {
+		final long budget = strategy.solver.getConfiguration().readLong(MEMORY_BUDGET);
+		return budget > 0 ? createLimit(strategy, Limit.MEMORY, budget) : null;
+	}
+
 	public final static SearchLimitManager createLimitManager(AbstractGlobalSearchStrategy strategy) {
 		final SearchLimitManager limitManager = new SearchLimitManager(strategy);
 		limitManager.setSearchLimit(makeSearchLimit(strategy)); //controlling the search
 		limitManager.setRestartLimit(makeRestartLimit(strategy)); //controlling the restarts
+		limitManager.setMemoryLimit(makeMemoryLimit(strategy)); //controlling the trails
 		//controlling the restart strategy
 		limitManager.setRestartStrategy(
 				RestartFactory.createRestartStrategy(strategy.solver),
@@ -27,10 +27,13 @@
 
 package choco.cp.solver.configure;
 
+import choco.cp.solver.CPSolver;
 import choco.cp.solver.search.AbstractSearchLoopWithRestart;
 import choco.cp.solver.search.BranchAndBound;
 import choco.cp.solver.search.SearchLoop;
 import choco.cp.solver.search.SearchLoopWithRecomputation;
+import choco.cp.solver.search.parallel.ParallelProbing;
+import choco.cp.solver.search.parallel.ParallelShavingTools;
 import choco.cp.solver.search.real.RealBranchAndBound;
 import choco.cp.solver.search.restart.BasicKickRestart;
 import choco.cp.solver.search.restart.IKickRestart;
@@ -136,7 +139,12 @@ public final class StrategyFactory {
 	}
 
 	public static ISolutionPool createSolutionPool(AbstractGlobalSearchStrategy strategy) {
-		return SolutionPoolFactory.makeDefaultSolutionPool(strategy, strategy.solver.getConfiguration().readInt(Configuration.SOLUTION_POOL_CAPACITY), strategy.solver.getConfiguration().readBoolean(Configuration.LAST_SOLUTION_POOL));
+		final Configuration conf = strategy.solver.getConfiguration();
+		final int capacity = conf.readInt(Configuration.SOLUTION_POOL_CAPACITY);
+		if (capacity == Integer.MAX_VALUE && conf.readBoolean(Configuration.COLUMNAR_SOLUTION_POOL)) {
+			return SolutionPoolFactory.makeColumnarSolutionPool(strategy, conf.readLong(Configuration.COLUMNAR_SOLUTION_POOL_HEAP), null);
+		}
+		return SolutionPoolFactory.makeDefaultSolutionPool(strategy, capacity, conf.readBoolean(Configuration.LAST_SOLUTION_POOL));
 	}
 
 	public static boolean isUsingShavingTools(Solver solver) {
@@ -149,9 +157,11 @@ public final class StrategyFactory {
 	public static ShavingTools createShavingTools(Solver solver) {
 		if( isUsingShavingTools(solver) ) {
 			final Configuration conf = solver.getConfiguration();
-			ShavingTools shavingTools = new ShavingTools(solver, 
-					conf.readBoolean(INIT_SHAVE_ONLY_DECISIONS) ? 
-							solver.getIntDecisionVars() : VariableUtils.getIntVars(solver));
+			final IntDomainVar[] vars = conf.readBoolean(INIT_SHAVE_ONLY_DECISIONS) ? 
+					solver.getIntDecisionVars() : VariableUtils.getIntVars(solver);
+			final int nbWorkers = conf.readInt(INIT_PROBING_NB_WORKERS);
+			final ShavingTools shavingTools = nbWorkers > 1 && solver instanceof CPSolver && ParallelProbing.isCloneable((CPSolver) solver) ?
+					new ParallelShavingTools((CPSolver) solver, vars, nbWorkers) : new ShavingTools(solver, vars);
 			shavingTools.setShavingLowerBound( conf.readBoolean(INIT_DLB_SHAVING));
 			shavingTools.setDetectLuckySolution( conf.readBoolean(BOTTOM_UP) );
 			return shavingTools;
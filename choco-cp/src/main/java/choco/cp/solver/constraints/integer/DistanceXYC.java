@@ -259,6 +259,8 @@ public final class DistanceXYC extends AbstractBinIntSConstraint {
                     this.setEntailed();
                     break;
             }
+        } else {
+            propagate();
         }
     }
 
@@ -424,7 +426,26 @@ public String pretty() {
 
     @Override
 	public Boolean isEntailed() {
-        throw new UnsupportedOperationException("isEntailed not yet implemented on DistanceXYC constraint");
+        final int maxDist = Math.max(v0.getSup() - v1.getInf(), v1.getSup() - v0.getInf());
+        final int minDist = Math.max(0, Math.max(v0.getInf() - v1.getSup(), v1.getInf() - v0.getSup()));
+        if (operator == EQ || operator == NEQ) {
+            final Boolean eq;
+            if (cste < minDist || cste > maxDist) {
+                eq = Boolean.FALSE;
+            } else if (minDist == maxDist) {
+                eq = Boolean.TRUE;
+            } else {
+                return null;
+            }
+            return operator == EQ ? eq : !eq;
+        } else if (operator == LT) {
+            if (maxDist < cste) return Boolean.TRUE;
+            if (minDist >= cste) return Boolean.FALSE;
+        } else {
+            if (minDist > cste) return Boolean.TRUE;
+            if (maxDist <= cste) return Boolean.FALSE;
+        }
+        return null;
     }
 
     @Override
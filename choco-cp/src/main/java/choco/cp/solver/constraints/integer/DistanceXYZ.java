@@ -267,7 +267,21 @@ public final class DistanceXYZ extends AbstractTernIntSConstraint {
 
 	@Override
 	public Boolean isEntailed() {
-		throw new UnsupportedOperationException("isEntailed not yet implemented on DistanceXYC constraint");
+		final int maxDist = Math.max(v0.getSup() - v1.getInf(), v1.getSup() - v0.getInf());
+		final int minDist = Math.max(0, Math.max(v0.getInf() - v1.getSup(), v1.getInf() - v0.getSup()));
+		final int inf = v2.getInf() + cste;
+		final int sup = v2.getSup() + cste;
+		if (operator == EQ) {
+			if (maxDist < inf || minDist > sup) return Boolean.FALSE;
+			if (minDist == maxDist && inf == sup) return Boolean.TRUE;
+		} else if (operator == LT) {
+			if (maxDist < inf) return Boolean.TRUE;
+			if (minDist >= sup) return Boolean.FALSE;
+		} else {
+			if (minDist > sup) return Boolean.TRUE;
+			if (maxDist <= inf) return Boolean.FALSE;
+		}
+		return null;
 	}
 
 	@Override
@@ -211,6 +211,16 @@ public final class IntLinComb extends AbstractLargeIntSConstraint {
 		return intlincomb.isSatisfied(tuple);
 	}
 
+    /**
+     * Checks if the constraint is entailed or disentailed by the bounds of the variables.
+     *
+     * @return {@link Boolean#TRUE} if entailed, {@link Boolean#FALSE} if disentailed, null otherwise
+     */
+    @Override
+    public Boolean isEntailed() {
+        return intlincomb.isEntailed();
+    }
+
     /**
      * Get the opposite constraint
      *
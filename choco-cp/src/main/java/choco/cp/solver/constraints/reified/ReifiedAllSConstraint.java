@@ -144,6 +144,18 @@ public class ReifiedAllSConstraint extends AbstractSConstraint implements IntPro
         }
     }
 
+    /**
+     * Once the boolean is known, the constraint is entailed (or disentailed)
+     * when the constraint selected by the boolean is.
+     */
+    @Override
+    public Boolean isEntailed() {
+        if (bool.isInstantiated()) {
+            return bool.getVal() == 1 ? cons.isEntailed() : oppositeCons.isEntailed();
+        }
+        return null;
+    }
+
     public final void filter() throws ContradictionException {
         if (vars[0].isInstantiated()) {
             filterReifiedConstraintFromBool();
@@ -169,6 +169,18 @@ public class ReifiedIntSConstraint extends AbstractLargeIntSConstraint{
         }
     }
 
+    /**
+     * Once the boolean is known, the constraint is entailed (or disentailed)
+     * when the constraint selected by the boolean is.
+     */
+    @Override
+    public Boolean isEntailed() {
+        if (vars[0].isInstantiated()) {
+            return vars[0].getVal() == 1 ? cons.isEntailed() : oppositeCons.isEntailed();
+        }
+        return null;
+    }
+
     @Override
     public final int getFilteredEventMask(final int idx) {
         if (vars[idx].hasEnumeratedDomain()) {
@@ -126,6 +126,17 @@ public final class IsIncluded extends AbstractBinSetSConstraint {
 		return isSatisfied();
 	}
 
+	@Override
+	public Boolean isEntailed() {
+		if (isEnveloppeIncludedInKernel(v0, v1)) {
+			return Boolean.TRUE;
+		} else if (!isKernelIncludedInEnveloppe(v0, v1)) {
+			return Boolean.FALSE;
+		} else {
+			return null;
+		}
+	}
+
 	@Override
 	public String toString() {
 		return v0 + " disjoint " + v1;
@@ -183,6 +183,17 @@ public final class IsNotIncluded extends AbstractBinSetSConstraint {
 		return isSatisfied();
 	}
 
+	@Override
+	public Boolean isEntailed() {
+		if (!isKernelIncludedInEnveloppe(v0, v1)) {
+			return Boolean.TRUE;
+		} else if (isEnveloppeIncludedInKernel(v0, v1)) {
+			return Boolean.FALSE;
+		} else {
+			return null;
+		}
+	}
+
 	@Override
 	public String toString() {
 		return v0 + " is Not Included in " + v1;
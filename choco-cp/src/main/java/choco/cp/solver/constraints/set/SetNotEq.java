@@ -196,6 +196,17 @@ public final class SetNotEq extends AbstractBinSetSConstraint {
 		return isSatisfied();
 	}
 
+	@Override
+	public Boolean isEntailed() {
+		if (!isKernelIncludedInEnveloppe(v0, v1) || !isKernelIncludedInEnveloppe(v1, v0)) {
+			return Boolean.TRUE;
+		} else if (isEnveloppeIncludedInKernel(v0, v1) && isEnveloppeIncludedInKernel(v1, v0)) {
+			return Boolean.FALSE;
+		} else {
+			return null;
+		}
+	}
+
 	@Override
 	public String toString() {
 		return v0 + " neq " + v1;
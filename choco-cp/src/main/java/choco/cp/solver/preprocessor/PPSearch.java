@@ -179,6 +179,29 @@ public class PPSearch {
     }
 
 
+    /**
+     * set the DomOverWDeg heuristic backed by a flat weighted degree store
+     *
+     * @param s
+     * @param decay decay of the weights after each failure
+     * @return true if the problem was not detected infeasible in the process
+     */
+    public boolean setHeapDomOverWDeg(CPSolver s, double decay) {
+        IntDomainVar[] vars = s.getIntDecisionVars();
+        if (isScheduling()) {
+            vars = isMixedScheduling() ? concat(getBooleanVars(s), getOtherVars(s)) : getBooleanVars(s);
+        }
+        AssignVar dwd = randval ?
+                BranchingFactory.heapDomWDeg(s, vars, new RandomIntValSelector(randvalseed), decay) :
+                BranchingFactory.heapDomWDeg(s, vars, new IncreasingDomain(), decay);
+        s.attachGoal(dwd);
+        if (isScheduling() && !isMixedScheduling()) { //pure scheduling
+            s.addGoal(BranchingFactory.minDomIncDom(s, getOtherVars(s)));
+        }
+        return true;
+    }
+
+
     /**
      * set the Impact heuristic
      *
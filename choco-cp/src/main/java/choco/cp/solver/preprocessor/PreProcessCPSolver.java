@@ -206,6 +206,17 @@ public class PreProcessCPSolver extends CPSolver {
 		return ppsearch.setDomOverWeg(s, inittime);
 	}
 
+	/**
+	 * set the DomOverWDeg heuristic backed by a flat weighted degree store
+	 *
+	 * @param s     solver
+	 * @param decay decay of the weights after each failure
+	 * @return true if the problem was not detected infeasible in the process
+	 */
+	public boolean setHeapDomOverWDeg(final CPSolver s, final double decay) {
+		return ppsearch.setHeapDomOverWDeg(s, decay);
+	}
+
 
 	/**
 	 * set the Impact heuristic
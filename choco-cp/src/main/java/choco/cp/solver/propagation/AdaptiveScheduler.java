@@ -0,0 +1,159 @@
+/**
+ *  Copyright (c) 1999-2010, Ecole des Mines de Nantes
+ *  All rights reserved.
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *      * Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *      * Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *      * Neither the name of the Ecole des Mines de Nantes nor the
+ *        names of its contributors may be used to endorse or promote products
+ *        derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ *  EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package choco.cp.solver.propagation;
+
+import choco.kernel.solver.ContradictionException;
+import choco.kernel.solver.propagation.event.ConstraintEvent;
+import choco.kernel.solver.propagation.event.PropagationEvent;
+
+import java.util.IdentityHashMap;
+
+/**
+ * Learns the priority of the constraint awake events of a {@link ChocoEngine}.
+ * <p/>
+ * Each propagation of a constraint event is measured: its duration and whether it pruned a domain
+ * (posted a variable event) or failed. Both are smoothed by exponential moving averages, and
+ * the expected cost of a pruning, duration / yield, is mapped on the priorities
+ * {@link ConstraintEvent#UNARY} to {@link ConstraintEvent#VERY_SLOW} by steps of a factor 4.
+ * Cheap and effective propagators are thus propagated first, expensive propagators which seldom prune
+ * are delayed until the fixpoint of the others is reached. Only the order of the propagations changes:
+ * the fixpoint is the same for idempotent propagators, but the pruning of non idempotent ones may differ.
+ * As the priorities depend on measured times, two runs may not explore exactly the same search tree.
+ * <p/>
+ * The declared priority of a constraint is kept until it has been propagated {@link #PERIOD} times,
+ * then its priority is revised every {@link #PERIOD} propagations.
+ */
+final class AdaptiveScheduler {
+
+	/**
+	 * Number of propagations between two revisions of the priority of a constraint.
+	 */
+	static final int PERIOD = 8;
+
+	/**
+	 * Smoothing of the moving averages: weight of the last sample.
+	 */
+	private static final double ALPHA = 1.0 / 8;
+
+	/**
+	 * Lowest yield taken into account, to bound the cost of the propagators which never prune.
+	 */
+	private static final double MIN_YIELD = 1.0 / 32;
+
+	/**
+	 * Expected cost of a pruning (in nanoseconds) under which a constraint gets the highest priority.
+	 */
+	private static final double BASE_COST = 512;
+
+	private static final double LOG4 = Math.log(4);
+
+	/**
+	 * Cost model of a constraint.
+	 */
+	static final class Score {
+
+		int samples;
+
+		double nanos;
+
+		double yield;
+
+		/**
+		 * @return the expected cost of a pruning, in nanoseconds
+		 */
+		double getCostPerPruning() {
+			return nanos / Math.max(yield, MIN_YIELD);
+		}
+	}
+
+	private final ChocoEngine engine;
+
+	private final IdentityHashMap<PropagationEvent, Score> scores = new IdentityHashMap<PropagationEvent, Score>();
+
+	AdaptiveScheduler(ChocoEngine engine) {
+		this.engine = engine;
+	}
+
+	/**
+	 * Propagates the next event of a constraint queue, measuring its cost and yield.
+	 *
+	 * @param queue a non empty queue of the engine
+	 * @throws ContradictionException if the propagation fails
+	 */
+	void propagateOneEvent(final ConstraintEventQueue queue) throws ContradictionException {
+		final PropagationEvent event = queue.popEvent();
+		final long nbEvents = engine.getNbPostedEvents();
+		final long start = System.nanoTime();
+		boolean failed = true;
+		try {
+			queue.propagate(event);
+			failed = false;
+		} finally {
+			record((ConstraintEvent) event, System.nanoTime() - start,
+					failed || engine.getNbPostedEvents() != nbEvents);
+		}
+	}
+
+	private void record(final ConstraintEvent event, final long nanos, final boolean pruned) {
+		Score score = scores.get(event);
+		if (score == null) {
+			score = new Score();
+			score.nanos = nanos;
+			score.yield = pruned ? 1 : 0;
+			scores.put(event, score);
+		} else {
+			score.nanos += (nanos - score.nanos) * ALPHA;
+			score.yield += ((pruned ? 1 : 0) - score.yield) * ALPHA;
+		}
+		if (++score.samples % PERIOD == 0) {
+			final int priority = getPriority(score.getCostPerPruning());
+			if (priority != event.getPriority()) {
+				engine.changePriority(event, priority);
+			}
+		}
+	}
+
+	/**
+	 * @param costPerPruning expected cost of a pruning, in nanoseconds
+	 * @return the priority of a constraint with such a cost
+	 */
+	static int getPriority(final double costPerPruning) {
+		if (costPerPruning <= BASE_COST) {
+			return ConstraintEvent.UNARY;
+		}
+		final int priority = ConstraintEvent.UNARY + 1 + (int) (Math.log(costPerPruning / BASE_COST) / LOG4);
+		return Math.min(priority, ConstraintEvent.VERY_SLOW);
+	}
+
+	/**
+	 * Forgets all the measures.
+	 */
+	void clear() {
+		scores.clear();
+	}
+}
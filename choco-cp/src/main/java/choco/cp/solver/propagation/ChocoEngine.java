@@ -37,7 +37,9 @@ import choco.kernel.solver.propagation.Propagator;
 import choco.kernel.solver.propagation.event.ConstraintEvent;
 import choco.kernel.solver.propagation.event.PropagationEvent;
 import choco.kernel.solver.propagation.event.VarEvent;
+import choco.kernel.solver.propagation.profiling.PropagationProfiler;
 import choco.kernel.solver.propagation.queue.EventQueue;
+import choco.kernel.solver.search.limit.CancellationToken;
 import choco.kernel.solver.variables.Var;
 
 import java.util.ArrayList;
@@ -85,6 +87,38 @@ public class ChocoEngine extends AbstractPropagationEngine {
     private int[] v_order;
     private int[] c_order;
 
+    /**
+     * Profiler of the propagation, null if profiling is off.
+     */
+    private PropagationProfiler profiler;
+
+    /**
+     * Learns the priorities of the constraints, null if the priorities are static.
+     */
+    private AdaptiveScheduler scheduler;
+
+    /**
+     * Whether the constraints of the instantiated variables are checked for entailment.
+     */
+    private boolean entailmentCheck;
+
+    /**
+     * Number of variable events posted since the creation of the engine.
+     */
+    private long nbPostedEvents;
+
+    /**
+     * Number of constraint events propagated between two checks of the cancellation token.
+     */
+    private static final int CANCELLATION_CHECK_PERIOD = 64;
+
+    /**
+     * Token stopping a long propagation, null if the propagation cannot be cancelled.
+     */
+    private CancellationToken cancellationToken;
+
+    private int cancellationCountdown = CANCELLATION_CHECK_PERIOD;
+
     /**
      * Constructs a new engine by initializing the var queues.
      *
@@ -100,6 +134,7 @@ public class ChocoEngine extends AbstractPropagationEngine {
         varEventQueue = new VariableEventQueue[ConstraintEvent.NB_PRIORITY];
         for (int i = 1; i < ConstraintEvent.NB_PRIORITY; i++) {
             varEventQueue[i] = new VariableEventQueue();
+            varEventQueue[i].setEntailmentCheck(entailmentCheck);
         }
         nbPendingInitConstAwakeEvent = 0;
     }
@@ -116,6 +151,13 @@ public class ChocoEngine extends AbstractPropagationEngine {
     public void loadSettings(Configuration configuration){
         v_order = toInt(configuration.readString(Configuration.VEQ_ORDER));
         c_order = toInt(configuration.readString(Configuration.CEQ_ORDER));
+        scheduler = configuration.readBoolean(Configuration.CEQ_ADAPTIVE) ? new AdaptiveScheduler(this) : null;
+        entailmentCheck = configuration.readBoolean(Configuration.ENTAILMENT_CHECK);
+        if (varEventQueue != null) {
+            for (int i = 1; i < varEventQueue.length; i++) {
+                varEventQueue[i].setEntailmentCheck(entailmentCheck);
+            }
+        }
     }
 
 
@@ -153,6 +195,7 @@ public class ChocoEngine extends AbstractPropagationEngine {
     //       - par ailleurs, noter le changement (garder la vieille valeur de la borne ou
     //       - devenir enqueued
     public void postEvent(final Var v, final int basicEvt, final SConstraint constraint, final boolean forceAwake) {
+        nbPostedEvents++;
         VarEvent<? extends Var> event = v.getEvent();
         boolean alreadyEnqueued = event.isEnqueued();
         event.recordEventTypeAndCause(basicEvt, constraint, forceAwake);
@@ -202,6 +245,21 @@ public class ChocoEngine extends AbstractPropagationEngine {
      */
     @Override
     public void propagateEvents() throws ContradictionException {
+        if (profiler == null) {
+            propagateFixpoint();
+        } else {
+            final long start = profiler.startFixpoint();
+            boolean failed = true;
+            try {
+                propagateFixpoint();
+                failed = false;
+            } finally {
+                profiler.endFixpoint(start, failed);
+            }
+        }
+    }
+
+    private void propagateFixpoint() throws ContradictionException {
         do {
             // first empty variable events
             int idx;
@@ -215,23 +273,99 @@ public class ChocoEngine extends AbstractPropagationEngine {
 
             // then propagate one constraint event
             if (c_active > 0) {
+                if (--cancellationCountdown == 0) {
+                    checkCancellation();
+                }
                 idx = indice[c_active];
                 if (this.constEventQueues[idx].size() == 1) {
                     c_active -= 1 << idx;
                 }
-                this.constEventQueues[idx].propagateOneEvent();
+                if (scheduler == null) {
+                    this.constEventQueues[idx].propagateOneEvent();
+                } else {
+                    scheduler.propagateOneEvent(this.constEventQueues[idx]);
+                }
             }
         } while (v_active > 0 || c_active > 0);
         assert checkCleanState();
     }
 
+    private void checkCancellation() throws ContradictionException {
+        cancellationCountdown = CANCELLATION_CHECK_PERIOD;
+        if (cancellationToken != null && cancellationToken.isCancelled()) {
+            //the search notices the cancellation at its next node
+            raiseContradiction(cancellationToken);
+        }
+    }
+
+    /**
+     * Sets the token checked periodically during the propagation.
+     * A cancelled propagation fails, so that the search stops at its next node.
+     *
+     * @param cancellationToken the token, or null if the propagation cannot be cancelled
+     */
+    public void setCancellationToken(CancellationToken cancellationToken) {
+        this.cancellationToken = cancellationToken;
+    }
+
+    public CancellationToken getCancellationToken() {
+        return cancellationToken;
+    }
+
+    /**
+     * Installs a profiler on the engine and its queues.
+     *
+     * @param profiler the profiler, or null to stop profiling
+     */
+    public void setProfiler(PropagationProfiler profiler) {
+        this.profiler = profiler;
+        for (int i = 1; i < ConstraintEvent.NB_PRIORITY; i++) {
+            constEventQueues[i].setProfiler(profiler);
+            varEventQueue[i].setProfiler(profiler);
+        }
+    }
+
+    /**
+     * @return the profiler of the engine, null if profiling is off
+     */
+    public PropagationProfiler getProfiler() {
+        return profiler;
+    }
+
+    /**
+     * @return the number of variable events posted since the creation of the engine
+     */
+    public long getNbPostedEvents() {
+        return nbPostedEvents;
+    }
+
+    /**
+     * Moves a constraint event to the queue of another priority.
+     * The event is left unchanged while it is waiting in its queue.
+     *
+     * @param event the constraint event
+     * @param priority the new priority
+     */
+    void changePriority(final ConstraintEvent event, final int priority) {
+        final int from = c_order[event.getPriority()];
+        final int to = c_order[priority];
+        if (constEventQueues[from].contains(event)) {
+            return;
+        }
+        if (from != to) {
+            constEventQueues[from].delete(event);
+            constEventQueues[to].add(event);
+        }
+        event.setPriority(priority);
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     public void desactivatePropagator(Propagator propagator) {
         PropagationEvent event = propagator.getEvent();
-        int idx = c_order[propagator.getPriority()];
+        int idx = c_order[event.getPriority()];
         if (constEventQueues[idx].remove(event)) {
             if (this.constEventQueues[idx].isEmpty()) {
                 c_active -= 1 << idx;
@@ -30,8 +30,10 @@ package choco.cp.solver.propagation;
 import choco.kernel.common.util.objects.BipartiteSet;
 import choco.kernel.solver.ContradictionException;
 import choco.kernel.solver.propagation.PropagationEngine;
+import choco.kernel.solver.propagation.Propagator;
 import choco.kernel.solver.propagation.event.ConstraintEvent;
 import choco.kernel.solver.propagation.event.PropagationEvent;
+import choco.kernel.solver.propagation.profiling.PropagationProfiler;
 import choco.kernel.solver.propagation.queue.EventQueue;
 
 import java.util.Iterator;
@@ -55,6 +57,12 @@ public class ConstraintEventQueue implements EventQueue {
 
 	private BipartiteSet<PropagationEvent> partition;
 
+	/**
+	 * Profiler of the propagation, null if profiling is off.
+	 */
+
+	private PropagationProfiler profiler;
+
 
 	/**
 	 * Constructs a new queue for the specified engine.
@@ -65,6 +73,15 @@ public class ConstraintEventQueue implements EventQueue {
 		this.partition = new BipartiteSet<PropagationEvent>();
 	}
 
+	/**
+	 * Sets the profiler notified of each constraint awake event.
+	 *
+	 * @param profiler the profiler, or null to stop profiling
+	 */
+	public void setProfiler(PropagationProfiler profiler) {
+		this.profiler = profiler;
+	}
+
 	/**
 	 * Clear datastructures for safe reuses
 	 */
@@ -138,6 +155,28 @@ public class ConstraintEventQueue implements EventQueue {
 	}
 
 
+	/**
+	 * Removes a constraint from the set, the constraint being handled by another queue.
+	 * It is the reverse operation of {@link #add(PropagationEvent)}.
+	 */
+
+	public void delete(PropagationEvent event) {
+		if (this.partition.isIn(event)) {
+			this.remove(event);
+			this.partition.remove(event);
+		}
+	}
+
+
+	/**
+	 * Checks if the event is waiting in the queue.
+	 */
+
+	public boolean contains(PropagationEvent event) {
+		return this.partition.isIn(event) && this.partition.isLeft(event);
+	}
+
+
 	/**
 	 * Removes the var from the left part.
 	 */
@@ -163,7 +202,7 @@ public class ConstraintEventQueue implements EventQueue {
 
 	public void propagateAllEvents() throws ContradictionException {
 		while (partition.getNbLeft() != 0) {
-			this.popEvent().propagateEvent();
+			propagate(this.popEvent());
 		}
 	}
 
@@ -176,7 +215,37 @@ public class ConstraintEventQueue implements EventQueue {
 
 	public void propagateOneEvent() throws ContradictionException {
 		if (partition.getNbLeft() != 0) {
-			this.popEvent().propagateEvent();
+			propagate(this.popEvent());
+		}
+	}
+
+	/**
+	 * Propagates a popped event.
+	 *
+	 * @throws choco.kernel.solver.ContradictionException
+	 *
+	 */
+
+	void propagate(PropagationEvent event) throws ContradictionException {
+		if (profiler != null) {
+			propagateProfiled(event);
+		} else {
+			event.propagateEvent();
+		}
+	}
+
+	/**
+	 * Propagates an awake event, reporting it to the profiler.
+	 */
+	private void propagateProfiled(PropagationEvent event) throws ContradictionException {
+		profiler.coarseEvent((Propagator) event.getModifiedObject());
+		try {
+			event.propagateEvent();
+		} catch (ContradictionException e) {
+			profiler.failure();
+			throw e;
+		} finally {
+			profiler.endEvent();
 		}
 	}
 
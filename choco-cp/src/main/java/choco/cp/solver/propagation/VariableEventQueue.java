@@ -28,15 +28,15 @@
 package choco.cp.solver.propagation;
 
 
-import choco.cp.solver.preprocessor.PreProcessCPSolver;
-import choco.kernel.common.logging.ChocoLogging;
+import choco.kernel.common.util.iterators.DisposableIterator;
 import choco.kernel.solver.ContradictionException;
+import choco.kernel.solver.constraints.SConstraint;
+import choco.kernel.solver.propagation.Propagator;
 import choco.kernel.solver.propagation.event.PropagationEvent;
+import choco.kernel.solver.propagation.event.VarEvent;
+import choco.kernel.solver.propagation.profiling.PropagationProfiler;
 import choco.kernel.solver.propagation.queue.EventQueue;
-import choco.kernel.visu.VisuFactory;
-
-import java.util.ArrayDeque;
-import java.util.Queue;
+import choco.kernel.solver.variables.Var;
 
 /*
  * Created by IntelliJ IDEA.
@@ -44,24 +44,99 @@ import java.util.Queue;
  * Date: 29 oct. 2008
  */
 
+/**
+ * FIFO queue of variable events, implemented as an intrusive ring buffer.
+ * <p/>
+ * Each {@link VarEvent} records its position in the ring (see {@link VarEvent#getQueueIndex()}):
+ * enqueuing and dequeuing are O(1), and removing an event only clears its slot,
+ * which is skipped when popping. Nothing is allocated once the ring is large enough.
+ */
 public class VariableEventQueue implements EventQueue {
 
+    /**
+     * Initial capacity of the ring (a power of two).
+     */
+    private static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * Ring buffer of the pending events, null slots are removed events.
+     */
+    private PropagationEvent[] ring = new PropagationEvent[INITIAL_CAPACITY];
+
+    /**
+     * ring.length - 1
+     */
+    private int mask = INITIAL_CAPACITY - 1;
+
+    /**
+     * Position of the first slot (increasing, taken modulo the capacity).
+     */
+    private int head;
 
     /**
-     * FIFO queue to deal with variable events
-      */
-    protected Queue<PropagationEvent> queue = new ArrayDeque<PropagationEvent>();
+     * Position of the next free slot (increasing, taken modulo the capacity).
+     */
+    private int tail;
+
+    /**
+     * Number of pending events (slots between head and tail that are not removed).
+     */
+    private int size;
 
     /**
 	 * The last popped var (may be useful for flushing popping events).
 	 */
 	protected PropagationEvent lastPopped = null;
 
+	/**
+	 * Profiler of the propagation, null if profiling is off.
+	 */
+	private PropagationProfiler profiler;
+
+	/**
+	 * Sets the profiler given to the variable events while they are propagated.
+	 *
+	 * @param profiler the profiler, or null to stop profiling
+	 */
+	public void setProfiler(PropagationProfiler profiler) {
+		this.profiler = profiler;
+		this.instrumented = profiler != null || entailmentCheck;
+	}
+
+	/**
+	 * Whether the constraints of an instantiated variable are checked for entailment.
+	 */
+	private boolean entailmentCheck;
+
+	/**
+	 * Whether the events are profiled or checked for entailment.
+	 */
+	private boolean instrumented;
+
+	/**
+	 * Turns on or off the entailment check: once an event on an instantiated variable has been propagated,
+	 * the active constraints of the variable which are entailed are removed from the propagation lists
+	 * until backtracking (see {@link Propagator#setEntailed()}).
+	 *
+	 * @param entailmentCheck true to check the entailment
+	 */
+	public void setEntailmentCheck(boolean entailmentCheck) {
+		this.entailmentCheck = entailmentCheck;
+		this.instrumented = profiler != null || entailmentCheck;
+	}
+
    /**
      * Clear datastructures for safe reuses
      */
     public void clear(){
-        queue.clear();
+        for (int i = head; i != tail; i++) {
+            final PropagationEvent event = ring[i & mask];
+            if (event != null) {
+                ring[i & mask] = null;
+                detach(event);
+            }
+        }
+        head = tail = size = 0;
         lastPopped = null;
     }
 
@@ -69,7 +144,7 @@ public class VariableEventQueue implements EventQueue {
 	 * Checks if the queue is empty.
 	 */
 	public boolean isEmpty() {
-		return queue.isEmpty();
+		return size == 0;
 	}
 
 	/**
@@ -79,10 +154,14 @@ public class VariableEventQueue implements EventQueue {
 	 * @throws choco.kernel.solver.ContradictionException
 	 */
 	public void propagateAllEvents() throws ContradictionException {
-		while (queue.size() != 0) {
+		if (instrumented) {
+			while (size != 0) {
+				propagateInstrumented(popEvent());
+			}
+			return;
+		}
+		while (size != 0) {
 			final PropagationEvent evt = popEvent();
-			//ChocoLogging.getMainLogger().info(evt.toString());
-			//ChocoLogging.flushLogs();
 			evt.propagateEvent();
 		}
 	}
@@ -93,8 +172,65 @@ public class VariableEventQueue implements EventQueue {
 	 * @throws choco.kernel.solver.ContradictionException
 	 */
 	public void propagateOneEvent() throws ContradictionException {
-		if (queue.size() != 0) {
-			popEvent().propagateEvent();
+		if (size != 0) {
+			if (instrumented) {
+				propagateInstrumented(popEvent());
+			} else {
+				popEvent().propagateEvent();
+			}
+		}
+	}
+
+	/**
+	 * Propagates an event with profiling and/or entailment check.
+	 */
+	private void propagateInstrumented(PropagationEvent event) throws ContradictionException {
+		if (profiler != null) {
+			propagateProfiled(event);
+		} else {
+			event.propagateEvent();
+		}
+		if (entailmentCheck) {
+			checkEntailment(((VarEvent<?>) event).getModifiedVar());
+		}
+	}
+
+	/**
+	 * Deactivates the entailed constraints of an instantiated variable.
+	 */
+	private static void checkEntailment(Var var) {
+		if (var.isInstantiated()) {
+			final DisposableIterator<SConstraint> it = var.getConstraintsIterator();
+			try {
+				while (it.hasNext()) {
+					final SConstraint c = it.next();
+					if (c instanceof Propagator) {
+						final Propagator p = (Propagator) c;
+						if (p.isActive() && Boolean.TRUE.equals(p.isEntailed())) {
+							p.setEntailed();
+						}
+					}
+				}
+			} finally {
+				it.dispose();
+			}
+		}
+	}
+
+	/**
+	 * Propagates an event, reporting its fine-grained events to the profiler.
+	 */
+	private void propagateProfiled(PropagationEvent event) throws ContradictionException {
+		final VarEvent<?> ve = (VarEvent<?>) event;
+		ve.setProfiler(profiler);
+		try {
+			ve.propagateEvent();
+		} catch (ContradictionException e) {
+			profiler.failure();
+			throw e;
+		} finally {
+			ve.setProfiler(null);
+			profiler.endEvent();
 		}
 	}
 
@@ -102,7 +238,22 @@ public class VariableEventQueue implements EventQueue {
 	 * Pops an event to propagate.
 	 */
 	public PropagationEvent popEvent() {
-		PropagationEvent event = queue.poll();
+		if (size == 0) {
+			lastPopped = null;
+			return null;
+		}
+		PropagationEvent event;
+		// skip the slots of the removed events
+		while ((event = ring[head & mask]) == null) {
+			head++;
+		}
+		ring[head & mask] = null;
+		head++;
+		if (--size == 0) {
+			// the remaining slots are removed ones
+			head = tail = 0;
+		}
+		detach(event);
 		lastPopped = event;
 		return event;
 	}
@@ -112,10 +263,46 @@ public class VariableEventQueue implements EventQueue {
 	 */
 
 	public boolean pushEvent(PropagationEvent event) {
-		queue.add(event);
+		if (tail - head == ring.length) {
+			grow();
+		}
+		ring[tail & mask] = event;
+		if (event instanceof VarEvent) {
+			((VarEvent) event).setQueueIndex(tail);
+		}
+		tail++;
+		size++;
 		return true;
 	}
 
+	/**
+	 * Doubles the capacity of the ring, compacting the removed slots.
+	 */
+	private void grow() {
+		final PropagationEvent[] tmp = new PropagationEvent[ring.length * 2];
+		int n = 0;
+		for (int i = head; i != tail; i++) {
+			final PropagationEvent event = ring[i & mask];
+			if (event != null) {
+				tmp[n] = event;
+				if (event instanceof VarEvent) {
+					((VarEvent) event).setQueueIndex(n);
+				}
+				n++;
+			}
+		}
+		ring = tmp;
+		mask = tmp.length - 1;
+		head = 0;
+		tail = n;
+	}
+
+	private static void detach(PropagationEvent event) {
+		if (event instanceof VarEvent) {
+			((VarEvent) event).setQueueIndex(-1);
+		}
+	}
+
 	/**
 	 * Updates the priority level of an event (after adding a basic var).
 	 */
@@ -133,11 +320,15 @@ public class VariableEventQueue implements EventQueue {
 		if (null != lastPopped) {
 			lastPopped.clear();
 		}
-
-        while(!queue.isEmpty()){
-            queue.remove().clear();
-        }
-
+		for (int i = head; i != tail; i++) {
+			final PropagationEvent event = ring[i & mask];
+			if (event != null) {
+				ring[i & mask] = null;
+				detach(event);
+				event.clear();
+			}
+		}
+		head = tail = size = 0;
 	}
 
 	/**
@@ -145,19 +336,48 @@ public class VariableEventQueue implements EventQueue {
 	 */
 
 	public boolean remove(PropagationEvent event) {
-		return queue.remove(event);
+		if (event instanceof VarEvent) {
+			final VarEvent<?> ve = (VarEvent<?>) event;
+			final int idx = ve.getQueueIndex();
+			if (!ve.isEnqueued() || idx < 0 || ring[idx & mask] != event) {
+				// not held by this queue
+				return false;
+			}
+			ring[idx & mask] = null;
+			ve.setQueueIndex(-1);
+			if (--size == 0) {
+				head = tail = 0;
+			}
+			return true;
+		}
+		for (int i = head; i != tail; i++) {
+			if (ring[i & mask] == event) {
+				ring[i & mask] = null;
+				if (--size == 0) {
+					head = tail = 0;
+				}
+				return true;
+			}
+		}
+		return false;
 	}
 
 	public int size() {
-		return queue.size();
+		return size;
 	}
 
 	public PropagationEvent get(int idx) {
-		for (PropagationEvent event : queue) {
-			if (idx == 0) {
-				return event;
-			} else {
-				idx--;
+		if (idx < 0) {
+			return null;
+		}
+		for (int i = head; i != tail; i++) {
+			final PropagationEvent event = ring[i & mask];
+			if (event != null) {
+				if (idx == 0) {
+					return event;
+				} else {
+					idx--;
+				}
 			}
 		}
 		return null;
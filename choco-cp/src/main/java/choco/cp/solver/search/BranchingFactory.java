@@ -30,6 +30,7 @@ package choco.cp.solver.search;
 import static choco.cp.solver.search.VarSelectorFactory.domDDegSel;
 import static choco.cp.solver.search.VarSelectorFactory.domDegSel;
 import static choco.cp.solver.search.VarSelectorFactory.domWDegSel;
+import static choco.cp.solver.search.VarSelectorFactory.heapDomWDegSel;
 import static choco.cp.solver.search.integer.varselector.ratioselector.ratios.RatioFactory.createMaxPreservedRatio;
 import static choco.cp.solver.search.integer.varselector.ratioselector.ratios.RatioFactory.createMinPreservedRatio;
 import static choco.cp.solver.search.integer.varselector.ratioselector.ratios.RatioFactory.createPreservedWDegRatio;
@@ -45,6 +46,8 @@ import choco.cp.solver.constraints.global.scheduling.precedence.ITemporalSRelati
 import choco.cp.solver.search.integer.branching.AssignOrForbidIntVarVal;
 import choco.cp.solver.search.integer.branching.AssignOrForbidIntVarValPair;
 import choco.cp.solver.search.integer.branching.AssignVar;
+import choco.cp.solver.search.integer.branching.ConflictOrderingBranching;
+import choco.cp.solver.search.integer.branching.LastConflictBranching;
 import choco.cp.solver.search.integer.branching.PackDynRemovals;
 import choco.cp.solver.search.integer.branching.domwdeg.DomOverWDegBinBranchingNew;
 import choco.cp.solver.search.integer.branching.domwdeg.DomOverWDegBranchingNew;
@@ -53,6 +56,8 @@ import choco.cp.solver.search.integer.valiterator.IncreasingDomain;
 import choco.cp.solver.search.integer.valselector.BestFit;
 import choco.cp.solver.search.integer.valselector.MinVal;
 import choco.cp.solver.search.integer.valselector.RandomIntValSelector;
+import choco.cp.solver.search.integer.varselector.ActivityVarSelector;
+import choco.cp.solver.search.integer.varselector.ConflictHistoryVarSelector;
 import choco.cp.solver.search.integer.varselector.MinDomain;
 import choco.cp.solver.search.integer.varselector.RandomIntVarSelector;
 import choco.cp.solver.search.integer.varselector.StaticVarOrder;
@@ -79,6 +84,7 @@ import choco.cp.solver.search.task.ordering.MinPreservedOrdering;
 import choco.cp.solver.search.task.profile.ProfileSelector;
 import choco.kernel.common.util.comparator.TaskComparators;
 import choco.kernel.solver.Solver;
+import choco.kernel.solver.branch.AbstractIntBranchingStrategy;
 import choco.kernel.solver.constraints.global.scheduling.IResource;
 import choco.kernel.solver.search.ValIterator;
 import choco.kernel.solver.search.ValSelector;
@@ -355,6 +361,80 @@ public final class BranchingFactory {
 	}
 	//*************************************************************************//
 
+	public static AssignVar heapDomWDeg(Solver solver) {
+		return heapDomWDeg(solver, solver.getIntDecisionVars(), new IncreasingDomain(), 1);
+	}
+
+	public static AssignVar heapDomWDeg(Solver solver, IntDomainVar[] vars, ValIterator valSel, double decay) {
+		return new AssignVar(heapDomWDegSel(solver, vars, decay), valSel);
+	}
+
+	public static AssignVar heapDomWDeg(Solver solver, IntDomainVar[] vars, ValSelector valSel, double decay) {
+		return new AssignVar(heapDomWDegSel(solver, vars, decay), valSel);
+	}
+
+	public static AssignOrForbidIntVarVal heapDomWDegBin(Solver solver) {
+		return heapDomWDegBin(solver, solver.getIntDecisionVars(), new MinVal(), 1);
+	}
+
+	public static AssignOrForbidIntVarVal heapDomWDegBin(Solver solver, IntDomainVar[] vars, ValSelector valSel, double decay) {
+		return new AssignOrForbidIntVarVal(heapDomWDegSel(solver, vars, decay), valSel);
+	}
+	//*************************************************************************//
+
+	//*****************************************************************//
+	//*******************  Activity Based Search  *********************//
+	//***************************************************************//
+
+	public static AssignVar activity(Solver solver) {
+		return activity(solver, solver.getIntDecisionVars(), new IncreasingDomain(), 0.999);
+	}
+
+	public static AssignVar activity(Solver solver, IntDomainVar[] vars, ValIterator valSel, double decay) {
+		return new AssignVar(new ActivityVarSelector(solver, vars, decay), valSel);
+	}
+
+	public static AssignVar activity(Solver solver, IntDomainVar[] vars, ValSelector valSel, double decay) {
+		return new AssignVar(new ActivityVarSelector(solver, vars, decay), valSel);
+	}
+
+	public static AssignOrForbidIntVarVal activityBin(Solver solver, IntDomainVar[] vars, ValSelector valSel, double decay) {
+		return new AssignOrForbidIntVarVal(new ActivityVarSelector(solver, vars, decay), valSel);
+	}
+
+	//*****************************************************************//
+	//*******************  Conflict History Based  ********************//
+	//***************************************************************//
+
+	public static AssignVar chb(Solver solver) {
+		return chb(solver, solver.getIntDecisionVars(), new IncreasingDomain());
+	}
+
+	public static AssignVar chb(Solver solver, IntDomainVar[] vars, ValIterator valSel) {
+		return new AssignVar(new ConflictHistoryVarSelector(solver, vars), valSel);
+	}
+
+	public static AssignVar chb(Solver solver, IntDomainVar[] vars, ValSelector valSel) {
+		return new AssignVar(new ConflictHistoryVarSelector(solver, vars), valSel);
+	}
+
+	public static AssignOrForbidIntVarVal chbBin(Solver solver, IntDomainVar[] vars, ValSelector valSel) {
+		return new AssignOrForbidIntVarVal(new ConflictHistoryVarSelector(solver, vars), valSel);
+	}
+
+	//*****************************************************************//
+	//*******************  Last Conflicts  ****************************//
+	//***************************************************************//
+
+	public static LastConflictBranching lastConflict(Solver solver, AbstractIntBranchingStrategy branching) {
+		return new LastConflictBranching(solver, branching);
+	}
+
+	public static ConflictOrderingBranching conflictOrdering(Solver solver, AbstractIntBranchingStrategy branching) {
+		return new ConflictOrderingBranching(solver, branching);
+	}
+	//*************************************************************************//
+
 	public static TaskOverWDegBinBranching slackWDeg(Solver solver, ITemporalSRelation[] precedences, long seed) {
 		return slackWDeg(solver, precedences, new CentroidOrdering(seed));
 	}
@@ -0,0 +1,255 @@
+/**
+ *  Copyright (c) 1999-2010, Ecole des Mines de Nantes
+ *  All rights reserved.
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *      * Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *      * Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *      * Neither the name of the Ecole des Mines de Nantes nor the
+ *        names of its contributors may be used to endorse or promote products
+ *        derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ *  EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package choco.cp.solver.search;
+
+import choco.cp.solver.CPSolver;
+import choco.cp.solver.search.integer.valiterator.IncreasingDomain;
+import choco.cp.solver.search.integer.valiterator.SolutionHintValIterator;
+import choco.cp.solver.search.integer.valselector.SolutionHintValSelector;
+import choco.kernel.model.constraints.Constraint;
+import choco.kernel.solver.ContradictionException;
+import choco.kernel.solver.Solution;
+import choco.kernel.solver.SolverException;
+import choco.kernel.solver.constraints.SConstraint;
+import choco.kernel.solver.propagation.Propagator;
+import choco.kernel.solver.search.AbstractGlobalSearchStrategy;
+import choco.kernel.solver.search.AbstractOptimize;
+import choco.kernel.solver.variables.integer.IntDomainVar;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Incremental resolution: constraints are added and retracted between the queries without rebuilding the solver.
+ * <p/>
+ * The constraints are grouped into retractable layers. Each layer pushes a world above the previous one, and its
+ * constraints are posted as cuts which are erased when the layer is popped, see {@link CPSolver#postCut(Constraint)}
+ * and {@link CPSolver#eraseConstraint(SConstraint)}. The constraints of a layer are propagated in its own world, before
+ * the next query or the next layer, so that popping the layer also restores the domains. The constraints added before
+ * the first layer is pushed are permanent.
+ * <p/>
+ * The propagators and the search strategy are kept from one query to the next. The last solution is used as a hint
+ * by the value heuristic of the default branching, so that a query close to the previous one finds a close solution
+ * first, see {@link SolutionHint}. An optimization query starts with the last solution as incumbent solution
+ * when it is still feasible. A branching defined by the user keeps its own value ordering.
+ * <p/>
+ * The variables must be read by the solver before the session is built: a layer can only introduce new constants.
+ */
+public final class IncrementalSession {
+
+	private final CPSolver solver;
+
+	private final AbstractGlobalSearchStrategy strategy;
+
+	private final SolutionHint hint = new SolutionHint();
+
+	private final List<Layer> layers = new ArrayList<Layer>();
+
+	/**
+	 * whether the top layer holds constraints which have not been propagated yet.
+	 */
+	private boolean pending = true;
+
+	private Solution lastSolution;
+
+	private int queryCount;
+
+	/**
+	 * Builds a session searching for a solution at each query.
+	 * @param solver a solver which has read its model, and whose search strategy has not been generated yet
+	 */
+	public IncrementalSession(CPSolver solver) {
+		this(solver, null, false);
+	}
+
+	/**
+	 * Builds a session searching for an optimal solution at each query.
+	 * @param solver a solver which has read its model, and whose search strategy has not been generated yet
+	 * @param objective the objective variable, or null for a satisfaction problem
+	 * @param maximize whether the objective is maximized
+	 */
+	public IncrementalSession(CPSolver solver, IntDomainVar objective, boolean maximize) {
+		this.solver = solver;
+		if (solver.getValIntIterator() != null) {
+			solver.setValIntIterator(new SolutionHintValIterator(hint, solver.getValIntIterator()));
+		} else if (solver.getValIntSelector() != null) {
+			solver.setValIntSelector(new SolutionHintValSelector(hint, solver.getValIntSelector()));
+		} else {
+			solver.setValIntIterator(new SolutionHintValIterator(hint, new IncreasingDomain()));
+		}
+		if (objective != null) {
+			solver.setObjective(objective);
+			solver.setDoMaximize(maximize);
+		}
+		solver.setFirstSolution(objective == null);
+		solver.generateSearchStrategy();
+		strategy = solver.getSearchStrategy();
+		layers.add(new Layer(solver.getWorldIndex(), false));
+	}
+
+	public CPSolver getSolver() {
+		return solver;
+	}
+
+	/**
+	 * @return the number of layers pushed and not popped yet
+	 */
+	public int getLayerCount() {
+		return layers.size() - 1;
+	}
+
+	public int getQueryCount() {
+		return queryCount;
+	}
+
+	/**
+	 * @return the solution of the last feasible query, or null
+	 */
+	public Solution getLastSolution() {
+		return lastSolution;
+	}
+
+	private Layer top() {
+		return layers.get(layers.size() - 1);
+	}
+
+	/**
+	 * Backtracks to the world of the top layer, and propagates its pending constraints.
+	 */
+	private void flush() {
+		final Layer top = top();
+		solver.worldPopUntil(top.world);
+		if (pending && !top.infeasible) {
+			try {
+				solver.propagate();
+			} catch (ContradictionException e) {
+				top.infeasible = true;
+			}
+		}
+		pending = false;
+	}
+
+	/**
+	 * Opens a new layer: the constraints added from now on are retracted by the matching {@link #popLayer()}.
+	 */
+	public void pushLayer() {
+		flush();
+		final boolean infeasible = top().infeasible;
+		solver.worldPush();
+		layers.add(new Layer(solver.getWorldIndex(), infeasible));
+	}
+
+	/**
+	 * Retracts the constraints of the top layer and restores the domains of the previous layer.
+	 */
+	public void popLayer() {
+		if (layers.size() == 1) {
+			throw new SolverException("no layer to pop");
+		}
+		final Layer top = layers.remove(layers.size() - 1);
+		solver.worldPopUntil(top.world);
+		for (int i = top.cuts.size() - 1; i >= 0; i--) {
+			final SConstraint c = top.cuts.get(i);
+			//an expression is posted as dynamic constraints which are retracted by the backtrack
+			if (c instanceof Propagator) {
+				solver.eraseConstraint(c);
+			}
+		}
+		solver.worldPopUntil(top.world - 1);
+		pending = false;
+	}
+
+	/**
+	 * Adds constraints to the top layer, they are propagated before the next query.
+	 * @param constraints model constraints over variables already read by the solver
+	 */
+	public void add(Constraint... constraints) {
+		final Layer top = top();
+		solver.worldPopUntil(top.world);
+		for (Constraint c : constraints) {
+			top.cuts.add(solver.postCut(c));
+		}
+		pending = true;
+	}
+
+	/**
+	 * Adds solver constraints to the top layer, they are propagated before the next query.
+	 */
+	public void add(SConstraint... constraints) {
+		final Layer top = top();
+		solver.worldPopUntil(top.world);
+		for (SConstraint c : constraints) {
+			solver.postCut(c);
+			top.cuts.add(c);
+		}
+		pending = true;
+	}
+
+	/**
+	 * Searches a solution, or an optimal solution, satisfying the constraints of every layer.
+	 * The solver stays instantiated to the solution until the next operation on the session.
+	 * @return Boolean.TRUE if a solution has been found, Boolean.FALSE if there is none, null if a limit has been reached.
+	 */
+	public Boolean solve() {
+		flush();
+		queryCount++;
+		if (top().infeasible) {
+			solver.setFeasible(Boolean.FALSE);
+			return Boolean.FALSE;
+		}
+		if (lastSolution != null) {
+			hint.set(solver, lastSolution);
+			if (strategy instanceof AbstractOptimize) {
+				//the last solution is the incumbent solution if it is still feasible
+				((AbstractOptimize) strategy).setSolutionHint(lastSolution);
+			}
+		}
+		solver.setFeasible(null);
+		strategy.clearTrace();
+		strategy.nextMove = AbstractGlobalSearchStrategy.INIT_SEARCH;
+		solver.launch();
+		final Boolean feasible = solver.isFeasible();
+		if (feasible == Boolean.TRUE) {
+			lastSolution = solver.recordSolution();
+		}
+		return feasible;
+	}
+
+	private static final class Layer {
+
+		private final int world;
+
+		private final List<SConstraint> cuts = new ArrayList<SConstraint>();
+
+		private boolean infeasible;
+
+		private Layer(int world, boolean infeasible) {
+			this.world = world;
+			this.infeasible = infeasible;
+		}
+	}
+}
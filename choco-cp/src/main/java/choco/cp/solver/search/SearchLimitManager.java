@@ -36,7 +36,10 @@ import static choco.kernel.solver.search.AbstractGlobalSearchStrategy.RESTART;
 import static choco.kernel.solver.search.AbstractGlobalSearchStrategy.STOP;
 import choco.kernel.solver.search.GlobalSearchLimitManager;
 import choco.kernel.solver.search.limit.AbstractGlobalSearchLimit;
+import choco.kernel.solver.search.limit.InterruptLimit;
 import choco.kernel.solver.search.limit.NoLimit;
+import choco.kernel.solver.search.measure.IProgressMonitor;
+import choco.kernel.solver.search.measure.SearchProgress;
 import choco.kernel.solver.search.restart.NoRestartStrategy;
 import choco.kernel.solver.search.restart.UniversalRestartStrategy;
 
@@ -52,6 +55,10 @@ public class SearchLimitManager implements GlobalSearchLimitManager {
 
 	protected AbstractGlobalSearchLimit searchLimit;
 
+	protected AbstractGlobalSearchLimit memoryLimit = NoLimit.SINGLOTON;
+
+	protected final InterruptLimit interruptLimit;
+
 	//RESTART LIMIT
 	protected UniversalRestartStrategy restartStrategy;
 
@@ -66,9 +73,21 @@ public class SearchLimitManager implements GlobalSearchLimitManager {
 
 	private long starth;
 
+	//PROGRESS
+	private IProgressMonitor progressMonitor;
+
+	private long progressPeriod;
+
+	private long nextProgress;
+
+	private long lastProgressTime;
+
+	private long lastProgressNodes;
+
 	public SearchLimitManager(AbstractGlobalSearchStrategy searchStrategy) {
 		super();
 		this.searchStrategy = searchStrategy;
+		this.interruptLimit = new InterruptLimit(searchStrategy);
 	}
 
 	//*****************************************************************//
@@ -101,6 +120,41 @@ public class SearchLimitManager implements GlobalSearchLimitManager {
 	}
 
 
+	public final AbstractGlobalSearchLimit getMemoryLimit() {
+		return memoryLimit;
+	}
+
+	/**
+	 * Sets a limit checked in addition to the search limit, usually on the memory footprint of the environment.
+	 */
+	public final void setMemoryLimit(AbstractGlobalSearchLimit memoryLimit) {
+		this.memoryLimit = memoryLimit == null ? NoLimit.SINGLOTON : memoryLimit;
+	}
+
+	/**
+	 * The limit interrupting the search on request, for instance from another thread.
+	 */
+	public final InterruptLimit getInterruptLimit() {
+		return interruptLimit;
+	}
+
+	public final IProgressMonitor getProgressMonitor() {
+		return progressMonitor;
+	}
+
+	/**
+	 * Sets a monitor receiving a report on the search every period.
+	 * The period is measured with the clock of the {@link TimeCacheThread}, so its precision is
+	 * {@link TimeCacheThread#CHOCO_MS_TIME_PRECISION} milliseconds.
+	 * @param progressMonitor the monitor, or null to stop the reports
+	 * @param period the period in milliseconds
+	 */
+	public final void setProgressMonitor(IProgressMonitor progressMonitor, long period) {
+		this.progressMonitor = progressMonitor;
+		this.progressPeriod = Math.max(1, period);
+		this.nextProgress = timeCount + progressPeriod;
+	}
+
 	public final void setRestartStrategy(UniversalRestartStrategy restartStrategy, AbstractGlobalSearchLimit restartStrategyLimit) {
 		if( restartStrategyLimit == null || restartStrategy == null) {
 			this.restartStrategyLimit = NoLimit.SINGLOTON;
@@ -149,6 +203,10 @@ public class SearchLimitManager implements GlobalSearchLimitManager {
 		restartFromStrategyCount = 0;
 		restartCutoff = restartStrategy.getScaleFactor();
 		restartStrategyLimit.setNbMax(restartCutoff);
+		timeCount = 0;
+		nextProgress = progressPeriod;
+		lastProgressTime = 0;
+		lastProgressNodes = 0;
 	}
 
 	@Override
@@ -166,16 +224,53 @@ public class SearchLimitManager implements GlobalSearchLimitManager {
 	public void endTreeSearch() {
 		TimeCacheThread.currentTimeMillis=System.currentTimeMillis();
 		updateTimeCount();
+		if( interruptLimit.isInterrupted() && ! searchStrategy.isEncounteredLimit()) {
+			//the cancellation has stopped a propagation before being checked at a node
+			searchStrategy.setEncounteredLimit(interruptLimit);
+		}
+	}
+
+	private void checkProgress() {
+		if( progressMonitor != null && timeCount >= nextProgress) {
+			final long nodes = searchStrategy.getNodeCount();
+			final double rate = timeCount > lastProgressTime ?
+					1000.0 * (nodes - lastProgressNodes) / (timeCount - lastProgressTime) : 0;
+			lastProgressTime = timeCount;
+			lastProgressNodes = nodes;
+			nextProgress = timeCount + progressPeriod;
+			final Number bestBound = searchStrategy.getObjectiveManager() != null && searchStrategy.existsSolution() ?
+					searchStrategy.getObjectiveManager().getBestObjectiveValue() : null;
+			progressMonitor.progress(new SearchProgress(timeCount, nodes, rate,
+					searchStrategy.getSearchLoop().getDepthCount(), searchStrategy.getSolutionCount(), bestBound));
+		}
+	}
+
+	private void checkMemoryLimit() throws ContradictionException {
+		if( memoryLimit.getNb() >= memoryLimit.getNbMax()) {
+			//end search before the trails exhaust the heap
+			searchStrategy.setEncounteredLimit(memoryLimit);
+			searchStrategy.solver.getPropagationEngine().raiseContradiction(memoryLimit, STOP);
+		}
+	}
+
+	private void checkInterruptLimit() throws ContradictionException {
+		if( interruptLimit.isInterrupted()) {
+			searchStrategy.setEncounteredLimit(interruptLimit);
+			searchStrategy.solver.getPropagationEngine().raiseContradiction(interruptLimit, STOP);
+		}
 	}
 
 	@Override
 	public final void newNode() throws ContradictionException {
 		updateTimeCount();
+		checkProgress();
 		if( searchLimit.getNb() >= searchLimit.getNbMax()) {
 			//end search
 			searchStrategy.setEncounteredLimit(searchLimit);
 			searchStrategy.solver.getPropagationEngine().raiseContradiction(searchLimit, STOP);
 		}
+		checkMemoryLimit();
+		checkInterruptLimit();
 		if( restartStrategyLimit.getNb() >= restartStrategyLimit.getNbMax()) {
 			//update cutoff
 			restartFromStrategyCount++;
@@ -189,11 +284,14 @@ public class SearchLimitManager implements GlobalSearchLimitManager {
 	@Override
 	public final void endNode() throws ContradictionException {
 		updateTimeCount();
+		checkProgress();
 		if( searchLimit.getNb() >= searchLimit.getNbMax()) {
 			//end search
 			searchStrategy.setEncounteredLimit(searchLimit);
 			searchStrategy.solver.getPropagationEngine().raiseContradiction(searchLimit, STOP);
 		}
+		checkMemoryLimit();
+		checkInterruptLimit();
 		//do not restart while backtraking.
 		//side effects with nogood recording
 		//can also miss the end of the search
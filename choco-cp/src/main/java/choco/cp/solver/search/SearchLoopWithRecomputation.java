@@ -68,7 +68,10 @@ public class SearchLoopWithRecomputation extends AbstractSearchLoopWithRestart {
 	@Override
 	public void initialize() {
 		super.initialize();
+		cpt = 0;
 		savedTraceIndex.reset();
+		contexts.clear();
+		ctxIndices.reset();
 		lastSavedTraceIndex = searchStrategy.getCurrentTraceIndex();
         savedTraceIndex.push(lastSavedTraceIndex);
         ctxIndices.push(contexts.size());
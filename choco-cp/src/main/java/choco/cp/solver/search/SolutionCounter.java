@@ -0,0 +1,396 @@
+/**
+ *  Copyright (c) 1999-2010, Ecole des Mines de Nantes
+ *  All rights reserved.
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *      * Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *      * Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *      * Neither the name of the Ecole des Mines de Nantes nor the
+ *        names of its contributors may be used to endorse or promote products
+ *        derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ *  EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package choco.cp.solver.search;
+
+import choco.cp.solver.CPSolver;
+import choco.kernel.common.logging.ChocoLogging;
+import choco.kernel.common.util.iterators.DisposableIterator;
+import choco.kernel.solver.Configuration;
+import choco.kernel.solver.ContradictionException;
+import choco.kernel.solver.SolverException;
+import choco.kernel.solver.constraints.SConstraint;
+import choco.kernel.solver.variables.Var;
+import choco.kernel.solver.variables.integer.IntDomainVar;
+import gnu.trove.TLongIntHashMap;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Counts the solutions of a solver without recording them.
+ * <p/>
+ * The counter explores the search tree on its own: it branches on the integer decision variables
+ * with the smallest domain and propagates, but it never builds a solution.
+ * A solution is an assignment of the decision variables, as for {@link CPSolver#solveAll()}.
+ * <p/>
+ * When {@link Configuration#COUNTING_COMPONENTS} is on, the free variables are split at each node into the connected
+ * components of the constraint graph: the counts of independent components are multiplied.
+ * The count of a component is cached, keyed by the domains of its variables and of the other variables of its
+ * constraints, so that a component reached again by another path is not explored twice.
+ * The cache keeps the last {@link Configuration#COUNTING_CACHE_CAPACITY} components.
+ * <p/>
+ * The counter handles only integer variables. The count is done once, in a world pushed above the current one;
+ * the initial propagation is done in the current world.
+ */
+public final class SolutionCounter {
+
+	private final static Logger LOGGER = ChocoLogging.getSearchLogger();
+
+	private final CPSolver solver;
+
+	private final boolean decomposition;
+
+	private final int cacheCapacity;
+
+	private IntDomainVar[] vars;
+
+	private boolean[] decision;
+
+	/**
+	 * the constraints of each variable, as indices in {@link #scopes}.
+	 */
+	private int[][] constraints;
+
+	/**
+	 * the variables of each constraint, as indices in {@link #vars}.
+	 */
+	private int[][] scopes;
+
+	private int[] marks;
+
+	private int stamp;
+
+	private Map<ComponentKey, BigInteger> cache;
+
+	private int[] keyBuffer = new int[64];
+
+	private long nodeCount;
+
+	private long componentCount;
+
+	private long cacheHitCount;
+
+	private boolean cancelled;
+
+	public SolutionCounter(CPSolver solver) {
+		this.solver = solver;
+		final Configuration conf = solver.getConfiguration();
+		this.decomposition = conf.readBoolean(Configuration.COUNTING_COMPONENTS);
+		this.cacheCapacity = conf.readInt(Configuration.COUNTING_CACHE_CAPACITY);
+	}
+
+	/**
+	 * @return the number of solutions, or null if the solver has been cancelled.
+	 */
+	public BigInteger count() {
+		if (solver.getNbSetVars() > 0 || solver.getNbRealVars() > 0) {
+			throw new SolverException("the solution counter handles only integer variables");
+		}
+		final int root = solver.getWorldIndex();
+		BigInteger result = BigInteger.ZERO;
+		try {
+			solver.propagate();
+			solver.worldPush();
+			initialize();
+			final int[] all = new int[vars.length];
+			for (int i = 0; i < all.length; i++) {
+				all[i] = i;
+			}
+			result = countFree(all);
+		} catch (ContradictionException e) {
+			//no solution
+		} finally {
+			solver.worldPopUntil(root);
+		}
+		if (cancelled || solver.isCancelled()) {
+			return null;
+		}
+		LOGGER.info(runtimeStatistics());
+		return result;
+	}
+
+	private void initialize() {
+		vars = new IntDomainVar[solver.getNbIntVars()];
+		final TLongIntHashMap indices = new TLongIntHashMap(vars.length);
+		for (int i = 0; i < vars.length; i++) {
+			vars[i] = solver.getIntVarQuick(i);
+			indices.put(vars[i].getIndex(), i);
+		}
+		decision = new boolean[vars.length];
+		for (IntDomainVar var : solver.getIntDecisionVars()) {
+			decision[indices.get(var.getIndex())] = true;
+		}
+		final IdentityHashMap<SConstraint, Integer> ids = new IdentityHashMap<SConstraint, Integer>();
+		final List<int[]> scopeList = new ArrayList<int[]>();
+		final List<List<Integer>> varConstraints = new ArrayList<List<Integer>>(vars.length);
+		for (int i = 0; i < vars.length; i++) {
+			final List<Integer> list = new ArrayList<Integer>();
+			final DisposableIterator<SConstraint> it = vars[i].getConstraintsIterator();
+			while (it.hasNext()) {
+				final SConstraint c = it.next();
+				Integer id = ids.get(c);
+				if (id == null) {
+					id = scopeList.size();
+					ids.put(c, id);
+					scopeList.add(scope(c, indices));
+				}
+				list.add(id);
+			}
+			it.dispose();
+			varConstraints.add(list);
+		}
+		scopes = scopeList.toArray(new int[scopeList.size()][]);
+		constraints = new int[vars.length][];
+		for (int i = 0; i < vars.length; i++) {
+			final List<Integer> list = varConstraints.get(i);
+			constraints[i] = new int[list.size()];
+			for (int k = 0; k < constraints[i].length; k++) {
+				constraints[i][k] = list.get(k);
+			}
+		}
+		marks = new int[vars.length];
+		cache = new LinkedHashMap<ComponentKey, BigInteger>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<ComponentKey, BigInteger> eldest) {
+				return size() > cacheCapacity;
+			}
+		};
+	}
+
+	private int[] scope(SConstraint<?> c, TLongIntHashMap indices) {
+		final int n = c.getNbVars();
+		final int[] scope = new int[n];
+		int size = 0;
+		for (int k = 0; k < n; k++) {
+			final Var var = c.getVar(k);
+			if (var instanceof IntDomainVar && indices.containsKey(var.getIndex())) {
+				scope[size++] = indices.get(var.getIndex());
+			} else if (!(var instanceof IntDomainVar) || !((IntDomainVar) var).isInstantiated()) {
+				throw new SolverException("the solution counter handles only integer variables: " + c.pretty());
+			}
+		}
+		return Arrays.copyOf(scope, size);
+	}
+
+	/**
+	 * Counts the assignments of the free variables among the given ones: the product of the counts of their components.
+	 */
+	private BigInteger countFree(int[] candidates) {
+		final List<int[]> components = components(candidates);
+		BigInteger total = BigInteger.ONE;
+		for (int[] component : components) {
+			final BigInteger count = countComponent(component);
+			if (count.signum() == 0) {
+				return BigInteger.ZERO;
+			}
+			total = total.multiply(count);
+		}
+		return total;
+	}
+
+	private List<int[]> components(int[] candidates) {
+		stamp++;
+		final List<int[]> components = new ArrayList<int[]>();
+		final int[] queue = new int[candidates.length];
+		if (!decomposition) {
+			int size = 0;
+			for (int v : candidates) {
+				if (!vars[v].isInstantiated()) queue[size++] = v;
+			}
+			if (size > 0) components.add(Arrays.copyOf(queue, size));
+			return components;
+		}
+		for (int v : candidates) {
+			if (marks[v] != stamp && !vars[v].isInstantiated()) {
+				//breadth first search in the constraint graph restricted to the free variables
+				int head = 0, tail = 0;
+				marks[v] = stamp;
+				queue[tail++] = v;
+				while (head < tail) {
+					final int x = queue[head++];
+					for (int c : constraints[x]) {
+						for (int y : scopes[c]) {
+							if (marks[y] != stamp && !vars[y].isInstantiated()) {
+								marks[y] = stamp;
+								queue[tail++] = y;
+							}
+						}
+					}
+				}
+				final int[] component = Arrays.copyOf(queue, tail);
+				Arrays.sort(component);
+				components.add(component);
+			}
+		}
+		componentCount += components.size();
+		return components;
+	}
+
+	private BigInteger countComponent(int[] component) {
+		nodeCount++;
+		if (solver.isCancelled()) {
+			cancelled = true;
+			return BigInteger.ZERO;
+		}
+		int branch = -1;
+		for (int v : component) {
+			if (decision[v] && !vars[v].isInstantiated()
+					&& (branch < 0 || vars[v].getDomainSize() < vars[branch].getDomainSize())) {
+				branch = v;
+			}
+		}
+		if (branch < 0) {
+			//the decision variables of the component are instantiated
+			return BigInteger.ONE;
+		}
+		final ComponentKey key = cacheCapacity > 0 ? key(component) : null;
+		if (key != null) {
+			final BigInteger cached = cache.get(key);
+			if (cached != null) {
+				cacheHitCount++;
+				return cached;
+			}
+		}
+		final IntDomainVar var = vars[branch];
+		final int[] values = new int[var.getDomainSize()];
+		int k = 0;
+		for (int val = var.getInf(); k < values.length; val = var.getNextDomainValue(val)) {
+			values[k++] = val;
+		}
+		BigInteger total = BigInteger.ZERO;
+		for (int value : values) {
+			solver.worldPush();
+			try {
+				var.setVal(value);
+				solver.propagate();
+				total = total.add(countFree(component));
+			} catch (ContradictionException ignored) {
+				//no solution with this value
+			}
+			solver.worldPop();
+			if (cancelled) {
+				return BigInteger.ZERO;
+			}
+		}
+		if (key != null) {
+			cache.put(key, total);
+		}
+		return total;
+	}
+
+	/**
+	 * Encodes the domains of the variables of a component and of the other variables of their constraints.
+	 */
+	private ComponentKey key(int[] component) {
+		stamp++;
+		int size = 0;
+		for (int v : component) {
+			marks[v] = stamp;
+			size = encode(v, size);
+		}
+		for (int v : component) {
+			for (int c : constraints[v]) {
+				for (int y : scopes[c]) {
+					if (marks[y] != stamp) {
+						marks[y] = stamp;
+						size = encode(y, size);
+					}
+				}
+			}
+		}
+		return new ComponentKey(Arrays.copyOf(keyBuffer, size));
+	}
+
+	private int encode(int v, int size) {
+		final IntDomainVar var = vars[v];
+		final int n = var.hasEnumeratedDomain() ? var.getDomainSize() : 2;
+		if (size + n + 2 > keyBuffer.length) {
+			keyBuffer = Arrays.copyOf(keyBuffer, 2 * (size + n + 2));
+		}
+		keyBuffer[size++] = v;
+		if (var.hasEnumeratedDomain()) {
+			keyBuffer[size++] = n;
+			for (int val = var.getInf(), k = 0; k < n; val = var.getNextDomainValue(val), k++) {
+				keyBuffer[size++] = val;
+			}
+		} else {
+			keyBuffer[size++] = var.getInf();
+			keyBuffer[size++] = var.getSup();
+		}
+		return size;
+	}
+
+	/**
+	 * @return the number of explored components, i.e. the number of nodes.
+	 */
+	public long getNodeCount() {
+		return nodeCount;
+	}
+
+	/**
+	 * @return the number of components found while splitting the free variables.
+	 */
+	public long getComponentCount() {
+		return componentCount;
+	}
+
+	public long getCacheHitCount() {
+		return cacheHitCount;
+	}
+
+	public String runtimeStatistics() {
+		return "Counting: " + nodeCount + " nodes, " + componentCount + " components, " + cacheHitCount + " cache hits";
+	}
+
+	private static final class ComponentKey {
+
+		private final int[] values;
+
+		private final int hash;
+
+		ComponentKey(int[] values) {
+			this.values = values;
+			this.hash = Arrays.hashCode(values);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof ComponentKey && Arrays.equals(values, ((ComponentKey) o).values);
+		}
+	}
+}
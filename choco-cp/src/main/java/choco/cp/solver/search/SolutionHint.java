@@ -0,0 +1,94 @@
+/**
+ *  Copyright (c) 1999-2010, Ecole des Mines de Nantes
+ *  All rights reserved.
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *      * Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *      * Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *      * Neither the name of the Ecole des Mines de Nantes nor the
+ *        names of its contributors may be used to endorse or promote products
+ *        derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ *  EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package choco.cp.solver.search;
+
+import choco.kernel.solver.Solution;
+import choco.kernel.solver.Solver;
+import choco.kernel.solver.variables.integer.IntDomainVar;
+import gnu.trove.TLongIntHashMap;
+
+/**
+ * The values of the integer variables in a (partial) solution, toward which the value ordering of the search is biased.
+ * @see choco.cp.solver.search.integer.valselector.SolutionHintValSelector
+ * @see choco.cp.solver.search.integer.valiterator.SolutionHintValIterator
+ */
+public final class SolutionHint {
+
+	/**
+	 * hinted values indexed by the index of the variables.
+	 */
+	private final TLongIntHashMap values = new TLongIntHashMap();
+
+	private Solution solution;
+
+	/**
+	 * Replaces the hint by the values of the integer variables in a solution.
+	 * @param solver the solver of the solution
+	 * @param solution the new hint, the variables with an unknown value ({@link Solution#NULL}) are not hinted.
+	 */
+	public void set(Solver solver, Solution solution) {
+		this.solution = solution;
+		values.clear();
+		final int n = Math.min(solver.getNbIntVars(), solution.getNbIntValues());
+		for (int i = 0; i < n; i++) {
+			final int val = solution.getIntValue(i);
+			if (val != Solution.NULL) {
+				values.put(solver.getIntVarQuick(i).getIndex(), val);
+			}
+		}
+	}
+
+	public void clear() {
+		solution = null;
+		values.clear();
+	}
+
+	public Solution getSolution() {
+		return solution;
+	}
+
+	public boolean isEmpty() {
+		return values.isEmpty();
+	}
+
+	/**
+	 * @param x a variable
+	 * @return the hinted value of the variable, {@link Solution#NULL} if it is not hinted.
+	 */
+	public int getValue(IntDomainVar x) {
+		return values.containsKey(x.getIndex()) ? values.get(x.getIndex()) : Solution.NULL;
+	}
+
+	/**
+	 * @param x a variable
+	 * @return the hinted value of the variable if it belongs to its domain, {@link Solution#NULL} otherwise.
+	 */
+	public int getHintedValue(IntDomainVar x) {
+		final int val = getValue(x);
+		return val != Solution.NULL && x.canBeInstantiatedTo(val) ? val : Solution.NULL;
+	}
+}
@@ -0,0 +1,153 @@
+/**
+ *  Copyright (c) 1999-2010, Ecole des Mines de Nantes
+ *  All rights reserved.
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *      * Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *      * Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *      * Neither the name of the Ecole des Mines de Nantes nor the
+ *        names of its contributors may be used to endorse or promote products
+ *        derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ *  EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package choco.cp.solver.search;
+
+import choco.cp.solver.CPSolver;
+import choco.kernel.solver.Solution;
+import choco.kernel.solver.search.AbstractGlobalSearchStrategy;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Pull-based enumeration of the solutions of a solver.
+ * <p/>
+ * The search only advances when the consumer asks for the next solution: {@link #hasNext()} resumes the search loop
+ * until the next solution, so the solutions are never stored by the solver (its solution pool is disabled).
+ * {@link #next()} writes the current solution into a buffer reused from one call to the next: a consumer keeping a
+ * solution must copy it, or read the variables of the solver which stay instantiated until the next call.
+ * <p/>
+ * The iterator can be closed before the end of the enumeration to abort the search. When closed by another thread
+ * while it is searching, the solver is cancelled, see {@link CPSolver#cancel()}.
+ */
+public final class SolutionIterator implements Iterator<Solution>, Closeable {
+
+	private final CPSolver solver;
+
+	private final AbstractGlobalSearchStrategy strategy;
+
+	private final Solution buffer;
+
+	private boolean launched;
+
+	/**
+	 * whether the solver is instantiated to a solution which has not been returned yet.
+	 */
+	private boolean pending;
+
+	private boolean exhausted;
+
+	private volatile boolean closed;
+
+	private volatile boolean running;
+
+	/**
+	 * Generates the search strategy of the solver, which must have read its model.
+	 */
+	public SolutionIterator(CPSolver solver) {
+		this.solver = solver;
+		solver.setFirstSolution(true);
+		solver.generateSearchStrategy();
+		strategy = solver.getSearchStrategy();
+		strategy.setSolutionPool(null);
+		buffer = new Solution(solver);
+	}
+
+	public CPSolver getSolver() {
+		return solver;
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (!pending && !exhausted) {
+			if (closed) {
+				exhausted = true;
+			} else {
+				running = true;
+				try {
+					advance();
+				} finally {
+					running = false;
+				}
+			}
+		}
+		return pending;
+	}
+
+	/**
+	 * Resumes the search loop until the next solution.
+	 */
+	private void advance() {
+		final long before = strategy.getSolutionCount();
+		if (launched) {
+			solver.nextSolution();
+		} else {
+			launched = true;
+			solver.launch();
+		}
+		pending = strategy.getSolutionCount() > before && !closed;
+		exhausted = !pending;
+	}
+
+	/**
+	 * @return the next solution, written in the buffer of the iterator.
+	 */
+	@Override
+	public Solution next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		pending = false;
+		strategy.writeSolution(buffer);
+		return buffer;
+	}
+
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException("a solution can not be removed");
+	}
+
+	/**
+	 * @return <code>true</code> if the enumeration has stopped on a limit or has been closed,
+	 * so that the solver may have more solutions.
+	 */
+	public boolean isIncomplete() {
+		return closed || solver.isEncounteredLimit();
+	}
+
+	/**
+	 * Aborts the search: no more solutions are returned.
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		if (running) {
+			solver.cancel();
+		}
+	}
+}
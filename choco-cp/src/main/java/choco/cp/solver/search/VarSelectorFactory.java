@@ -31,6 +31,7 @@ import static choco.cp.solver.search.integer.varselector.ratioselector.ratios.Ra
 import static choco.cp.solver.search.integer.varselector.ratioselector.ratios.RatioFactory.createDomDynDegRatio;
 import static choco.cp.solver.search.integer.varselector.ratioselector.ratios.RatioFactory.createMinPreservedRatio;
 import choco.cp.solver.constraints.global.scheduling.precedence.ITemporalSRelation;
+import choco.cp.solver.search.integer.varselector.HeapDomOverWDegSelector;
 import choco.cp.solver.search.integer.varselector.ratioselector.DomOverWDegSelector;
 import choco.cp.solver.search.integer.varselector.ratioselector.MinRatioSelector;
 import choco.cp.solver.search.integer.varselector.ratioselector.RandDomOverWDegSelector;
@@ -73,6 +74,10 @@ public final class VarSelectorFactory {
 	public static RandMinRatioSelector domWDegSel(Solver solver, IntDomainVar[] vars, long seed) {
 		return new RandDomOverWDegSelector(solver, vars, seed);
 	}
+
+	public static HeapDomOverWDegSelector heapDomWDegSel(Solver solver, IntDomainVar[] vars, double decay) {
+		return new HeapDomOverWDegSelector(solver, vars, decay);
+	}
 	
 	
 	//*************************************************************************//
@@ -0,0 +1,195 @@
+/**
+ *  Copyright (c) 1999-2010, Ecole des Mines de Nantes
+ *  All rights reserved.
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *      * Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *      * Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *      * Neither the name of the Ecole des Mines de Nantes nor the
+ *        names of its contributors may be used to endorse or promote products
+ *        derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ *  EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package choco.cp.solver.search.integer.branching;
+
+import choco.cp.solver.search.integer.branching.domwdeg.AbstractDomOverWDegBinBranching;
+import choco.kernel.model.constraints.ITemporalRelation;
+import choco.kernel.solver.ContradictionException;
+import choco.kernel.solver.Solver;
+import choco.kernel.solver.branch.AbstractBinIntBranchingStrategy;
+import choco.kernel.solver.branch.AbstractIntBranchingStrategy;
+import choco.kernel.solver.constraints.SConstraint;
+import choco.kernel.solver.propagation.listener.PropagationEngineListener;
+import choco.kernel.solver.search.AbstractGlobalSearchStrategy;
+import choco.kernel.solver.search.IntBranchingDecision;
+import choco.kernel.solver.variables.Var;
+
+/**
+ * A wrapper of a branching which selects first the branching objects involved in the last conflicts.
+ * <p/>
+ * A conflict is a failure raised by a positive decision of the wrapped branching, not by a refutation:
+ * the refutation is the up branch of a n-ary branching, and the second down branch of a binary one;
+ * its branching object, a variable or a temporal relation, is given to the conflict strategy.
+ * As long as the conflict strategy selects an object, it is branched on by the wrapped branching,
+ * otherwise the selection is delegated to the wrapped branching, which is not modified.
+ */
+public abstract class AbstractConflictBranching extends AbstractIntBranchingStrategy implements PropagationEngineListener {
+
+	protected final Solver solver;
+
+	public final AbstractIntBranchingStrategy internalBranching;
+
+	/**
+	 * whether the second branch of the wrapped branching is the refutation of the first one.
+	 */
+	private final boolean binary;
+
+	private IntBranchingDecision lastDecision;
+
+	private Object lastObject;
+
+	private int nbConflicts;
+
+	public AbstractConflictBranching(Solver solver, AbstractIntBranchingStrategy internalBranching) {
+		super();
+		this.solver = solver;
+		this.internalBranching = internalBranching;
+		binary = isBinary(internalBranching);
+		solver.getPropagationEngine().addPropagationEngineListener(this);
+	}
+
+	public final int getNbConflicts() {
+		return nbConflicts;
+	}
+
+	/**
+	 * @return true if the second branch of the branching is the refutation of the first one.
+	 */
+	protected static boolean isBinary(AbstractIntBranchingStrategy branching) {
+		return branching instanceof AbstractBinIntBranchingStrategy || branching instanceof AbstractDomOverWDegBinBranching;
+	}
+
+	/**
+	 * @return true if the branching object is a variable or a temporal relation.
+	 */
+	protected static boolean isConflictObject(Object o) {
+		return o instanceof Var || o instanceof ITemporalRelation;
+	}
+
+	/**
+	 * @return true if the branching object can still be branched on.
+	 */
+	protected static boolean isOpen(Object o) {
+		if (o instanceof Var) {
+			return !((Var) o).isInstantiated();
+		} else if (o instanceof ITemporalRelation) {
+			return !((ITemporalRelation<?, ?>) o).isFixed();
+		}
+		return false;
+	}
+
+	/**
+	 * Records a conflict.
+	 * @param o the branching object of the decision which failed.
+	 */
+	protected abstract void onConflict(Object o);
+
+	/**
+	 * @return the open branching object involved in the conflicts which must be branched on, or null.
+	 */
+	protected abstract Object selectConflictObject();
+
+	@Override
+	public void contradictionOccured(ContradictionException e) {
+		//only the failures of the current positive decision of the wrapped branching are conflicts
+		if (lastDecision != null && manager != null && manager.topTrace() == lastDecision
+				&& lastDecision.getBranchingObject() == lastObject && isConflictObject(lastObject)) {
+			nbConflicts++;
+			onConflict(lastObject);
+		}
+	}
+
+	@Override
+	public void safeDelete() {
+		solver.getPropagationEngine().removePropagationEngineListener(this);
+	}
+
+	@Override
+	public void setSolver(AbstractGlobalSearchStrategy s) {
+		super.setSolver(s);
+		internalBranching.setSolver(s);
+	}
+
+	@Override
+	public Object selectBranchingObject() throws ContradictionException {
+		final Object o = selectConflictObject();
+		return o == null ? internalBranching.selectBranchingObject() : o;
+	}
+
+	@Override
+	public void goDownBranch(IntBranchingDecision decision) throws ContradictionException {
+		if (binary && decision.getBranchIndex() > 0) {
+			//the refutation of a binary branching
+			lastDecision = null;
+			lastObject = null;
+		} else {
+			lastDecision = decision;
+			lastObject = decision.getBranchingObject();
+		}
+		internalBranching.goDownBranch(decision);
+	}
+
+	@Override
+	public void goUpBranch(IntBranchingDecision decision) throws ContradictionException {
+		//the refutation of a n-ary branching: its failure closes the choice point, it is not a conflict
+		lastDecision = null;
+		lastObject = null;
+		internalBranching.goUpBranch(decision);
+	}
+
+	@Override
+	public void setFirstBranch(IntBranchingDecision decision) {
+		internalBranching.setFirstBranch(decision);
+	}
+
+	@Override
+	public void setNextBranch(IntBranchingDecision decision) {
+		internalBranching.setNextBranch(decision);
+	}
+
+	@Override
+	public boolean finishedBranching(IntBranchingDecision decision) {
+		return internalBranching.finishedBranching(decision);
+	}
+
+	@Override
+	public String getDecisionLogMessage(IntBranchingDecision decision) {
+		return internalBranching.getDecisionLogMessage(decision);
+	}
+
+	@Override
+	public void initBranching() throws ContradictionException {
+		super.initBranching();
+		internalBranching.initBranching();
+	}
+
+	@Override
+	public void initConstraintForBranching(SConstraint c) {
+		super.initConstraintForBranching(c);
+		internalBranching.initConstraintForBranching(c);
+	}
+}
@@ -0,0 +1,82 @@
+/**
+ *  Copyright (c) 1999-2010, Ecole des Mines de Nantes
+ *  All rights reserved.
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *      * Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *      * Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *      * Neither the name of the Ecole des Mines de Nantes nor the
+ *        names of its contributors may be used to endorse or promote products
+ *        derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ *  EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package choco.cp.solver.search.integer.branching;
+
+import choco.kernel.solver.Solver;
+import choco.kernel.solver.branch.AbstractIntBranchingStrategy;
+import gnu.trove.TObjectIntHashMap;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Conflict-ordering search: each branching object is stamped with the index of its last conflict,
+ * and the open object with the latest stamp is branched on first.
+ * If no object in conflict is open, the wrapped branching selects the object.
+ * It generalizes the last-conflict reasoning, which only remembers the latest object.
+ * <br/>S. Gay, R. Hartert, C. Lecoutre, P. Schaus, Conflict ordering search for scheduling problems, CP 2015.
+ */
+public class ConflictOrderingBranching extends AbstractConflictBranching {
+
+	/**
+	 * the objects in conflict, by increasing stamp.
+	 */
+	private final List<Object> conflicts = new ArrayList<Object>();
+
+	private final TObjectIntHashMap<Object> stamps = new TObjectIntHashMap<Object>();
+
+	public ConflictOrderingBranching(Solver solver, AbstractIntBranchingStrategy internalBranching) {
+		super(solver, internalBranching);
+	}
+
+	/**
+	 * @return the index of the last conflict of the object, 0 if none.
+	 */
+	public final int getStamp(Object o) {
+		return stamps.get(o);
+	}
+
+	@Override
+	protected void onConflict(Object o) {
+		if (stamps.containsKey(o)) {
+			conflicts.remove(o);
+		}
+		conflicts.add(o);
+		stamps.put(o, getNbConflicts());
+	}
+
+	@Override
+	protected Object selectConflictObject() {
+		for (int i = conflicts.size() - 1; i >= 0; i--) {
+			final Object o = conflicts.get(i);
+			if (isOpen(o)) {
+				return o;
+			}
+		}
+		return null;
+	}
+}
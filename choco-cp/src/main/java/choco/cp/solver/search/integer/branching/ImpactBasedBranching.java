@@ -33,6 +33,8 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Random;
 
+import choco.cp.solver.CPSolver;
+import choco.cp.solver.search.parallel.ParallelProbing;
 import choco.kernel.common.TimeCacheThread;
 import choco.kernel.common.util.iterators.DisposableIntIterator;
 import choco.kernel.solver.Configuration;
@@ -42,6 +44,7 @@ import choco.kernel.solver.branch.AbstractLargeIntBranchingStrategy;
 import choco.kernel.solver.search.IntBranchingDecision;
 import choco.kernel.solver.variables.AbstractVar;
 import choco.kernel.solver.variables.integer.IntDomainVar;
+import gnu.trove.TIntArrayList;
 
 /**
  * Impact based branching based on the code from Hadrien
@@ -370,7 +373,11 @@ public class ImpactBasedBranching extends AbstractLargeIntBranchingStrategy {
 		 */
 		public void initImpacts() throws ContradictionException {
 			int timelimit = _branching._solver.getConfiguration().readInt(Configuration.INIT_IMPACT_TIME_LIMIT);
-			if (timelimit > 0) {
+			final int nbWorkers = _branching._solver.getConfiguration().readInt(Configuration.INIT_PROBING_NB_WORKERS);
+			if (timelimit > 0 && nbWorkers > 1 && _branching._solver instanceof CPSolver
+					&& ParallelProbing.isCloneable((CPSolver) _branching._solver)) {
+				initImpacts(timelimit, nbWorkers);
+			} else if (timelimit > 0) {
 				long tps = TimeCacheThread.currentTimeMillis;
 				_branching._solver.propagate();
 				_branching._solver.worldPush();
@@ -409,6 +416,58 @@ public class ImpactBasedBranching extends AbstractLargeIntBranchingStrategy {
 			}
 		}
 
+		/**
+		 * Initializes the impacts with a pool of workers, each worker probing the values of a share of the variables
+		 * on its own clone of the root node. The impacts of the workers are summed, and the values whose probing failed
+		 * are removed from the root node.
+		 * The time limit applies to the probing of each worker, the workers being built beforehand.
+		 *
+		 * @param timelimit limit of the probing
+		 * @param nbWorkers number of workers
+		 * @throws ContradictionException if the root node is infeasible
+		 */
+		protected void initImpacts(final int timelimit, final int nbWorkers) throws ContradictionException {
+			final CPSolver solver = (CPSolver) _branching._solver;
+			solver.propagate();
+			final int n = svars.size();
+			final int[] varIndices = new int[n];
+			for (int i = 0; i < n; i++) {
+				varIndices[i] = solver.getIntVarIndex((IntDomainVar) svars.get(i));
+			}
+			final int totalSize = n == 0 ? 0 : dataS.blocks[n - 1] + dataS.sizes[n - 1];
+			final ParallelProbing probing = new ParallelProbing(solver, nbWorkers);
+			final long tps = TimeCacheThread.currentTimeMillis;
+			final List<ImpactProbe> probes = probing.probe(new ParallelProbing.Task<ImpactProbe>() {
+				@Override
+				public ImpactProbe probe(CPSolver worker, int index) throws ContradictionException {
+					final ImpactProbe probe = new ImpactProbe(worker, varIndices, totalSize);
+					for (int i = index; i < n; i += nbWorkers) {
+						if (!probe.probeVar(worker, i, dataS.blocks[i] - dataS.offsets[i], tps, timelimit)) {
+							break;
+						}
+					}
+					return probe;
+				}
+			});
+			for (ImpactProbe probe : probes) {
+				mergeImpacts(probe.impacts, probe.counts);
+			}
+			for (ImpactProbe probe : probes) {
+				for (int k = 0; k < probe.removals.size(); k += 2) {
+					((IntDomainVar) svars.get(probe.removals.get(k))).remVal(probe.removals.get(k + 1));
+				}
+			}
+			solver.propagate();
+		}
+
+		/**
+		 * Adds impacts computed elsewhere, indexed by choice address.
+		 *
+		 * @param impacts sum of the impacts of each choice
+		 * @param counts  number of times each choice was taken
+		 */
+		protected abstract void mergeImpacts(double[] impacts, int[] counts);
+
 
 		protected static class ImpactStorage {
 
@@ -468,6 +527,92 @@ public class ImpactBasedBranching extends AbstractLargeIntBranchingStrategy {
 
 	}
 
+	/**
+	 * The probing of the values of some variables by a worker of the parallel initialization of the impacts.
+	 */
+	private static final class ImpactProbe {
+
+		final IntDomainVar[] vars;
+
+		final double[] impacts;
+
+		final int[] counts;
+
+		/**
+		 * pairs (index of the variable, value) of the values whose probing failed.
+		 */
+		final TIntArrayList removals = new TIntArrayList();
+
+		final int[] domBefore, domAfter;
+
+		ImpactProbe(CPSolver worker, int[] varIndices, int totalSize) {
+			vars = new IntDomainVar[varIndices.length];
+			for (int i = 0; i < vars.length; i++) {
+				vars[i] = worker.getIntVarQuick(varIndices[i]);
+			}
+			impacts = new double[totalSize];
+			counts = new int[totalSize];
+			domBefore = new int[vars.length];
+			domAfter = new int[vars.length];
+		}
+
+		void computeCurrentDomSize(int[] domSizes) {
+			for (int i = 0; i < domSizes.length; i++) {
+				domSizes[i] = vars[i].getDomainSize();
+			}
+		}
+
+		/**
+		 * Probes each value of the i-th variable.
+		 *
+		 * @param blockadress address of the choices of the variable, minus its offset
+		 * @return false if the time limit is reached
+		 */
+		boolean probeVar(CPSolver worker, int i, int blockadress, long tps, int timelimit) throws ContradictionException {
+			final IntDomainVar v = vars[i];
+			if (!v.isInstantiated() && v.hasEnumeratedDomain()) {
+				final int[] values = new int[v.getDomainSize()];
+				final DisposableIntIterator it = v.getDomain().getIterator();
+				int k = 0;
+				while (it.hasNext()) {
+					values[k++] = it.next();
+				}
+				it.dispose();
+				for (int val : values) {
+					if (v.isInstantiated() || !v.canBeInstantiatedTo(val)) {
+						continue;
+					}
+					final int address = blockadress + val;
+					counts[address]++;
+					computeCurrentDomSize(domBefore);
+					worker.worldPush();
+					try {
+						v.setVal(val);
+						worker.propagate();
+						computeCurrentDomSize(domAfter);
+						double reduc = 1.0;
+						for (int j = 0; j < domAfter.length; j++) {
+							reduc *= (double) domAfter[j] / (double) domBefore[j];
+						}
+						impacts[address] += 1.0 - reduc;
+						worker.worldPop();
+					} catch (ContradictionException e) {
+						impacts[address] += 1.0;
+						worker.worldPop();
+						removals.add(i);
+						removals.add(val);
+						v.remVal(val);
+						worker.propagate();
+					}
+					if ((TimeCacheThread.currentTimeMillis - tps) > timelimit) {
+						return false;
+					}
+				}
+			}
+			return true;
+		}
+	}
+
 	private static final class ImpactRef extends AbstractImpactStrategy {
 
 		/**
@@ -507,6 +652,14 @@ public class ImpactBasedBranching extends AbstractLargeIntBranchingStrategy {
 			else impact[dataS.getChoiceAddress(v, 0)] += value;
 		}
 
+		@Override
+		protected void mergeImpacts(double[] impacts, int[] counts) {
+			for (int i = 0; i < impacts.length; i++) {
+				impact[i] += impacts[i];
+				nbDecOnVarVal[i] += counts[i];
+			}
+		}
+
 		public void updateSearchState(IntDomainVar var, int val) {
 			if (var.hasEnumeratedDomain())
 				nbDecOnVarVal[dataS.getChoiceAddress(var, val)] += 1;
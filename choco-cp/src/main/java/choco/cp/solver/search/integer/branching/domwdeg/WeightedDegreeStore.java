@@ -0,0 +1,664 @@
+/**
+ *  Copyright (c) 1999-2010, Ecole des Mines de Nantes
+ *  All rights reserved.
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *      * Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *      * Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *      * Neither the name of the Ecole des Mines de Nantes nor the
+ *        names of its contributors may be used to endorse or promote products
+ *        derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ *  EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package choco.cp.solver.search.integer.branching.domwdeg;
+
+import choco.cp.solver.variables.integer.IntVarEvent;
+import choco.kernel.common.util.iterators.DisposableIntIterator;
+import choco.kernel.common.util.iterators.DisposableIterator;
+import choco.kernel.memory.IEnvironment;
+import choco.kernel.memory.IStateBool;
+import choco.kernel.memory.IStateInt;
+import choco.kernel.solver.ContradictionException;
+import choco.kernel.solver.Solver;
+import choco.kernel.solver.constraints.IMonitorConstraint;
+import choco.kernel.solver.constraints.SConstraint;
+import choco.kernel.solver.constraints.integer.AbstractLargeIntSConstraint;
+import choco.kernel.solver.variables.integer.IntDomainVar;
+import gnu.trove.TLongIntHashMap;
+import gnu.trove.TObjectIntHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static choco.kernel.solver.constraints.SConstraintType.INTEGER;
+
+/**
+ * A store of the weighted degrees of the variables held in flat arrays indexed by constraint and by variable,
+ * instead of extensions of the constraints and of the variables.
+ * <p/>
+ * The weight of a constraint is increased by a failure it causes.
+ * The weight of a variable is the sum of the weights of its active constraints,
+ * i.e. the integer constraints with at least two uninstantiated variables.
+ * The number of uninstantiated variables of each constraint is maintained by a monitoring constraint,
+ * posted as a cut, which is notified of the instantiations.
+ * Each instantiation is recorded on a trail whose size is backtrackable:
+ * the instantiations of the worlds popped since the last access are undone.
+ * The weight of a variable is summed again from the weights of its constraints whenever one of them changes,
+ * so that it never drifts, even with real weights.
+ * <p/>
+ * The weights are bumped by an increment multiplied by 1/decay after each failure (as in VSIDS or CHB),
+ * so that recent failures prevail when the store is kept across restarts. A decay of 1 gives the classical weighted degree.
+ * The weights are rescaled when the increment becomes too large.
+ * <p/>
+ * The candidate variables are kept in a binary heap ordered by domain size over weight, then by index.
+ * The keys of the variables whose domain or weight changed are updated at the next selection,
+ * at the cost of summing the weights of their constraints.
+ * The weight of a constraint starts at 1 whatever the fine degree of its variables.
+ * The store must be created at the root node, after the constraints are posted:
+ * constraints posted later are ignored. Beware that the monitoring constraint is counted in the degree of the variables.
+ */
+public final class WeightedDegreeStore {
+
+	private static final double MAX_INCREMENT = 1e100;
+
+	private final Solver solver;
+
+	private final IEnvironment environment;
+
+	/**
+	 * variables of the store: the candidates come first.
+	 */
+	private final IntDomainVar[] vars;
+
+	private final int nbCandidates;
+
+	private final TLongIntHashMap varIndex = new TLongIntHashMap();
+
+	private final TObjectIntHashMap<SConstraint> constraintIndex = new TObjectIntHashMap<SConstraint>();
+
+	/**
+	 * variables of the constraint c are scope[scopeStart[c]] to scope[scopeStart[c+1] - 1].
+	 */
+	private final int[] scopeStart;
+
+	private final int[] scope;
+
+	/**
+	 * constraints of the variable v are adjacency[adjacencyStart[v]] to adjacency[adjacencyStart[v+1] - 1].
+	 */
+	private final int[] adjacencyStart;
+
+	private final int[] adjacency;
+
+	private final double[] constraintWeights;
+
+	/**
+	 * number of uninstantiated variables of each constraint.
+	 */
+	private final int[] nbFree;
+
+	/**
+	 * whether the instantiation of a variable is accounted in {@link #nbFree}.
+	 */
+	private final boolean[] counted;
+
+	private double increment = 1;
+
+	private double decay;
+
+	private long nbFailures;
+
+	private final int[] heap;
+
+	/**
+	 * position of each candidate in the heap, -1 if it is not in the heap.
+	 */
+	private final int[] position;
+
+	private final double[] keys;
+
+	private int size;
+
+	private final int[] dirty;
+
+	private final boolean[] isDirty;
+
+	private int nbDirty;
+
+	/**
+	 * an instantiation of v is recorded as v, a domain modification as ~v.
+	 */
+	private int[] trail = new int[64];
+
+	/**
+	 * trail position and world of the last domain modification recorded for each candidate.
+	 */
+	private final int[] lastRecord;
+
+	private final int[] lastRecordWorld;
+
+	/**
+	 * number of entries applied to the store.
+	 */
+	private int applied;
+
+	/**
+	 * number of entries of the current world.
+	 */
+	private final IStateInt trailSize;
+
+	/**
+	 * whether the store has been built in the current world or in one of its ancestors.
+	 */
+	private final IStateBool built;
+
+	public WeightedDegreeStore(Solver solver, IntDomainVar[] candidates) {
+		this(solver, candidates, 1);
+	}
+
+	public WeightedDegreeStore(Solver solver, IntDomainVar[] candidates, double decay) {
+		this.solver = solver;
+		this.environment = solver.getEnvironment();
+		setDecay(decay);
+		final List<IntDomainVar> lvars = new ArrayList<IntDomainVar>();
+		for (IntDomainVar v : candidates) {
+			indexOf(v, lvars);
+		}
+		nbCandidates = lvars.size();
+		final List<SConstraint> lcstrs = new ArrayList<SConstraint>();
+		int nbEntries = 0;
+		final DisposableIterator<SConstraint> iter = solver.getConstraintIterator();
+		while (iter.hasNext()) {
+			final SConstraint<?> c = iter.next();
+			if (INTEGER.isTypeOf(c) && c.getNbVars() > 1 && !(c instanceof IMonitorConstraint)) {
+				constraintIndex.put(c, lcstrs.size());
+				lcstrs.add(c);
+				nbEntries += c.getNbVars();
+			}
+		}
+		iter.dispose();
+		final int nbCstrs = lcstrs.size();
+		scopeStart = new int[nbCstrs + 1];
+		scope = new int[nbEntries];
+		for (int c = 0; c < nbCstrs; c++) {
+			final SConstraint<?> cstr = lcstrs.get(c);
+			scopeStart[c + 1] = scopeStart[c] + cstr.getNbVars();
+			for (int k = 0; k < cstr.getNbVars(); k++) {
+				scope[scopeStart[c] + k] = indexOf((IntDomainVar) cstr.getVarQuick(k), lvars);
+			}
+		}
+		vars = lvars.toArray(new IntDomainVar[lvars.size()]);
+		final int n = vars.length;
+		adjacencyStart = new int[n + 1];
+		adjacency = new int[nbEntries];
+		for (int i = 0; i < nbEntries; i++) {
+			adjacencyStart[scope[i] + 1]++;
+		}
+		for (int v = 0; v < n; v++) {
+			adjacencyStart[v + 1] += adjacencyStart[v];
+		}
+		final int[] fill = new int[n];
+		for (int c = 0; c < nbCstrs; c++) {
+			for (int i = scopeStart[c]; i < scopeStart[c + 1]; i++) {
+				final int v = scope[i];
+				adjacency[adjacencyStart[v] + fill[v]++] = c;
+			}
+		}
+		constraintWeights = new double[nbCstrs];
+		Arrays.fill(constraintWeights, 1);
+		nbFree = new int[nbCstrs];
+		counted = new boolean[n];
+		heap = new int[nbCandidates];
+		position = new int[nbCandidates];
+		keys = new double[nbCandidates];
+		dirty = new int[nbCandidates];
+		isDirty = new boolean[nbCandidates];
+		lastRecord = new int[nbCandidates];
+		lastRecordWorld = new int[nbCandidates];
+		trailSize = environment.makeInt(0);
+		built = environment.makeBool(false);
+		final List<IntDomainVar> monitored = new ArrayList<IntDomainVar>(n);
+		final int[] monitoredIndex = new int[n];
+		for (int v = 0; v < n; v++) {
+			if (!vars[v].isInstantiated()) {
+				monitoredIndex[monitored.size()] = v;
+				monitored.add(vars[v]);
+			}
+		}
+		if (!monitored.isEmpty()) {
+			solver.postCut(new Monitor(this, monitored.toArray(new IntDomainVar[monitored.size()]), monitoredIndex));
+		}
+	}
+
+	private int indexOf(IntDomainVar var, List<IntDomainVar> lvars) {
+		final long key = var.getIndex();
+		if (varIndex.containsKey(key)) {
+			return varIndex.get(key);
+		}
+		final int idx = lvars.size();
+		varIndex.put(key, idx);
+		lvars.add(var);
+		return idx;
+	}
+
+	public Solver getSolver() {
+		return solver;
+	}
+
+	public double getDecay() {
+		return decay;
+	}
+
+	/**
+	 * @param decay factor in ]0,1] applied to the weights after each failure.
+	 */
+	public void setDecay(double decay) {
+		if (decay <= 0 || decay > 1) {
+			throw new IllegalArgumentException("the decay must be in ]0,1]: " + decay);
+		}
+		this.decay = decay;
+	}
+
+	public long getNbFailures() {
+		return nbFailures;
+	}
+
+	/**
+	 * @return the weight of the constraint, 0 if it is not indexed by the store.
+	 */
+	public double getConstraintWeight(SConstraint<?> cstr) {
+		return constraintIndex.containsKey(cstr) ? constraintWeights[constraintIndex.get(cstr)] : 0;
+	}
+
+	/**
+	 * @return the weight of the variable, i.e. the sum of the weights of its active constraints.
+	 */
+	public double getVarWeight(IntDomainVar var) {
+		final long key = var.getIndex();
+		if (!varIndex.containsKey(key)) {
+			return 0;
+		}
+		final int v = varIndex.get(key);
+		if (built.get()) {
+			synchronize();
+			return computeWeight(v);
+		}
+		double w = 0;
+		for (int i = adjacencyStart[v]; i < adjacencyStart[v + 1]; i++) {
+			final int c = adjacency[i];
+			int free = 0;
+			for (int j = scopeStart[c]; j < scopeStart[c + 1] && free < 2; j++) {
+				if (!vars[scope[j]].isInstantiated()) {
+					free++;
+				}
+			}
+			if (free > 1) {
+				w += constraintWeights[c];
+			}
+		}
+		return w;
+	}
+
+	/**
+	 * @return the sum of the weights of the active constraints of the variable, in a fixed order.
+	 */
+	private double computeWeight(int v) {
+		double w = 0;
+		for (int i = adjacencyStart[v]; i < adjacencyStart[v + 1]; i++) {
+			final int c = adjacency[i];
+			if (nbFree[c] > 1) {
+				w += constraintWeights[c];
+			}
+		}
+		return w;
+	}
+
+	/**
+	 * Increases the weight of the constraint responsible of a failure.
+	 */
+	public void addFailure(SConstraint<?> cause) {
+		if (cause == null || !constraintIndex.containsKey(cause)) {
+			return;
+		}
+		nbFailures++;
+		final int c = constraintIndex.get(cause);
+		constraintWeights[c] += increment;
+		if (built.get()) {
+			synchronize();
+			if (nbFree[c] > 1) {
+				markScopeDirty(c);
+			}
+		}
+		increment /= decay;
+		if (increment > MAX_INCREMENT) {
+			rescale();
+		}
+	}
+
+	private void rescale() {
+		final double f = 1 / MAX_INCREMENT;
+		increment *= f;
+		for (int c = 0; c < constraintWeights.length; c++) {
+			constraintWeights[c] *= f;
+		}
+		if (built.get()) {
+			for (int v = 0; v < nbCandidates; v++) {
+				markDirty(v);
+			}
+		}
+	}
+
+	/**
+	 * @return the candidate with the smallest ratio domain size over weight, null if all candidates are instantiated.
+	 */
+	public IntDomainVar selectVar() {
+		if (built.get()) {
+			synchronize();
+			while (nbDirty > 0) {
+				final int v = dirty[--nbDirty];
+				isDirty[v] = false;
+				if (vars[v].isInstantiated()) {
+					if (position[v] >= 0) {
+						remove(v);
+					}
+				} else if (position[v] >= 0) {
+					changeKey(v, key(v));
+				} else {
+					insert(v);
+				}
+			}
+		} else {
+			build();
+		}
+		//defensive: a candidate is removed by its instantiation event
+		while (size > 0 && vars[heap[0]].isInstantiated()) {
+			remove(heap[0]);
+		}
+		return size == 0 ? null : vars[heap[0]];
+	}
+
+	private void build() {
+		built.set(true);
+		applied = 0;
+		trailSize.set(0);
+		for (int v = 0; v < vars.length; v++) {
+			counted[v] = vars[v].isInstantiated();
+		}
+		for (int c = 0; c < nbFree.length; c++) {
+			int free = 0;
+			for (int i = scopeStart[c]; i < scopeStart[c + 1]; i++) {
+				if (!counted[scope[i]]) {
+					free++;
+				}
+			}
+			nbFree[c] = free;
+		}
+		nbDirty = 0;
+		size = 0;
+		for (int v = 0; v < nbCandidates; v++) {
+			isDirty[v] = false;
+			lastRecord[v] = -1;
+			if (vars[v].isInstantiated()) {
+				position[v] = -1;
+			} else {
+				keys[v] = key(v);
+				position[v] = size;
+				heap[size++] = v;
+			}
+		}
+		for (int i = size / 2 - 1; i >= 0; i--) {
+			siftDown(i);
+		}
+	}
+
+	private double key(int v) {
+		return vars[v].getDomainSize() / computeWeight(v);
+	}
+
+	/**
+	 * Undoes the entries of the worlds popped since the last access.
+	 */
+	private void synchronize() {
+		final int n = trailSize.get();
+		while (applied > n) {
+			final int e = trail[--applied];
+			if (e < 0) {
+				lastRecord[~e] = -1;
+				markDirty(~e);
+			} else {
+				counted[e] = false;
+				for (int i = adjacencyStart[e]; i < adjacencyStart[e + 1]; i++) {
+					final int c = adjacency[i];
+					if (++nbFree[c] == 2) {
+						markScopeDirty(c);
+					}
+				}
+				markDirty(e);
+			}
+		}
+	}
+
+	private void markScopeDirty(int c) {
+		for (int i = scopeStart[c]; i < scopeStart[c + 1]; i++) {
+			markDirty(scope[i]);
+		}
+	}
+
+	private void markDirty(int v) {
+		if (v < nbCandidates && !isDirty[v]) {
+			isDirty[v] = true;
+			dirty[nbDirty++] = v;
+		}
+	}
+
+	private void record(int e) {
+		if (applied == trail.length) {
+			final int[] t = new int[applied * 2];
+			System.arraycopy(trail, 0, t, 0, applied);
+			trail = t;
+		}
+		trail[applied++] = e;
+		trailSize.set(applied);
+	}
+
+	void onInstantiation(int v) {
+		if (!built.get()) {
+			//the store is built by the next selection
+			return;
+		}
+		synchronize();
+		if (counted[v]) {
+			return;
+		}
+		counted[v] = true;
+		record(v);
+		for (int i = adjacencyStart[v]; i < adjacencyStart[v + 1]; i++) {
+			final int c = adjacency[i];
+			if (--nbFree[c] == 1) {
+				markScopeDirty(c);
+			}
+		}
+		if (v < nbCandidates && position[v] >= 0) {
+			remove(v);
+		}
+	}
+
+	void onDomainModification(int v) {
+		if (!built.get()) {
+			return;
+		}
+		synchronize();
+		if (counted[v]) {
+			return;
+		}
+		//an entry below the applied ones recorded in the current world index was recorded in the current world
+		final int world = environment.getWorldIndex();
+		final int pos = lastRecord[v];
+		if (pos < 0 || pos >= applied || trail[pos] != ~v || lastRecordWorld[v] != world) {
+			lastRecord[v] = applied;
+			lastRecordWorld[v] = world;
+			record(~v);
+		}
+		markDirty(v);
+	}
+
+	private void insert(int v) {
+		keys[v] = key(v);
+		position[v] = size;
+		heap[size++] = v;
+		siftUp(size - 1);
+	}
+
+	private void remove(int v) {
+		final int pos = position[v];
+		position[v] = -1;
+		size--;
+		if (pos < size) {
+			final int last = heap[size];
+			heap[pos] = last;
+			position[last] = pos;
+			siftDown(pos);
+			siftUp(position[last]);
+		}
+	}
+
+	private void changeKey(int v, double key) {
+		final double old = keys[v];
+		keys[v] = key;
+		if (key < old) {
+			siftUp(position[v]);
+		} else if (key > old) {
+			siftDown(position[v]);
+		}
+	}
+
+	private boolean less(int i, int j) {
+		return keys[i] < keys[j] || (keys[i] == keys[j] && i < j);
+	}
+
+	private void siftUp(int pos) {
+		final int v = heap[pos];
+		while (pos > 0) {
+			final int parent = (pos - 1) >> 1;
+			if (!less(v, heap[parent])) {
+				break;
+			}
+			heap[pos] = heap[parent];
+			position[heap[pos]] = pos;
+			pos = parent;
+		}
+		heap[pos] = v;
+		position[v] = pos;
+	}
+
+	private void siftDown(int pos) {
+		final int v = heap[pos];
+		final int half = size >> 1;
+		while (pos < half) {
+			int child = 2 * pos + 1;
+			if (child + 1 < size && less(heap[child + 1], heap[child])) {
+				child++;
+			}
+			if (!less(heap[child], v)) {
+				break;
+			}
+			heap[pos] = heap[child];
+			position[heap[pos]] = pos;
+			pos = child;
+		}
+		heap[pos] = v;
+		position[v] = pos;
+	}
+
+	@Override
+	public String toString() {
+		return "nbFailures: " + nbFailures + " increment: " + increment + " decay: " + decay;
+	}
+
+	/**
+	 * A constraint which never filters, forwarding the instantiations of the variables,
+	 * and the domain modifications of the candidates to the store.
+	 */
+	private static final class Monitor extends AbstractLargeIntSConstraint implements IMonitorConstraint {
+
+		private final WeightedDegreeStore store;
+
+		private final int[] index;
+
+		private Monitor(WeightedDegreeStore store, IntDomainVar[] vars, int[] index) {
+			super(vars);
+			this.store = store;
+			this.index = index;
+		}
+
+		@Override
+		public int getFilteredEventMask(int idx) {
+			return index[idx] < store.nbCandidates ?
+					IntVarEvent.INSTINT_MASK + IntVarEvent.INCINF_MASK + IntVarEvent.DECSUP_MASK + IntVarEvent.REMVAL_MASK :
+					IntVarEvent.INSTINT_MASK;
+		}
+
+		@Override
+		public void propagate() throws ContradictionException {}
+
+		@Override
+		public void awakeOnInst(int idx) throws ContradictionException {
+			store.onInstantiation(index[idx]);
+		}
+
+		@Override
+		public void awakeOnInf(int idx) throws ContradictionException {
+			store.onDomainModification(index[idx]);
+		}
+
+		@Override
+		public void awakeOnSup(int idx) throws ContradictionException {
+			store.onDomainModification(index[idx]);
+		}
+
+		@Override
+		public void awakeOnBounds(int idx) throws ContradictionException {
+			store.onDomainModification(index[idx]);
+		}
+
+		@Override
+		public void awakeOnRem(int idx, int val) throws ContradictionException {
+			store.onDomainModification(index[idx]);
+		}
+
+		@Override
+		public void awakeOnRemovals(int idx, DisposableIntIterator deltaDomain) throws ContradictionException {
+			store.onDomainModification(index[idx]);
+		}
+
+		@Override
+		public boolean isSatisfied(int[] tuple) {
+			return true;
+		}
+
+		@Override
+		public boolean isSatisfied() {
+			return true;
+		}
+
+		@Override
+		public String pretty() {
+			return "WeightedDegreeStoreMonitor";
+		}
+	}
+}
@@ -43,12 +43,32 @@ public abstract class IntObjectiveManager implements IObjectiveManager {
 	
 	protected int targetBound;
 	
+	/**
+	 * the bound shared with other solvers (null if the solver runs alone).
+	 */
+	protected SharedIntBound sharedBound;
+	
 	
 	public IntObjectiveManager(IntDomainVar objective) {
 		super();
 		this.objective = objective;
 	}
 
+	public final SharedIntBound getSharedBound() {
+		return sharedBound;
+	}
+
+	/**
+	 * Shares the objective bound with other solvers: the solutions of this solver are offered to the shared bound
+	 * and the optimization cuts take into account the solutions of the other solvers.
+	 */
+	public final void setSharedBound(SharedIntBound sharedBound) {
+		if (sharedBound != null && sharedBound.maximize != (this instanceof MaxIntObjManager)) {
+			throw new IllegalArgumentException("the shared bound and the objective have different directions");
+		}
+		this.sharedBound = sharedBound;
+	}
+
 	public abstract int getInitialBoundValue();
 	
 	public abstract int getFloorValue();
@@ -57,6 +57,7 @@ public final class MaxIntObjManager extends IntObjectiveManager {
 	public void setBound() {
 		final int v = getFloorValue();
 		if( v > bound) { bound = v;}
+		if( sharedBound != null) { sharedBound.offer(v);}
 	}
 		
 	@Override
@@ -67,6 +68,10 @@ public final class MaxIntObjManager extends IntObjectiveManager {
 	
 	@Override
 	public void postTargetBound() throws ContradictionException {
+		if( sharedBound != null) {
+			final int b = sharedBound.get();
+			if( b >= targetBound) { targetBound = b + 1;}
+		}
 		objective.setInf(targetBound);
 	}
 	
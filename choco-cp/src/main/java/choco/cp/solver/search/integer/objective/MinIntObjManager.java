@@ -53,6 +53,10 @@ public final class MinIntObjManager extends IntObjectiveManager {
 		
 	@Override
 	public void postTargetBound() throws ContradictionException {
+		if( sharedBound != null) {
+			final int b = sharedBound.get();
+			if( b <= targetBound) { targetBound = b - 1;}
+		}
 		objective.setSup(targetBound);
 	}
 	
@@ -71,6 +75,7 @@ public final class MinIntObjManager extends IntObjectiveManager {
 	public void setBound() {
 		final int v = getFloorValue();
 		if( v < bound) { bound = v;}
+		if( sharedBound != null) { sharedBound.offer(v);}
 	}
 	
 	@Override
@@ -0,0 +1,81 @@
+/**
+ *  Copyright (c) 1999-2010, Ecole des Mines de Nantes
+ *  All rights reserved.
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *      * Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *      * Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *      * Neither the name of the Ecole des Mines de Nantes nor the
+ *        names of its contributors may be used to endorse or promote products
+ *        derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ *  EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package choco.cp.solver.search.integer.objective;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An objective bound shared by several solvers running concurrently on the same model.
+ * Each solver offers the objective value of its solutions and cuts its own search with the best value offered so far.
+ * The bound only improves: the smallest value when minimizing, the largest one when maximizing.
+ */
+public final class SharedIntBound {
+
+	public final boolean maximize;
+
+	private final AtomicInteger value;
+
+	public SharedIntBound(boolean maximize) {
+		super();
+		this.maximize = maximize;
+		this.value = new AtomicInteger(maximize ? Integer.MIN_VALUE : Integer.MAX_VALUE);
+	}
+
+	/**
+	 * @return the best objective value offered so far
+	 */
+	public int get() {
+		return value.get();
+	}
+
+	/**
+	 * @return <code>true</code> if a value has been offered
+	 */
+	public boolean isSet() {
+		return value.get() != (maximize ? Integer.MIN_VALUE : Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Offers the objective value of a new solution.
+	 * @return <code>true</code> if the value improves the shared bound
+	 */
+	public boolean offer(int v) {
+		int current = value.get();
+		while (maximize ? v > current : v < current) {
+			if (value.compareAndSet(current, v)) {
+				return true;
+			}
+			current = value.get();
+		}
+		return false;
+	}
+
+	@Override
+	public String toString() {
+		return isSet() ? String.valueOf(get()) : "none";
+	}
+}
@@ -0,0 +1,83 @@
+/**
+ *  Copyright (c) 1999-2010, Ecole des Mines de Nantes
+ *  All rights reserved.
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *      * Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *      * Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *      * Neither the name of the Ecole des Mines de Nantes nor the
+ *        names of its contributors may be used to endorse or promote products
+ *        derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ *  EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package choco.cp.solver.search.integer.valiterator;
+
+import choco.cp.solver.search.SolutionHint;
+import choco.kernel.solver.Solution;
+import choco.kernel.solver.search.ValIterator;
+import choco.kernel.solver.variables.integer.IntDomainVar;
+
+/**
+ * A value iterator starting with the value of the variable in a solution hint, then following the order of another
+ * value iterator without repeating the hinted value.
+ * The hinted value is skipped when the variable is not hinted or when its hinted value has been removed from the domain.
+ */
+public final class SolutionHintValIterator implements ValIterator<IntDomainVar> {
+
+	private final SolutionHint hint;
+
+	private final ValIterator<IntDomainVar> fallback;
+
+	public SolutionHintValIterator(SolutionHint hint, ValIterator<IntDomainVar> fallback) {
+		this.hint = hint;
+		this.fallback = fallback;
+	}
+
+	public SolutionHint getHint() {
+		return hint;
+	}
+
+	public ValIterator<IntDomainVar> getFallback() {
+		return fallback;
+	}
+
+	/**
+	 * The hinted value is only returned as the first branch: a branch equal to the hinted value is followed by the
+	 * first branch of the fallback iterator, which is skipped if it is the hinted value itself.
+	 */
+	public boolean hasNextVal(IntDomainVar x, int i) {
+		final int hinted = hint.getValue(x);
+		if (i == hinted) {
+			return fallback.getFirstVal(x) != hinted || fallback.hasNextVal(x, hinted);
+		} else if (fallback.hasNextVal(x, i)) {
+			final int next = fallback.getNextVal(x, i);
+			return next != hinted || fallback.hasNextVal(x, next);
+		}
+		return false;
+	}
+
+	public int getFirstVal(IntDomainVar x) {
+		final int val = hint.getHintedValue(x);
+		return val == Solution.NULL ? fallback.getFirstVal(x) : val;
+	}
+
+	public int getNextVal(IntDomainVar x, int i) {
+		final int hinted = hint.getValue(x);
+		final int next = i == hinted ? fallback.getFirstVal(x) : fallback.getNextVal(x, i);
+		return next == hinted ? fallback.getNextVal(x, next) : next;
+	}
+}
@@ -0,0 +1,62 @@
+/**
+ *  Copyright (c) 1999-2010, Ecole des Mines de Nantes
+ *  All rights reserved.
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *      * Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *      * Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *      * Neither the name of the Ecole des Mines de Nantes nor the
+ *        names of its contributors may be used to endorse or promote products
+ *        derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ *  EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package choco.cp.solver.search.integer.valselector;
+
+import choco.cp.solver.search.SolutionHint;
+import choco.kernel.solver.Solution;
+import choco.kernel.solver.search.ValSelector;
+import choco.kernel.solver.variables.integer.IntDomainVar;
+
+/**
+ * A value selector trying first the value of the variable in a solution hint.
+ * The selection is delegated to another value selector when the variable is not hinted or when its
+ * hinted value has been removed from the domain.
+ */
+public final class SolutionHintValSelector implements ValSelector<IntDomainVar> {
+
+	private final SolutionHint hint;
+
+	private final ValSelector<IntDomainVar> fallback;
+
+	public SolutionHintValSelector(SolutionHint hint, ValSelector<IntDomainVar> fallback) {
+		this.hint = hint;
+		this.fallback = fallback;
+	}
+
+	public SolutionHint getHint() {
+		return hint;
+	}
+
+	public ValSelector<IntDomainVar> getFallback() {
+		return fallback;
+	}
+
+	public int getBestVal(IntDomainVar x) {
+		final int val = hint.getHintedValue(x);
+		return val == Solution.NULL ? fallback.getBestVal(x) : val;
+	}
+}
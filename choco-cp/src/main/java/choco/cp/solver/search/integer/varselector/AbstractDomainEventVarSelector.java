@@ -0,0 +1,209 @@
+/**
+ *  Copyright (c) 1999-2010, Ecole des Mines de Nantes
+ *  All rights reserved.
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *      * Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *      * Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *      * Neither the name of the Ecole des Mines de Nantes nor the
+ *        names of its contributors may be used to endorse or promote products
+ *        derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ *  EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package choco.cp.solver.search.integer.varselector;
+
+import choco.cp.solver.variables.integer.IntVarEvent;
+import choco.kernel.common.util.iterators.DisposableIntIterator;
+import choco.kernel.solver.ContradictionException;
+import choco.kernel.solver.Solver;
+import choco.kernel.solver.constraints.IMonitorConstraint;
+import choco.kernel.solver.constraints.integer.AbstractLargeIntSConstraint;
+import choco.kernel.solver.propagation.listener.PropagationEngineListener;
+import choco.kernel.solver.search.integer.AbstractIntVarSelector;
+import choco.kernel.solver.variables.integer.IntDomainVar;
+
+/**
+ * A variable selector learning scores from the domain reductions of the propagation.
+ * <p/>
+ * A monitoring constraint, posted as a cut on the variables, records the index of each variable whose domain is reduced
+ * in a primitive array, without allocation. The recorded variables are handed to {@link #onPropagation(int[], int)}
+ * at the next selection, i.e. once the propagation of the previous decision has reached its fix point,
+ * or to {@link #onConflict(int[], int)} when the propagation fails.
+ * The scores are not backtrackable: they are kept from one search tree to the next, e.g. after a restart.
+ * <p/>
+ * The selected variable has the highest score, ties are broken by the smallest domain, then by the order of the variables.
+ * Beware that the monitoring constraint is counted in the degree of the variables.
+ */
+public abstract class AbstractDomainEventVarSelector extends AbstractIntVarSelector implements PropagationEngineListener {
+
+	private final int[] touched;
+
+	/**
+	 * stamp of the last recording of each variable.
+	 */
+	private final int[] stamps;
+
+	private int nbTouched;
+
+	private int stamp = 1;
+
+	protected long nbConflicts;
+
+	public AbstractDomainEventVarSelector(Solver solver, IntDomainVar[] vars) {
+		super(solver, vars);
+		touched = new int[vars.length];
+		stamps = new int[vars.length];
+		solver.postCut(new Monitor(this, vars));
+		solver.getPropagationEngine().addPropagationEngineListener(this);
+	}
+
+	public final long getNbConflicts() {
+		return nbConflicts;
+	}
+
+	/**
+	 * @return the score of the idx-th variable, higher is better.
+	 */
+	public abstract double getScore(int idx);
+
+	/**
+	 * Updates the scores after a successful propagation.
+	 *
+	 * @param indices indices of the variables whose domain has been reduced
+	 * @param n       number of indices
+	 */
+	protected abstract void onPropagation(int[] indices, int n);
+
+	/**
+	 * Updates the scores after a failed propagation.
+	 *
+	 * @param indices indices of the variables whose domain has been reduced before the failure
+	 * @param n       number of indices
+	 */
+	protected abstract void onConflict(int[] indices, int n);
+
+	final void record(int idx) {
+		if (stamps[idx] != stamp) {
+			stamps[idx] = stamp;
+			touched[nbTouched++] = idx;
+		}
+	}
+
+	private int flush() {
+		final int n = nbTouched;
+		nbTouched = 0;
+		stamp++;
+		return n;
+	}
+
+	public IntDomainVar selectVar() {
+		if (nbTouched > 0) {
+			onPropagation(touched, flush());
+		}
+		int best = -1;
+		double bestScore = 0;
+		int bestSize = 0;
+		for (int i = 0; i < vars.length; i++) {
+			if (!vars[i].isInstantiated()) {
+				final double score = getScore(i);
+				final int size = vars[i].getDomainSize();
+				if (best < 0 || score > bestScore || (score == bestScore && size < bestSize)) {
+					best = i;
+					bestScore = score;
+					bestSize = size;
+				}
+			}
+		}
+		return best < 0 ? null : vars[best];
+	}
+
+	public final void contradictionOccured(ContradictionException e) {
+		nbConflicts++;
+		onConflict(touched, flush());
+	}
+
+	@Override
+	public final void safeDelete() {
+		solver.getPropagationEngine().removePropagationEngineListener(this);
+	}
+
+	/**
+	 * A constraint which never filters, recording the variables whose domain is reduced.
+	 */
+	private static final class Monitor extends AbstractLargeIntSConstraint implements IMonitorConstraint {
+
+		private final AbstractDomainEventVarSelector selector;
+
+		private Monitor(AbstractDomainEventVarSelector selector, IntDomainVar[] vars) {
+			super(vars);
+			this.selector = selector;
+		}
+
+		@Override
+		public int getFilteredEventMask(int idx) {
+			return IntVarEvent.INSTINT_MASK + IntVarEvent.INCINF_MASK + IntVarEvent.DECSUP_MASK + IntVarEvent.REMVAL_MASK;
+		}
+
+		@Override
+		public void propagate() throws ContradictionException {}
+
+		@Override
+		public void awakeOnInst(int idx) throws ContradictionException {
+			selector.record(idx);
+		}
+
+		@Override
+		public void awakeOnInf(int idx) throws ContradictionException {
+			selector.record(idx);
+		}
+
+		@Override
+		public void awakeOnSup(int idx) throws ContradictionException {
+			selector.record(idx);
+		}
+
+		@Override
+		public void awakeOnBounds(int idx) throws ContradictionException {
+			selector.record(idx);
+		}
+
+		@Override
+		public void awakeOnRem(int idx, int val) throws ContradictionException {
+			selector.record(idx);
+		}
+
+		@Override
+		public void awakeOnRemovals(int idx, DisposableIntIterator deltaDomain) throws ContradictionException {
+			selector.record(idx);
+		}
+
+		@Override
+		public boolean isSatisfied(int[] tuple) {
+			return true;
+		}
+
+		@Override
+		public boolean isSatisfied() {
+			return true;
+		}
+
+		@Override
+		public String pretty() {
+			return "DomainEventMonitor";
+		}
+	}
+}
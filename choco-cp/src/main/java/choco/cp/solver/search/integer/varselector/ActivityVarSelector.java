@@ -0,0 +1,105 @@
+/**
+ *  Copyright (c) 1999-2010, Ecole des Mines de Nantes
+ *  All rights reserved.
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *      * Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *      * Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *      * Neither the name of the Ecole des Mines de Nantes nor the
+ *        names of its contributors may be used to endorse or promote products
+ *        derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ *  EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package choco.cp.solver.search.integer.varselector;
+
+import choco.kernel.solver.Solver;
+import choco.kernel.solver.variables.integer.IntDomainVar;
+
+/**
+ * Activity-based search (Michel and Van Hentenryck, CPAIOR 2012):
+ * the activity of a variable counts how often the propagation reduces its domain, with an exponential decay.
+ * The selected variable maximizes its activity over its domain size.
+ * <p/>
+ * The decay is applied by increasing the bump of the activities by 1/decay after each propagation,
+ * instead of multiplying all the activities, which ages the activities of the instantiated variables as well.
+ * The activities are rescaled when the bump becomes too large.
+ */
+public final class ActivityVarSelector extends AbstractDomainEventVarSelector {
+
+	private static final double MAX_INCREMENT = 1e100;
+
+	private final double[] activities;
+
+	private final double decay;
+
+	private double increment = 1;
+
+	public ActivityVarSelector(Solver solver, IntDomainVar[] vars) {
+		this(solver, vars, 0.999);
+	}
+
+	/**
+	 * @param decay factor in ]0,1] applied to the activities after each propagation.
+	 */
+	public ActivityVarSelector(Solver solver, IntDomainVar[] vars, double decay) {
+		super(solver, vars);
+		if (decay <= 0 || decay > 1) {
+			throw new IllegalArgumentException("the decay must be in ]0,1]: " + decay);
+		}
+		this.decay = decay;
+		activities = new double[vars.length];
+	}
+
+	public double getDecay() {
+		return decay;
+	}
+
+	/**
+	 * @return the activity of the i-th variable, relatively to the current bump.
+	 */
+	public double getActivity(int i) {
+		return activities[i] / increment;
+	}
+
+	@Override
+	public double getScore(int idx) {
+		return activities[idx] / vars[idx].getDomainSize();
+	}
+
+	@Override
+	protected void onPropagation(int[] indices, int n) {
+		bump(indices, n);
+	}
+
+	@Override
+	protected void onConflict(int[] indices, int n) {
+		bump(indices, n);
+	}
+
+	private void bump(int[] indices, int n) {
+		for (int i = 0; i < n; i++) {
+			activities[indices[i]] += increment;
+		}
+		increment /= decay;
+		if (increment > MAX_INCREMENT) {
+			for (int i = 0; i < activities.length; i++) {
+				activities[i] /= MAX_INCREMENT;
+			}
+			increment /= MAX_INCREMENT;
+		}
+	}
+}
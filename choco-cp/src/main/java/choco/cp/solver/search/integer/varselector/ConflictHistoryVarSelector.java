@@ -0,0 +1,99 @@
+/**
+ *  Copyright (c) 1999-2010, Ecole des Mines de Nantes
+ *  All rights reserved.
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *      * Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *      * Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *      * Neither the name of the Ecole des Mines de Nantes nor the
+ *        names of its contributors may be used to endorse or promote products
+ *        derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ *  EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package choco.cp.solver.search.integer.varselector;
+
+import choco.kernel.solver.Solver;
+import choco.kernel.solver.variables.integer.IntDomainVar;
+
+/**
+ * Conflict history-based branching (Liang et al., AAAI 2016), where a variable participates to a propagation
+ * when its domain is reduced.
+ * The score q of a participating variable is updated by q = (1 - alpha) q + alpha r, with the reward
+ * r = m / (conflicts - last + 1), where conflicts is the number of conflicts, last the last conflict
+ * the variable participated to, and m is 1 after a conflict and 0.9 otherwise.
+ * The step size alpha decreases from 0.4 to 0.06 by 1e-6 per conflict.
+ * The selected variable maximizes its score.
+ */
+public final class ConflictHistoryVarSelector extends AbstractDomainEventVarSelector {
+
+	private final double[] scores;
+
+	private final long[] lastConflicts;
+
+	private double alpha;
+
+	private final double minAlpha;
+
+	private final double alphaStep;
+
+	public ConflictHistoryVarSelector(Solver solver, IntDomainVar[] vars) {
+		this(solver, vars, 0.4, 0.06, 1e-6);
+	}
+
+	public ConflictHistoryVarSelector(Solver solver, IntDomainVar[] vars, double alpha, double minAlpha, double alphaStep) {
+		super(solver, vars);
+		if (minAlpha <= 0 || minAlpha > alpha || alpha > 1) {
+			throw new IllegalArgumentException("the step sizes must satisfy 0 < minAlpha <= alpha <= 1");
+		}
+		this.alpha = alpha;
+		this.minAlpha = minAlpha;
+		this.alphaStep = alphaStep;
+		scores = new double[vars.length];
+		lastConflicts = new long[vars.length];
+	}
+
+	public double getAlpha() {
+		return alpha;
+	}
+
+	@Override
+	public double getScore(int idx) {
+		return scores[idx];
+	}
+
+	@Override
+	protected void onPropagation(int[] indices, int n) {
+		reward(indices, n, 0.9);
+	}
+
+	@Override
+	protected void onConflict(int[] indices, int n) {
+		reward(indices, n, 1);
+		for (int i = 0; i < n; i++) {
+			lastConflicts[indices[i]] = nbConflicts;
+		}
+		alpha = Math.max(minAlpha, alpha - alphaStep);
+	}
+
+	private void reward(int[] indices, int n, double multiplier) {
+		for (int i = 0; i < n; i++) {
+			final int idx = indices[i];
+			final double r = multiplier / (nbConflicts - lastConflicts[idx] + 1);
+			scores[idx] = (1 - alpha) * scores[idx] + alpha * r;
+		}
+	}
+}
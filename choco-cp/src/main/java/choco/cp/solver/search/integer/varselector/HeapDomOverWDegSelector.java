@@ -0,0 +1,77 @@
+/**
+ *  Copyright (c) 1999-2010, Ecole des Mines de Nantes
+ *  All rights reserved.
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *      * Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *      * Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *      * Neither the name of the Ecole des Mines de Nantes nor the
+ *        names of its contributors may be used to endorse or promote products
+ *        derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ *  EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package choco.cp.solver.search.integer.varselector;
+
+import choco.cp.solver.search.integer.branching.domwdeg.WeightedDegreeStore;
+import choco.kernel.solver.ContradictionException;
+import choco.kernel.solver.Solver;
+import choco.kernel.solver.propagation.listener.PropagationEngineListener;
+import choco.kernel.solver.search.integer.AbstractIntVarSelector;
+import choco.kernel.solver.variables.integer.IntDomainVar;
+
+/**
+ * A dom/wdeg variable selector backed by a {@link WeightedDegreeStore}:
+ * the weights are held in flat arrays and the variables in a heap.
+ * With a decay of 1, it selects the same variables than {@link choco.cp.solver.search.integer.varselector.ratioselector.DomOverWDegSelector}
+ * when the fine degrees are 1.
+ */
+public final class HeapDomOverWDegSelector extends AbstractIntVarSelector implements PropagationEngineListener {
+
+	private final WeightedDegreeStore store;
+
+	public HeapDomOverWDegSelector(Solver solver, IntDomainVar[] vars) {
+		this(solver, vars, 1);
+	}
+
+	public HeapDomOverWDegSelector(Solver solver, IntDomainVar[] vars, double decay) {
+		super(solver, vars);
+		store = new WeightedDegreeStore(solver, vars, decay);
+		solver.getPropagationEngine().addPropagationEngineListener(this);
+	}
+
+	public WeightedDegreeStore getStore() {
+		return store;
+	}
+
+	public IntDomainVar selectVar() {
+		return store.selectVar();
+	}
+
+	public void contradictionOccured(ContradictionException e) {
+		store.addFailure(e.getDomOverDegContradictionCause());
+	}
+
+	@Override
+	public void safeDelete() {
+		solver.getPropagationEngine().removePropagationEngineListener(this);
+	}
+
+	@Override
+	public String toString() {
+		return store.toString();
+	}
+}
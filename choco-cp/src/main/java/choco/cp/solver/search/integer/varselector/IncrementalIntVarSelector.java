@@ -0,0 +1,334 @@
+/**
+ *  Copyright (c) 1999-2010, Ecole des Mines de Nantes
+ *  All rights reserved.
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *      * Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *      * Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *      * Neither the name of the Ecole des Mines de Nantes nor the
+ *        names of its contributors may be used to endorse or promote products
+ *        derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ *  EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package choco.cp.solver.search.integer.varselector;
+
+import choco.cp.solver.variables.integer.IntVarEvent;
+import choco.kernel.common.util.iterators.DisposableIntIterator;
+import choco.kernel.memory.IStateBool;
+import choco.kernel.memory.IStateInt;
+import choco.kernel.solver.ContradictionException;
+import choco.kernel.solver.constraints.IMonitorConstraint;
+import choco.kernel.solver.constraints.integer.AbstractLargeIntSConstraint;
+import choco.kernel.solver.search.integer.AbstractIntVarSelector;
+import choco.kernel.solver.search.integer.IntHeuristicIntVarSelector;
+import choco.kernel.solver.variables.integer.IntDomainVar;
+
+/**
+ * A variable selector maintaining the variables of an {@link IntHeuristicIntVarSelector} in a binary heap keyed by
+ * their heuristic value, instead of scanning the variables at each node.
+ * <p/>
+ * A monitoring constraint, posted as a cut on the variables, updates the key of a variable when its domain is modified,
+ * and removes it from the heap when it is instantiated. Each update is recorded on a trail whose size is
+ * backtrackable: the updates of the worlds popped since the last selection are undone before the next update
+ * or selection. Selecting a variable costs O(log n) per domain event instead of O(n) per node.
+ * <p/>
+ * The heuristic value of a variable must only depend on its own domain, or be static, e.g. {@link MinDomain},
+ * {@link MaxDomain}, {@link MinValueDomain}, {@link MaxValueDomain}, {@link MaxRegret} or {@link MostConstrained}.
+ * Ties are broken by the order of the variables: the selected variable is the one of the underlying selector.
+ * Beware that the monitoring constraint is counted in the degree of the variables.
+ */
+public final class IncrementalIntVarSelector extends AbstractIntVarSelector {
+
+	private final IntHeuristicIntVarSelector heuristic;
+
+	/**
+	 * heap of variable indices, ordered by key, then by index.
+	 */
+	private final int[] heap;
+
+	/**
+	 * position of each variable in the heap, -1 if it is not in the heap.
+	 */
+	private final int[] position;
+
+	private final int[] keys;
+
+	private int size;
+
+	private int[] trailVar = new int[64];
+
+	private int[] trailKey = new int[64];
+
+	/**
+	 * number of updates applied to the heap.
+	 */
+	private int applied;
+
+	/**
+	 * number of updates of the current world.
+	 */
+	private final IStateInt trailSize;
+
+	/**
+	 * whether the heap has been built in the current world or in one of its ancestors.
+	 */
+	private final IStateBool built;
+
+	public IncrementalIntVarSelector(IntHeuristicIntVarSelector heuristic) {
+		super(heuristic.getSolver(), heuristic.getVars());
+		this.heuristic = heuristic;
+		final int n = vars.length;
+		heap = new int[n];
+		position = new int[n];
+		keys = new int[n];
+		trailSize = solver.getEnvironment().makeInt(0);
+		built = solver.getEnvironment().makeBool(false);
+		solver.postCut(new Monitor(this, vars));
+	}
+
+	public IntHeuristicIntVarSelector getHeuristic() {
+		return heuristic;
+	}
+
+	public IntDomainVar selectVar() {
+		synchronize();
+		//defensive: a variable is removed by its instantiation event
+		while (size > 0 && vars[heap[0]].isInstantiated()) {
+			record(heap[0]);
+			remove(heap[0]);
+		}
+		return size == 0 ? null : vars[heap[0]];
+	}
+
+	/**
+	 * Builds the heap if the search has backtracked above the world of its construction,
+	 * and undoes the updates of the popped worlds otherwise.
+	 */
+	private void synchronize() {
+		if (!built.get()) {
+			build();
+		} else {
+			final int n = trailSize.get();
+			while (applied > n) {
+				applied--;
+				restore(trailVar[applied], trailKey[applied]);
+			}
+		}
+	}
+
+	private void build() {
+		built.set(true);
+		applied = 0;
+		trailSize.set(0);
+		size = 0;
+		for (int i = 0; i < vars.length; i++) {
+			if (vars[i].isInstantiated()) {
+				position[i] = -1;
+			} else {
+				keys[i] = heuristic.getHeuristic(vars[i]);
+				position[i] = size;
+				heap[size++] = i;
+			}
+		}
+		for (int i = size / 2 - 1; i >= 0; i--) {
+			siftDown(i);
+		}
+	}
+
+	/**
+	 * Updates the key of a variable whose domain has been modified.
+	 */
+	void update(int idx) {
+		if (!built.get()) {
+			//the heap is built by the next selection
+			return;
+		}
+		synchronize();
+		if (position[idx] < 0) {
+			return;
+		}
+		if (vars[idx].isInstantiated()) {
+			record(idx);
+			remove(idx);
+		} else {
+			final int key = heuristic.getHeuristic(vars[idx]);
+			if (key != keys[idx]) {
+				record(idx);
+				changeKey(idx, key);
+			}
+		}
+	}
+
+	/**
+	 * Records the current key of a variable in the heap on the trail.
+	 */
+	private void record(int idx) {
+		if (applied == trailVar.length) {
+			final int[] v = new int[applied * 2];
+			System.arraycopy(trailVar, 0, v, 0, applied);
+			trailVar = v;
+			final int[] k = new int[applied * 2];
+			System.arraycopy(trailKey, 0, k, 0, applied);
+			trailKey = k;
+		}
+		trailVar[applied] = idx;
+		trailKey[applied] = keys[idx];
+		applied++;
+		trailSize.set(applied);
+	}
+
+	/**
+	 * Puts back a variable in the heap with a previous key.
+	 */
+	private void restore(int idx, int key) {
+		if (position[idx] < 0) {
+			keys[idx] = key;
+			position[idx] = size;
+			heap[size++] = idx;
+			siftUp(size - 1);
+		} else {
+			changeKey(idx, key);
+		}
+	}
+
+	private void remove(int idx) {
+		final int pos = position[idx];
+		position[idx] = -1;
+		size--;
+		if (pos < size) {
+			final int last = heap[size];
+			heap[pos] = last;
+			position[last] = pos;
+			siftDown(pos);
+			siftUp(position[last]);
+		}
+	}
+
+	private void changeKey(int idx, int key) {
+		final int old = keys[idx];
+		keys[idx] = key;
+		if (key < old) {
+			siftUp(position[idx]);
+		} else {
+			siftDown(position[idx]);
+		}
+	}
+
+	private boolean less(int i, int j) {
+		return keys[i] < keys[j] || (keys[i] == keys[j] && i < j);
+	}
+
+	private void siftUp(int pos) {
+		final int idx = heap[pos];
+		while (pos > 0) {
+			final int parent = (pos - 1) >> 1;
+			if (!less(idx, heap[parent])) {
+				break;
+			}
+			heap[pos] = heap[parent];
+			position[heap[pos]] = pos;
+			pos = parent;
+		}
+		heap[pos] = idx;
+		position[idx] = pos;
+	}
+
+	private void siftDown(int pos) {
+		final int idx = heap[pos];
+		final int half = size >> 1;
+		while (pos < half) {
+			int child = 2 * pos + 1;
+			if (child + 1 < size && less(heap[child + 1], heap[child])) {
+				child++;
+			}
+			if (!less(heap[child], idx)) {
+				break;
+			}
+			heap[pos] = heap[child];
+			position[heap[pos]] = pos;
+			pos = child;
+		}
+		heap[pos] = idx;
+		position[idx] = pos;
+	}
+
+	/**
+	 * A constraint which never filters, forwarding the domain events of the variables to the selector.
+	 */
+	private static final class Monitor extends AbstractLargeIntSConstraint implements IMonitorConstraint {
+
+		private final IncrementalIntVarSelector selector;
+
+		private Monitor(IncrementalIntVarSelector selector, IntDomainVar[] vars) {
+			super(vars);
+			this.selector = selector;
+		}
+
+		@Override
+		public int getFilteredEventMask(int idx) {
+			return IntVarEvent.INSTINT_MASK + IntVarEvent.INCINF_MASK + IntVarEvent.DECSUP_MASK + IntVarEvent.REMVAL_MASK;
+		}
+
+		@Override
+		public void propagate() throws ContradictionException {}
+
+		@Override
+		public void awakeOnInst(int idx) throws ContradictionException {
+			selector.update(idx);
+		}
+
+		@Override
+		public void awakeOnInf(int idx) throws ContradictionException {
+			selector.update(idx);
+		}
+
+		@Override
+		public void awakeOnSup(int idx) throws ContradictionException {
+			selector.update(idx);
+		}
+
+		@Override
+		public void awakeOnBounds(int idx) throws ContradictionException {
+			selector.update(idx);
+		}
+
+		@Override
+		public void awakeOnRem(int idx, int val) throws ContradictionException {
+			selector.update(idx);
+		}
+
+		@Override
+		public void awakeOnRemovals(int idx, DisposableIntIterator deltaDomain) throws ContradictionException {
+			selector.update(idx);
+		}
+
+		@Override
+		public boolean isSatisfied(int[] tuple) {
+			return true;
+		}
+
+		@Override
+		public boolean isSatisfied() {
+			return true;
+		}
+
+		@Override
+		public String pretty() {
+			return "IncrementalIntVarSelectorMonitor";
+		}
+	}
+}
@@ -0,0 +1,409 @@
+/**
+ *  Copyright (c) 1999-2010, Ecole des Mines de Nantes
+ *  All rights reserved.
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *      * Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *      * Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *      * Neither the name of the Ecole des Mines de Nantes nor the
+ *        names of its contributors may be used to endorse or promote products
+ *        derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ *  EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package choco.cp.solver.search.lns;
+
+import choco.cp.solver.CPSolver;
+import choco.cp.solver.configure.LimitFactory;
+import choco.cp.solver.search.SearchLimitManager;
+import choco.kernel.common.logging.ChocoLogging;
+import choco.kernel.solver.Configuration;
+import choco.kernel.solver.ContradictionException;
+import choco.kernel.solver.Solution;
+import choco.kernel.solver.SolverException;
+import choco.kernel.solver.search.AbstractGlobalSearchStrategy;
+import choco.kernel.solver.search.ISolutionPool;
+import choco.kernel.solver.search.SolutionPoolFactory;
+import choco.kernel.solver.search.limit.Limit;
+import choco.kernel.solver.search.measure.MeasuresBean;
+import choco.kernel.solver.variables.integer.IntDomainVar;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Large neighborhood search working in place on a solver.
+ * <p/>
+ * A first solution is computed by the search strategy of the solver. Then, each iteration pushes a world above the root
+ * node, posts the objective cut, fixes a part of the decision variables to their value in the best solution thanks to
+ * a neighborhood operator, and explores the remaining search space under a fail limit. The world is popped after the
+ * iteration: the model is neither copied nor rebuilt.
+ * <p/>
+ * The neighborhood size is adaptive: it decreases when an iteration reaches its limit without improving, and increases
+ * when the neighborhood has been explored completely without improving. The operators are selected at random with a
+ * probability proportional to their score, i.e. an exponential moving average of their improvements.
+ * The search is over when a neighborhood including every decision variable has been explored completely, or
+ * when the iteration limit {@link Configuration#LNS_ITERATION_LIMIT} or the time limit {@link Configuration#LNS_TIME_LIMIT} is reached.
+ * The fail limit of each iteration is read from {@link Configuration#LNS_FAIL_LIMIT}.
+ */
+public final class LargeNeighborhoodSearch {
+
+	private final static Logger LOGGER = ChocoLogging.getSearchLogger();
+
+	/**
+	 * weight of the last iteration in the score of an operator.
+	 */
+	private final static double SCORE_DECAY = 0.2;
+
+	/**
+	 * minimal score of an operator, so that each operator can be selected.
+	 */
+	private final static double SCORE_FLOOR = 0.05;
+
+	private final CPSolver solver;
+
+	private final Random random;
+
+	private final List<INeighborhoodOperator> operators = new ArrayList<INeighborhoodOperator>();
+
+	private double[] scores;
+
+	private final MeasuresBean measures = new MeasuresBean();
+
+	private IntDomainVar objective;
+
+	private boolean maximize;
+
+	private IntDomainVar[] decisionVars;
+
+	private int[] decisionIndices;
+
+	private int rootWorld;
+
+	private ISolutionPool solutionPool;
+
+	private Solution bestSolution;
+
+	private int bestValue;
+
+	private boolean optimal;
+
+	private int size;
+
+	private int iterationCount;
+
+	private int improvementCount;
+
+	private boolean started;
+
+	/**
+	 * Builds a large neighborhood search on the variables and the search strategy of a solver.
+	 * The random generator is seeded from {@link Configuration#RANDOM_SEED}.
+	 * @param solver a solver which has read its model
+	 */
+	public LargeNeighborhoodSearch(CPSolver solver) {
+		this.solver = solver;
+		this.random = new Random(solver.getConfiguration().readLong(Configuration.RANDOM_SEED));
+	}
+
+	public CPSolver getSolver() {
+		return solver;
+	}
+
+	public Random getRandom() {
+		return random;
+	}
+
+	/**
+	 * Adds a neighborhood operator. If no operator is added, the search uses the random and the propagation guided
+	 * neighborhoods, and the task window neighborhood if the solver has tasks.
+	 */
+	public void addOperator(INeighborhoodOperator operator) {
+		operators.add(operator);
+	}
+
+	public List<INeighborhoodOperator> getOperators() {
+		return operators;
+	}
+
+	//*****************************************************************//
+	//*******************  RESOLUTION  ********************************//
+	//***************************************************************//
+
+	public Boolean minimize(IntDomainVar objective) {
+		return run(objective, false);
+	}
+
+	public Boolean maximize(IntDomainVar objective) {
+		return run(objective, true);
+	}
+
+	/**
+	 * Runs the large neighborhood search. The best solution is restored in the variables at the end.
+	 * @return <code>TRUE</code> if a solution has been found, <code>FALSE</code> if the model is infeasible,
+	 * <code>null</code> if a limit has been reached before finding a first solution.
+	 */
+	private Boolean run(IntDomainVar objective, boolean maximize) {
+		if (started) {
+			throw new SolverException("the large neighborhood search has already been run");
+		}
+		started = true;
+		final long start = System.currentTimeMillis();
+		this.objective = objective;
+		this.maximize = maximize;
+		if (operators.isEmpty()) {
+			operators.add(new RandomNeighborhood());
+			operators.add(new PropagationGuidedNeighborhood());
+			if (solver.getNbTaskVars() > 0) {
+				operators.add(new TaskWindowNeighborhood());
+			}
+		}
+		scores = new double[operators.size()];
+		Arrays.fill(scores, 1);
+		solver.setObjective(objective);
+		solver.setDoMaximize(maximize);
+		solver.setFirstSolution(false);
+		solver.generateSearchStrategy();
+		final AbstractGlobalSearchStrategy strategy = solver.getSearchStrategy();
+		if (strategy.getSolutionPool().getCapacity() < 1) {
+			//the best solution of an iteration is restored from the pool of the strategy
+			strategy.setSolutionPool(SolutionPoolFactory.makeDefaultSolutionPool(strategy, 1, true));
+		}
+		final Configuration conf = solver.getConfiguration();
+		solutionPool = SolutionPoolFactory.makeDefaultSolutionPool(strategy, conf.readInt(Configuration.SOLUTION_POOL_CAPACITY), true);
+		initDecisionVars();
+		rootWorld = solver.getWorldIndex();
+
+		//first solution
+		final SearchLimitManager limitManager = (SearchLimitManager) strategy.limitManager;
+		limitManager.setSearchLimit(LimitFactory.createLimit(strategy, Limit.SOLUTION, 1));
+		solver.launch();
+		measures.addSearchMeasures(strategy);
+		if (!strategy.existsSolution()) {
+			measures.setTimeCount(System.currentTimeMillis() - start);
+			return strategy.isEncounteredLimit() ? null : Boolean.FALSE;
+		}
+		//the first solution is optimal if the whole search tree has been explored
+		optimal = !strategy.isEncounteredLimit();
+		record();
+		solver.worldPopUntil(rootWorld);
+
+		//improvement
+		final int iterationLimit = conf.readInt(Configuration.LNS_ITERATION_LIMIT);
+		final long timeLimit = conf.readLong(Configuration.LNS_TIME_LIMIT);
+		limitManager.setSearchLimit(LimitFactory.createLimit(strategy, Limit.FAIL, conf.readLong(Configuration.LNS_FAIL_LIMIT)));
+		size = Math.max(1, decisionVars.length / 4);
+		while (!optimal && !solver.isCancelled() && iterationCount < iterationLimit
+				&& System.currentTimeMillis() - start < timeLimit) {
+			iterate();
+		}
+		measures.setTimeCount(System.currentTimeMillis() - start);
+		measures.setObjectiveIntValue(bestValue);
+		measures.setObjectiveOptimal(optimal);
+		solver.worldPopUntil(rootWorld);
+		solver.worldPush();
+		solver.restoreSolution(bestSolution);
+		solver.setFeasible(Boolean.TRUE);
+		if (LOGGER.isLoggable(Level.INFO)) {
+			LOGGER.info(runtimeStatistics());
+		}
+		return Boolean.TRUE;
+	}
+
+	private void initDecisionVars() {
+		final List<IntDomainVar> vars = new ArrayList<IntDomainVar>();
+		for (IntDomainVar var : solver.getIntDecisionVars()) {
+			if (var != objective) {
+				vars.add(var);
+			}
+		}
+		decisionVars = vars.toArray(new IntDomainVar[vars.size()]);
+		decisionIndices = new int[decisionVars.length];
+		for (int i = 0; i < decisionVars.length; i++) {
+			decisionIndices[i] = solver.getIntVarIndex(decisionVars[i]);
+		}
+	}
+
+	/**
+	 * Explores a neighborhood of the best solution.
+	 */
+	private void iterate() {
+		final AbstractGlobalSearchStrategy strategy = solver.getSearchStrategy();
+		final int op = selectOperator();
+		final int n = decisionVars.length;
+		iterationCount++;
+		boolean improved = false;
+		boolean limited = false;
+		solver.worldPush();
+		try {
+			if (maximize) {
+				objective.setInf(bestValue + 1);
+			} else {
+				objective.setSup(bestValue - 1);
+			}
+			operators.get(op).restrict(this, bestSolution, size);
+			solver.propagate();
+			strategy.clearTrace();
+			strategy.nextMove = AbstractGlobalSearchStrategy.INIT_SEARCH;
+			solver.launch();
+			measures.addSearchMeasures(strategy);
+			limited = strategy.isEncounteredLimit();
+			if (strategy.existsSolution()) {
+				record();
+				improved = true;
+				improvementCount++;
+			}
+		} catch (ContradictionException e) {
+			//the neighborhood is infeasible, unless the propagation has been cancelled
+			limited = solver.isCancelled();
+		}
+		solver.worldPopUntil(rootWorld);
+		if (!improved) {
+			if (!limited && size >= n) {
+				//no better solution in the whole search space
+				optimal = true;
+			}
+			final int step = Math.max(1, size / 10);
+			size = limited ? Math.max(1, size - step) : Math.min(n, size + step);
+		}
+		scores[op] = (1 - SCORE_DECAY) * scores[op] + (improved ? SCORE_DECAY : 0);
+		if (LOGGER.isLoggable(Level.CONFIG)) {
+			LOGGER.log(Level.CONFIG, "- LNS iteration {0}: {1} neighborhood, size {2}, best objective {3}",
+					new Object[]{iterationCount, operators.get(op), size, bestValue});
+		}
+	}
+
+	/**
+	 * Selects an operator by roulette wheel on the scores.
+	 */
+	private int selectOperator() {
+		double total = 0;
+		for (double score : scores) {
+			total += score + SCORE_FLOOR;
+		}
+		double r = random.nextDouble() * total;
+		for (int i = 0; i < scores.length - 1; i++) {
+			r -= scores[i] + SCORE_FLOOR;
+			if (r < 0) return i;
+		}
+		return scores.length - 1;
+	}
+
+	/**
+	 * Records the solution restored in the variables at the end of a search.
+	 */
+	private void record() {
+		bestValue = objective.getVal();
+		bestSolution = solver.recordSolution();
+		solutionPool.recordSolution(solver);
+	}
+
+	//*****************************************************************//
+	//*******************  NEIGHBORHOODS  *****************************//
+	//***************************************************************//
+
+	/**
+	 * @return the decision variables of the solver, the objective excluded.
+	 */
+	public IntDomainVar[] getDecisionVars() {
+		return decisionVars;
+	}
+
+	public int getNbDecisionVars() {
+		return decisionVars.length;
+	}
+
+	/**
+	 * Fixes a decision variable to its value in a solution.
+	 * @param index the index of the variable in the decision variables
+	 * @throws ContradictionException if the value has been removed from the domain
+	 */
+	public void fix(int index, Solution solution) throws ContradictionException {
+		final int value = solution.getIntValue(decisionIndices[index]);
+		if (value != Solution.NULL) {
+			decisionVars[index].setVal(value);
+		}
+	}
+
+	//*****************************************************************//
+	//*******************  RESULTS  ***********************************//
+	//***************************************************************//
+
+	public Solution getBestSolution() {
+		return bestSolution;
+	}
+
+	public int getObjectiveValue() {
+		return bestValue;
+	}
+
+	/**
+	 * @return <code>true</code> if the best solution has been proven optimal.
+	 */
+	public boolean isObjectiveOptimal() {
+		return optimal;
+	}
+
+	/**
+	 * @return the pool of the improving solutions, the best one first. Its capacity is {@link Configuration#SOLUTION_POOL_CAPACITY}.
+	 */
+	public ISolutionPool getSolutionPool() {
+		return solutionPool;
+	}
+
+	public int getIterationCount() {
+		return iterationCount;
+	}
+
+	public int getImprovementCount() {
+		return improvementCount;
+	}
+
+	public int getNeighborhoodSize() {
+		return size;
+	}
+
+	/**
+	 * @return the measures summed over the first search and the iterations.
+	 */
+	public MeasuresBean getMeasures() {
+		return measures;
+	}
+
+	/**
+	 * Interrupts the search, possibly from another thread: cancels the solver, so the current iteration stops at its next node.
+	 */
+	public void interrupt() {
+		solver.cancel();
+	}
+
+	public String runtimeStatistics() {
+		final StringBuilder b = new StringBuilder();
+		b.append("LNS: ").append(iterationCount).append(" iterations, ").append(improvementCount).append(" improvements, ");
+		b.append("best objective: ").append(bestValue).append(optimal ? " (optimal), " : ", ");
+		b.append(measures.getTimeCount()).append(" ms, ").append(measures.getNodeCount()).append(" nodes, ");
+		b.append(measures.getBackTrackCount()).append(" backtracks, ").append(measures.getFailCount()).append(" fails");
+		return b.toString();
+	}
+
+	public void printRuntimeStatistics() {
+		LOGGER.info(runtimeStatistics());
+	}
+}
@@ -0,0 +1,100 @@
+/**
+ *  Copyright (c) 1999-2010, Ecole des Mines de Nantes
+ *  All rights reserved.
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *      * Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *      * Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *      * Neither the name of the Ecole des Mines de Nantes nor the
+ *        names of its contributors may be used to endorse or promote products
+ *        derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ *  EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package choco.cp.solver.search.lns;
+
+import choco.kernel.solver.ContradictionException;
+import choco.kernel.solver.Solution;
+import choco.kernel.solver.variables.integer.IntDomainVar;
+
+/**
+ * Propagation guided neighborhood: the decision variables are fixed one by one with propagation, the next variable to fix
+ * being the free variable whose domain has been the most reduced by the previous fix (a random one if there is none).
+ * The variables are fixed until the number of free decision variables is lower than or equal to the size of the neighborhood.
+ * <br/> see Perron, L.; Shaw, P. & Furnon, V. Propagation Guided Large Neighborhood Search, CP 2004.
+ */
+public final class PropagationGuidedNeighborhood implements INeighborhoodOperator {
+
+	private int[] domainSizes = new int[0];
+
+	@Override
+	public void restrict(LargeNeighborhoodSearch lns, Solution solution, int size) throws ContradictionException {
+		final IntDomainVar[] vars = lns.getDecisionVars();
+		final int n = vars.length;
+		if (domainSizes.length != n) {
+			domainSizes = new int[n];
+		}
+		int free = countFree(vars);
+		int next = -1;
+		//each step fixes one variable at most
+		for (int step = 0; free > size && step < n; step++) {
+			if (next < 0) {
+				next = selectRandom(lns, vars, free);
+			}
+			for (int i = 0; i < n; i++) {
+				domainSizes[i] = vars[i].getDomainSize();
+			}
+			lns.fix(next, solution);
+			lns.getSolver().propagate();
+			next = -1;
+			free = 0;
+			double maxReduction = 0;
+			for (int i = 0; i < n; i++) {
+				if (!vars[i].isInstantiated()) {
+					free++;
+					final double reduction = 1 - (double) vars[i].getDomainSize() / domainSizes[i];
+					if (reduction > maxReduction) {
+						maxReduction = reduction;
+						next = i;
+					}
+				}
+			}
+		}
+	}
+
+	private static int countFree(IntDomainVar[] vars) {
+		int free = 0;
+		for (IntDomainVar var : vars) {
+			if (!var.isInstantiated()) free++;
+		}
+		return free;
+	}
+
+	private static int selectRandom(LargeNeighborhoodSearch lns, IntDomainVar[] vars, int free) {
+		int k = lns.getRandom().nextInt(free);
+		for (int i = 0; i < vars.length; i++) {
+			if (!vars[i].isInstantiated() && k-- == 0) {
+				return i;
+			}
+		}
+		throw new IllegalStateException("no free variable");
+	}
+
+	@Override
+	public String toString() {
+		return "propagation guided";
+	}
+}
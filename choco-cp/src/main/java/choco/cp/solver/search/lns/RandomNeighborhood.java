@@ -0,0 +1,65 @@
+/**
+ *  Copyright (c) 1999-2010, Ecole des Mines de Nantes
+ *  All rights reserved.
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *      * Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *      * Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *      * Neither the name of the Ecole des Mines de Nantes nor the
+ *        names of its contributors may be used to endorse or promote products
+ *        derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ *  EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package choco.cp.solver.search.lns;
+
+import choco.kernel.solver.ContradictionException;
+import choco.kernel.solver.Solution;
+
+import java.util.Random;
+
+/**
+ * Relaxes decision variables chosen at random and fixes the other ones.
+ */
+public final class RandomNeighborhood implements INeighborhoodOperator {
+
+	private int[] order = new int[0];
+
+	@Override
+	public void restrict(LargeNeighborhoodSearch lns, Solution solution, int size) throws ContradictionException {
+		final int n = lns.getNbDecisionVars();
+		if (order.length != n) {
+			order = new int[n];
+			for (int i = 0; i < n; i++) {
+				order[i] = i;
+			}
+		}
+		//partial shuffle: the first variables of the order are fixed
+		final Random random = lns.getRandom();
+		for (int k = 0; k < n - size; k++) {
+			final int j = k + random.nextInt(n - k);
+			final int tmp = order[k];
+			order[k] = order[j];
+			order[j] = tmp;
+			lns.fix(order[k], solution);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "random";
+	}
+}
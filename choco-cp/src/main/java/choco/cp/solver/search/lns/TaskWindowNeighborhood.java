@@ -0,0 +1,102 @@
+/**
+ *  Copyright (c) 1999-2010, Ecole des Mines de Nantes
+ *  All rights reserved.
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *      * Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *      * Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *      * Neither the name of the Ecole des Mines de Nantes nor the
+ *        names of its contributors may be used to endorse or promote products
+ *        derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ *  EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package choco.cp.solver.search.lns;
+
+import choco.cp.solver.CPSolver;
+import choco.kernel.solver.ContradictionException;
+import choco.kernel.solver.Solution;
+import choco.kernel.solver.SolverException;
+import choco.kernel.solver.variables.integer.IntDomainVar;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Scheduling neighborhood: relaxes the tasks which start in a time window of the solution, and fixes the start of the other tasks.
+ * The window contains consecutive tasks in the order of the solution, its position is chosen at random.
+ * The number of relaxed tasks is proportional to the number of relaxed decision variables.
+ */
+public final class TaskWindowNeighborhood implements INeighborhoodOperator {
+
+	private LargeNeighborhoodSearch cachedLNS;
+
+	/**
+	 * index of the start variable of each task in the solver.
+	 */
+	private int[] startIndices;
+
+	private Integer[] order;
+
+	private void initialize(LargeNeighborhoodSearch lns) {
+		final CPSolver solver = lns.getSolver();
+		final int nbTasks = solver.getNbTaskVars();
+		if (nbTasks == 0) {
+			throw new SolverException("the task window neighborhood needs tasks");
+		}
+		startIndices = new int[nbTasks];
+		order = new Integer[nbTasks];
+		for (int i = 0; i < nbTasks; i++) {
+			startIndices[i] = solver.getIntVarIndex(solver.getTaskVarQuick(i).start());
+			order[i] = i;
+		}
+		cachedLNS = lns;
+	}
+
+	@Override
+	public void restrict(LargeNeighborhoodSearch lns, final Solution solution, int size) throws ContradictionException {
+		if (lns != cachedLNS) {
+			initialize(lns);
+		}
+		final CPSolver solver = lns.getSolver();
+		final int nbTasks = startIndices.length;
+		final int relaxed = (int) Math.max(1, (long) size * nbTasks / Math.max(1, lns.getNbDecisionVars()));
+		if (relaxed >= nbTasks) return;
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer o1, Integer o2) {
+				final int s1 = solution.getIntValue(startIndices[o1]);
+				final int s2 = solution.getIntValue(startIndices[o2]);
+				return s1 < s2 ? -1 : (s1 == s2 ? 0 : 1);
+			}
+		});
+		final int first = lns.getRandom().nextInt(nbTasks - relaxed + 1);
+		for (int k = 0; k < nbTasks; k++) {
+			if (k < first || k >= first + relaxed) {
+				final int start = solution.getIntValue(startIndices[order[k]]);
+				if (start != Solution.NULL) {
+					final IntDomainVar var = solver.getTaskVarQuick(order[k]).start();
+					var.setVal(start);
+				}
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "task window";
+	}
+}
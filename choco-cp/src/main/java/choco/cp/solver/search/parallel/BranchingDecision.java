@@ -0,0 +1,131 @@
+/**
+ *  Copyright (c) 1999-2010, Ecole des Mines de Nantes
+ *  All rights reserved.
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *      * Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *      * Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *      * Neither the name of the Ecole des Mines de Nantes nor the
+ *        names of its contributors may be used to endorse or promote products
+ *        derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ *  EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package choco.cp.solver.search.parallel;
+
+import choco.cp.solver.CPSolver;
+import choco.kernel.solver.ContradictionException;
+import choco.kernel.solver.SolverException;
+import choco.kernel.solver.branch.AbstractBranchingStrategy;
+import choco.kernel.solver.branch.AbstractIntBranchingStrategy;
+import choco.kernel.solver.search.IntBranchingTrace;
+import choco.kernel.solver.variables.integer.IntDomainVar;
+import choco.kernel.solver.variables.set.SetVar;
+
+/**
+ * A branching decision independent of the solver: it can be recorded by a solver and replayed by another solver
+ * which has read the same model and uses the same chain of branchings.
+ * <p/>
+ * The decision is identified by the index of its branching in the chain, the index of the variable,
+ * the branch index and the branching value, so that only integer and set branching objects are supported.
+ */
+final class BranchingDecision {
+
+	/**
+	 * index of the branching in the chain of branchings.
+	 */
+	final int branching;
+
+	final boolean setVar;
+
+	final int varIndex;
+
+	final int branchIndex;
+
+	final int value;
+
+	/**
+	 * go down (decision) or up (refutation) the branch.
+	 */
+	final boolean down;
+
+	BranchingDecision(int branching, boolean setVar, int varIndex, int branchIndex, int value, boolean down) {
+		this.branching = branching;
+		this.setVar = setVar;
+		this.varIndex = varIndex;
+		this.branchIndex = branchIndex;
+		this.value = value;
+		this.down = down;
+	}
+
+	/**
+	 * Records the decision (or refutation) of a trace of the solver.
+	 */
+	static BranchingDecision make(CPSolver solver, IntBranchingTrace ctx, boolean down) {
+		final Object obj = ctx.getBranchingObject();
+		final int branching = getBranchingIndex(solver, ctx.getBranching());
+		if (obj instanceof IntDomainVar) {
+			return new BranchingDecision(branching, false, solver.getIntVarIndex((IntDomainVar) obj),
+					ctx.getBranchIndex(), ctx.getBranchingValue(), down);
+		} else if (obj instanceof SetVar) {
+			return new BranchingDecision(branching, true, solver.getSetVarIndex((SetVar) obj),
+					ctx.getBranchIndex(), ctx.getBranchingValue(), down);
+		}
+		throw new SolverException("can not record a decision on the branching object " + obj);
+	}
+
+	static AbstractIntBranchingStrategy getBranching(CPSolver solver, int index) {
+		AbstractBranchingStrategy br = solver.getSearchStrategy().mainGoal;
+		for (int i = 0; i < index; i++) {
+			br = br.getNextBranching();
+		}
+		return (AbstractIntBranchingStrategy) br;
+	}
+
+	static int getBranchingIndex(CPSolver solver, AbstractBranchingStrategy branching) {
+		int index = 0;
+		AbstractBranchingStrategy br = solver.getSearchStrategy().mainGoal;
+		while (br != branching) {
+			br = br.getNextBranching();
+			index++;
+		}
+		return index;
+	}
+
+	/**
+	 * Sets the trace to this decision in the given solver.
+	 */
+	void fill(CPSolver solver, IntBranchingTrace ctx) {
+		ctx.clear();
+		ctx.setBranching(getBranching(solver, branching));
+		ctx.setBranchingObject(setVar ? solver.getSetVarQuick(varIndex) : solver.getIntVarQuick(varIndex));
+		ctx.setBranchIndex(branchIndex);
+		ctx.setBranchingValue(value);
+	}
+
+	/**
+	 * Applies the decision in the given solver and propagates.
+	 */
+	void apply(CPSolver solver, IntBranchingTrace ctx) throws ContradictionException {
+		fill(solver, ctx);
+		if (down) {
+			ctx.getBranching().goDownBranch(ctx);
+		} else {
+			ctx.getBranching().goUpBranch(ctx);
+		}
+		solver.propagate();
+	}
+}
@@ -0,0 +1,414 @@
+/**
+ *  Copyright (c) 1999-2010, Ecole des Mines de Nantes
+ *  All rights reserved.
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *      * Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *      * Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *      * Neither the name of the Ecole des Mines de Nantes nor the
+ *        names of its contributors may be used to endorse or promote products
+ *        derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ *  EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package choco.cp.solver.search.parallel;
+
+import choco.cp.model.CPModel;
+import choco.cp.solver.CPSolver;
+import choco.cp.solver.search.SearchLimitManager;
+import choco.kernel.common.logging.ChocoLogging;
+import choco.kernel.solver.Configuration;
+import choco.kernel.solver.ContradictionException;
+import choco.kernel.solver.SolverException;
+import choco.kernel.solver.branch.AbstractBranchingStrategy;
+import choco.kernel.solver.branch.AbstractIntBranchingStrategy;
+import choco.kernel.solver.search.AbstractGlobalSearchStrategy;
+import choco.kernel.solver.search.IntBranchingTrace;
+import choco.kernel.solver.search.measure.MeasuresBean;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Embarrassingly parallel search: the search tree is split into cubes which are solved independently by a pool of workers.
+ * <p/>
+ * The first worker explores the top of the search tree with its branching, down to a given depth.
+ * Each open node at this depth is recorded as a cube, i.e. the path of decisions leading to the node
+ * (the refutations of the previous siblings included).
+ * The cubes are then farmed out to a fork/join pool: each worker replays a cube on its own solver and searches
+ * the subtree below. The solution counts and the search measures of the workers are merged at the end.
+ * <p/>
+ * The branchings must branch on integer or set variables, and must apply a decision only from the branching object,
+ * the branch index and the branching value (as the usual assignment and domain splitting branchings).
+ * The search limits of the configuration apply to the search of each cube.
+ * The workers are built in the calling thread; {@link #solve()} or {@link #solveAll()} can be called only once.
+ */
+public final class CubeAndConquerSolver {
+
+	private final static Logger LOGGER = ChocoLogging.getSearchLogger();
+
+	private final CPSolver[] workers;
+
+	private final MeasuresBean[] measures;
+
+	private final boolean[] rootPropagated;
+
+	private final int depth;
+
+	private final List<BranchingDecision[]> cubes = new ArrayList<BranchingDecision[]>();
+
+	private boolean started;
+
+	private boolean stopAtFirstSolution;
+
+	private volatile boolean done;
+
+	private volatile boolean incomplete;
+
+	/**
+	 * the worker which found the first solution (satisfaction only).
+	 */
+	private volatile CPSolver solutionWorker;
+
+	private long timeCount;
+
+	public CubeAndConquerSolver(CPModel model, int nbWorkers, int depth) {
+		this(model, null, nbWorkers, depth);
+	}
+
+	/**
+	 * Builds the workers.
+	 * @param model the model read by each worker
+	 * @param configuration the configuration of the workers (the default configuration if null)
+	 * @param nbWorkers the number of workers, i.e. the parallelism of the pool
+	 * @param depth the number of decisions of each cube
+	 */
+	public CubeAndConquerSolver(CPModel model, Configuration configuration, int nbWorkers, int depth) {
+		if (nbWorkers < 1) {
+			throw new SolverException("cube and conquer needs at least one worker");
+		}
+		this.depth = depth;
+		workers = new CPSolver[nbWorkers];
+		measures = new MeasuresBean[nbWorkers];
+		rootPropagated = new boolean[nbWorkers];
+		for (int i = 0; i < nbWorkers; i++) {
+			workers[i] = new CPSolver(configuration);
+			workers[i].read(model);
+			measures[i] = new MeasuresBean();
+		}
+	}
+
+	public int getNbWorkers() {
+		return workers.length;
+	}
+
+	public CPSolver getWorker(int index) {
+		return workers[index];
+	}
+
+	/**
+	 * @return the number of cubes of the resolution.
+	 */
+	public int getNbCubes() {
+		return cubes.size();
+	}
+
+	//*****************************************************************//
+	//*******************  RESOLUTION  ********************************//
+	//***************************************************************//
+
+	/**
+	 * Searches for a solution: the first worker which finds a solution stops the others.
+	 * The solution remains in the variables of {@link #getSolutionWorker()}.
+	 * @return <code>TRUE</code> if a solution has been found, <code>FALSE</code> if the model is infeasible,
+	 * <code>null</code> if a limit has been reached before finding a solution.
+	 */
+	public Boolean solve() {
+		return run(true);
+	}
+
+	/**
+	 * Enumerates every solution. The solutions can be monitored with a {@link choco.kernel.solver.search.ISolutionMonitor}
+	 * set on each worker before solving; beware that the workers record their solutions concurrently.
+	 * @return <code>TRUE</code> if a solution has been found, <code>FALSE</code> if the model is infeasible,
+	 * <code>null</code> if a limit has been reached before finding a solution.
+	 */
+	public Boolean solveAll() {
+		return run(false);
+	}
+
+	private Boolean run(boolean firstSolution) {
+		if (started) {
+			throw new SolverException("cube and conquer has already been solved");
+		}
+		started = true;
+		final long start = System.currentTimeMillis();
+		stopAtFirstSolution = firstSolution;
+		final BlockingQueue<Integer> idle = new ArrayBlockingQueue<Integer>(workers.length);
+		for (int i = 0; i < workers.length; i++) {
+			workers[i].setFirstSolution(firstSolution);
+			workers[i].generateSearchStrategy();
+			idle.add(i);
+		}
+		split();
+		if (!cubes.isEmpty()) {
+			final ForkJoinPool pool = new ForkJoinPool(workers.length);
+			try {
+				pool.invoke(new Conquer(idle, 0, cubes.size()));
+			} finally {
+				pool.shutdown();
+			}
+		}
+		timeCount = System.currentTimeMillis() - start;
+		if (getSolutionCount() > 0) return Boolean.TRUE;
+		return incomplete ? null : Boolean.FALSE;
+	}
+
+	/**
+	 * Explores the top of the search tree with the first worker and records the cubes.
+	 */
+	private void split() {
+		cubes.clear();
+		final CPSolver solver = workers[0];
+		if (solver.getSearchStrategy().mainGoal == null) {
+			throw new SolverException("cube and conquer needs a branching");
+		}
+		try {
+			//the initial propagation must be done in the root world
+			solver.propagate();
+			rootPropagated[0] = true;
+			solver.worldPush();
+			AbstractBranchingStrategy br = solver.getSearchStrategy().mainGoal;
+			while (br != null) {
+				br.initBranching();
+				br = br.getNextBranching();
+			}
+			split(solver, solver.getSearchStrategy().mainGoal, new ArrayList<BranchingDecision>(), 0);
+		} catch (ContradictionException e) {
+			//the root node is infeasible: no cube
+		}
+		solver.worldPopUntil(0);
+		if (LOGGER.isLoggable(Level.CONFIG)) {
+			LOGGER.log(Level.CONFIG, "- Cube and conquer: {0} cubes at depth {1}", new Object[]{cubes.size(), depth});
+		}
+	}
+
+	private void split(CPSolver solver, AbstractIntBranchingStrategy first, List<BranchingDecision> path, int level)
+			throws ContradictionException {
+		if (level == depth) {
+			cubes.add(path.toArray(new BranchingDecision[path.size()]));
+			return;
+		}
+		AbstractIntBranchingStrategy br = first;
+		Object obj = null;
+		while (br != null && (obj = br.selectBranchingObject()) == null) {
+			br = (AbstractIntBranchingStrategy) br.getNextBranching();
+		}
+		if (obj == null) {
+			//every variable is instantiated: the cube is a solution
+			cubes.add(path.toArray(new BranchingDecision[path.size()]));
+			return;
+		}
+		final int size = path.size();
+		final IntBranchingTrace ctx = new IntBranchingTrace();
+		ctx.setBranching(br);
+		ctx.setBranchingObject(obj);
+		br.setFirstBranch(ctx);
+		while (true) {
+			solver.worldPush();
+			path.add(BranchingDecision.make(solver, ctx, true));
+			try {
+				br.goDownBranch(ctx);
+				solver.propagate();
+				split(solver, br, path, level + 1);
+			} catch (ContradictionException e) {
+				//the branch is infeasible
+			}
+			path.remove(path.size() - 1);
+			solver.worldPop();
+			if (br.finishedBranching(ctx)) break;
+			//the refutation of the branch belongs to the cubes of the next branches
+			path.add(BranchingDecision.make(solver, ctx, false));
+			try {
+				br.goUpBranch(ctx);
+				solver.propagate();
+			} catch (ContradictionException e) {
+				break;
+			}
+			br.setNextBranch(ctx);
+			ctx.incrementBranchIndex();
+		}
+		while (path.size() > size) {
+			path.remove(path.size() - 1);
+		}
+	}
+
+	/**
+	 * Solves a cube with the given worker.
+	 */
+	private void conquer(int index, BranchingDecision[] cube) {
+		final CPSolver solver = workers[index];
+		final AbstractGlobalSearchStrategy strategy = solver.getSearchStrategy();
+		boolean feasible = true;
+		try {
+			if (!rootPropagated[index]) {
+				//the initial propagation must be done in the root world
+				solver.propagate();
+				rootPropagated[index] = true;
+			}
+			solver.worldPush();
+			final IntBranchingTrace ctx = new IntBranchingTrace();
+			for (BranchingDecision decision : cube) {
+				decision.apply(solver, ctx);
+			}
+		} catch (ContradictionException e) {
+			feasible = false;
+		}
+		if (feasible) {
+			//the strategy of a worker is reused from one cube to the next
+			strategy.clearTrace();
+			strategy.nextMove = AbstractGlobalSearchStrategy.INIT_SEARCH;
+			solver.launch();
+			measures[index].addSearchMeasures(strategy);
+			if (strategy.isEncounteredLimit()) {
+				incomplete = true;
+			}
+			if (stopAtFirstSolution && strategy.existsSolution()) {
+				stop(solver);
+				//keep the solution in the variables of the worker
+				return;
+			}
+		}
+		solver.worldPopUntil(0);
+	}
+
+	private synchronized void stop(CPSolver solver) {
+		if (!done) {
+			done = true;
+			solutionWorker = solver;
+			for (CPSolver worker : workers) {
+				if (worker != solver) {
+					((SearchLimitManager) worker.getSearchStrategy().limitManager).getInterruptLimit().interrupt();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Recursively splits a range of cubes, a leaf task solves one cube with an idle worker.
+	 */
+	private final class Conquer extends RecursiveAction {
+
+		private static final long serialVersionUID = 2460113725916207375L;
+
+		private final BlockingQueue<Integer> idle;
+
+		private final int from;
+
+		private final int to;
+
+		Conquer(BlockingQueue<Integer> idle, int from, int to) {
+			this.idle = idle;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from > 1) {
+				final int mid = (from + to) >>> 1;
+				invokeAll(new Conquer(idle, from, mid), new Conquer(idle, mid, to));
+			} else if (!done) {
+				final Integer index;
+				try {
+					index = idle.take();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					incomplete = true;
+					return;
+				}
+				try {
+					conquer(index, cubes.get(from));
+				} finally {
+					idle.add(index);
+				}
+			}
+		}
+	}
+
+	//*****************************************************************//
+	//*******************  RESULTS  ***********************************//
+	//***************************************************************//
+
+	/**
+	 * @return the worker holding the first solution found by {@link #solve()}, or null.
+	 */
+	public CPSolver getSolutionWorker() {
+		return solutionWorker;
+	}
+
+	/**
+	 * @return the measures of the workers merged, the time being the elapsed time of the resolution.
+	 */
+	public MeasuresBean getMeasures() {
+		final MeasuresBean merged = new MeasuresBean();
+		for (MeasuresBean m : measures) {
+			merged.addSearchMeasures(m);
+		}
+		merged.setTimeCount(timeCount);
+		return merged;
+	}
+
+	/**
+	 * @return the measures of one worker over all the cubes it solved.
+	 */
+	public MeasuresBean getMeasures(int index) {
+		return measures[index];
+	}
+
+	public long getSolutionCount() {
+		long count = 0;
+		for (MeasuresBean m : measures) {
+			count += m.getSolutionCount();
+		}
+		return count;
+	}
+
+	public long getNodeCount() {
+		long count = 0;
+		for (MeasuresBean m : measures) {
+			count += m.getNodeCount();
+		}
+		return count;
+	}
+
+	public String runtimeStatistics() {
+		final MeasuresBean m = getMeasures();
+		return "Cube and conquer: " + workers.length + " workers, " + cubes.size() + " cubes at depth " + depth
+				+ ", " + m.getSolutionCount() + " solutions, " + m.getTimeCount() + " ms, " + m.getNodeCount()
+				+ " nodes, " + m.getBackTrackCount() + " backtracks, " + m.getFailCount() + " fails";
+	}
+
+	public void printRuntimeStatistics() {
+		LOGGER.info(runtimeStatistics());
+	}
+}
@@ -0,0 +1,204 @@
+/**
+ *  Copyright (c) 1999-2010, Ecole des Mines de Nantes
+ *  All rights reserved.
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *      * Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *      * Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *      * Neither the name of the Ecole des Mines de Nantes nor the
+ *        names of its contributors may be used to endorse or promote products
+ *        derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ *  EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package choco.cp.solver.search.parallel;
+
+import choco.cp.model.CPModel;
+import choco.cp.solver.CPSolver;
+import choco.kernel.common.util.iterators.DisposableIntIterator;
+import choco.kernel.solver.ContradictionException;
+import choco.kernel.solver.SolverException;
+import choco.kernel.solver.variables.integer.IntDomainVar;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Probing of a node split across a pool of workers, e.g. the initialization of impacts or singleton consistency.
+ * <p/>
+ * Each worker is a solver which has read the model of the solver, i.e. a clone of its root node.
+ * Before a probing, the domains of the integer variables of the solver are copied into each worker and propagated,
+ * so that the workers probe the current node of the solver, possibly with less propagation
+ * if the solver has constraints which are not in its model: what a worker deduces remains sound for the solver.
+ * The solver must not be modified while the workers probe; the results of the workers are merged by the caller.
+ * <p/>
+ * The workers are built in the calling thread, and are reused from one probing to the next.
+ */
+public final class ParallelProbing {
+
+	private final CPSolver solver;
+
+	private final CPSolver[] workers;
+
+	private final boolean[] rootPropagated;
+
+	/**
+	 * A probing task run by each worker.
+	 */
+	public interface Task<T> {
+
+		/**
+		 * Probes the node of the solver copied into the worker.
+		 * @param worker the worker, whose integer variables have the indices of the variables of the solver
+		 * @param index the index of the worker
+		 * @return the result of the worker
+		 * @throws ContradictionException if the node is infeasible
+		 */
+		T probe(CPSolver worker, int index) throws ContradictionException;
+	}
+
+	/**
+	 * Builds the workers.
+	 * @param solver the solver, which must have read a model
+	 * @param nbWorkers the number of workers, i.e. the parallelism of the pool
+	 */
+	public ParallelProbing(CPSolver solver, int nbWorkers) {
+		if (nbWorkers < 1) {
+			throw new SolverException("parallel probing needs at least one worker");
+		}
+		if (!isCloneable(solver)) {
+			throw new SolverException("parallel probing needs a solver which has read a model");
+		}
+		this.solver = solver;
+		workers = new CPSolver[nbWorkers];
+		rootPropagated = new boolean[nbWorkers];
+		for (int i = 0; i < nbWorkers; i++) {
+			workers[i] = new CPSolver(solver.getConfiguration());
+			workers[i].read(solver.getModel());
+			if (workers[i].getNbIntVars() != solver.getNbIntVars()) {
+				throw new SolverException("parallel probing: the solver has integer variables which are not in its model");
+			}
+		}
+	}
+
+	/**
+	 * @return whether the root node of the solver can be cloned by reading its model.
+	 */
+	public static boolean isCloneable(CPSolver solver) {
+		return solver.getModel() instanceof CPModel;
+	}
+
+	public int getNbWorkers() {
+		return workers.length;
+	}
+
+	public CPSolver getWorker(int index) {
+		return workers[index];
+	}
+
+	/**
+	 * Runs the task on each worker, restricted to the current domains of the solver.
+	 * @return the results of the workers, in the order of the workers
+	 * @throws ContradictionException if a worker proves that the node is infeasible
+	 */
+	public <T> List<T> probe(final Task<T> task) throws ContradictionException {
+		final int n = solver.getNbIntVars();
+		final int[] infs = new int[n];
+		final int[] sups = new int[n];
+		final int[][] values = new int[n][];
+		for (int i = 0; i < n; i++) {
+			final IntDomainVar v = solver.getIntVarQuick(i);
+			infs[i] = v.getInf();
+			sups[i] = v.getSup();
+			if (v.hasEnumeratedDomain() && v.getDomainSize() < sups[i] - infs[i] + 1) {
+				values[i] = new int[v.getDomainSize()];
+				final DisposableIntIterator it = v.getDomain().getIterator();
+				int k = 0;
+				while (it.hasNext()) {
+					values[i][k++] = it.next();
+				}
+				it.dispose();
+			}
+		}
+		final List<Callable<T>> calls = new ArrayList<Callable<T>>(workers.length);
+		for (int w = 0; w < workers.length; w++) {
+			final int index = w;
+			calls.add(new Callable<T>() {
+				@Override
+				public T call() throws Exception {
+					return run(task, index, infs, sups, values);
+				}
+			});
+		}
+		final ForkJoinPool pool = new ForkJoinPool(workers.length);
+		try {
+			final List<T> results = new ArrayList<T>(workers.length);
+			for (Future<T> f : pool.invokeAll(calls)) {
+				results.add(f.get());
+			}
+			return results;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SolverException("parallel probing interrupted");
+		} catch (ExecutionException e) {
+			//the pool may wrap the checked exceptions of the tasks into runtime exceptions
+			for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+				if (cause instanceof ContradictionException) {
+					throw (ContradictionException) cause;
+				}
+			}
+			throw new SolverException("parallel probing failed: " + e.getCause());
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	private <T> T run(Task<T> task, int index, int[] infs, int[] sups, int[][] values) throws ContradictionException {
+		final CPSolver worker = workers[index];
+		if (!rootPropagated[index]) {
+			//the initial propagation must be done in the root world
+			worker.propagate();
+			rootPropagated[index] = true;
+		}
+		worker.worldPush();
+		try {
+			for (int i = 0; i < infs.length; i++) {
+				final IntDomainVar v = worker.getIntVarQuick(i);
+				v.updateInf(infs[i], null, true);
+				v.updateSup(sups[i], null, true);
+				if (values[i] != null) {
+					//remove the holes of the domain
+					int k = 0;
+					for (int val = infs[i]; val <= sups[i]; val++) {
+						if (k < values[i].length && values[i][k] == val) {
+							k++;
+						} else {
+							v.removeVal(val, null, true);
+						}
+					}
+				}
+			}
+			worker.propagate();
+			return task.probe(worker, index);
+		} finally {
+			worker.worldPopUntil(0);
+		}
+	}
+}
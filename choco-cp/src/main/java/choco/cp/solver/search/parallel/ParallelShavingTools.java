@@ -0,0 +1,190 @@
+/**
+ *  Copyright (c) 1999-2010, Ecole des Mines de Nantes
+ *  All rights reserved.
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *      * Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *      * Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *      * Neither the name of the Ecole des Mines de Nantes nor the
+ *        names of its contributors may be used to endorse or promote products
+ *        derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ *  EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package choco.cp.solver.search.parallel;
+
+import choco.cp.solver.CPSolver;
+import choco.kernel.common.util.iterators.DisposableIntIterator;
+import choco.kernel.solver.ContradictionException;
+import choco.kernel.solver.propagation.ShavingTools;
+import choco.kernel.solver.variables.integer.IntDomainVar;
+import gnu.trove.TIntArrayList;
+
+import java.util.List;
+
+/**
+ * Shaving (singleton consistency) of the variables split across a pool of workers:
+ * each worker shaves a share of the variables on its own copy of the current node,
+ * then the deductions of the workers are applied to the solver.
+ * <p/>
+ * A worker does not see the deductions of the other workers, so that the shaving may be weaker than the sequential one.
+ * The detection of lucky solutions needs the solution in the solver and is done sequentially.
+ */
+public class ParallelShavingTools extends ShavingTools {
+
+	private final int nbWorkers;
+
+	private ParallelProbing probing;
+
+	/**
+	 * @param solver    the solver, which must have read a model
+	 * @param vars      The scope of shaving algorithm must not contain the objective.
+	 * @param nbWorkers number of workers
+	 */
+	public ParallelShavingTools(CPSolver solver, IntDomainVar[] vars, int nbWorkers) {
+		super(solver, vars);
+		this.nbWorkers = nbWorkers;
+	}
+
+	public final int getNbWorkers() {
+		return nbWorkers;
+	}
+
+	@Override
+	protected void shaveVars() throws ContradictionException, LuckySolutionException {
+		if (detectLuckySolution) {
+			super.shaveVars();
+			return;
+		}
+		nbRemovals = 0;
+		final CPSolver cpsolver = (CPSolver) solver;
+		if (probing == null) {
+			probing = new ParallelProbing(cpsolver, nbWorkers);
+		}
+		final int[] varIndices = new int[vars.length];
+		for (int i = 0; i < vars.length; i++) {
+			varIndices[i] = cpsolver.getIntVarIndex(vars[i]);
+		}
+		final List<ShavingProbe> probes = probing.probe(new ParallelProbing.Task<ShavingProbe>() {
+			@Override
+			public ShavingProbe probe(CPSolver worker, int index) throws ContradictionException {
+				final ShavingProbe probe = new ShavingProbe(worker);
+				for (int i = index; i < varIndices.length; i += nbWorkers) {
+					probe.shaveVar(varIndices[i]);
+				}
+				return probe;
+			}
+		});
+		for (ShavingProbe probe : probes) {
+			nbRemovals += probe.apply(cpsolver);
+		}
+		solver.propagate();
+	}
+
+	/**
+	 * The shaving of some variables by a worker.
+	 */
+	private static final class ShavingProbe {
+
+		final CPSolver worker;
+
+		/**
+		 * pairs (index of the variable, value) of the values removed from enumerated domains.
+		 */
+		final TIntArrayList removals = new TIntArrayList();
+
+		/**
+		 * triples (index of the variable, inf, sup) of the bounds of bounded domains.
+		 */
+		final TIntArrayList bounds = new TIntArrayList();
+
+		ShavingProbe(CPSolver worker) {
+			this.worker = worker;
+		}
+
+		void shaveVar(int idx) throws ContradictionException {
+			final IntDomainVar var = worker.getIntVarQuick(idx);
+			if (var.isInstantiated()) {
+				return;
+			}
+			if (var.hasEnumeratedDomain()) {
+				final int[] values = new int[var.getDomainSize()];
+				final DisposableIntIterator iter = var.getDomain().getIterator();
+				int k = 0;
+				while (iter.hasNext()) {
+					values[k++] = iter.next();
+				}
+				iter.dispose();
+				for (int val : values) {
+					if (var.canBeInstantiatedTo(val) && !shaving(var, val)) {
+						removals.add(idx);
+						removals.add(val);
+					}
+				}
+			} else {
+				final int inf = var.getInf();
+				final int sup = var.getSup();
+				while (!shaving(var, var.getInf())) {}
+				while (!shaving(var, var.getSup())) {}
+				if (var.getInf() > inf || var.getSup() < sup) {
+					bounds.add(idx);
+					bounds.add(var.getInf());
+					bounds.add(var.getSup());
+				}
+			}
+		}
+
+		/**
+		 * @return false if the value has been removed
+		 */
+		private boolean shaving(IntDomainVar var, int val) throws ContradictionException {
+			worker.worldPush();
+			try {
+				var.instantiate(val, null, true);
+				worker.propagate();
+				worker.worldPop();
+				return true;
+			} catch (ContradictionException e) {
+				worker.worldPop();
+				var.removeVal(val, null, true);
+				worker.propagate();
+				return false;
+			}
+		}
+
+		/**
+		 * Applies the deductions to the solver.
+		 *
+		 * @return the number of removals
+		 */
+		int apply(CPSolver solver) throws ContradictionException {
+			int nb = 0;
+			for (int k = 0; k < removals.size(); k += 2) {
+				if (solver.getIntVarQuick(removals.get(k)).removeVal(removals.get(k + 1), null, true)) {
+					nb++;
+				}
+			}
+			for (int k = 0; k < bounds.size(); k += 3) {
+				final IntDomainVar var = solver.getIntVarQuick(bounds.get(k));
+				final int size = var.getDomainSize();
+				var.updateInf(bounds.get(k + 1), null, true);
+				var.updateSup(bounds.get(k + 2), null, true);
+				nb += size - var.getDomainSize();
+			}
+			return nb;
+		}
+	}
+}
@@ -0,0 +1,365 @@
+/**
+ *  Copyright (c) 1999-2010, Ecole des Mines de Nantes
+ *  All rights reserved.
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *      * Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *      * Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *      * Neither the name of the Ecole des Mines de Nantes nor the
+ *        names of its contributors may be used to endorse or promote products
+ *        derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ *  EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package choco.cp.solver.search.parallel;
+
+import choco.cp.model.CPModel;
+import choco.cp.solver.CPSolver;
+import choco.cp.solver.search.BranchingFactory;
+import choco.cp.solver.search.SearchLimitManager;
+import choco.cp.solver.search.integer.objective.IntObjectiveManager;
+import choco.cp.solver.search.integer.objective.SharedIntBound;
+import choco.kernel.common.logging.ChocoLogging;
+import choco.kernel.model.variables.integer.IntegerVariable;
+import choco.kernel.solver.Configuration;
+import choco.kernel.solver.SolverException;
+import choco.kernel.solver.search.AbstractGlobalSearchStrategy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A portfolio of independent solvers built from the same model and running concurrently, one thread per solver.
+ * <p/>
+ * Each solver (worker) reads the model with its own configuration, so that the workers explore the search space differently
+ * (see {@link Diversification}).
+ * When optimizing, the workers share the objective bound: a solution found by a worker cuts the search of the others.
+ * The first worker which completes its search (solution found in satisfaction, proof of optimality or infeasibility
+ * in optimization) interrupts the other workers.
+ * <p/>
+ * The workers are built in the calling thread; the search starts with {@link #solve()}, {@link #minimize(IntegerVariable)}
+ * or {@link #maximize(IntegerVariable)}, which can be called only once.
+ */
+public final class PortfolioSolver {
+
+	private final static Logger LOGGER = ChocoLogging.getSearchLogger();
+
+	/**
+	 * Configures the workers of a portfolio.
+	 */
+	public interface Diversification {
+
+		/**
+		 * Configures the worker before it reads the model.
+		 * @param configuration the configuration of the worker (its defaults are the configuration of the portfolio)
+		 * @param index the index of the worker
+		 */
+		void configure(Configuration configuration, int index);
+
+		/**
+		 * Sets the branching of the worker after it has read the model.
+		 * @param solver the worker
+		 * @param index the index of the worker
+		 */
+		void setBranching(CPSolver solver, int index);
+	}
+
+	/**
+	 * The default diversification: the worker <code>i</code> uses the random seed <code>seed + i</code>,
+	 * a restart policy among none, Luby and geometrical, and a branching among the default one,
+	 * dom/wdeg, random search and dom/ddeg.
+	 * The restart policy and the branching of a worker vary independently.
+	 * Branchings are only changed on models whose decision variables are integer variables.
+	 */
+	public final static Diversification DEFAULT_DIVERSIFICATION = new Diversification() {
+
+		@Override
+		public void configure(Configuration configuration, int index) {
+			configuration.putLong(Configuration.RANDOM_SEED, configuration.readLong(Configuration.RANDOM_SEED) + index);
+			switch (index % 3) {
+			case 1: configuration.putBoolean(Configuration.RESTART_LUBY, true); break;
+			case 2: configuration.putBoolean(Configuration.RESTART_GEOMETRICAL, true); break;
+			default: break;
+			}
+		}
+
+		@Override
+		public void setBranching(CPSolver solver, int index) {
+			if (solver.getNbSetVars() > 0 || solver.getNbRealVars() > 0 || solver.getNbTaskVars() > 0) {
+				return;
+			}
+			final long seed = solver.getConfiguration().readLong(Configuration.RANDOM_SEED);
+			switch (index % 4) {
+			case 1: solver.addGoal(BranchingFactory.domWDeg(solver)); break;
+			case 2: solver.addGoal(BranchingFactory.randomIntSearch(solver, seed)); break;
+			case 3: solver.addGoal(BranchingFactory.domDDeg(solver)); break;
+			default: break;
+			}
+		}
+	};
+
+	private final CPSolver[] workers;
+
+	private final Diversification diversification;
+
+	private SharedIntBound sharedBound;
+
+	private volatile boolean started;
+
+	/**
+	 * the first worker which completed its search, or -1.
+	 */
+	private volatile int completed = -1;
+
+	public PortfolioSolver(CPModel model, int nbWorkers) {
+		this(model, null, nbWorkers, DEFAULT_DIVERSIFICATION);
+	}
+
+	public PortfolioSolver(CPModel model, Configuration configuration, int nbWorkers) {
+		this(model, configuration, nbWorkers, DEFAULT_DIVERSIFICATION);
+	}
+
+	/**
+	 * Builds the workers.
+	 * @param model the model read by each worker
+	 * @param configuration the configuration shared by the workers (the default configuration if null)
+	 * @param nbWorkers the number of workers, i.e. of threads
+	 * @param diversification configures each worker
+	 */
+	public PortfolioSolver(CPModel model, Configuration configuration, int nbWorkers, Diversification diversification) {
+		if (nbWorkers < 1) {
+			throw new SolverException("a portfolio needs at least one worker");
+		}
+		this.diversification = diversification;
+		final Configuration defaults = configuration == null ? new Configuration() : configuration;
+		workers = new CPSolver[nbWorkers];
+		for (int i = 0; i < nbWorkers; i++) {
+			final Configuration conf = new Configuration(defaults);
+			diversification.configure(conf, i);
+			workers[i] = new CPSolver(conf);
+			workers[i].read(model);
+			diversification.setBranching(workers[i], i);
+		}
+	}
+
+	public int getNbWorkers() {
+		return workers.length;
+	}
+
+	public CPSolver getWorker(int index) {
+		return workers[index];
+	}
+
+	public Diversification getDiversification() {
+		return diversification;
+	}
+
+	/**
+	 * @return the objective bound shared by the workers (null before optimizing)
+	 */
+	public SharedIntBound getSharedBound() {
+		return sharedBound;
+	}
+
+	//*****************************************************************//
+	//*******************  RESOLUTION  ********************************//
+	//***************************************************************//
+
+	/**
+	 * Searches for a solution with every worker, until one of them finds a solution or proves that there is none.
+	 * @return <code>TRUE</code> if a solution has been found, <code>FALSE</code> if the model is infeasible,
+	 * <code>null</code> if every worker reached a limit.
+	 */
+	public Boolean solve() {
+		for (CPSolver worker : workers) {
+			worker.setFirstSolution(true);
+			worker.generateSearchStrategy();
+		}
+		run();
+		final CPSolver best = getBestWorker();
+		if (best != null) return Boolean.TRUE;
+		return completed >= 0 ? Boolean.FALSE : null;
+	}
+
+	public Boolean minimize(IntegerVariable objective) {
+		return optimize(false, objective);
+	}
+
+	public Boolean maximize(IntegerVariable objective) {
+		return optimize(true, objective);
+	}
+
+	/**
+	 * Optimizes with every worker until one of them proves the optimality of the best solution found by the portfolio,
+	 * or the infeasibility of the model.
+	 * @return <code>TRUE</code> if a solution has been found, <code>FALSE</code> if the model is infeasible,
+	 * <code>null</code> if every worker reached a limit without finding a solution.
+	 */
+	private Boolean optimize(boolean maximize, IntegerVariable objective) {
+		sharedBound = new SharedIntBound(maximize);
+		for (CPSolver worker : workers) {
+			worker.setObjective(worker.getVar(objective));
+			worker.setDoMaximize(maximize);
+			worker.setFirstSolution(false);
+			worker.generateSearchStrategy();
+			((IntObjectiveManager) worker.getSearchStrategy().getObjectiveManager()).setSharedBound(sharedBound);
+		}
+		run();
+		if (sharedBound.isSet()) return Boolean.TRUE;
+		return completed >= 0 ? Boolean.FALSE : null;
+	}
+
+	private void run() {
+		if (started) {
+			throw new SolverException("the portfolio has already been solved");
+		}
+		started = true;
+		final ExecutorService pool = Executors.newFixedThreadPool(workers.length);
+		try {
+			final List<Future<Object>> futures = new ArrayList<Future<Object>>(workers.length);
+			for (int i = 0; i < workers.length; i++) {
+				futures.add(pool.submit(new Worker(i)));
+			}
+			for (Future<Object> future : futures) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			interrupt();
+			Thread.currentThread().interrupt();
+			throw new SolverException("the portfolio has been interrupted");
+		} catch (ExecutionException e) {
+			interrupt();
+			final Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+			if (cause instanceof Error) throw (Error) cause;
+			throw new SolverException("a worker of the portfolio failed: " + cause);
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Interrupts every worker: each one stops at its next node.
+	 */
+	public void interrupt() {
+		for (CPSolver worker : workers) {
+			final AbstractGlobalSearchStrategy strategy = worker.getSearchStrategy();
+			if (strategy != null) {
+				((SearchLimitManager) strategy.limitManager).getInterruptLimit().interrupt();
+			}
+		}
+	}
+
+	private synchronized void complete(int index) {
+		if (completed < 0) {
+			completed = index;
+			interrupt();
+		}
+	}
+
+	private final class Worker implements Callable<Object> {
+
+		private final int index;
+
+		public Worker(int index) {
+			this.index = index;
+		}
+
+		@Override
+		public Object call() {
+			final CPSolver solver = workers[index];
+			solver.launch();
+			if (!solver.isEncounteredLimit()) {
+				//the search of this worker is complete
+				complete(index);
+			}
+			if (LOGGER.isLoggable(Level.CONFIG)) {
+				LOGGER.log(Level.CONFIG, "- Portfolio worker {0} ended: {1}", new Object[]{index, solver.runtimeStatistics()});
+			}
+			return null;
+		}
+	}
+
+	//*****************************************************************//
+	//*******************  RESULTS  ***********************************//
+	//***************************************************************//
+
+	/**
+	 * @return the index of the first worker which completed its search, -1 if every worker has been stopped by a limit.
+	 */
+	public int getCompletedWorker() {
+		return completed;
+	}
+
+	/**
+	 * @return the worker which found the best solution (the first solution in satisfaction), or null if there is none.
+	 */
+	public CPSolver getBestWorker() {
+		if (completed >= 0 && sharedBound == null && workers[completed].existsSolution()) {
+			return workers[completed];
+		}
+		CPSolver best = null;
+		for (CPSolver worker : workers) {
+			if (worker.existsSolution()) {
+				if (sharedBound == null) return worker;
+				if (worker.getObjectiveValue().intValue() == sharedBound.get()) {
+					best = worker;
+				}
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * @return the best objective value found by the portfolio, or null if there is none.
+	 */
+	public Number getObjectiveValue() {
+		return sharedBound != null && sharedBound.isSet() ? Integer.valueOf(sharedBound.get()) : null;
+	}
+
+	/**
+	 * @return <code>true</code> if a worker has proven the optimality of the best solution of the portfolio.
+	 */
+	public boolean isObjectiveOptimal() {
+		return completed >= 0 && sharedBound != null && sharedBound.isSet();
+	}
+
+	public String runtimeStatistics() {
+		final StringBuilder b = new StringBuilder();
+		b.append("Portfolio of ").append(workers.length).append(" workers");
+		if (sharedBound != null) {
+			b.append(", best objective: ").append(sharedBound);
+		}
+		if (completed >= 0) {
+			b.append(", completed by worker ").append(completed);
+		}
+		for (int i = 0; i < workers.length; i++) {
+			b.append("\n  worker ").append(i).append(": ").append(workers[i].runtimeStatistics());
+		}
+		return b.toString();
+	}
+
+	public void printRuntimeStatistics() {
+		LOGGER.info(runtimeStatistics());
+	}
+}
@@ -0,0 +1,654 @@
+/**
+ *  Copyright (c) 1999-2010, Ecole des Mines de Nantes
+ *  All rights reserved.
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *      * Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *      * Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *      * Neither the name of the Ecole des Mines de Nantes nor the
+ *        names of its contributors may be used to endorse or promote products
+ *        derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ *  EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package choco.cp.solver.search.parallel;
+
+import choco.cp.model.CPModel;
+import choco.cp.solver.CPSolver;
+import choco.cp.solver.configure.StrategyFactory;
+import choco.cp.solver.search.SearchLimitManager;
+import choco.cp.solver.search.SearchLoopWithRecomputation;
+import choco.cp.solver.search.integer.objective.IntObjectiveManager;
+import choco.cp.solver.search.integer.objective.SharedIntBound;
+import choco.kernel.common.logging.ChocoLogging;
+import choco.kernel.model.variables.integer.IntegerVariable;
+import choco.kernel.solver.Configuration;
+import choco.kernel.solver.ContradictionException;
+import choco.kernel.solver.Solution;
+import choco.kernel.solver.SolverException;
+import choco.kernel.solver.search.AbstractGlobalSearchStrategy;
+import choco.kernel.solver.search.IntBranchingTrace;
+import choco.kernel.solver.search.measure.MeasuresBean;
+import choco.kernel.solver.variables.integer.IntDomainVar;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static choco.kernel.solver.search.AbstractGlobalSearchStrategy.*;
+
+/**
+ * Parallel depth-first search with work stealing: the workers share one search tree.
+ * <p/>
+ * Each worker is a solver built from the same model whose search loop is a {@link SearchLoopWithRecomputation}.
+ * An idle worker signals that it is hungry and polls the deques of the other workers.
+ * At its next node, a busy worker publishes in its own deque the oldest level of its trace stack which has not been
+ * published yet: the path of decisions leading to the level (the refutations of the previous siblings included)
+ * and the refutation of its current branch. The busy worker does not explore the next branches of this level any more.
+ * The thief rebuilds the node on its own environment by replaying the path, then resumes the branching of the level
+ * after the refuted branch. The deques are lock-free, one per worker, and the thieves take the oldest subtrees.
+ * <p/>
+ * When optimizing, the workers share the objective bound: a solution found by a worker cuts the search of the others,
+ * and a stolen subtree is rebuilt under the current bound.
+ * <p/>
+ * The branchings must branch on integer or set variables, and must apply a decision only from the branching object,
+ * the branch index and the branching value. The restarts are disabled and the search limits of the configuration apply
+ * to each stolen subtree. The workers are built in the calling thread; the search can be run only once.
+ */
+public final class WorkStealingSolver {
+
+	private final static Logger LOGGER = ChocoLogging.getSearchLogger();
+
+	private final static BranchingDecision[] ROOT = new BranchingDecision[0];
+
+	/**
+	 * time slept by a hungry worker which did not find a subtree to steal after a few tries.
+	 */
+	private final static long PARK_NANOS = 50000;
+
+	private final CPSolver[] workers;
+
+	private final WorkerLoop[] loops;
+
+	private final MeasuresBean[] measures;
+
+	private final boolean[] rootPropagated;
+
+	private final List<ConcurrentLinkedDeque<BranchingDecision[]>> deques;
+
+	/**
+	 * number of subtrees published or being explored.
+	 */
+	private final AtomicInteger active = new AtomicInteger();
+
+	/**
+	 * number of workers looking for a subtree.
+	 */
+	private final AtomicInteger hungry = new AtomicInteger();
+
+	private final AtomicInteger steals = new AtomicInteger();
+
+	private final int gap;
+
+	private boolean started;
+
+	private boolean stopAtFirstSolution;
+
+	private SharedIntBound sharedBound;
+
+	private volatile boolean done;
+
+	private volatile boolean incomplete;
+
+	private CPSolver solutionWorker;
+
+	private Solution solution;
+
+	private int solutionObjective;
+
+	private long timeCount;
+
+	public WorkStealingSolver(CPModel model, int nbWorkers) {
+		this(model, null, nbWorkers);
+	}
+
+	/**
+	 * Builds the workers.
+	 * @param model the model read by each worker
+	 * @param configuration the configuration of the workers (the default configuration if null),
+	 * the recomputation gap of the search loops is read from {@link Configuration#RECOMPUTATION_GAP}.
+	 * @param nbWorkers the number of workers, i.e. the number of threads
+	 */
+	public WorkStealingSolver(CPModel model, Configuration configuration, int nbWorkers) {
+		if (nbWorkers < 1) {
+			throw new SolverException("work stealing needs at least one worker");
+		}
+		workers = new CPSolver[nbWorkers];
+		loops = new WorkerLoop[nbWorkers];
+		measures = new MeasuresBean[nbWorkers];
+		rootPropagated = new boolean[nbWorkers];
+		deques = new ArrayList<ConcurrentLinkedDeque<BranchingDecision[]>>(nbWorkers);
+		for (int i = 0; i < nbWorkers; i++) {
+			workers[i] = new CPSolver(configuration);
+			//a restart would explore again the published subtrees
+			final Configuration conf = workers[i].getConfiguration();
+			conf.putBoolean(Configuration.RESTART_LUBY, false);
+			conf.putBoolean(Configuration.RESTART_GEOMETRICAL, false);
+			conf.putBoolean(Configuration.RESTART_AFTER_SOLUTION, false);
+			workers[i].read(model);
+			measures[i] = new MeasuresBean();
+			deques.add(new ConcurrentLinkedDeque<BranchingDecision[]>());
+		}
+		gap = Math.max(1, StrategyFactory.getRecomputationGap(workers[0]));
+	}
+
+	public int getNbWorkers() {
+		return workers.length;
+	}
+
+	public CPSolver getWorker(int index) {
+		return workers[index];
+	}
+
+	/**
+	 * @return the objective bound shared by the workers, or null when not optimizing.
+	 */
+	public SharedIntBound getSharedBound() {
+		return sharedBound;
+	}
+
+	//*****************************************************************//
+	//*******************  RESOLUTION  ********************************//
+	//***************************************************************//
+
+	/**
+	 * Searches for a solution: the first worker which finds a solution stops the others.
+	 * @return <code>TRUE</code> if a solution has been found, <code>FALSE</code> if the model is infeasible,
+	 * <code>null</code> if a limit has been reached before finding a solution.
+	 */
+	public Boolean solve() {
+		return satisfy(true);
+	}
+
+	/**
+	 * Enumerates every solution.
+	 * @return <code>TRUE</code> if a solution has been found, <code>FALSE</code> if the model is infeasible,
+	 * <code>null</code> if a limit has been reached before finding a solution.
+	 */
+	public Boolean solveAll() {
+		return satisfy(false);
+	}
+
+	public Boolean minimize(IntegerVariable objective) {
+		return optimize(false, objective);
+	}
+
+	public Boolean maximize(IntegerVariable objective) {
+		return optimize(true, objective);
+	}
+
+	private Boolean satisfy(boolean firstSolution) {
+		stopAtFirstSolution = firstSolution;
+		for (int i = 0; i < workers.length; i++) {
+			workers[i].setFirstSolution(firstSolution);
+			workers[i].generateSearchStrategy();
+			setSearchLoop(i);
+		}
+		return run();
+	}
+
+	/**
+	 * Optimizes with every worker until the search tree has been explored.
+	 * @return <code>TRUE</code> if a solution has been found, <code>FALSE</code> if the model is infeasible,
+	 * <code>null</code> if a limit has been reached before finding a solution.
+	 */
+	private Boolean optimize(boolean maximize, IntegerVariable objective) {
+		sharedBound = new SharedIntBound(maximize);
+		for (int i = 0; i < workers.length; i++) {
+			final CPSolver worker = workers[i];
+			worker.setObjective(worker.getVar(objective));
+			worker.setDoMaximize(maximize);
+			worker.setFirstSolution(false);
+			worker.generateSearchStrategy();
+			((IntObjectiveManager) worker.getSearchStrategy().getObjectiveManager()).setSharedBound(sharedBound);
+			setSearchLoop(i);
+		}
+		return run();
+	}
+
+	private void setSearchLoop(int index) {
+		final AbstractGlobalSearchStrategy strategy = workers[index].getSearchStrategy();
+		if (strategy.mainGoal == null) {
+			throw new SolverException("work stealing needs a branching");
+		}
+		loops[index] = new WorkerLoop(index, strategy, gap);
+		strategy.setSearchLoop(loops[index]);
+	}
+
+	private Boolean run() {
+		if (started) {
+			throw new SolverException("work stealing has already been solved");
+		}
+		started = true;
+		final long start = System.currentTimeMillis();
+		active.set(1);
+		deques.get(0).add(ROOT);
+		final ExecutorService pool = Executors.newFixedThreadPool(workers.length);
+		try {
+			final List<Future<Object>> futures = new ArrayList<Future<Object>>(workers.length);
+			for (int i = 0; i < workers.length; i++) {
+				futures.add(pool.submit(new Worker(i)));
+			}
+			for (Future<Object> future : futures) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			interrupt();
+			Thread.currentThread().interrupt();
+			throw new SolverException("work stealing has been interrupted");
+		} catch (ExecutionException e) {
+			interrupt();
+			final Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+			if (cause instanceof Error) throw (Error) cause;
+			throw new SolverException("a worker failed: " + cause);
+		} finally {
+			pool.shutdown();
+		}
+		timeCount = System.currentTimeMillis() - start;
+		if (solution != null) {
+			//restore the best solution in the variables of its worker
+			solutionWorker.worldPush();
+			solutionWorker.restoreSolution(solution);
+			return Boolean.TRUE;
+		}
+		return incomplete ? null : Boolean.FALSE;
+	}
+
+	/**
+	 * Interrupts every worker: each one stops at its next node.
+	 */
+	public void interrupt() {
+		done = true;
+		for (CPSolver worker : workers) {
+			final AbstractGlobalSearchStrategy strategy = worker.getSearchStrategy();
+			if (strategy != null) {
+				((SearchLimitManager) strategy.limitManager).getInterruptLimit().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Takes a subtree: the last one published by the worker, or the oldest one published by another worker.
+	 * @return the path of the subtree, or null if the search is over
+	 */
+	private BranchingDecision[] take(int index) {
+		BranchingDecision[] path = deques.get(index).pollLast();
+		if (path != null) return path;
+		hungry.incrementAndGet();
+		try {
+			int tries = 0;
+			while (!done && active.get() > 0) {
+				for (int k = 1; k < workers.length; k++) {
+					path = deques.get((index + k) % workers.length).pollFirst();
+					if (path != null) {
+						steals.incrementAndGet();
+						return path;
+					}
+				}
+				if (++tries < 64) {
+					Thread.yield();
+				} else {
+					LockSupport.parkNanos(PARK_NANOS);
+				}
+			}
+			return null;
+		} finally {
+			hungry.decrementAndGet();
+		}
+	}
+
+	/**
+	 * Rebuilds a subtree with the given worker and explores it.
+	 */
+	private void explore(int index, BranchingDecision[] path) {
+		final CPSolver solver = workers[index];
+		final AbstractGlobalSearchStrategy strategy = solver.getSearchStrategy();
+		boolean feasible = true;
+		try {
+			if (!rootPropagated[index]) {
+				//the initial propagation must be done in the root world
+				solver.propagate();
+				rootPropagated[index] = true;
+			}
+			solver.worldPush();
+			final IntBranchingTrace ctx = new IntBranchingTrace();
+			for (BranchingDecision decision : path) {
+				decision.apply(solver, ctx);
+			}
+			if (sharedBound != null && sharedBound.isSet()) {
+				final IntDomainVar objective = (IntDomainVar) solver.getObjective();
+				if (sharedBound.maximize) {
+					objective.setInf(sharedBound.get() + 1);
+				} else {
+					objective.setSup(sharedBound.get() - 1);
+				}
+				solver.propagate();
+			}
+		} catch (ContradictionException e) {
+			feasible = false;
+		}
+		if (feasible && !done) {
+			//the strategy of a worker is reused from one subtree to the next
+			loops[index].setRoot(path);
+			strategy.clearTrace();
+			strategy.nextMove = INIT_SEARCH;
+			solver.launch();
+			measures[index].addSearchMeasures(strategy);
+			if (strategy.isEncounteredLimit()) {
+				incomplete = true;
+			}
+			if (strategy.existsSolution()) {
+				record(index);
+			}
+		}
+		solver.worldPopUntil(0);
+	}
+
+	/**
+	 * Records the solution of a worker if it is the first one or improves the objective.
+	 */
+	private synchronized void record(int index) {
+		final CPSolver solver = workers[index];
+		if (sharedBound != null) {
+			final int value = solver.getObjectiveValue().intValue();
+			if (solution != null && (sharedBound.maximize ? value <= solutionObjective : value >= solutionObjective)) {
+				return;
+			}
+			solutionObjective = value;
+		} else if (solution != null) {
+			return;
+		}
+		solution = solver.recordSolution();
+		solutionWorker = solver;
+		if (stopAtFirstSolution) {
+			interrupt();
+		}
+	}
+
+	private final class Worker implements Callable<Object> {
+
+		private final int index;
+
+		public Worker(int index) {
+			this.index = index;
+		}
+
+		@Override
+		public Object call() {
+			BranchingDecision[] path;
+			while ((path = take(index)) != null) {
+				try {
+					explore(index, path);
+				} finally {
+					active.decrementAndGet();
+				}
+			}
+			if (LOGGER.isLoggable(Level.CONFIG)) {
+				LOGGER.log(Level.CONFIG, "- Work stealing worker {0} ended: {1} solutions, {2} nodes",
+						new Object[]{index, measures[index].getSolutionCount(), measures[index].getNodeCount()});
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * The search loop of a worker: it records the refutations of the open levels to publish them on demand.
+	 */
+	private final class WorkerLoop extends SearchLoopWithRecomputation {
+
+		private final int index;
+
+		/**
+		 * the path of the subtree explored by the worker.
+		 */
+		private BranchingDecision[] root = ROOT;
+
+		/**
+		 * the refuted branches of the open levels, level after level.
+		 */
+		private final List<IntBranchingTrace> refutations = new ArrayList<IntBranchingTrace>();
+
+		/**
+		 * the index of the first refutation of each open level.
+		 */
+		private int[] levelStart = new int[16];
+
+		/**
+		 * the levels whose next branches have been published.
+		 */
+		private boolean[] published = new boolean[16];
+
+		WorkerLoop(int index, AbstractGlobalSearchStrategy strategy, int gap) {
+			super(strategy, StrategyFactory.createKickRestart(strategy), gap);
+			this.index = index;
+		}
+
+		void setRoot(BranchingDecision[] root) {
+			this.root = root;
+		}
+
+		private void openLevel(int level) {
+			if (level >= levelStart.length) {
+				levelStart = Arrays.copyOf(levelStart, 2 * level);
+				published = Arrays.copyOf(published, 2 * level);
+			}
+			levelStart[level] = refutations.size();
+			published[level] = false;
+		}
+
+		private void closeLevel(int level) {
+			for (int i = refutations.size() - 1; i >= levelStart[level]; i--) {
+				refutations.remove(i);
+			}
+		}
+
+		@Override
+		public void initialize() {
+			super.initialize();
+			refutations.clear();
+		}
+
+		@Override
+		public void initSearch() {
+			super.initSearch();
+			if (root.length > 0 && searchStrategy.nextMove == OPEN_NODE) {
+				//resume the branching of the stolen level, its current branch has been refuted by the path
+				ctx = searchStrategy.pushTrace();
+				root[root.length - 1].fill(workers[index], ctx);
+				openLevel(0);
+				if (ctx.getBranching().finishedBranching(ctx)) {
+					ctx = searchStrategy.popTrace();
+					searchStrategy.nextMove = UP_BRANCH;
+				} else {
+					ctx.getBranching().setNextBranch(ctx);
+					ctx.incrementBranchIndex();
+					searchStrategy.nextMove = DOWN_BRANCH;
+				}
+			}
+		}
+
+		@Override
+		public void openNode() {
+			super.openNode();
+			if (searchStrategy.nextMove == DOWN_BRANCH) {
+				openLevel(searchStrategy.getCurrentTraceIndex());
+			}
+		}
+
+		@Override
+		public void downBranch() {
+			super.downBranch();
+			if (searchStrategy.nextMove == OPEN_NODE && hungry.get() > 0 && deques.get(index).isEmpty()) {
+				publish();
+			}
+		}
+
+		@Override
+		public void upBranch() {
+			final int level = searchStrategy.getCurrentTraceIndex();
+			if (published[level]) {
+				//the next branches of the level belong to another worker
+				try {
+					searchStrategy.limitManager.endNode();
+					worldPop();
+					searchStrategy.nextMove = UP_BRANCH;
+				} catch (ContradictionException e) {
+					searchStrategy.nextMove = e.getContradictionMove();
+				}
+				ctx = searchStrategy.popTrace();
+				closeLevel(level);
+				return;
+			}
+			final IntBranchingTrace refutation = ctx.copy();
+			super.upBranch();
+			if (searchStrategy.getCurrentTraceIndex() == level) {
+				refutations.add(refutation);
+			} else {
+				closeLevel(level);
+			}
+		}
+
+		/**
+		 * Publishes the next branches of the oldest level which has not been published yet.
+		 */
+		private void publish() {
+			final int current = searchStrategy.getCurrentTraceIndex();
+			int level = 0;
+			while (level <= current && published[level]) {
+				level++;
+			}
+			if (level > current) return;
+			published[level] = true;
+			final CPSolver solver = workers[index];
+			final List<BranchingDecision> path = new ArrayList<BranchingDecision>(root.length + refutations.size() + level + 1);
+			path.addAll(Arrays.asList(root));
+			for (int i = 0; i <= level; i++) {
+				final int end = i < current ? levelStart[i + 1] : refutations.size();
+				for (int j = levelStart[i]; j < end; j++) {
+					path.add(BranchingDecision.make(solver, refutations.get(j), false));
+				}
+				path.add(BranchingDecision.make(solver, searchStrategy.getTrace(i), i < level));
+			}
+			active.incrementAndGet();
+			deques.get(index).addLast(path.toArray(new BranchingDecision[path.size()]));
+		}
+	}
+
+	//*****************************************************************//
+	//*******************  RESULTS  ***********************************//
+	//***************************************************************//
+
+	/**
+	 * @return the worker holding the best solution (the first one in satisfaction), or null if there is none.
+	 */
+	public synchronized CPSolver getSolutionWorker() {
+		return solutionWorker;
+	}
+
+	/**
+	 * @return the best objective value found by the workers, or null.
+	 */
+	public Number getObjectiveValue() {
+		return sharedBound != null && sharedBound.isSet() ? Integer.valueOf(sharedBound.get()) : null;
+	}
+
+	/**
+	 * @return true if the best solution has been proven optimal, i.e. the search tree has been explored.
+	 */
+	public boolean isObjectiveOptimal() {
+		return sharedBound != null && sharedBound.isSet() && !incomplete;
+	}
+
+	/**
+	 * @return the number of subtrees stolen by the workers.
+	 */
+	public int getNbSteals() {
+		return steals.get();
+	}
+
+	/**
+	 * @return the measures of the workers merged, the time being the elapsed time of the resolution.
+	 */
+	public MeasuresBean getMeasures() {
+		final MeasuresBean merged = new MeasuresBean();
+		for (MeasuresBean m : measures) {
+			merged.addSearchMeasures(m);
+		}
+		merged.setTimeCount(timeCount);
+		return merged;
+	}
+
+	/**
+	 * @return the measures of one worker over all the subtrees it explored.
+	 */
+	public MeasuresBean getMeasures(int index) {
+		return measures[index];
+	}
+
+	public long getSolutionCount() {
+		long count = 0;
+		for (MeasuresBean m : measures) {
+			count += m.getSolutionCount();
+		}
+		return count;
+	}
+
+	public long getNodeCount() {
+		long count = 0;
+		for (MeasuresBean m : measures) {
+			count += m.getNodeCount();
+		}
+		return count;
+	}
+
+	public String runtimeStatistics() {
+		final MeasuresBean m = getMeasures();
+		final StringBuilder b = new StringBuilder();
+		b.append("Work stealing: ").append(workers.length).append(" workers, ").append(steals.get()).append(" steals, ");
+		b.append(m.getSolutionCount()).append(" solutions, ");
+		if (sharedBound != null) {
+			b.append("best objective: ").append(sharedBound).append(", ");
+		}
+		b.append(m.getTimeCount()).append(" ms, ").append(m.getNodeCount()).append(" nodes, ");
+		b.append(m.getBackTrackCount()).append(" backtracks, ").append(m.getFailCount()).append(" fails");
+		return b.toString();
+	}
+
+	public void printRuntimeStatistics() {
+		LOGGER.info(runtimeStatistics());
+	}
+}
@@ -160,6 +160,11 @@ public abstract class AbstractBijectiveVar extends AbstractVar implements IntDom
         ((AbstractVar) variable).eraseConstraint(c);
     }
 
+    @Override
+    public void deactivateConstraint(int constraintIndex) {
+        ((AbstractVar) variable).deactivateConstraint(constraintIndex);
+    }
+
     @Override
     public int addConstraint(SConstraint c, int varIdx, boolean dynamicAddition) {
         return variable.addConstraint(c, varIdx, dynamicAddition);
@@ -199,6 +199,7 @@ public class IntVarEvent<C extends AbstractSConstraint & IntPropagator> extends
         try {
             while (cit.hasNext()) {
                 Couple<C> cc = cit.next();
+                if (profiler != null) profiler.fineEvent(cc.c);
                 cc.c.awakeOnInst(cc.i);
             }
         } finally {
@@ -216,6 +217,7 @@ public class IntVarEvent<C extends AbstractSConstraint & IntPropagator> extends
         try {
             while (cit.hasNext()) {
                 Couple<C> cc = cit.next();
+                if (profiler != null) profiler.fineEvent(cc.c);
                 cc.c.awakeOnInf(cc.i);
             }
         } finally {
@@ -232,6 +234,7 @@ public class IntVarEvent<C extends AbstractSConstraint & IntPropagator> extends
         try {
             while (cit.hasNext()) {
                 Couple<C> cc = cit.next();
+                if (profiler != null) profiler.fineEvent(cc.c);
                 cc.c.awakeOnSup(cc.i);
             }
         } finally {
@@ -250,6 +253,7 @@ public class IntVarEvent<C extends AbstractSConstraint & IntPropagator> extends
                 Couple<C> cc = cit.next();
                 DisposableIntIterator iter = _domain.getDeltaIterator();
                 try {
+                    if (profiler != null) profiler.fineEvent(cc.c);
                     cc.c.awakeOnRemovals(cc.i, iter);
                 } finally {
                     iter.dispose();
@@ -114,6 +114,7 @@ public class RealVarEvent<C extends AbstractSConstraint & RealPropagator>  exten
         try {
             while (cit.hasNext()) {
                 Couple<C> cc = cit.next();
+                if (profiler != null) profiler.fineEvent(cc.c);
                 cc.c.awakeOnSup(cc.i);
             }
         } finally {
@@ -131,6 +132,7 @@ public class RealVarEvent<C extends AbstractSConstraint & RealPropagator>  exten
         try {
             while (cit.hasNext()) {
                 Couple<C> cc = cit.next();
+                if (profiler != null) profiler.fineEvent(cc.c);
                 cc.c.awakeOnInf(cc.i);
             }
         } finally {
@@ -166,6 +166,7 @@ public class SetVarEvent<C extends AbstractSConstraint & SetPropagator> extends
         try {
             while (cit.hasNext()) {
                 Couple<C> cc = cit.next();
+                if (profiler != null) profiler.fineEvent(cc.c);
                 cc.c.awakeOnInst(cc.i);
             }
         } finally {
@@ -184,6 +185,7 @@ public class SetVarEvent<C extends AbstractSConstraint & SetPropagator> extends
                 Couple<C> cc = cit.next();
                 DisposableIntIterator kit = _kdomain.getDeltaIterator();
                 try {
+                    if (profiler != null) profiler.fineEvent(cc.c);
                     cc.c.awakeOnkerAdditions(cc.i, kit);
                 } finally {
                     kit.dispose();
@@ -205,6 +207,7 @@ public class SetVarEvent<C extends AbstractSConstraint & SetPropagator> extends
                 Couple<C> cc = cit.next();
                 DisposableIntIterator eit = _edomain.getDeltaIterator();
                 try {
+                    if (profiler != null) profiler.fineEvent(cc.c);
                     cc.c.awakeOnEnvRemovals(cc.i, eit);
                 } finally {
                     eit.dispose();
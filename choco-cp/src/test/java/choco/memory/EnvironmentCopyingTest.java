@@ -0,0 +1,133 @@
+/**
+ *  Copyright (c) 1999-2010, Ecole des Mines de Nantes
+ *  All rights reserved.
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *      * Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *      * Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *      * Neither the name of the Ecole des Mines de Nantes nor the
+ *        names of its contributors may be used to endorse or promote products
+ *        derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ *  EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package choco.memory;
+
+import choco.cp.model.CPModel;
+import choco.cp.solver.CPSolver;
+import choco.kernel.memory.IEnvironment;
+import choco.kernel.memory.IStateInt;
+import choco.kernel.memory.IStateIntVector;
+import choco.kernel.memory.copy.EnvironmentCopying;
+import choco.kernel.memory.trailing.EnvironmentTrailing;
+import choco.kernel.model.Model;
+import choco.kernel.model.variables.integer.IntegerVariable;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static choco.Choco.*;
+
+/**
+ * Tests of the isolation of {@link EnvironmentCopying} instances.
+ */
+public class EnvironmentCopyingTest {
+
+    private static Model queens(int n) {
+        Model m = new CPModel();
+        IntegerVariable[] queens = makeIntVarArray("Q", n, 1, n);
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                int k = j - i;
+                m.addConstraint(neq(queens[i], queens[j]));
+                m.addConstraint(neq(queens[i], plus(queens[j], k)));
+                m.addConstraint(neq(queens[i], minus(queens[j], k)));
+            }
+        }
+        return m;
+    }
+
+    private static CPSolver solveAll(IEnvironment env, int n) {
+        CPSolver s = new CPSolver(env);
+        s.read(queens(n));
+        s.solveAll();
+        return s;
+    }
+
+    @Test
+    public void testInterleavedEnvironments() {
+        EnvironmentCopying e1 = new EnvironmentCopying();
+        IStateInt x1 = e1.makeInt(1);
+        IStateIntVector v1 = e1.makeIntVector(3, 0);
+        EnvironmentCopying e2 = new EnvironmentCopying();
+        IStateInt x2 = e2.makeInt(2);
+        e1.worldPush();
+        x1.set(10);
+        v1.set(1, 5);
+        e2.worldPush();
+        x2.set(20);
+        e2.worldPush();
+        x2.set(30);
+        e1.worldPop();
+        Assert.assertEquals(1, x1.get());
+        Assert.assertEquals(0, v1.get(1));
+        Assert.assertEquals(30, x2.get());
+        e2.worldPop();
+        Assert.assertEquals(20, x2.get());
+        e2.worldPop();
+        Assert.assertEquals(2, x2.get());
+    }
+
+    @Test
+    public void testSuccessiveSolvers() {
+        for (int i = 0; i < 3; i++) {
+            CPSolver s = solveAll(new EnvironmentCopying(), 8);
+            Assert.assertEquals(92, s.getNbSolutions());
+        }
+    }
+
+    @Test
+    public void testConcurrentSolvers() throws Exception {
+        final int n = 8;
+        final CPSolver ref = solveAll(new EnvironmentTrailing(), n);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<CPSolver>> results = new ArrayList<Future<CPSolver>>();
+            for (int i = 0; i < 16; i++) {
+                results.add(pool.submit(new Callable<CPSolver>() {
+                    @Override
+                    public CPSolver call() {
+                        return solveAll(new EnvironmentCopying(), n);
+                    }
+                }));
+            }
+            for (Future<CPSolver> f : results) {
+                CPSolver s = f.get();
+                Assert.assertEquals(ref.getNbSolutions(), s.getNbSolutions());
+                Assert.assertEquals(ref.getNodeCount(), s.getNodeCount());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -30,7 +30,9 @@ package choco.model.constraints;
 import choco.Choco;
 import choco.cp.model.CPModel;
 import choco.cp.solver.CPSolver;
+import choco.cp.solver.variables.integer.IntDomainVarImpl;
 import choco.kernel.common.logging.ChocoLogging;
+import choco.kernel.memory.structure.PartiallyStoredIntVector;
 import choco.kernel.model.Model;
 import choco.kernel.model.constraints.Constraint;
 import choco.kernel.model.variables.integer.IntegerVariable;
@@ -145,6 +147,225 @@ public class ConstraintTest {
         orderTest(7777777, "SCQLTBU");
     }
 
+    private static final class SlowConstraint extends AbstractSConstraint {
+
+        private final StringBuilder st;
+        private final String name;
+        private final long nanos;
+
+        public SlowConstraint(String name, StringBuilder st, long nanos) {
+            super(ConstraintEvent.UNARY, new IntDomainVar[0]);
+            this.st = st;
+            this.name = name;
+            this.nanos = nanos;
+        }
+
+        @Override
+        public void propagate() throws ContradictionException {
+            final long start = System.nanoTime();
+            while (System.nanoTime() - start < nanos) {
+                // busy propagator which never prunes
+            }
+            st.append(name);
+        }
+
+        @Override
+        public boolean isConsistent() {
+            return false;
+        }
+
+        @Override
+        public boolean isSatisfied() {
+            return true;
+        }
+
+        @Override
+        public SConstraintType getConstraintType() {
+            return null;
+        }
+    }
+
+    @Test
+    public void testAdaptiveOrder() throws ContradictionException {
+        Configuration conf = new Configuration();
+        conf.putBoolean(Configuration.CEQ_ADAPTIVE, true);
+        Solver s = new CPSolver(conf);
+        StringBuilder st = new StringBuilder();
+        SlowConstraint slow = new SlowConstraint("S", st, 200000);
+        SlowConstraint fast = new SlowConstraint("F", st, 0);
+        s.post(slow);
+        s.post(fast);
+        s.propagate();
+        for (int i = 0; i < 4 * 8; i++) {
+            st.setLength(0);
+            s.getPropagationEngine().postConstAwake(slow, false);
+            s.getPropagationEngine().postConstAwake(fast, false);
+            s.propagate();
+            Assert.assertEquals(2, st.length());
+        }
+        Assert.assertEquals(ConstraintEvent.VERY_SLOW, slow.getEvent().getPriority());
+        Assert.assertTrue(fast.getEvent().getPriority() < ConstraintEvent.VERY_SLOW);
+        Assert.assertEquals("FS", st.toString());
+    }
+
+    private static long solveQueens(boolean adaptive) {
+        int n = 8;
+        Model m = new CPModel();
+        IntegerVariable[] q = Choco.makeIntVarArray("q", n, 0, n - 1);
+        IntegerVariable[] d1 = new IntegerVariable[n];
+        IntegerVariable[] d2 = new IntegerVariable[n];
+        for (int i = 0; i < n; i++) {
+            d1[i] = Choco.makeIntVar("d1_" + i, -n, 2 * n);
+            d2[i] = Choco.makeIntVar("d2_" + i, -n, 2 * n);
+            m.addConstraint(Choco.eq(d1[i], Choco.plus(q[i], i)));
+            m.addConstraint(Choco.eq(d2[i], Choco.minus(q[i], i)));
+        }
+        m.addConstraint(Choco.allDifferent(q));
+        m.addConstraint(Choco.allDifferent(d1));
+        m.addConstraint(Choco.allDifferent(d2));
+        Configuration conf = new Configuration();
+        conf.putBoolean(Configuration.CEQ_ADAPTIVE, adaptive);
+        CPSolver s = new CPSolver(conf);
+        s.read(m);
+        s.solveAll();
+        return s.getNbSolutions();
+    }
+
+    @Test
+    public void testAdaptiveSameSolutions() {
+        Assert.assertEquals(92, solveQueens(false));
+        Assert.assertEquals(92, solveQueens(true));
+    }
+
+    private static int nbDeactivated(IntDomainVar v) {
+        int nb = 0;
+        for (PartiallyStoredIntVector events : ((IntDomainVarImpl) v).getEventsVector()) {
+            nb += events.getNbDeactivated();
+        }
+        return nb;
+    }
+
+    @Test
+    public void testEntailedConstraintDeactivated() throws ContradictionException {
+        Model m = new CPModel();
+        IntegerVariable x = Choco.makeIntVar("x", 0, 10);
+        IntegerVariable y = Choco.makeIntVar("y", 0, 10);
+        m.addConstraint(Choco.geq(x, y));
+        CPSolver s = new CPSolver();
+        s.read(m);
+        s.propagate();
+        IntDomainVar vx = s.getVar(x);
+        IntDomainVar vy = s.getVar(y);
+        Assert.assertEquals(0, nbDeactivated(vx));
+        s.worldPush();
+        vx.setInf(5);
+        vy.setSup(3);
+        s.propagate();
+        Assert.assertTrue(nbDeactivated(vx) > 0);
+        Assert.assertTrue(nbDeactivated(vy) > 0);
+        s.worldPop();
+        Assert.assertEquals(0, nbDeactivated(vx));
+        Assert.assertEquals(0, nbDeactivated(vy));
+        s.worldPush();
+        vx.setSup(4);
+        vy.setInf(6);
+        try {
+            s.propagate();
+            Assert.fail();
+        } catch (ContradictionException e) {
+            // the constraint is active again
+        }
+    }
+
+    private static long[] solveLinear(boolean entailment) {
+        int n = 6;
+        Model m = new CPModel();
+        IntegerVariable[] x = Choco.makeIntVarArray("x", n, 0, 4);
+        for (int i = 0; i < n - 1; i++) {
+            m.addConstraint(Choco.geq(x[i], x[i + 1]));
+            m.addConstraint(Choco.leq(Choco.sum(x[i], x[i + 1]), 6));
+        }
+        m.addConstraint(Choco.neq(x[0], x[n - 1]));
+        Configuration conf = new Configuration();
+        conf.putBoolean(Configuration.ENTAILMENT_CHECK, entailment);
+        CPSolver s = new CPSolver(conf);
+        s.read(m);
+        s.solveAll();
+        return new long[]{s.getNbSolutions(), s.getNodeCount(), s.getFailCount()};
+    }
+
+    @Test
+    public void testEntailmentCheckSameSearch() {
+        long[] plain = solveLinear(false);
+        long[] checked = solveLinear(true);
+        Assert.assertTrue(plain[0] > 0);
+        for (int i = 0; i < plain.length; i++) {
+            Assert.assertEquals(plain[i], checked[i]);
+        }
+    }
+
+    private static long[] solveDistances(boolean entailment) {
+        int n = 5;
+        Model m = new CPModel();
+        IntegerVariable[] x = Choco.makeIntVarArray("x", n, 0, 5);
+        IntegerVariable[] b = Choco.makeBooleanVarArray("b", n - 1);
+        IntegerVariable z = Choco.makeIntVar("z", 0, 3);
+        for (int i = 0; i < n - 1; i++) {
+            m.addConstraint(Choco.distanceNEQ(x[i], x[i + 1], 1));
+            m.addConstraint(Choco.reifiedIntConstraint(b[i],
+                    Choco.distanceLT(x[i], x[i + 1], 3), Choco.distanceGT(x[i], x[i + 1], 2)));
+        }
+        m.addConstraint(Choco.distanceGT(x[0], x[n - 1], z, 0));
+        m.addConstraint(Choco.or(b[0], b[n - 2]));
+        Configuration conf = new Configuration();
+        conf.putBoolean(Configuration.ENTAILMENT_CHECK, entailment);
+        CPSolver s = new CPSolver(conf);
+        s.read(m);
+        s.solveAll();
+        return new long[]{s.getNbSolutions(), s.getNodeCount(), s.getFailCount()};
+    }
+
+    @Test
+    public void testEntailmentCheckDistancesAndReified() {
+        long[] plain = solveDistances(false);
+        long[] checked = solveDistances(true);
+        Assert.assertTrue(plain[0] > 0);
+        for (int i = 0; i < plain.length; i++) {
+            Assert.assertEquals(plain[i], checked[i]);
+        }
+    }
+
+    @Test
+    public void testReifiedEntailment() throws ContradictionException {
+        Model m = new CPModel();
+        IntegerVariable x = Choco.makeIntVar("x", 0, 10);
+        IntegerVariable y = Choco.makeIntVar("y", 0, 10);
+        IntegerVariable b = Choco.makeBooleanVar("b");
+        Constraint reified = Choco.reifiedIntConstraint(b,
+                Choco.distanceLT(x, y, 4), Choco.distanceGT(x, y, 3));
+        m.addConstraint(reified);
+        CPSolver s = new CPSolver();
+        s.read(m);
+        s.propagate();
+        AbstractSConstraint c = (AbstractSConstraint) s.getCstr(reified);
+        Assert.assertNull(c.isEntailed());
+        s.worldPush();
+        s.getVar(b).instantiate(1, null, false);
+        s.propagate();
+        Assert.assertNull(c.isEntailed());
+        s.getVar(x).instantiate(5, null, false);
+        s.propagate();
+        // y is filtered to [2, 8]
+        Assert.assertEquals(2, s.getVar(y).getInf());
+        Assert.assertEquals(Boolean.TRUE, c.isEntailed());
+        s.worldPop();
+        s.getVar(b).instantiate(0, null, false);
+        s.getVar(x).instantiate(5, null, false);
+        s.getVar(y).setInf(6);
+        s.getVar(y).setSup(7);
+        Assert.assertEquals(Boolean.FALSE, c.isEntailed());
+    }
+
     @Test
     public void stynesTest1() {
         Model m = new CPModel();
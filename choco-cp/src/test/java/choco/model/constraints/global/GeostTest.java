@@ -609,8 +609,9 @@ public class GeostTest {
                 ctrlVs.add(v0);
 
                 // Definition of the GEOST constraint
-                GeostOptions.increment = inc;
-                Constraint geost = geost(2, geosts, sb, ectr, ctrlVs);
+                GeostOptions opt = new GeostOptions();
+                opt.increment = inc;
+                Constraint geost = geost(2, geosts, sb, ectr, ctrlVs, opt);
                 m.addConstraint(geost);
 
                 Solver solver = new CPSolver();
@@ -321,6 +321,29 @@ public class IntegerVariableTest {
 
     }
 
+    @Test
+    public void testEntailedOnViews() throws ContradictionException {
+        CPSolver solver = new CPSolver();
+        IntDomainVar x = solver.createEnumIntVar("X", 1, 5);
+        IntDomainVar y = solver.createIntVarAddCste("y", x, 2);
+        IntDomainVar b = solver.createBooleanVar("b");
+        IntDomainVar nb = solver.createNotBooleanVar("nb", b);
+        solver.post(solver.neq(y, 4));
+        solver.post(solver.leq(y, 6));
+        solver.post(solver.neq(nb, 1));
+        solver.propagate();
+        Assert.assertTrue(nb.isInstantiatedTo(0));
+        Assert.assertTrue(b.isInstantiatedTo(1));
+        solver.worldPush();
+        x.setSup(1);
+        solver.propagate();
+        Assert.assertTrue(y.isInstantiatedTo(3));
+        solver.worldPop();
+        Assert.assertEquals(4, x.getSup());
+        solver.solveAll();
+        Assert.assertEquals(3, solver.getSolutionCount());
+    }
+
     private Solver bijectiveAdd(int low, int upp, int coeff) {
         CPSolver solver = new CPSolver();
         IntDomainVar x = solver.createEnumIntVar("X", low, upp);
@@ -0,0 +1,168 @@
+/**
+ *  Copyright (c) 1999-2010, Ecole des Mines de Nantes
+ *  All rights reserved.
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *      * Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *      * Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *      * Neither the name of the Ecole des Mines de Nantes nor the
+ *        names of its contributors may be used to endorse or promote products
+ *        derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ *  EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package choco.solver;
+
+import static choco.Choco.*;
+import static choco.solver.search.SampleModels.queens;
+import choco.cp.model.CPModel;
+import choco.cp.solver.CPSolver;
+import choco.kernel.model.variables.integer.IntegerVariable;
+import choco.kernel.solver.Configuration;
+import choco.kernel.solver.Solution;
+import choco.kernel.solver.search.ColumnarSolutionPool;
+import choco.kernel.solver.search.ISolutionPool;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+public class ColumnarSolutionPoolTest {
+
+	private static CPSolver solveAll(CPModel m, boolean columnar, long heap) {
+		CPSolver s = new CPSolver();
+		s.getConfiguration().putInt(Configuration.SOLUTION_POOL_CAPACITY, Integer.MAX_VALUE);
+		s.getConfiguration().putBoolean(Configuration.COLUMNAR_SOLUTION_POOL, columnar);
+		s.getConfiguration().putLong(Configuration.COLUMNAR_SOLUTION_POOL_HEAP, heap);
+		s.read(m);
+		s.solveAll();
+		return s;
+	}
+
+	private static void assertSameSolutions(ISolutionPool expected, ISolutionPool actual) {
+		assertEquals(expected.size(), actual.size());
+		final List<Solution> e = expected.asList();
+		final List<Solution> a = actual.asList();
+		for (int i = 0; i < e.size(); i++) {
+			final Solution se = e.get(i);
+			final Solution sa = a.get(i);
+			for (int k = 0; k < se.getNbIntValues(); k++) {
+				assertEquals(se.getIntValue(k), sa.getIntValue(k));
+			}
+			for (int k = 0; k < se.getNbSetValues(); k++) {
+				assertTrue(Arrays.equals(se.getSetValue(k), sa.getSetValue(k)));
+			}
+		}
+	}
+
+	@Test
+	public void testQueens() {
+		final CPModel m = queens(8);
+		final CPSolver ref = solveAll(m, false, Long.MAX_VALUE);
+		final CPSolver s = solveAll(m, true, Long.MAX_VALUE);
+		final ISolutionPool pool = s.getSearchStrategy().getSolutionPool();
+		assertTrue(pool instanceof ColumnarSolutionPool);
+		assertEquals(92, pool.size());
+		assertSameSolutions(ref.getSearchStrategy().getSolutionPool(), pool);
+		//8 columns of one byte per solution
+		assertEquals(9 * ColumnarSolutionPool.CHUNK_ROWS, ((ColumnarSolutionPool) pool).getHeapBytes());
+	}
+
+	@Test
+	public void testWidening() {
+		CPModel m = new CPModel();
+		IntegerVariable x = makeIntVar("x", 0, 70000);
+		m.addVariable(x);
+		final CPSolver s = solveAll(m, true, Long.MAX_VALUE);
+		final ColumnarSolutionPool pool = (ColumnarSolutionPool) s.getSearchStrategy().getSolutionPool();
+		assertEquals(70001, pool.size());
+		final Iterator<Solution> it = pool.iterator();
+		int count = 0;
+		Solution previous = null;
+		while (it.hasNext()) {
+			final Solution sol = it.next();
+			if (previous != null) {
+				assertSame(previous, sol);
+			}
+			previous = sol;
+			assertEquals(count, sol.getIntValue(0));
+			assertEquals(count + 1, sol.getMeasures().getSolutionCount());
+			count++;
+		}
+		assertEquals(70001, count);
+		assertEquals(70000, pool.getBestSolution().getIntValue(0));
+		assertEquals(12345, pool.getSolution(70000 - 12345).getIntValue(0));
+	}
+
+	@Test
+	public void testSpill() {
+		final CPModel m = queens(8);
+		final CPSolver ref = solveAll(m, false, Long.MAX_VALUE);
+		final CPSolver s = solveAll(m, true, 0);
+		final ColumnarSolutionPool pool = (ColumnarSolutionPool) s.getSearchStrategy().getSolutionPool();
+		assertEquals(0, pool.getHeapBytes());
+		assertTrue(pool.getSpilledBytes() > 0);
+		assertSameSolutions(ref.getSearchStrategy().getSolutionPool(), pool);
+		pool.clear();
+		assertTrue(pool.isEmpty());
+		assertEquals(0, pool.getSpilledBytes());
+	}
+
+	@Test
+	public void testSpillWidening() {
+		CPModel m = new CPModel();
+		IntegerVariable x = makeIntVar("x", 0, 70000);
+		m.addVariable(x);
+		final CPSolver s = solveAll(m, true, 0);
+		final ColumnarSolutionPool pool = (ColumnarSolutionPool) s.getSearchStrategy().getSolutionPool();
+		assertEquals(70001, pool.size());
+		assertEquals(0, pool.getHeapBytes());
+		//18 chunks of four bytes for x and of one byte for the objective
+		final int chunks = 70001 / ColumnarSolutionPool.CHUNK_ROWS + 1;
+		assertEquals(chunks * 5 * ColumnarSolutionPool.CHUNK_ROWS, pool.getSpilledBytes());
+		//the first chunk of x released by the widening to two bytes is reused by the objective,
+		//the 16 chunks of two bytes released by the widening to four bytes stay free
+		assertEquals(pool.getSpilledBytes() + 16 * 2 * ColumnarSolutionPool.CHUNK_ROWS, pool.getSpillFileBytes());
+		assertEquals(12345, pool.getSolution(70000 - 12345).getIntValue(0));
+		pool.clear();
+		assertEquals(0, pool.getSpillFileBytes());
+	}
+
+	@Test
+	public void testSetVariables() {
+		CPModel m = new CPModel();
+		m.addVariable(makeSetVar("s", 0, 3));
+		final CPSolver ref = solveAll(m, false, Long.MAX_VALUE);
+		final CPSolver s = solveAll(m, true, Long.MAX_VALUE);
+		assertEquals(16, s.getSearchStrategy().getSolutionPool().size());
+		assertSameSolutions(ref.getSearchStrategy().getSolutionPool(), s.getSearchStrategy().getSolutionPool());
+	}
+
+	@Test
+	public void testExport() throws IOException {
+		CPModel m = new CPModel();
+		IntegerVariable[] x = makeIntVarArray("x", 2, 0, 2);
+		m.addConstraint(lt(x[0], x[1]));
+		final CPSolver s = solveAll(m, true, Long.MAX_VALUE);
+		final ColumnarSolutionPool pool = (ColumnarSolutionPool) s.getSearchStrategy().getSolutionPool();
+		final StringBuilder b = new StringBuilder();
+		pool.export(b);
+		assertEquals("0,1\n0,2\n1,2\n", b.toString());
+	}
+}
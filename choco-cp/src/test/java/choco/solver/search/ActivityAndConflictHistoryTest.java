@@ -0,0 +1,135 @@
+/**
+ *  Copyright (c) 1999-2010, Ecole des Mines de Nantes
+ *  All rights reserved.
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *      * Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *      * Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *      * Neither the name of the Ecole des Mines de Nantes nor the
+ *        names of its contributors may be used to endorse or promote products
+ *        derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ *  EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package choco.solver.search;
+
+import static choco.Choco.*;
+import static choco.solver.search.SampleModels.queens;
+import static choco.solver.search.SampleModels.randomModel;
+import choco.cp.model.CPModel;
+import choco.cp.solver.CPSolver;
+import choco.cp.solver.search.BranchingFactory;
+import choco.cp.solver.search.integer.branching.AssignVar;
+import choco.cp.solver.search.integer.valiterator.IncreasingDomain;
+import choco.cp.solver.search.integer.varselector.AbstractDomainEventVarSelector;
+import choco.cp.solver.search.integer.varselector.ActivityVarSelector;
+import choco.cp.solver.search.integer.varselector.ConflictHistoryVarSelector;
+import choco.kernel.solver.Solver;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class ActivityAndConflictHistoryTest {
+
+	private static AbstractDomainEventVarSelector selector(Solver s, boolean chb) {
+		return chb ? new ConflictHistoryVarSelector(s, s.getIntDecisionVars()) : new ActivityVarSelector(s, s.getIntDecisionVars());
+	}
+
+	@Test
+	public void testQueensAllSolutions() {
+		final int[] nbSols = {4, 40, 92, 352};
+		for (int k = 0; k < nbSols.length; k++) {
+			for (int h = 0; h < 2; h++) {
+				final CPSolver s = new CPSolver();
+				s.read(queens(6 + k));
+				final AbstractDomainEventVarSelector sel = selector(s, h == 1);
+				s.attachGoal(new AssignVar(sel, new IncreasingDomain()));
+				s.solveAll();
+				assertEquals("queens " + (6 + k), nbSols[k], s.getSolutionCount());
+				assertTrue(sel.getNbConflicts() > 0);
+			}
+		}
+	}
+
+	@Test
+	public void testRandomFeasibility() {
+		for (long seed = 0; seed < 20; seed++) {
+			final CPModel m = randomModel(seed, 30, 4, 80);
+			final CPSolver ref = new CPSolver();
+			ref.read(m);
+			ref.attachGoal(BranchingFactory.lexicographic(ref));
+			ref.solve();
+			for (int h = 0; h < 2; h++) {
+				final CPSolver s = new CPSolver();
+				s.read(m);
+				s.attachGoal(h == 1 ? BranchingFactory.chb(s) : BranchingFactory.activity(s));
+				s.solve();
+				assertEquals("seed " + seed, ref.isFeasible(), s.isFeasible());
+				if (s.isFeasible() == Boolean.TRUE) {
+					assertTrue(s.checkSolution());
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testRestarts() {
+		for (long seed = 0; seed < 5; seed++) {
+			final CPModel m = randomModel(seed, 40, 4, 110);
+			final CPSolver ref = new CPSolver();
+			ref.read(m);
+			ref.attachGoal(BranchingFactory.lexicographic(ref));
+			ref.solve();
+			for (int h = 0; h < 2; h++) {
+				final CPSolver s = new CPSolver();
+				s.read(m);
+				final AbstractDomainEventVarSelector sel = selector(s, h == 1);
+				s.attachGoal(new AssignVar(sel, new IncreasingDomain()));
+				s.setLubyRestart(10, 2);
+				s.solve();
+				assertEquals("seed " + seed, ref.isFeasible(), s.isFeasible());
+				if (s.isFeasible() == Boolean.TRUE) {
+					assertTrue(s.checkSolution());
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testScores() {
+		final CPSolver s = new CPSolver();
+		s.read(queens(8));
+		final ActivityVarSelector abs = new ActivityVarSelector(s, s.getIntDecisionVars(), 0.9);
+		final ConflictHistoryVarSelector chb = new ConflictHistoryVarSelector(s, s.getIntDecisionVars());
+		s.attachGoal(new AssignVar(abs, new IncreasingDomain()));
+		s.solveAll();
+		assertEquals(92, s.getSolutionCount());
+		assertEquals(abs.getNbConflicts(), chb.getNbConflicts());
+		assertTrue(chb.getAlpha() < 0.4);
+		assertTrue(chb.getAlpha() >= 0.06);
+		for (int i = 0; i < s.getIntDecisionVars().length; i++) {
+			assertTrue(abs.getActivity(i) > 0);
+			assertTrue(chb.getScore(i) > 0);
+			assertTrue(chb.getScore(i) <= 1);
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidDecay() {
+		final CPSolver s = new CPSolver();
+		s.read(queens(4));
+		new ActivityVarSelector(s, s.getIntDecisionVars(), 1.5);
+	}
+}
@@ -0,0 +1,207 @@
+/**
+ *  Copyright (c) 1999-2010, Ecole des Mines de Nantes
+ *  All rights reserved.
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *      * Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *      * Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *      * Neither the name of the Ecole des Mines de Nantes nor the
+ *        names of its contributors may be used to endorse or promote products
+ *        derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ *  EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package choco.solver.search;
+
+import static choco.Choco.*;
+import static choco.solver.search.SampleModels.queens;
+import choco.cp.model.CPModel;
+import choco.cp.solver.CPSolver;
+import choco.kernel.model.variables.integer.IntegerVariable;
+import choco.kernel.solver.Configuration;
+import choco.kernel.solver.ContradictionException;
+import choco.kernel.solver.search.limit.CancellationToken;
+import choco.kernel.solver.search.limit.Limit;
+import choco.kernel.solver.search.measure.IProgressMonitor;
+import choco.kernel.solver.search.measure.SearchProgress;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class CancellationTest {
+
+	/**
+	 * a chain of precedences whose initial propagation needs many constraint events.
+	 */
+	private static CPModel chain(int n, int sup) {
+		CPModel m = new CPModel();
+		IntegerVariable[] x = makeIntVarArray("x", n, 0, sup);
+		for (int i = 0; i < n - 1; i++) {
+			m.addConstraint(lt(x[i], x[i + 1]));
+		}
+		return m;
+	}
+
+	private static CPSolver solver(CPModel m) {
+		CPSolver s = new CPSolver();
+		s.read(m);
+		return s;
+	}
+
+	@Test
+	public void testCancelBeforeSolve() {
+		CPSolver s = solver(queens(8));
+		s.cancel();
+		assertTrue(s.isCancelled());
+		assertNull(s.solve());
+		assertTrue(s.isEncounteredLimit());
+		assertEquals(Limit.INTERRUPT, s.getEncounteredLimit().getType());
+		//a new token allows to solve again
+		s.setCancellationToken(new CancellationToken());
+		assertFalse(s.isCancelled());
+		assertEquals(Boolean.TRUE, s.solve());
+		assertTrue(s.checkSolution());
+	}
+
+	@Test
+	public void testCancelFromAnotherThread() throws InterruptedException {
+		final CPSolver s = solver(queens(14));
+		final Thread canceller = new Thread() {
+			@Override
+			public void run() {
+				try {
+					Thread.sleep(200);
+				} catch (InterruptedException e) {
+					return;
+				}
+				s.cancel();
+			}
+		};
+		canceller.start();
+		final long start = System.currentTimeMillis();
+		s.solveAll();
+		canceller.join();
+		assertTrue(System.currentTimeMillis() - start < 5000);
+		assertTrue(s.isEncounteredLimit());
+		assertEquals(Limit.INTERRUPT, s.getEncounteredLimit().getType());
+		assertTrue(s.getSolutionCount() < 365596);
+	}
+
+	@Test
+	public void testSharedToken() {
+		final CancellationToken token = new CancellationToken();
+		CPSolver s1 = solver(queens(8));
+		CPSolver s2 = solver(queens(8));
+		s1.setCancellationToken(token);
+		s2.setCancellationToken(token);
+		token.cancel();
+		assertTrue(s1.isCancelled());
+		assertNull(s1.solve());
+		assertNull(s2.solve());
+	}
+
+	@Test
+	public void testCancelPropagation() {
+		CPSolver s = solver(chain(300, 1000));
+		s.cancel();
+		try {
+			s.propagate();
+			fail("the propagation should have been cancelled");
+		} catch (ContradictionException e) {
+			assertSame(s.getCancellationToken(), e.getContradictionCause());
+		}
+		CPSolver t = solver(chain(300, 1000));
+		try {
+			t.propagate();
+		} catch (ContradictionException e) {
+			fail();
+		}
+	}
+
+	@Test
+	public void testCancelledInfeasibleRoot() {
+		//the chain is infeasible, but the cancelled initial propagation does not prove it
+		CPSolver s = solver(chain(300, 200));
+		s.cancel();
+		assertNull(s.solve());
+		assertTrue(s.isEncounteredLimit());
+		CPSolver t = solver(chain(300, 200));
+		assertEquals(Boolean.FALSE, t.solve());
+	}
+
+	private static final class ProgressRecorder implements IProgressMonitor {
+
+		private final List<SearchProgress> reports = new ArrayList<SearchProgress>();
+
+		@Override
+		public void progress(SearchProgress progress) {
+			reports.add(progress);
+		}
+	}
+
+	@Test
+	public void testProgressSatisfaction() {
+		CPSolver s = new CPSolver();
+		s.getConfiguration().putLong(Configuration.PROGRESS_PERIOD, 200);
+		s.read(queens(12));
+		ProgressRecorder recorder = new ProgressRecorder();
+		s.setProgressMonitor(recorder);
+		s.solveAll();
+		if (s.getTimeCount() >= 1000) {
+			assertFalse(recorder.reports.isEmpty());
+		}
+		long nodes = 0;
+		for (SearchProgress p : recorder.reports) {
+			assertTrue(p.getNodeCount() >= nodes);
+			nodes = p.getNodeCount();
+			assertTrue(p.getNodeRate() >= 0);
+			assertTrue(p.getDepth() >= 0 && p.getDepth() <= 12);
+			assertNull(p.getBestBound());
+		}
+	}
+
+	@Test
+	public void testProgressOptimization() {
+		CPModel m = queens(12);
+		IntegerVariable obj = makeIntVar("obj", 0, 1000, "cp:bound");
+		IntegerVariable[] q = new IntegerVariable[12];
+		for (int i = 0; i < 12; i++) {
+			q[i] = m.getIntVar(i);
+		}
+		m.addConstraint(eq(scalar(new int[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12}, q), obj));
+		CPSolver s = new CPSolver();
+		s.getConfiguration().putLong(Configuration.PROGRESS_PERIOD, 1);
+		s.read(m);
+		final List<SearchProgress> reports = new ArrayList<SearchProgress>();
+		s.setProgressMonitor(new IProgressMonitor() {
+			@Override
+			public void progress(SearchProgress progress) {
+				reports.add(progress);
+			}
+		});
+		s.minimize(s.getVar(obj), false);
+		for (SearchProgress p : reports) {
+			if (p.getSolutionCount() > 0) {
+				assertNotNull(p.getBestBound());
+				assertTrue(p.getBestBound().intValue() >= s.getObjectiveValue().intValue());
+			} else {
+				assertNull(p.getBestBound());
+			}
+		}
+	}
+}
@@ -0,0 +1,215 @@
+/**
+ *  Copyright (c) 1999-2010, Ecole des Mines de Nantes
+ *  All rights reserved.
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *      * Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *      * Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *      * Neither the name of the Ecole des Mines de Nantes nor the
+ *        names of its contributors may be used to endorse or promote products
+ *        derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ *  EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package choco.solver.search;
+
+import static choco.Choco.*;
+import static choco.solver.search.SampleModels.queens;
+import static choco.solver.search.SampleModels.randomModel;
+import choco.cp.model.CPModel;
+import choco.cp.solver.CPSolver;
+import choco.cp.solver.search.BranchingFactory;
+import choco.cp.solver.search.integer.branching.AbstractConflictBranching;
+import choco.cp.solver.search.integer.branching.AssignOrForbidIntVarVal;
+import choco.cp.solver.search.integer.branching.ConflictOrderingBranching;
+import choco.cp.solver.search.integer.valselector.MinVal;
+import choco.cp.solver.search.integer.varselector.StaticVarOrder;
+import choco.kernel.model.variables.integer.IntegerVariable;
+import choco.kernel.solver.ContradictionException;
+import choco.kernel.solver.Solver;
+import choco.kernel.solver.branch.AbstractIntBranchingStrategy;
+import choco.kernel.solver.propagation.listener.PropagationEngineListener;
+import choco.kernel.solver.search.IntBranchingDecision;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class ConflictBranchingTest {
+
+	/**
+	 * n free variables followed by a pigeonhole of 3 variables in 2 values, which fails only on decisions.
+	 */
+	private static CPModel hiddenPigeonHole(int n) {
+		final CPModel m = new CPModel();
+		final IntegerVariable[] x = makeIntVarArray("x", n, 0, 1);
+		m.addVariables(x);
+		final IntegerVariable[] y = makeIntVarArray("y", 3, 0, 1);
+		for (int i = 0; i < y.length; i++) {
+			for (int j = i + 1; j < y.length; j++) {
+				m.addConstraint(neq(y[i], y[j]));
+			}
+		}
+		return m;
+	}
+
+	private static AbstractIntBranchingStrategy branching(Solver s, int k) {
+		switch (k) {
+			case 0: return BranchingFactory.lexicographic(s);
+			case 1: return new AssignOrForbidIntVarVal(new StaticVarOrder(s, s.getIntDecisionVars()), new MinVal());
+			default: return BranchingFactory.heapDomWDeg(s);
+		}
+	}
+
+	private static AbstractConflictBranching wrapper(Solver s, AbstractIntBranchingStrategy branching, boolean cos) {
+		return cos ? BranchingFactory.conflictOrdering(s, branching) : BranchingFactory.lastConflict(s, branching);
+	}
+
+	@Test
+	public void testQueensAllSolutions() {
+		final int[] nbSols = {4, 40, 92, 352};
+		for (int n = 0; n < nbSols.length; n++) {
+			for (int k = 0; k < 3; k++) {
+				for (int h = 0; h < 2; h++) {
+					final CPSolver s = new CPSolver();
+					s.read(queens(6 + n));
+					final AbstractConflictBranching br = wrapper(s, branching(s, k), h == 1);
+					s.attachGoal(br);
+					s.solveAll();
+					assertEquals("queens " + (6 + n), nbSols[n], s.getSolutionCount());
+					assertTrue(br.getNbConflicts() > 0);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testRandomFeasibility() {
+		for (long seed = 0; seed < 20; seed++) {
+			final CPModel m = randomModel(seed, 30, 4, 80);
+			final CPSolver ref = new CPSolver();
+			ref.read(m);
+			ref.attachGoal(BranchingFactory.lexicographic(ref));
+			ref.solve();
+			for (int k = 0; k < 3; k++) {
+				for (int h = 0; h < 2; h++) {
+					final CPSolver s = new CPSolver();
+					s.read(m);
+					s.attachGoal(wrapper(s, branching(s, k), h == 1));
+					s.solve();
+					assertEquals("seed " + seed, ref.isFeasible(), s.isFeasible());
+					if (s.isFeasible() == Boolean.TRUE) {
+						assertTrue(s.checkSolution());
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testHiddenConflict() {
+		final CPModel m = hiddenPigeonHole(12);
+		final CPSolver ref = new CPSolver();
+		ref.read(m);
+		ref.attachGoal(BranchingFactory.lexicographic(ref));
+		ref.solve();
+		assertEquals(Boolean.FALSE, ref.isFeasible());
+		for (int k = 0; k < 2; k++) {
+			for (int h = 0; h < 2; h++) {
+				final CPSolver s = new CPSolver();
+				s.read(m);
+				s.attachGoal(wrapper(s, branching(s, k), h == 1));
+				s.solve();
+				assertEquals(Boolean.FALSE, s.isFeasible());
+				//the free variables are not enumerated again below the conflict
+				assertTrue(s.getNodeCount() * 50 < ref.getNodeCount());
+			}
+		}
+	}
+
+	@Test
+	public void testConflictStamps() {
+		final CPModel m = hiddenPigeonHole(3);
+		final CPSolver s = new CPSolver();
+		s.read(m);
+		final ConflictOrderingBranching br = BranchingFactory.conflictOrdering(s, branching(s, 1));
+		s.attachGoal(br);
+		s.solve();
+		assertEquals(Boolean.FALSE, s.isFeasible());
+		assertTrue(br.getNbConflicts() > 0);
+		int maxStamp = 0;
+		for (int i = 0; i < s.getNbIntVars(); i++) {
+			maxStamp = Math.max(maxStamp, br.getStamp(s.getIntVarQuick(i)));
+		}
+		assertEquals(br.getNbConflicts(), maxStamp);
+		//the free variables are never in conflict
+		for (int i = 0; i < 3; i++) {
+			assertEquals(0, br.getStamp(s.getIntVarQuick(i)));
+		}
+	}
+
+	/**
+	 * Counts the failures of the positive decisions and of the refutations of a binary branching.
+	 */
+	private static final class CountingBranching extends AssignOrForbidIntVarVal implements PropagationEngineListener {
+
+		private int lastBranchIndex = -1;
+
+		int nbFailedDecisions, nbFailedRefutations;
+
+		CountingBranching(Solver s) {
+			super(new StaticVarOrder(s, s.getIntDecisionVars()), new MinVal());
+			s.getPropagationEngine().addPropagationEngineListener(this);
+		}
+
+		@Override
+		public void goDownBranch(IntBranchingDecision ctx) throws ContradictionException {
+			lastBranchIndex = ctx.getBranchIndex();
+			super.goDownBranch(ctx);
+		}
+
+		@Override
+		public void contradictionOccured(ContradictionException e) {
+			if (lastBranchIndex == 0) {
+				nbFailedDecisions++;
+			} else if (lastBranchIndex > 0) {
+				nbFailedRefutations++;
+			}
+			lastBranchIndex = -1;
+		}
+
+		@Override
+		public void safeDelete() {
+		}
+	}
+
+	@Test
+	public void testBinaryRefutationsAreNotConflicts() {
+		for (int h = 0; h < 2; h++) {
+			for (long seed = -1; seed < 10; seed++) {
+				final CPModel m = seed < 0 ? hiddenPigeonHole(6) : randomModel(seed, 30, 4, 80);
+				final CPSolver s = new CPSolver();
+				s.read(m);
+				final CountingBranching br = new CountingBranching(s);
+				final AbstractConflictBranching wrapper = wrapper(s, br, h == 1);
+				s.attachGoal(wrapper);
+				s.solve();
+				assertEquals("seed " + seed, br.nbFailedDecisions, wrapper.getNbConflicts());
+				if (seed < 0) {
+					assertTrue(br.nbFailedRefutations > 0);
+				}
+			}
+		}
+	}
+}
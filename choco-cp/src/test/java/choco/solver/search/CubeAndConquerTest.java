@@ -0,0 +1,107 @@
+/**
+ *  Copyright (c) 1999-2010, Ecole des Mines de Nantes
+ *  All rights reserved.
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *      * Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *      * Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *      * Neither the name of the Ecole des Mines de Nantes nor the
+ *        names of its contributors may be used to endorse or promote products
+ *        derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ *  EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package choco.solver.search;
+
+import static choco.Choco.*;
+import static choco.solver.search.SampleModels.queens;
+import choco.cp.model.CPModel;
+import choco.cp.solver.CPSolver;
+import choco.cp.solver.search.BranchingFactory;
+import choco.cp.solver.search.parallel.CubeAndConquerSolver;
+import choco.kernel.model.variables.set.SetVariable;
+import choco.kernel.solver.search.measure.MeasuresBean;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class CubeAndConquerTest {
+
+	@Test
+	public void testQueensAll() {
+		for (int depth = 0; depth < 4; depth++) {
+			for (int nbWorkers = 1; nbWorkers <= 3; nbWorkers += 2) {
+				CubeAndConquerSolver cc = new CubeAndConquerSolver(queens(8), nbWorkers, depth);
+				assertEquals(Boolean.TRUE, cc.solveAll());
+				assertEquals(92, cc.getSolutionCount());
+				MeasuresBean m = cc.getMeasures();
+				assertEquals(92, m.getSolutionCount());
+				assertEquals(cc.getNodeCount(), m.getNodeCount());
+				if (depth > 0) {
+					assertTrue(cc.getNbCubes() > 1);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testBinaryBranching() {
+		for (int depth = 1; depth < 6; depth++) {
+			CubeAndConquerSolver cc = new CubeAndConquerSolver(queens(7), 2, depth);
+			for (int i = 0; i < cc.getNbWorkers(); i++) {
+				CPSolver s = cc.getWorker(i);
+				s.addGoal(BranchingFactory.randomIntBinSearch(s, depth + i));
+			}
+			assertEquals(Boolean.TRUE, cc.solveAll());
+			assertEquals(40, cc.getSolutionCount());
+		}
+	}
+
+	@Test
+	public void testSetVariables() {
+		CPModel m = new CPModel();
+		SetVariable[] s = new SetVariable[3];
+		for (int i = 0; i < s.length; i++) {
+			s[i] = makeSetVar("s" + i, 1, 4);
+		}
+		m.addConstraint(setDisjoint(s));
+		m.addConstraint(eqCard(s[0], 2));
+		CPSolver seq = new CPSolver();
+		seq.read(m);
+		seq.solveAll();
+		CubeAndConquerSolver cc = new CubeAndConquerSolver(m, 2, 3);
+		assertEquals(Boolean.TRUE, cc.solveAll());
+		assertEquals(seq.getSolutionCount(), cc.getSolutionCount());
+	}
+
+	@Test
+	public void testSolve() {
+		CubeAndConquerSolver cc = new CubeAndConquerSolver(queens(12), 3, 2);
+		assertEquals(Boolean.TRUE, cc.solve());
+		CPSolver s = cc.getSolutionWorker();
+		assertNotNull(s);
+		assertTrue(s.checkSolution());
+	}
+
+	@Test
+	public void testInfeasible() {
+		for (int depth = 0; depth < 3; depth++) {
+			CubeAndConquerSolver cc = new CubeAndConquerSolver(queens(3), 2, depth);
+			assertEquals(Boolean.FALSE, cc.solveAll());
+			assertEquals(0, cc.getSolutionCount());
+			assertNull(cc.getSolutionWorker());
+		}
+	}
+}
@@ -38,12 +38,17 @@ import choco.kernel.solver.ContradictionException;
 import choco.kernel.solver.Solver;
 import choco.kernel.solver.propagation.PropagationEngine;
 import choco.kernel.solver.propagation.event.PropagationEvent;
+import choco.kernel.solver.propagation.event.VarEvent;
+import choco.kernel.solver.propagation.profiling.PropagationProfiler;
+import choco.kernel.solver.propagation.profiling.PropagatorStatistics;
 import choco.kernel.solver.variables.integer.IntDomainVar;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
 import java.lang.reflect.Field;
 import java.util.ArrayList;
 
@@ -242,4 +247,101 @@ public class EnvironnementTest {
         Assert.assertTrue(freeze.size() == 0);
     }
 
+    @Test
+    public final void testVariableEventQueue() {
+        final IntegerVariable[] vars = Choco.makeIntVarArray("v", 200, 0, 5);
+        final Model model = new CPModel();
+        model.addVariables(vars);
+        final Solver solver = new CPSolver();
+        solver.read(model);
+        final VariableEventQueue queue = new VariableEventQueue();
+        final VarEvent[] events = new VarEvent[vars.length];
+        for (int i = 0; i < vars.length; i++) {
+            events[i] = solver.getVar(vars[i]).getEvent();
+            events[i].recordEventTypeAndCause(0, null, true);
+            queue.pushEvent(events[i]);
+        }
+        Assert.assertEquals(vars.length, queue.size());
+        // remove every third event in constant time
+        for (int i = 0; i < vars.length; i += 3) {
+            Assert.assertTrue(queue.remove(events[i]));
+            Assert.assertFalse(queue.remove(events[i]));
+        }
+        Assert.assertEquals(events[1], queue.get(0));
+        for (int i = 0; i < vars.length; i++) {
+            if (i % 3 != 0) {
+                Assert.assertSame(events[i], queue.popEvent());
+                Assert.assertEquals(-1, events[i].getQueueIndex());
+            }
+        }
+        Assert.assertTrue(queue.isEmpty());
+        Assert.assertNull(queue.popEvent());
+        queue.pushEvent(events[0]);
+        queue.flushEventQueue();
+        Assert.assertTrue(queue.isEmpty());
+        Assert.assertFalse(events[0].isEnqueued());
+    }
+
+    @Test
+    public final void testPropagationProfiling() throws Exception {
+        final int n = 8;
+        final Model model = new CPModel();
+        final IntegerVariable[] queens = Choco.makeIntVarArray("Q", n, 1, n);
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                model.addConstraint(Choco.neq(queens[i], queens[j]));
+                model.addConstraint(Choco.neq(queens[i], Choco.plus(queens[j], j - i)));
+                model.addConstraint(Choco.neq(queens[i], Choco.minus(queens[j], j - i)));
+            }
+        }
+        final CPSolver solver = new CPSolver();
+        solver.read(model);
+        Assert.assertNull(solver.getPropagationProfiler());
+        final PropagationProfiler profiler = solver.setPropagationProfiling(true);
+        Assert.assertNotNull(profiler);
+        solver.solveAll();
+        Assert.assertEquals(92, solver.getNbSolutions());
+        Assert.assertTrue(profiler.getNbFixpoints() > 0);
+        Assert.assertTrue(profiler.getNbFailedFixpoints() > 0);
+        long awakes = 0, fineEvents = 0, failures = 0;
+        for (PropagatorStatistics stats : profiler.getPropagatorStatistics()) {
+            awakes += stats.getNbAwakes();
+            fineEvents += stats.getNbFineEvents();
+            failures += stats.getNbFailures();
+        }
+        Assert.assertTrue(awakes > 0);
+        Assert.assertTrue(fineEvents > 0);
+        Assert.assertEquals(profiler.getNbFailedFixpoints(), failures);
+        Assert.assertTrue(profiler.getTypeStatistics().length > 0);
+        Assert.assertTrue(solver.runtimeStatistics().contains("Propagation profile"));
+
+        final ObjectName name = profiler.register("queens");
+        Assert.assertNotNull(name);
+        try {
+            Assert.assertEquals(profiler.getNbFixpoints(),
+                    ManagementFactory.getPlatformMBeanServer().getAttribute(name, "NbFixpoints"));
+        } finally {
+            profiler.unregister();
+        }
+        Assert.assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+
+        final PropagatorStatistics[] copies = profiler.getPropagatorStatistics();
+        final long firstAwakes = copies[0].getNbAwakes();
+        profiler.reset();
+        Assert.assertEquals(0, profiler.getNbFixpoints());
+        Assert.assertEquals(0, profiler.getPropagatorStatistics().length);
+        Assert.assertEquals(firstAwakes, copies[0].getNbAwakes());
+        // a reset during a fixpoint is applied at its end
+        profiler.endFixpoint(profiler.startFixpoint(), false);
+        Assert.assertEquals(1, profiler.getNbFixpoints());
+        final long start = profiler.startFixpoint();
+        profiler.reset();
+        Assert.assertEquals(1, profiler.getNbFixpoints());
+        profiler.endFixpoint(start, true);
+        Assert.assertEquals(0, profiler.getNbFixpoints());
+        Assert.assertEquals(0, profiler.getNbFailedFixpoints());
+
+        Assert.assertNull(solver.setPropagationProfiling(false));
+        Assert.assertNull(solver.getPropagationProfiler());
+    }
 }
@@ -0,0 +1,131 @@
+/**
+ *  Copyright (c) 1999-2010, Ecole des Mines de Nantes
+ *  All rights reserved.
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *      * Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *      * Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *      * Neither the name of the Ecole des Mines de Nantes nor the
+ *        names of its contributors may be used to endorse or promote products
+ *        derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ *  EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package choco.solver.search;
+
+import static choco.solver.search.SampleModels.randomModel;
+import choco.cp.model.CPModel;
+import choco.cp.solver.CPSolver;
+import choco.cp.solver.search.integer.branching.AssignVar;
+import choco.cp.solver.search.integer.valiterator.IncreasingDomain;
+import choco.cp.solver.search.integer.varselector.IncrementalIntVarSelector;
+import choco.cp.solver.search.integer.varselector.MaxDomain;
+import choco.cp.solver.search.integer.varselector.MaxRegret;
+import choco.cp.solver.search.integer.varselector.MaxValueDomain;
+import choco.cp.solver.search.integer.varselector.MinDomain;
+import choco.cp.solver.search.integer.varselector.MinValueDomain;
+import choco.cp.solver.search.integer.varselector.MostConstrained;
+import choco.kernel.solver.Solver;
+import choco.kernel.solver.search.AbstractGlobalSearchStrategy;
+import choco.kernel.solver.search.integer.IntHeuristicIntVarSelector;
+import choco.kernel.solver.variables.integer.IntDomainVar;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class IncrementalIntVarSelectorTest {
+
+	private static IntHeuristicIntVarSelector heuristic(int h, Solver s, IntDomainVar[] vars) {
+		switch (h) {
+		case 0:
+			return new MinDomain(s, vars);
+		case 1:
+			return new MaxDomain(s, vars);
+		case 2:
+			return new MinValueDomain(s, vars);
+		case 3:
+			return new MaxValueDomain(s, vars);
+		case 4:
+			return new MaxRegret(s, vars);
+		default:
+			return new MostConstrained(s, vars);
+		}
+	}
+
+	private static CPSolver solve(CPModel m, int h, boolean incremental, boolean all) {
+		final CPSolver s = new CPSolver();
+		s.read(m);
+		final IntDomainVar[] vars = s.getIntDecisionVars();
+		final IntHeuristicIntVarSelector sel = heuristic(h, s, vars);
+		s.attachGoal(new AssignVar(incremental ? new IncrementalIntVarSelector(sel) : sel, new IncreasingDomain()));
+		if (all) {
+			s.solveAll();
+		} else {
+			s.solve();
+		}
+		return s;
+	}
+
+	@Test
+	public void testSameSearchTree() {
+		for (int h = 0; h < 6; h++) {
+			for (long seed = 0; seed < 5; seed++) {
+				final CPModel m = randomModel(seed, 10, 4, 30);
+				final CPSolver ref = solve(m, h, false, true);
+				final CPSolver s = solve(m, h, true, true);
+				assertEquals("heuristic " + h + ", seed " + seed, ref.getSolutionCount(), s.getSolutionCount());
+				assertEquals("heuristic " + h + ", seed " + seed, ref.getNodeCount(), s.getNodeCount());
+				assertEquals("heuristic " + h + ", seed " + seed, ref.getBackTrackCount(), s.getBackTrackCount());
+			}
+		}
+	}
+
+	@Test
+	public void testFirstSolution() {
+		for (long seed = 0; seed < 20; seed++) {
+			final CPModel m = randomModel(seed, 30, 6, 90);
+			final CPSolver ref = solve(m, 0, false, false);
+			final CPSolver s = solve(m, 0, true, false);
+			assertEquals(ref.isFeasible(), s.isFeasible());
+			assertEquals(ref.getNodeCount(), s.getNodeCount());
+			if (s.isFeasible() == Boolean.TRUE) {
+				assertTrue(s.checkSolution());
+				for (int i = 0; i < s.getNbIntVars(); i++) {
+					assertEquals(ref.getIntVarQuick(i).getVal(), s.getIntVarQuick(i).getVal());
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testRelaunch() {
+		final CPModel m = randomModel(3, 10, 4, 30);
+		final CPSolver ref = solve(m, 0, false, true);
+		final CPSolver s = new CPSolver();
+		s.read(m);
+		s.attachGoal(new AssignVar(new IncrementalIntVarSelector(new MinDomain(s, s.getIntDecisionVars())), new IncreasingDomain()));
+		s.setFirstSolution(false);
+		s.generateSearchStrategy();
+		for (int k = 0; k < 3; k++) {
+			//the heap is rebuilt when a new search tree goes above its world
+			s.worldPopUntil(0);
+			s.getSearchStrategy().clearTrace();
+			s.getSearchStrategy().nextMove = AbstractGlobalSearchStrategy.INIT_SEARCH;
+			s.launch();
+			assertEquals(ref.getSolutionCount(), s.getSolutionCount());
+			assertEquals(ref.getNodeCount(), s.getNodeCount());
+		}
+	}
+}
@@ -0,0 +1,214 @@
+/**
+ *  Copyright (c) 1999-2010, Ecole des Mines de Nantes
+ *  All rights reserved.
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *      * Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *      * Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *      * Neither the name of the Ecole des Mines de Nantes nor the
+ *        names of its contributors may be used to endorse or promote products
+ *        derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ *  EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package choco.solver.search;
+
+import static choco.Choco.*;
+import choco.cp.model.CPModel;
+import choco.cp.solver.CPSolver;
+import choco.cp.solver.search.IncrementalSession;
+import choco.kernel.model.constraints.Constraint;
+import choco.kernel.model.variables.integer.IntegerVariable;
+import choco.kernel.solver.Solution;
+import choco.kernel.solver.SolverException;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class IncrementalSessionTest {
+
+	private static final int N = 6;
+
+	private final IntegerVariable[] x = makeIntVarArray("x", N, 0, N - 1);
+
+	private final IntegerVariable obj = makeIntVar("obj", 0, N * N);
+
+	private CPModel model() {
+		CPModel m = new CPModel();
+		m.addVariables(x);
+		m.addVariable(obj);
+		m.addConstraint(eq(sum(x), obj));
+		for (int i = 0; i < N - 1; i++) {
+			m.addConstraint(neq(x[i], x[i + 1]));
+		}
+		return m;
+	}
+
+	private Constraint randomConstraint(Random rnd) {
+		final IntegerVariable a = x[rnd.nextInt(N)];
+		final IntegerVariable b = x[rnd.nextInt(N)];
+		switch (rnd.nextInt(5)) {
+		case 0:
+			return neq(a, rnd.nextInt(N));
+		case 1:
+			return leq(a, b);
+		case 2:
+			return geq(plus(a, b), rnd.nextInt(2 * N));
+		case 3:
+			return or(eq(a, rnd.nextInt(N)), eq(b, rnd.nextInt(N)));
+		default:
+			return lt(a, rnd.nextInt(N) + 1);
+		}
+	}
+
+	private CPSolver fresh(List<List<Constraint>> layers) {
+		final CPModel m = model();
+		for (List<Constraint> layer : layers) {
+			for (Constraint c : layer) {
+				m.addConstraint(c);
+			}
+		}
+		final CPSolver s = new CPSolver();
+		s.read(m);
+		return s;
+	}
+
+	private CPSolver solver() {
+		final CPSolver s = new CPSolver();
+		s.read(model());
+		return s;
+	}
+
+	private void randomSession(long seed, boolean optimize) {
+		final Random rnd = new Random(seed);
+		final CPSolver s = solver();
+		final IncrementalSession session = optimize ?
+				new IncrementalSession(s, s.getVar(obj), false) : new IncrementalSession(s);
+		final List<List<Constraint>> layers = new ArrayList<List<Constraint>>();
+		for (int q = 0; q < 30; q++) {
+			final int op = rnd.nextInt(3);
+			if (op == 0 && !layers.isEmpty()) {
+				session.popLayer();
+				layers.remove(layers.size() - 1);
+			}
+			if (op == 1 || layers.isEmpty()) {
+				session.pushLayer();
+				layers.add(new ArrayList<Constraint>());
+			}
+			final Constraint c = randomConstraint(rnd);
+			session.add(c);
+			layers.get(layers.size() - 1).add(c);
+			assertEquals(layers.size(), session.getLayerCount());
+
+			final Boolean res = session.solve();
+			final CPSolver ref = fresh(layers);
+			final Boolean expected = optimize ? ref.minimize(ref.getVar(obj), false) : ref.solve();
+			assertEquals("seed " + seed + ", query " + q, expected, res);
+			if (res == Boolean.TRUE) {
+				assertTrue(s.checkSolution());
+				if (optimize) {
+					assertEquals(ref.getVar(obj).getVal(), s.getVar(obj).getVal());
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testRandomLayers() {
+		for (long seed = 0; seed < 10; seed++) {
+			randomSession(seed, false);
+		}
+	}
+
+	@Test
+	public void testRandomLayersOptimization() {
+		for (long seed = 0; seed < 10; seed++) {
+			randomSession(seed, true);
+		}
+	}
+
+	@Test
+	public void testRetractInfeasibleLayer() {
+		final CPSolver s = solver();
+		final IncrementalSession session = new IncrementalSession(s);
+		assertEquals(Boolean.TRUE, session.solve());
+		session.pushLayer();
+		session.add(lt(x[0], 2), gt(x[0], 3));
+		assertEquals(Boolean.FALSE, session.solve());
+		session.pushLayer();
+		assertEquals(Boolean.FALSE, session.solve());
+		session.popLayer();
+		session.popLayer();
+		assertEquals(0, session.getLayerCount());
+		assertEquals(Boolean.TRUE, session.solve());
+		assertTrue(s.checkSolution());
+		assertEquals(4, session.getQueryCount());
+	}
+
+	@Test
+	public void testPermanentConstraints() {
+		final CPSolver s = solver();
+		final IncrementalSession session = new IncrementalSession(s);
+		session.add(eq(x[0], 3));
+		session.pushLayer();
+		session.add(eq(x[1], 4));
+		assertEquals(Boolean.TRUE, session.solve());
+		assertEquals(3, s.getVar(x[0]).getVal());
+		assertEquals(4, s.getVar(x[1]).getVal());
+		session.popLayer();
+		session.pushLayer();
+		session.add(neq(x[1], 4), neq(x[2], 0));
+		assertEquals(Boolean.TRUE, session.solve());
+		assertEquals(3, s.getVar(x[0]).getVal());
+		assertTrue(s.getVar(x[1]).getVal() != 4);
+		session.popLayer();
+		assertEquals(0, s.getWorldIndex());
+		assertEquals(3, s.getVar(x[0]).getVal());
+		assertFalse(s.getVar(x[1]).isInstantiated());
+	}
+
+	@Test
+	public void testSolutionHint() {
+		final CPSolver s = solver();
+		final IncrementalSession session = new IncrementalSession(s);
+		session.pushLayer();
+		session.add(eq(x[N - 1], N - 1));
+		assertEquals(Boolean.TRUE, session.solve());
+		final Solution first = session.getLastSolution();
+		session.popLayer();
+		//the previous solution is still a solution, it is found without failure
+		assertEquals(Boolean.TRUE, session.solve());
+		assertEquals(0, s.getBackTrackCount());
+		for (int i = 0; i < N; i++) {
+			assertEquals(first.getIntValue(s.getIntVarIndex(s.getVar(x[i]))), s.getVar(x[i]).getVal());
+		}
+	}
+
+	@Test(expected = SolverException.class)
+	public void testPopWithoutLayer() {
+		new IncrementalSession(solver()).popLayer();
+	}
+
+	@Test(expected = SolverException.class)
+	public void testUnknownVariable() {
+		final IncrementalSession session = new IncrementalSession(solver());
+		session.pushLayer();
+		session.add(eq(makeIntVar("y", 0, 3), 2));
+	}
+}
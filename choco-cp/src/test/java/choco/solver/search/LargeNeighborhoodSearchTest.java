@@ -0,0 +1,239 @@
+/**
+ *  Copyright (c) 1999-2010, Ecole des Mines de Nantes
+ *  All rights reserved.
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *      * Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *      * Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *      * Neither the name of the Ecole des Mines de Nantes nor the
+ *        names of its contributors may be used to endorse or promote products
+ *        derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ *  EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package choco.solver.search;
+
+import static choco.Choco.*;
+import choco.cp.model.CPModel;
+import choco.cp.solver.CPSolver;
+import choco.cp.solver.search.lns.INeighborhoodOperator;
+import choco.cp.solver.search.lns.LargeNeighborhoodSearch;
+import choco.cp.solver.search.lns.PropagationGuidedNeighborhood;
+import choco.cp.solver.search.lns.RandomNeighborhood;
+import choco.cp.solver.search.lns.TaskWindowNeighborhood;
+import choco.kernel.model.variables.integer.IntegerVariable;
+import choco.kernel.model.variables.scheduling.TaskVariable;
+import choco.kernel.solver.Configuration;
+import choco.kernel.solver.Solution;
+import choco.kernel.solver.SolverException;
+import choco.kernel.solver.variables.integer.IntDomainVar;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.Random;
+
+public class LargeNeighborhoodSearchTest {
+
+	/**
+	 * a random assignment problem: the objective is the cost of the assignment.
+	 */
+	private static IntegerVariable assignment(CPModel m, int n, long seed) {
+		final Random rand = new Random(seed);
+		IntegerVariable[] x = makeIntVarArray("x", n, 0, n - 1);
+		IntegerVariable[] c = new IntegerVariable[n];
+		for (int i = 0; i < n; i++) {
+			int[] costs = new int[n];
+			for (int j = 0; j < n; j++) {
+				costs[j] = rand.nextInt(100);
+			}
+			c[i] = makeIntVar("c" + i, 0, 99);
+			m.addConstraint(nth(x[i], costs, c[i]));
+		}
+		m.addConstraint(allDifferent(x));
+		IntegerVariable obj = makeIntVar("obj", 0, 100 * n, "cp:bound");
+		m.addConstraint(eq(sum(c), obj));
+		return obj;
+	}
+
+	/**
+	 * a single machine problem: the objective is the weighted sum of the completion times.
+	 */
+	private static IntegerVariable singleMachine(CPModel m, int n, long seed) {
+		final Random rand = new Random(seed);
+		int[] durations = new int[n];
+		int[] weights = new int[n];
+		int horizon = 0;
+		for (int i = 0; i < n; i++) {
+			durations[i] = 1 + rand.nextInt(9);
+			weights[i] = 1 + rand.nextInt(5);
+			horizon += durations[i];
+		}
+		TaskVariable[] tasks = makeTaskVarArray("T", 0, horizon, durations);
+		m.addConstraint(disjunctive(tasks));
+		IntegerVariable[] ends = new IntegerVariable[n];
+		for (int i = 0; i < n; i++) {
+			ends[i] = tasks[i].end();
+		}
+		IntegerVariable obj = makeIntVar("obj", 0, 5 * n * horizon, "cp:bound");
+		m.addConstraint(eq(scalar(weights, ends), obj));
+		return obj;
+	}
+
+	private static int optimum(CPModel m, IntegerVariable obj, boolean maximize) {
+		CPSolver s = new CPSolver();
+		s.read(m);
+		if (maximize) {
+			s.maximize(s.getVar(obj), false);
+		} else {
+			s.minimize(s.getVar(obj), false);
+		}
+		return s.getObjectiveValue().intValue();
+	}
+
+	private static LargeNeighborhoodSearch lns(CPModel m, int failLimit) {
+		CPSolver s = new CPSolver();
+		s.getConfiguration().putInt(Configuration.LNS_FAIL_LIMIT, failLimit);
+		s.read(m);
+		return new LargeNeighborhoodSearch(s);
+	}
+
+	private static void checkBest(LargeNeighborhoodSearch lns, IntegerVariable obj) {
+		final CPSolver s = lns.getSolver();
+		assertTrue(s.checkSolution());
+		assertEquals(lns.getObjectiveValue(), s.getVar(obj).getVal());
+	}
+
+	@Test
+	public void testMinimize() {
+		for (int seed = 0; seed < 5; seed++) {
+			CPModel m = new CPModel();
+			IntegerVariable obj = assignment(m, 8, seed);
+			final int opt = optimum(m, obj, false);
+			LargeNeighborhoodSearch lns = lns(m, 50);
+			assertEquals(Boolean.TRUE, lns.minimize(lns.getSolver().getVar(obj)));
+			checkBest(lns, obj);
+			assertTrue(lns.isObjectiveOptimal());
+			assertEquals(opt, lns.getObjectiveValue());
+			assertTrue(lns.getIterationCount() > 0);
+			assertTrue(lns.getMeasures().getNodeCount() > 0);
+		}
+	}
+
+	@Test
+	public void testMaximize() {
+		CPModel m = new CPModel();
+		IntegerVariable obj = assignment(m, 8, 3);
+		final int opt = optimum(m, obj, true);
+		LargeNeighborhoodSearch lns = lns(m, 50);
+		assertEquals(Boolean.TRUE, lns.maximize(lns.getSolver().getVar(obj)));
+		checkBest(lns, obj);
+		assertTrue(lns.isObjectiveOptimal());
+		assertEquals(opt, lns.getObjectiveValue());
+	}
+
+	private static void checkOperator(INeighborhoodOperator operator) {
+		CPModel m = new CPModel();
+		IntegerVariable obj = assignment(m, 9, 7);
+		final int opt = optimum(m, obj, false);
+		LargeNeighborhoodSearch lns = lns(m, 30);
+		lns.addOperator(operator);
+		assertEquals(Boolean.TRUE, lns.minimize(lns.getSolver().getVar(obj)));
+		assertEquals(1, lns.getOperators().size());
+		checkBest(lns, obj);
+		assertTrue(lns.getObjectiveValue() >= opt);
+		assertEquals(opt, lns.getObjectiveValue());
+	}
+
+	@Test
+	public void testRandomNeighborhood() {
+		checkOperator(new RandomNeighborhood());
+	}
+
+	@Test
+	public void testPropagationGuidedNeighborhood() {
+		checkOperator(new PropagationGuidedNeighborhood());
+	}
+
+	@Test
+	public void testTaskWindowNeighborhood() {
+		CPModel m = new CPModel();
+		IntegerVariable obj = singleMachine(m, 7, 1);
+		final int opt = optimum(m, obj, false);
+		LargeNeighborhoodSearch lns = lns(m, 50);
+		lns.addOperator(new TaskWindowNeighborhood());
+		assertEquals(Boolean.TRUE, lns.minimize(lns.getSolver().getVar(obj)));
+		checkBest(lns, obj);
+		assertEquals(opt, lns.getObjectiveValue());
+	}
+
+	@Test(expected = SolverException.class)
+	public void testTaskWindowWithoutTasks() {
+		CPModel m = new CPModel();
+		IntegerVariable obj = assignment(m, 6, 1);
+		LargeNeighborhoodSearch lns = lns(m, 1);
+		lns.addOperator(new TaskWindowNeighborhood());
+		lns.minimize(lns.getSolver().getVar(obj));
+	}
+
+	@Test
+	public void testDefaultOperators() {
+		CPModel m = new CPModel();
+		IntegerVariable obj = singleMachine(m, 6, 2);
+		LargeNeighborhoodSearch lns = lns(m, 50);
+		lns.minimize(lns.getSolver().getVar(obj));
+		assertEquals(3, lns.getOperators().size());
+		checkBest(lns, obj);
+	}
+
+	@Test
+	public void testInfeasible() {
+		CPModel m = new CPModel();
+		IntegerVariable[] x = makeIntVarArray("x", 5, 0, 3);
+		m.addConstraint(allDifferent(x));
+		IntegerVariable obj = makeIntVar("obj", 0, 20, "cp:bound");
+		m.addConstraint(eq(sum(x), obj));
+		LargeNeighborhoodSearch lns = lns(m, 10);
+		assertEquals(Boolean.FALSE, lns.minimize(lns.getSolver().getVar(obj)));
+		assertNull(lns.getBestSolution());
+	}
+
+	@Test
+	public void testSolutionPool() {
+		CPModel m = new CPModel();
+		IntegerVariable obj = assignment(m, 9, 11);
+		CPSolver s = new CPSolver();
+		s.getConfiguration().putInt(Configuration.SOLUTION_POOL_CAPACITY, 3);
+		s.read(m);
+		LargeNeighborhoodSearch lns = new LargeNeighborhoodSearch(s);
+		lns.minimize(s.getVar(obj));
+		assertTrue(lns.getSolutionPool().size() <= 3);
+		final Solution best = lns.getSolutionPool().getBestSolution();
+		assertNotNull(best);
+		assertEquals(lns.getObjectiveValue(), best.getIntValue(s.getIntVarIndex(s.getVar(obj))));
+	}
+
+	@Test
+	public void testIterationLimit() {
+		CPModel m = new CPModel();
+		IntegerVariable obj = assignment(m, 12, 5);
+		LargeNeighborhoodSearch lns = lns(m, 5);
+		lns.getSolver().getConfiguration().putInt(Configuration.LNS_ITERATION_LIMIT, 10);
+		final IntDomainVar o = lns.getSolver().getVar(obj);
+		assertEquals(Boolean.TRUE, lns.minimize(o));
+		assertTrue(lns.getIterationCount() <= 10);
+		checkBest(lns, obj);
+	}
+}
@@ -109,6 +109,15 @@ public class LimitTest {
 	}
 
 
+	@Test
+	public void testMemoryLimit() {
+		final long footprint = solver.getEnvironment().getMemoryFootprint();
+		LimitFactory.setMemoryBudget(solver, footprint + 1);
+		check(Limit.MEMORY);
+		assertTrue(solver.getEnvironment().getMemoryFootprint() > footprint);
+		assertEquals(footprint + 1, solver.getEnvironment().getMemoryBudget());
+	}
+
 	@Test
 	public void testTimeLimit() {
 		solver.setTimeLimit(SIZE*10);
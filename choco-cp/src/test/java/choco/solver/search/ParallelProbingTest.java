@@ -0,0 +1,160 @@
+/**
+ *  Copyright (c) 1999-2010, Ecole des Mines de Nantes
+ *  All rights reserved.
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *      * Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *      * Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *      * Neither the name of the Ecole des Mines de Nantes nor the
+ *        names of its contributors may be used to endorse or promote products
+ *        derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ *  EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package choco.solver.search;
+
+import static choco.Choco.*;
+import static choco.solver.search.SampleModels.queens;
+import static choco.solver.search.SampleModels.randomModel;
+import choco.Options;
+import choco.cp.model.CPModel;
+import choco.cp.solver.CPSolver;
+import choco.cp.solver.search.integer.branching.ImpactBasedBranching;
+import choco.cp.solver.search.parallel.ParallelShavingTools;
+import choco.kernel.model.variables.integer.IntegerVariable;
+import choco.kernel.solver.Configuration;
+import choco.kernel.solver.ContradictionException;
+import choco.kernel.solver.propagation.ShavingTools;
+import choco.kernel.solver.variables.integer.IntDomainVar;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class ParallelProbingTest {
+
+	private static CPSolver impactSolver(CPModel m, int nbWorkers) {
+		final CPSolver s = new CPSolver();
+		s.read(m);
+		s.getConfiguration().putInt(Configuration.INIT_IMPACT_TIME_LIMIT, 1000000);
+		s.getConfiguration().putInt(Configuration.INIT_PROBING_NB_WORKERS, nbWorkers);
+		s.addGoal(new ImpactBasedBranching(s));
+		return s;
+	}
+
+	private static CPSolver shavingSolver(CPModel m, int nbWorkers) {
+		final CPSolver s = new CPSolver();
+		s.read(m);
+		s.getConfiguration().putTrue(Configuration.INIT_SHAVING);
+		s.getConfiguration().putInt(Configuration.INIT_PROBING_NB_WORKERS, nbWorkers);
+		return s;
+	}
+
+	@Test
+	public void testImpactsSameTreeAsSequential() {
+		//no value fails at the root node of the queens: the impacts are the same
+		for (int n = 6; n < 10; n++) {
+			final CPSolver ref = impactSolver(queens(n), 1);
+			ref.solveAll();
+			for (int w = 2; w <= 4; w++) {
+				final CPSolver s = impactSolver(queens(n), w);
+				s.solveAll();
+				assertEquals("queens " + n, ref.getSolutionCount(), s.getSolutionCount());
+				assertEquals("queens " + n, ref.getNodeCount(), s.getNodeCount());
+			}
+		}
+	}
+
+	@Test
+	public void testImpactsRandomFeasibility() {
+		for (long seed = 0; seed < 20; seed++) {
+			final CPModel m = randomModel(seed, 25, 4, 70);
+			final CPSolver ref = impactSolver(m, 1);
+			ref.solve();
+			final CPSolver s = impactSolver(m, 3);
+			s.solve();
+			assertEquals("seed " + seed, ref.isFeasible(), s.isFeasible());
+			if (s.isFeasible() == Boolean.TRUE) {
+				assertTrue(s.checkSolution());
+			}
+		}
+	}
+
+	@Test
+	public void testImpactsInfeasibleRoot() {
+		final CPModel m = new CPModel();
+		final IntegerVariable[] x = makeIntVarArray("x", 4, 0, 2);
+		for (int i = 0; i < x.length; i++) {
+			for (int j = i + 1; j < x.length; j++) {
+				m.addConstraint(neq(x[i], x[j]));
+			}
+		}
+		final CPSolver s = impactSolver(m, 2);
+		s.solve();
+		assertEquals(Boolean.FALSE, s.isFeasible());
+	}
+
+	@Test
+	public void testShavingRemovals() throws ContradictionException {
+		for (String option : new String[]{Options.V_ENUM, Options.V_BOUND}) {
+			final CPModel m = new CPModel();
+			final IntegerVariable x = makeIntVar("x", 0, 1, option);
+			final IntegerVariable y = makeIntVar("y", 0, 1, option);
+			final IntegerVariable z = makeIntVar("z", 0, 2, option);
+			m.addConstraints(neq(x, y), neq(y, z), neq(x, z));
+			final CPSolver s = new CPSolver();
+			s.read(m);
+			s.propagate();
+			assertEquals(3, s.getVar(z).getDomainSize());
+			final ShavingTools shaving = new ParallelShavingTools(s, new IntDomainVar[]{s.getVar(x), s.getVar(y), s.getVar(z)}, 2);
+			shaving.shaving();
+			assertTrue(s.getVar(z).isInstantiatedTo(2));
+			assertEquals(2, shaving.getNbRemovals());
+		}
+	}
+
+	@Test
+	public void testShavingQueens() {
+		final int[] nbSols = {4, 40, 92, 352};
+		for (int k = 0; k < nbSols.length; k++) {
+			final CPSolver s = shavingSolver(queens(6 + k), 4);
+			s.solveAll();
+			assertEquals("queens " + (6 + k), nbSols[k], s.getSolutionCount());
+			assertTrue(s.getSearchStrategy().getShavingTools() instanceof ParallelShavingTools);
+		}
+	}
+
+	@Test
+	public void testShavingRandomSolutions() {
+		for (long seed = 0; seed < 20; seed++) {
+			final CPModel m = randomModel(seed, 20, 4, 60);
+			final CPSolver ref = new CPSolver();
+			ref.read(m);
+			ref.solveAll();
+			final CPSolver s = shavingSolver(m, 3);
+			s.solveAll();
+			assertEquals("seed " + seed, ref.getSolutionCount(), s.getSolutionCount());
+		}
+	}
+
+	@Test
+	public void testShavingLuckySolution() {
+		final CPSolver s = shavingSolver(queens(4), 2);
+		s.generateSearchStrategy();
+		s.getSearchStrategy().getShavingTools().setDetectLuckySolution(true);
+		s.launch();
+		assertEquals(Boolean.TRUE, s.isFeasible());
+		assertEquals(1, s.getNodeCount());
+	}
+}
@@ -0,0 +1,147 @@
+/**
+ *  Copyright (c) 1999-2010, Ecole des Mines de Nantes
+ *  All rights reserved.
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *      * Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *      * Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *      * Neither the name of the Ecole des Mines de Nantes nor the
+ *        names of its contributors may be used to endorse or promote products
+ *        derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ *  EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package choco.solver.search;
+
+import static choco.Choco.*;
+import static choco.solver.search.SampleModels.queens;
+import choco.cp.model.CPModel;
+import choco.cp.solver.CPSolver;
+import choco.cp.solver.search.integer.objective.SharedIntBound;
+import choco.cp.solver.search.parallel.PortfolioSolver;
+import choco.kernel.model.variables.integer.IntegerVariable;
+import choco.kernel.solver.Configuration;
+import choco.kernel.solver.search.limit.Limit;
+import choco.cp.solver.configure.LimitFactory;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.Random;
+
+public class PortfolioTest {
+
+	/**
+	 * a random assignment problem: the objective is the cost of the assignment.
+	 */
+	private static IntegerVariable assignment(CPModel m, int n, long seed) {
+		final Random rand = new Random(seed);
+		IntegerVariable[] x = makeIntVarArray("x", n, 0, n - 1);
+		IntegerVariable[] c = new IntegerVariable[n];
+		for (int i = 0; i < n; i++) {
+			int[] costs = new int[n];
+			for (int j = 0; j < n; j++) {
+				costs[j] = rand.nextInt(100);
+			}
+			c[i] = makeIntVar("c" + i, 0, 99);
+			m.addConstraint(nth(x[i], costs, c[i]));
+		}
+		m.addConstraint(allDifferent(x));
+		IntegerVariable obj = makeIntVar("obj", 0, 100 * n, "cp:bound");
+		m.addConstraint(eq(sum(c), obj));
+		return obj;
+	}
+
+	@Test
+	public void testSharedBound() {
+		SharedIntBound min = new SharedIntBound(false);
+		assertFalse(min.isSet());
+		assertTrue(min.offer(10));
+		assertFalse(min.offer(12));
+		assertTrue(min.offer(7));
+		assertEquals(7, min.get());
+		SharedIntBound max = new SharedIntBound(true);
+		assertTrue(max.offer(-3));
+		assertFalse(max.offer(-5));
+		assertEquals(-3, max.get());
+	}
+
+	@Test
+	public void testSolve() {
+		PortfolioSolver p = new PortfolioSolver(queens(10), 4);
+		assertEquals(Boolean.TRUE, p.solve());
+		CPSolver best = p.getBestWorker();
+		assertNotNull(best);
+		assertTrue(best.checkSolution());
+		assertTrue(p.getCompletedWorker() >= 0);
+	}
+
+	@Test
+	public void testInfeasible() {
+		CPModel m = new CPModel();
+		IntegerVariable[] x = makeIntVarArray("x", 5, 0, 3);
+		m.addConstraint(allDifferent(x));
+		PortfolioSolver p = new PortfolioSolver(m, 3);
+		assertEquals(Boolean.FALSE, p.solve());
+		assertNull(p.getBestWorker());
+	}
+
+	@Test
+	public void testLimit() {
+		CPModel m = new CPModel();
+		IntegerVariable[] x = makeIntVarArray("x", 6, 0, 9);
+		IntegerVariable obj = makeIntVar("obj", 0, 100, "cp:bound");
+		m.addConstraint(eq(sum(x), obj));
+		Configuration conf = new Configuration();
+		LimitFactory.setSearchLimit(conf, Limit.NODE, 2);
+		PortfolioSolver p = new PortfolioSolver(m, conf, 3);
+		assertNull(p.maximize(obj));
+		assertNull(p.getObjectiveValue());
+		assertFalse(p.isObjectiveOptimal());
+		assertEquals(-1, p.getCompletedWorker());
+	}
+
+	@Test
+	public void testMinimize() {
+		for (int seed = 0; seed < 5; seed++) {
+			CPModel m = new CPModel();
+			IntegerVariable obj = assignment(m, 7, seed);
+			CPSolver s = new CPSolver();
+			s.read(m);
+			assertEquals(Boolean.TRUE, s.minimize(s.getVar(obj), false));
+			PortfolioSolver p = new PortfolioSolver(m, 4);
+			assertEquals(Boolean.TRUE, p.minimize(obj));
+			assertTrue(p.isObjectiveOptimal());
+			assertEquals(s.getObjectiveValue(), p.getObjectiveValue());
+			CPSolver best = p.getBestWorker();
+			assertNotNull(best);
+			assertEquals(s.getObjectiveValue(), best.getObjectiveValue());
+		}
+	}
+
+	@Test
+	public void testMaximize() {
+		CPModel m = new CPModel();
+		IntegerVariable v1 = makeIntVar("v1", 1, 10);
+		IntegerVariable v2 = makeIntVar("v2", -3, 10);
+		IntegerVariable v3 = makeIntVar("v3", 1, 10);
+		IntegerVariable obj = makeIntVar("objectif", -10, 1000, "cp:bound");
+		m.addConstraint(eq(sum(v1, v2, v3), obj));
+		PortfolioSolver p = new PortfolioSolver(m, 3);
+		assertEquals(Boolean.TRUE, p.maximize(obj));
+		assertTrue(p.isObjectiveOptimal());
+		assertEquals(30, p.getObjectiveValue().intValue());
+	}
+}
@@ -33,8 +33,12 @@ import choco.cp.solver.CPSolver;
 import choco.cp.solver.search.integer.valiterator.DecreasingDomain;
 import choco.cp.solver.search.integer.valselector.MaxVal;
 import choco.kernel.common.logging.ChocoLogging;
+import choco.kernel.memory.trailing.hybrid.EnvironmentHybrid;
+import choco.kernel.memory.trailing.hybrid.HybridStrategy;
+import choco.kernel.memory.trailing.unified.EnvironmentUnifiedTrailing;
 import choco.kernel.model.Model;
 import choco.kernel.model.variables.integer.IntegerVariable;
+import choco.kernel.solver.Configuration;
 import choco.kernel.solver.Solver;
 import org.junit.*;
 
@@ -161,6 +165,32 @@ public class QueensTest {
         queen0(12);
     }
 
+    @Test
+    public void testUnifiedTrailing() {
+        model(10);
+        s1 = new CPSolver(new EnvironmentUnifiedTrailing());
+        s2 = new CPSolver(new EnvironmentUnifiedTrailing());
+        solve(10);
+    }
+
+    @Test
+    public void testHybrid() {
+        model(10);
+        s1 = new CPSolver(new EnvironmentHybrid());
+        s2 = new CPSolver(new EnvironmentHybrid(HybridStrategy.COPYING, EnvironmentHybrid.DEFAULT_THRESHOLD));
+        solve(10);
+    }
+
+    @Test
+    public void testOffHeap() {
+        model(10);
+        final Configuration conf = new Configuration();
+        conf.putBoolean(Configuration.TRAIL_OFF_HEAP, true);
+        s1 = new CPSolver(conf);
+        s2 = new CPSolver();
+        solve(10);
+    }
+
     @Test
     @Ignore
     public void testAll() {
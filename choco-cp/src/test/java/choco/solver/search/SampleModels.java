@@ -0,0 +1,91 @@
+/**
+ *  Copyright (c) 1999-2010, Ecole des Mines de Nantes
+ *  All rights reserved.
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *      * Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *      * Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *      * Neither the name of the Ecole des Mines de Nantes nor the
+ *        names of its contributors may be used to endorse or promote products
+ *        derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ *  EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package choco.solver.search;
+
+import choco.cp.model.CPModel;
+import choco.kernel.model.variables.integer.IntegerVariable;
+
+import java.util.Random;
+
+import static choco.Choco.*;
+
+/**
+ * Models shared by the search tests.
+ */
+public final class SampleModels {
+
+	private SampleModels() {
+	}
+
+	/**
+	 * @param n the number of queens
+	 * @return the n-queens model, one variable per row giving the column of its queen
+	 */
+	public static CPModel queens(int n) {
+		CPModel m = new CPModel();
+		IntegerVariable[] q = makeIntVarArray("q", n, 0, n - 1);
+		for (int i = 0; i < n; i++) {
+			for (int j = i + 1; j < n; j++) {
+				m.addConstraint(neq(q[i], q[j]));
+				m.addConstraint(neq(q[i], plus(q[j], j - i)));
+				m.addConstraint(neq(q[i], minus(q[j], j - i)));
+			}
+		}
+		return m;
+	}
+
+	/**
+	 * A random binary CSP: disequalities, distances and bounded sums between random pairs of variables.
+	 * @param seed the seed of the generator
+	 * @param n the number of variables
+	 * @param d the size of the domains
+	 * @param m the number of constraints drawn (a draw of twice the same variable is skipped)
+	 * @return the model
+	 */
+	public static CPModel randomModel(long seed, int n, int d, int m) {
+		final Random rnd = new Random(seed);
+		final CPModel model = new CPModel();
+		final IntegerVariable[] x = makeIntVarArray("x", n, 0, d - 1);
+		for (int k = 0; k < m; k++) {
+			final int i = rnd.nextInt(n);
+			final int j = rnd.nextInt(n);
+			if (i != j) {
+				switch (rnd.nextInt(3)) {
+				case 0:
+					model.addConstraint(neq(x[i], x[j]));
+					break;
+				case 1:
+					model.addConstraint(distanceNEQ(x[i], x[j], 1 + rnd.nextInt(2)));
+					break;
+				default:
+					model.addConstraint(leq(plus(x[i], x[j]), d + rnd.nextInt(d)));
+				}
+			}
+		}
+		return model;
+	}
+}
@@ -0,0 +1,138 @@
+/**
+ *  Copyright (c) 1999-2010, Ecole des Mines de Nantes
+ *  All rights reserved.
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *      * Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *      * Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *      * Neither the name of the Ecole des Mines de Nantes nor the
+ *        names of its contributors may be used to endorse or promote products
+ *        derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ *  EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package choco.solver.search;
+
+import static choco.Choco.*;
+import static choco.solver.search.SampleModels.queens;
+import choco.cp.model.CPModel;
+import choco.cp.solver.CPSolver;
+import choco.cp.solver.search.SolutionCounter;
+import choco.kernel.model.variables.integer.IntegerVariable;
+import choco.kernel.solver.Configuration;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.math.BigInteger;
+
+public class SolutionCounterTest {
+
+	/**
+	 * a path colored with 3 colors.
+	 */
+	private static CPModel path(int n) {
+		CPModel m = new CPModel();
+		IntegerVariable[] x = makeIntVarArray("x", n, 0, 2);
+		for (int i = 0; i < n - 1; i++) {
+			m.addConstraint(neq(x[i], x[i + 1]));
+		}
+		return m;
+	}
+
+	private static SolutionCounter counter(CPModel m, boolean components, int cache) {
+		CPSolver s = new CPSolver();
+		s.getConfiguration().putBoolean(Configuration.COUNTING_COMPONENTS, components);
+		s.getConfiguration().putInt(Configuration.COUNTING_CACHE_CAPACITY, cache);
+		s.read(m);
+		return new SolutionCounter(s);
+	}
+
+	@Test
+	public void testQueens() {
+		for (int n = 4; n <= 8; n++) {
+			CPSolver ref = new CPSolver();
+			ref.read(queens(n));
+			ref.solveAll();
+			final BigInteger expected = BigInteger.valueOf(ref.getSolutionCount());
+			assertEquals(expected, counter(queens(n), false, 0).count());
+			assertEquals(expected, counter(queens(n), true, 1000).count());
+			CPSolver s = new CPSolver();
+			s.read(queens(n));
+			assertEquals(expected, s.countSolutions());
+		}
+	}
+
+	@Test
+	public void testPath() {
+		final int n = 30;
+		final BigInteger expected = BigInteger.valueOf(3).shiftLeft(n - 1);
+		SolutionCounter counter = counter(path(n), true, 1000);
+		assertEquals(expected, counter.count());
+		assertTrue(counter.getCacheHitCount() > 0);
+		assertTrue(counter.getComponentCount() > 0);
+		//small enough to be checked without components
+		assertEquals(BigInteger.valueOf(3 << 9), counter(path(10), false, 0).count());
+	}
+
+	@Test
+	public void testIndependentComponents() {
+		CPModel m = new CPModel();
+		final int pairs = 20;
+		for (int i = 0; i < pairs; i++) {
+			IntegerVariable x = makeIntVar("x" + i, 0, 4);
+			IntegerVariable y = makeIntVar("y" + i, 0, 4);
+			m.addConstraint(neq(x, y));
+		}
+		SolutionCounter counter = counter(m, true, 0);
+		assertEquals(BigInteger.valueOf(20).pow(pairs), counter.count());
+		assertTrue(counter.getNodeCount() < 1000);
+	}
+
+	@Test
+	public void testUnconstrainedVariables() {
+		CPModel m = new CPModel();
+		m.addVariables(makeIntVarArray("x", 40, 0, 9));
+		assertEquals(BigInteger.TEN.pow(40), counter(m, true, 100).count());
+	}
+
+	@Test
+	public void testDecisionVariables() {
+		CPModel m = new CPModel();
+		IntegerVariable[] x = makeIntVarArray("x", 3, 0, 3);
+		IntegerVariable s = makeIntVar("s", 0, 9, "cp:no_decision");
+		m.addConstraint(eq(sum(x), s));
+		CPSolver ref = new CPSolver();
+		ref.read(m);
+		ref.solveAll();
+		assertEquals(BigInteger.valueOf(ref.getSolutionCount()), counter(m, true, 100).count());
+	}
+
+	@Test
+	public void testInfeasible() {
+		CPModel m = new CPModel();
+		IntegerVariable[] x = makeIntVarArray("x", 5, 0, 3);
+		m.addConstraint(allDifferent(x));
+		assertEquals(BigInteger.ZERO, counter(m, true, 100).count());
+	}
+
+	@Test
+	public void testCancelled() {
+		CPSolver s = new CPSolver();
+		s.read(queens(8));
+		s.cancel();
+		assertNull(s.countSolutions());
+	}
+}
@@ -0,0 +1,164 @@
+/**
+ *  Copyright (c) 1999-2010, Ecole des Mines de Nantes
+ *  All rights reserved.
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *      * Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *      * Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *      * Neither the name of the Ecole des Mines de Nantes nor the
+ *        names of its contributors may be used to endorse or promote products
+ *        derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ *  EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package choco.solver.search;
+
+import static choco.Choco.*;
+import choco.cp.model.CPModel;
+import choco.cp.solver.CPSolver;
+import choco.cp.solver.search.integer.valselector.MinVal;
+import choco.kernel.model.variables.integer.IntegerVariable;
+import choco.kernel.solver.Solution;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class SolutionHintTest {
+
+	private static final int N = 8;
+
+	private final IntegerVariable[] q = makeIntVarArray("q", N, 0, N - 1);
+
+	private final IntegerVariable[] w = makeIntVarArray("w", N, 0, 9);
+
+	private final IntegerVariable cost = makeIntVar("cost", 0, 100 * N);
+
+	private CPModel queens() {
+		CPModel m = new CPModel();
+		for (int i = 0; i < N; i++) {
+			for (int j = i + 1; j < N; j++) {
+				m.addConstraint(neq(q[i], q[j]));
+				m.addConstraint(neq(q[i], plus(q[j], j - i)));
+				m.addConstraint(neq(q[i], minus(q[j], j - i)));
+			}
+		}
+		return m;
+	}
+
+	private CPModel weighted() {
+		final CPModel m = queens();
+		final int[] coeffs = new int[N];
+		for (int i = 0; i < N; i++) {
+			m.addConstraint(eq(w[i], mod(plus(q[i], 3 * i), 10)));
+			coeffs[i] = i + 1;
+		}
+		m.addConstraint(eq(scalar(coeffs, w), cost));
+		return m;
+	}
+
+	private static CPSolver solver(CPModel m) {
+		final CPSolver s = new CPSolver();
+		s.read(m);
+		return s;
+	}
+
+	@Test
+	public void testValueOrdering() {
+		final CPSolver ref = solver(queens());
+		ref.solveAll();
+		final Solution hint = ref.getSearchStrategy().getSolutionPool().getBestSolution();
+		for (int k = 0; k < 2; k++) {
+			final CPSolver s = solver(queens());
+			if (k == 1) {
+				s.setValIntSelector(new MinVal());
+			}
+			s.setSolutionHint(hint);
+			assertTrue(s.solve());
+			assertEquals(0, s.getBackTrackCount());
+			for (int i = 0; i < N; i++) {
+				assertEquals(hint.getIntValue(i), s.getIntVarQuick(i).getVal());
+			}
+		}
+	}
+
+	@Test
+	public void testEnumeration() {
+		final CPSolver ref = solver(queens());
+		ref.solveAll();
+		final CPSolver s = solver(queens());
+		s.setSolutionHint(ref.getSearchStrategy().getSolutionPool().getBestSolution());
+		s.solveAll();
+		assertEquals(ref.getSolutionCount(), s.getSolutionCount());
+	}
+
+	@Test
+	public void testIncumbent() {
+		final CPSolver ref = solver(weighted());
+		assertTrue(ref.minimize(ref.getVar(cost), false));
+		final int opt = ref.getVar(cost).getVal();
+		final Solution hint = ref.recordSolution();
+
+		final CPSolver s = solver(weighted());
+		s.setSolutionHint(hint);
+		assertTrue(s.minimize(s.getVar(cost), false));
+		assertEquals(opt, s.getVar(cost).getVal());
+		assertTrue(s.checkSolution());
+		//the hint is the only solution: the search proves its optimality
+		assertEquals(1, s.getSolutionCount());
+		assertTrue(s.getNodeCount() < ref.getNodeCount());
+	}
+
+	@Test
+	public void testSuboptimalHint() {
+		final CPSolver ref = solver(weighted());
+		assertTrue(ref.minimize(ref.getVar(cost), false));
+		final int opt = ref.getVar(cost).getVal();
+
+		final CPSolver first = solver(weighted());
+		assertTrue(first.solve());
+		final CPSolver s = solver(weighted());
+		s.setSolutionHint(first.recordSolution());
+		assertTrue(s.minimize(s.getVar(cost), false));
+		assertEquals(opt, s.getVar(cost).getVal());
+		assertTrue(s.checkSolution());
+	}
+
+	@Test
+	public void testInfeasibleHint() {
+		final CPSolver ref = solver(weighted());
+		assertTrue(ref.minimize(ref.getVar(cost), false));
+		final int opt = ref.getVar(cost).getVal();
+
+		final CPSolver s = solver(weighted());
+		final Solution hint = new Solution(s);
+		for (int i = 0; i < s.getNbIntVars(); i++) {
+			hint.recordIntValue(i, Solution.NULL);
+		}
+		for (int i = 0; i < N; i++) {
+			//every queen on the first row
+			hint.recordIntValue(s.getIntVarIndex(s.getVar(q[i])), 0);
+		}
+		s.setSolutionHint(hint);
+		assertTrue(s.maximize(s.getVar(cost), false) != null);
+		final CPSolver max = solver(weighted());
+		max.maximize(max.getVar(cost), false);
+		assertEquals(max.getVar(cost).getVal(), s.getVar(cost).getVal());
+
+		final CPSolver min = solver(weighted());
+		min.setSolutionHint(hint);
+		assertTrue(min.minimize(min.getVar(cost), false));
+		assertEquals(opt, min.getVar(cost).getVal());
+	}
+}
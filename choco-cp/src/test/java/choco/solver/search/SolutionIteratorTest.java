@@ -0,0 +1,138 @@
+/**
+ *  Copyright (c) 1999-2010, Ecole des Mines de Nantes
+ *  All rights reserved.
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *      * Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *      * Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *      * Neither the name of the Ecole des Mines de Nantes nor the
+ *        names of its contributors may be used to endorse or promote products
+ *        derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ *  EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package choco.solver.search;
+
+import static choco.Choco.*;
+import static choco.solver.search.SampleModels.queens;
+import choco.cp.model.CPModel;
+import choco.cp.solver.CPSolver;
+import choco.cp.solver.configure.LimitFactory;
+import choco.cp.solver.search.SolutionIterator;
+import choco.kernel.model.variables.integer.IntegerVariable;
+import choco.kernel.solver.Solution;
+import choco.kernel.solver.search.limit.Limit;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+public class SolutionIteratorTest {
+
+	private static CPSolver solver(CPModel m) {
+		CPSolver s = new CPSolver();
+		s.read(m);
+		return s;
+	}
+
+	private static String key(Solution sol, int n) {
+		final StringBuilder b = new StringBuilder();
+		for (int i = 0; i < n; i++) {
+			b.append(sol.getIntValue(i)).append(',');
+		}
+		return b.toString();
+	}
+
+	@Test
+	public void testEnumeration() {
+		for (int n = 4; n <= 8; n++) {
+			CPSolver ref = solver(queens(n));
+			ref.solveAll();
+			CPSolver s = solver(queens(n));
+			SolutionIterator it = s.solutionIterator();
+			final Set<String> keys = new HashSet<String>();
+			Solution previous = null;
+			while (it.hasNext()) {
+				assertTrue(it.hasNext());
+				Solution sol = it.next();
+				assertTrue(s.checkSolution());
+				if (previous != null) {
+					assertSame(previous, sol);
+				}
+				previous = sol;
+				assertTrue(keys.add(key(sol, s.getNbIntVars())));
+			}
+			assertEquals(ref.getSolutionCount(), keys.size());
+			assertFalse(it.isIncomplete());
+			assertTrue(s.getSearchStrategy().getSolutionPool().isEmpty());
+		}
+	}
+
+	@Test
+	public void testLazy() {
+		CPSolver s = solver(queens(8));
+		SolutionIterator it = s.solutionIterator();
+		assertEquals(0, s.getSolutionCount());
+		it.next();
+		assertEquals(1, s.getSolutionCount());
+		assertTrue(it.hasNext());
+		assertTrue(it.hasNext());
+		assertEquals(2, s.getSolutionCount());
+		it.next();
+		assertEquals(2, s.getSolutionCount());
+	}
+
+	@Test
+	public void testClose() {
+		CPSolver s = solver(queens(10));
+		SolutionIterator it = s.solutionIterator();
+		for (int i = 0; i < 5; i++) {
+			it.next();
+		}
+		it.close();
+		assertFalse(it.hasNext());
+		assertTrue(it.isIncomplete());
+		assertEquals(5, s.getSolutionCount());
+	}
+
+	@Test(expected = NoSuchElementException.class)
+	public void testInfeasible() {
+		CPModel m = new CPModel();
+		IntegerVariable[] x = makeIntVarArray("x", 5, 0, 3);
+		m.addConstraint(allDifferent(x));
+		CPSolver s = solver(m);
+		SolutionIterator it = s.solutionIterator();
+		assertFalse(it.hasNext());
+		assertEquals(Boolean.FALSE, s.isFeasible());
+		it.next();
+	}
+
+	@Test
+	public void testLimit() {
+		CPSolver s = solver(queens(10));
+		LimitFactory.setSearchLimit(s, Limit.SOLUTION, 3);
+		SolutionIterator it = s.solutionIterator();
+		int count = 0;
+		while (it.hasNext()) {
+			it.next();
+			count++;
+		}
+		assertTrue(count <= 3);
+		assertTrue(it.isIncomplete());
+	}
+}
@@ -0,0 +1,215 @@
+/**
+ *  Copyright (c) 1999-2010, Ecole des Mines de Nantes
+ *  All rights reserved.
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *      * Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *      * Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *      * Neither the name of the Ecole des Mines de Nantes nor the
+ *        names of its contributors may be used to endorse or promote products
+ *        derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ *  EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package choco.solver.search;
+
+import static choco.Choco.*;
+import static choco.solver.search.SampleModels.randomModel;
+import choco.cp.model.CPModel;
+import choco.cp.solver.CPSolver;
+import choco.cp.solver.search.BranchingFactory;
+import choco.cp.solver.search.integer.branching.AssignVar;
+import choco.cp.solver.search.integer.branching.domwdeg.WeightedDegreeStore;
+import choco.cp.solver.search.integer.valiterator.IncreasingDomain;
+import choco.cp.solver.search.integer.varselector.HeapDomOverWDegSelector;
+import choco.cp.solver.search.integer.varselector.ratioselector.DomOverWDegSelector;
+import choco.kernel.common.util.iterators.DisposableIterator;
+import choco.kernel.solver.constraints.IMonitorConstraint;
+import choco.kernel.solver.constraints.SConstraint;
+import choco.kernel.solver.search.AbstractGlobalSearchStrategy;
+import choco.kernel.solver.search.integer.AbstractIntVarSelector;
+import choco.kernel.solver.variables.integer.IntDomainVar;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+public class WeightedDegreeStoreTest {
+
+	private static CPSolver solve(CPModel m, boolean heap, boolean all) {
+		final CPSolver s = new CPSolver();
+		s.read(m);
+		if (heap) {
+			s.attachGoal(BranchingFactory.heapDomWDeg(s));
+		} else {
+			//the scanning selector has to be registered to be notified of the failures
+			final DomOverWDegSelector sel = new DomOverWDegSelector(s, s.getIntDecisionVars());
+			s.getPropagationEngine().addPropagationEngineListener(sel);
+			s.attachGoal(new AssignVar(sel, new IncreasingDomain()));
+		}
+		if (all) {
+			s.solveAll();
+		} else {
+			s.solve();
+		}
+		return s;
+	}
+
+	@Test
+	public void testSameSearchTree() {
+		for (long seed = 0; seed < 10; seed++) {
+			final CPModel m = randomModel(seed, 12, 4, 36);
+			final CPSolver ref = solve(m, false, true);
+			final CPSolver s = solve(m, true, true);
+			assertEquals("seed " + seed, ref.getSolutionCount(), s.getSolutionCount());
+			assertEquals("seed " + seed, ref.getNodeCount(), s.getNodeCount());
+			assertEquals("seed " + seed, ref.getBackTrackCount(), s.getBackTrackCount());
+		}
+	}
+
+	@Test
+	public void testFirstSolution() {
+		for (long seed = 0; seed < 10; seed++) {
+			final CPModel m = randomModel(seed, 40, 5, 130);
+			final CPSolver ref = solve(m, false, false);
+			final CPSolver s = solve(m, true, false);
+			assertEquals("seed " + seed, ref.isFeasible(), s.isFeasible());
+			assertEquals("seed " + seed, ref.getNodeCount(), s.getNodeCount());
+			if (s.isFeasible() == Boolean.TRUE) {
+				assertTrue(s.checkSolution());
+			}
+		}
+	}
+
+	/**
+	 * Checks at each node that the live weights of the store are the weights computed from scratch.
+	 */
+	private static final class CheckingSelector extends AbstractIntVarSelector {
+
+		private final HeapDomOverWDegSelector selector;
+
+		private int nbChecks;
+
+		private CheckingSelector(HeapDomOverWDegSelector selector) {
+			super(selector.getSolver(), selector.getVars());
+			this.selector = selector;
+		}
+
+		public IntDomainVar selectVar() {
+			final IntDomainVar best = selector.selectVar();
+			final WeightedDegreeStore store = selector.getStore();
+			double min = Double.POSITIVE_INFINITY;
+			for (IntDomainVar v : vars) {
+				if (!v.isInstantiated()) {
+					double w = 0;
+					final DisposableIterator<SConstraint> iter = v.getConstraintsIterator();
+					while (iter.hasNext()) {
+						final SConstraint<?> c = iter.next();
+						int free = 0;
+						for (int k = 0; k < c.getNbVars(); k++) {
+							if (!c.getVarQuick(k).isInstantiated()) {
+								free++;
+							}
+						}
+						if (free > 1) {
+							w += store.getConstraintWeight(c);
+						}
+					}
+					iter.dispose();
+					assertEquals(v.getName(), w, store.getVarWeight(v), 1e-9 * w);
+					min = Math.min(min, v.getDomainSize() / w);
+					nbChecks++;
+				}
+			}
+			if (best != null) {
+				assertEquals(min, best.getDomainSize() / store.getVarWeight(best), 1e-9 * min);
+			}
+			return best;
+		}
+	}
+
+	@Test
+	public void testExactWeights() {
+		final double[] decays = {1, 0.95, 1e-3};
+		for (double decay : decays) {
+			for (long seed = 0; seed < 5; seed++) {
+				final CPModel m = randomModel(seed, 15, 4, 45);
+				final CPSolver ref = solve(m, false, true);
+				final CPSolver s = new CPSolver();
+				s.read(m);
+				final CheckingSelector sel = new CheckingSelector(new HeapDomOverWDegSelector(s, s.getIntDecisionVars(), decay));
+				s.attachGoal(new AssignVar(sel, new IncreasingDomain()));
+				s.solveAll();
+				assertEquals("decay " + decay + ", seed " + seed, ref.getSolutionCount(), s.getSolutionCount());
+				assertTrue(sel.nbChecks > 0);
+				assertTrue(sel.selector.getStore().getNbFailures() > 0);
+			}
+		}
+	}
+
+	@Test
+	public void testRestarts() {
+		final CPModel m = randomModel(7, 15, 4, 45);
+		final CPSolver ref = solve(m, false, true);
+		final CPSolver s = new CPSolver();
+		s.read(m);
+		final HeapDomOverWDegSelector sel = new HeapDomOverWDegSelector(s, s.getIntDecisionVars(), 0.9);
+		s.attachGoal(new AssignVar(sel, new IncreasingDomain()));
+		s.setFirstSolution(false);
+		s.generateSearchStrategy();
+		long failures = 0;
+		for (int k = 0; k < 3; k++) {
+			//the weights are kept from one search tree to the next
+			s.worldPopUntil(0);
+			s.getSearchStrategy().clearTrace();
+			s.getSearchStrategy().nextMove = AbstractGlobalSearchStrategy.INIT_SEARCH;
+			s.launch();
+			assertEquals(ref.getSolutionCount(), s.getSolutionCount());
+			assertTrue(sel.getStore().getNbFailures() > failures);
+			failures = sel.getStore().getNbFailures();
+		}
+	}
+
+	@Test
+	public void testMonitorsNotIndexed() {
+		final CPModel m = randomModel(3, 15, 4, 45);
+		final CPSolver s = new CPSolver();
+		s.read(m);
+		final WeightedDegreeStore ref = new WeightedDegreeStore(s, s.getIntDecisionVars());
+		//the second store finds the monitor posted by the first one among the constraints
+		final WeightedDegreeStore store = new WeightedDegreeStore(s, s.getIntDecisionVars());
+		int nbMonitors = 0;
+		final DisposableIterator<SConstraint> iter = s.getConstraintIterator();
+		while (iter.hasNext()) {
+			final SConstraint<?> c = iter.next();
+			if (c instanceof IMonitorConstraint) {
+				assertEquals(0, store.getConstraintWeight(c), 0);
+				nbMonitors++;
+			}
+		}
+		iter.dispose();
+		assertTrue(nbMonitors > 0);
+		for (IntDomainVar v : s.getIntDecisionVars()) {
+			assertEquals(v.getName(), ref.getVarWeight(v), store.getVarWeight(v), 0);
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidDecay() {
+		final CPModel m = randomModel(0, 5, 3, 5);
+		final CPSolver s = new CPSolver();
+		s.read(m);
+		new WeightedDegreeStore(s, s.getIntDecisionVars(), 0);
+	}
+}
@@ -0,0 +1,167 @@
+/**
+ *  Copyright (c) 1999-2010, Ecole des Mines de Nantes
+ *  All rights reserved.
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *      * Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *      * Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *      * Neither the name of the Ecole des Mines de Nantes nor the
+ *        names of its contributors may be used to endorse or promote products
+ *        derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ *  EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package choco.solver.search;
+
+import static choco.Choco.*;
+import static choco.solver.search.SampleModels.queens;
+import choco.cp.model.CPModel;
+import choco.cp.solver.CPSolver;
+import choco.cp.solver.search.BranchingFactory;
+import choco.cp.solver.search.parallel.WorkStealingSolver;
+import choco.kernel.model.variables.integer.IntegerVariable;
+import choco.kernel.model.variables.set.SetVariable;
+import choco.kernel.solver.Configuration;
+import choco.kernel.solver.search.measure.MeasuresBean;
+import choco.kernel.solver.variables.integer.IntDomainVar;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.Random;
+
+public class WorkStealingTest {
+
+	private static IntegerVariable assignment(CPModel m, int n, long seed) {
+		final Random rand = new Random(seed);
+		IntegerVariable[] x = makeIntVarArray("x", n, 0, n - 1);
+		IntegerVariable[] c = new IntegerVariable[n];
+		for (int i = 0; i < n; i++) {
+			int[] costs = new int[n];
+			for (int j = 0; j < n; j++) {
+				costs[j] = rand.nextInt(100);
+			}
+			c[i] = makeIntVar("c" + i, 0, 99);
+			m.addConstraint(nth(x[i], costs, c[i]));
+		}
+		m.addConstraint(allDifferent(x));
+		IntegerVariable obj = makeIntVar("obj", 0, 100 * n, "cp:bound");
+		m.addConstraint(eq(sum(c), obj));
+		return obj;
+	}
+
+	private static Configuration recomputation(int gap) {
+		Configuration conf = new Configuration();
+		conf.putInt(Configuration.RECOMPUTATION_GAP, gap);
+		return conf;
+	}
+
+	@Test
+	public void testQueensAll() {
+		for (int gap = 1; gap <= 3; gap += 2) {
+			for (int nbWorkers = 1; nbWorkers <= 4; nbWorkers *= 2) {
+				WorkStealingSolver ws = new WorkStealingSolver(queens(8), recomputation(gap), nbWorkers);
+				assertEquals(Boolean.TRUE, ws.solveAll());
+				assertEquals(92, ws.getSolutionCount());
+				MeasuresBean m = ws.getMeasures();
+				assertEquals(92, m.getSolutionCount());
+				assertEquals(ws.getNodeCount(), m.getNodeCount());
+				if (nbWorkers == 1) {
+					assertEquals(0, ws.getNbSteals());
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testBinaryBranching() {
+		for (int seed = 0; seed < 5; seed++) {
+			WorkStealingSolver ws = new WorkStealingSolver(queens(7), recomputation(2), 3);
+			for (int i = 0; i < ws.getNbWorkers(); i++) {
+				CPSolver s = ws.getWorker(i);
+				s.addGoal(BranchingFactory.randomIntBinSearch(s, seed));
+			}
+			assertEquals(Boolean.TRUE, ws.solveAll());
+			assertEquals(40, ws.getSolutionCount());
+		}
+	}
+
+	@Test
+	public void testSetVariables() {
+		CPModel m = new CPModel();
+		SetVariable[] s = new SetVariable[3];
+		for (int i = 0; i < s.length; i++) {
+			s[i] = makeSetVar("s" + i, 1, 4);
+		}
+		m.addConstraint(setDisjoint(s));
+		m.addConstraint(eqCard(s[0], 2));
+		CPSolver seq = new CPSolver();
+		seq.read(m);
+		seq.solveAll();
+		WorkStealingSolver ws = new WorkStealingSolver(m, recomputation(2), 2);
+		assertEquals(Boolean.TRUE, ws.solveAll());
+		assertEquals(seq.getSolutionCount(), ws.getSolutionCount());
+	}
+
+	@Test
+	public void testSolve() {
+		WorkStealingSolver ws = new WorkStealingSolver(queens(12), 3);
+		assertEquals(Boolean.TRUE, ws.solve());
+		CPSolver s = ws.getSolutionWorker();
+		assertNotNull(s);
+		assertTrue(s.checkSolution());
+	}
+
+	@Test
+	public void testInfeasible() {
+		WorkStealingSolver ws = new WorkStealingSolver(queens(3), 2);
+		assertEquals(Boolean.FALSE, ws.solveAll());
+		assertEquals(0, ws.getSolutionCount());
+		assertNull(ws.getSolutionWorker());
+	}
+
+	@Test
+	public void testMinimize() {
+		for (int seed = 0; seed < 5; seed++) {
+			CPModel m = new CPModel();
+			IntegerVariable obj = assignment(m, 7, seed);
+			CPSolver s = new CPSolver();
+			s.read(m);
+			assertEquals(Boolean.TRUE, s.minimize(s.getVar(obj), false));
+			WorkStealingSolver ws = new WorkStealingSolver(m, recomputation(3), 3);
+			assertEquals(Boolean.TRUE, ws.minimize(obj));
+			assertTrue(ws.isObjectiveOptimal());
+			assertEquals(s.getObjectiveValue(), ws.getObjectiveValue());
+			CPSolver best = ws.getSolutionWorker();
+			assertNotNull(best);
+			assertEquals(s.getObjectiveValue().intValue(), ((IntDomainVar) best.getObjective()).getVal());
+			assertTrue(best.checkSolution());
+		}
+	}
+
+	@Test
+	public void testMaximize() {
+		CPModel m = new CPModel();
+		IntegerVariable v1 = makeIntVar("v1", 1, 10);
+		IntegerVariable v2 = makeIntVar("v2", -3, 10);
+		IntegerVariable v3 = makeIntVar("v3", 1, 10);
+		IntegerVariable obj = makeIntVar("objectif", -10, 1000, "cp:bound");
+		m.addConstraint(eq(sum(v1, v2, v3), obj));
+		WorkStealingSolver ws = new WorkStealingSolver(m, 3);
+		assertEquals(Boolean.TRUE, ws.maximize(obj));
+		assertTrue(ws.isObjectiveOptimal());
+		assertEquals(30, ws.getObjectiveValue().intValue());
+	}
+}
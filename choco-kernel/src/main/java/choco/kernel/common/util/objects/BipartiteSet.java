@@ -185,6 +185,24 @@ public final class BipartiteSet<E> {
     }
 
 
+    /**
+     * Removes an object from the set.
+     */
+
+    public void remove(E object) {
+        if (!indices.containsKey(object)) {
+            if (LOGGER.isLoggable(Level.SEVERE)) {
+                LOGGER.logp(Level.SEVERE, "BipartiteSet", "remove", "bipartite set does not contain " + object);
+            }
+        } else {
+            moveRight(object);
+            swap(indices.get(object), size - 1);
+            indices.remove(object);
+            objects[--size] = null;
+        }
+    }
+
+
     /**
      * Adds an object to the left part of the set.
      */
@@ -55,10 +55,41 @@ public abstract class AbstractEnvironment implements IEnvironment {
      */
     protected int nextOffset;
 
+    /**
+     * Budget on the memory footprint (no budget if non positive).
+     */
+    protected long memoryBudget = 0;
+
     public final int getWorldIndex() {
         return currentWorld;
     }
 
+    private static final TrailStatistics[] NO_STATISTICS = new TrailStatistics[0];
+
+    public TrailStatistics[] getTrailStatistics() {
+        return NO_STATISTICS;
+    }
+
+    public long getMemoryFootprint() {
+        long footprint = 0;
+        for (TrailStatistics stats : getTrailStatistics()) {
+            footprint += stats.getMemoryFootprint();
+        }
+        return footprint;
+    }
+
+    public void setMemoryBudget(long budget) {
+        this.memoryBudget = budget;
+    }
+
+    public final long getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    public final boolean isMemoryBudgetExceeded() {
+        return memoryBudget > 0 && getMemoryFootprint() >= memoryBudget;
+    }
+
  
     public final void createSharedBipartiteSet(int size){
         currentBitSet = makeBipartiteSet(size);
@@ -79,6 +79,36 @@ public interface IEnvironment {
      */
     void clear();
 
+    /**
+     * Returns the statistics of the trails (or of any structure storing past values).
+     * @return one snapshot per trail, possibly empty
+     */
+    TrailStatistics[] getTrailStatistics();
+
+    /**
+     * Estimates the memory (in bytes) held by the structures storing past values.
+     * @return the memory footprint of the environment
+     */
+    long getMemoryFootprint();
+
+    /**
+     * Sets a budget on the memory footprint of the environment.
+     * Close to the budget, the environment releases the unused capacity of its trails when backtracking.
+     * @param budget the budget in bytes, or a non positive value for no budget
+     */
+    void setMemoryBudget(long budget);
+
+    /**
+     * @return the budget on the memory footprint, or a non positive value if there is no budget
+     */
+    long getMemoryBudget();
+
+    /**
+     * Checks whether the memory footprint of the environment has reached its budget.
+     * @return true if there is a budget and the footprint is not below it
+     */
+    boolean isMemoryBudgetExceeded();
+
     /**
      * Factory pattern: new IStateInt objects are created by the environment
      * (no initial value is assigned to the backtrackable search)
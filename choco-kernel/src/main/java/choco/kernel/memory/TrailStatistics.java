@@ -0,0 +1,94 @@
+/**
+ *  Copyright (c) 1999-2010, Ecole des Mines de Nantes
+ *  All rights reserved.
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *      * Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *      * Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *      * Neither the name of the Ecole des Mines de Nantes nor the
+ *        names of its contributors may be used to endorse or promote products
+ *        derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ *  EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package choco.kernel.memory;
+
+/**
+ * A snapshot of the occupation of a trail: the numbers of saved past values
+ * (current and highest), the capacity of the stacks and an estimate of their size in bytes.
+ */
+public final class TrailStatistics {
+
+	private final String name;
+
+	private final int size;
+
+	private final int peakSize;
+
+	private final int capacity;
+
+	private final long memoryFootprint;
+
+	public TrailStatistics(String name, int size, int peakSize, int capacity, long memoryFootprint) {
+		this.name = name;
+		this.size = size;
+		this.peakSize = peakSize;
+		this.capacity = capacity;
+		this.memoryFootprint = memoryFootprint;
+	}
+
+	/**
+	 * @return the name of the trail
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return the current number of saved past values
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * @return the highest number of saved past values
+	 */
+	public int getPeakSize() {
+		return peakSize;
+	}
+
+	/**
+	 * @return the number of past values that can be saved without resizing
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * @return the estimated size of the trail in bytes
+	 */
+	public long getMemoryFootprint() {
+		return memoryFootprint;
+	}
+
+	@Override
+	public String toString() {
+		return name + ": " + size + " entries (peak " + peakSize + ", capacity " + capacity + "), "
+				+ memoryFootprint + " bytes";
+	}
+}
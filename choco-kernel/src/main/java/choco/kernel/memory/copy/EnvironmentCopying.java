@@ -33,34 +33,64 @@ import java.util.Stack;
 
 import static choco.kernel.memory.copy.RecomputableElement.NB_TYPE;
 
+/**
+ * An environment which copies the whole state at each world push.
+ * <p/>
+ * All the data are held by the instance, so several environments (and solvers) can live in the same JVM.
+ * The values of the stored scalars (int, bool, long, double) are kept in one flat primitive array per type,
+ * so that a snapshot is a single <code>System.arraycopy</code> per type.
+ * Vectors and objects are still copied element by element (see {@link RcSave}).
+ */
 public class EnvironmentCopying extends AbstractEnvironment {
 
+    private static final int INITIAL_CAPACITY = 64;
+
+    private boolean newEl = false;
+
+    protected final Stack<Integer> clonedWorldIdxStack;
 
     /**
-	 * The current world number (should be less
-	 * than <code>maxWorld</code>).
-	 */
+     * Recomputable vectors and objects, by type.
+     */
+    public final RecomputableElement[][] elements;
 
-	private boolean newEl = false;
+    /**
+     * Number of recomputable vectors and objects, by type.
+     */
+    public final int[] indices;
 
-    protected final static Stack<Integer> clonedWorldIdxStack;
-    public static RecomputableElement[][] elements;
-    public static int[] indices;
-	private static RcSave save;
+    /**
+     * Flat values of the stored scalars.
+     */
+    int[] intValues;
+    boolean[] boolValues;
+    long[] longValues;
+    double[] doubleValues;
 
-	public int nbCopy = 0 ;
+    /**
+     * Number of stored scalars, by type.
+     */
+    int nbInts, nbBools, nbLongs, nbDoubles;
 
+    /**
+     * Indices (in {@link #intValues}) and procedures of the stored integers with procedure.
+     */
+    int[] procedureIdx = new int[0];
+    IStateIntProcedure[] procedures = new IStateIntProcedure[0];
 
-    static{
-        elements = new RecomputableElement[NB_TYPE][64];
-        indices = new int[NB_TYPE];
-        clonedWorldIdxStack = new Stack<Integer>();
-    }
+    private final RcSave save;
+
+	public int nbCopy = 0 ;
 
 
 	public EnvironmentCopying() {
-        for(int i = NB_TYPE; --i>=0;)indices[i] = 0;
-        clonedWorldIdxStack.clear();
+        elements = new RecomputableElement[NB_TYPE][INITIAL_CAPACITY];
+        indices = new int[NB_TYPE];
+        clonedWorldIdxStack = new Stack<Integer>();
+        intValues = new int[INITIAL_CAPACITY];
+        boolValues = new boolean[INITIAL_CAPACITY];
+        longValues = new long[INITIAL_CAPACITY];
+        doubleValues = new double[INITIAL_CAPACITY];
         save = new RcSave(this);
 	}
 
@@ -76,16 +106,80 @@ public class EnvironmentCopying extends AbstractEnvironment {
 
     private void ensureCapacity(int type, int n) {
         if (n > elements[type].length) {
-          int newSize = elements[type].length;
-          while (n >= newSize) {
-              newSize = (3 * newSize) / 2;
-          }
           RecomputableElement[] oldElements = elements[type];
-          elements[type] = new RecomputableElement[newSize];
+          elements[type] = new RecomputableElement[newSize(oldElements.length, n)];
           System.arraycopy(oldElements, 0, elements[type], 0, oldElements.length);
       }
     }
 
+    private static int newSize(int length, int n) {
+        int newSize = length;
+        while (n >= newSize) {
+            newSize = (3 * newSize) / 2;
+        }
+        return newSize;
+    }
+
+    /**
+     * Allocates a new stored integer.
+     * @param value initial value
+     * @return its index in the flat array of integers
+     */
+    int addInt(int value) {
+        if (nbInts == intValues.length) {
+            final int[] tmp = new int[newSize(intValues.length, nbInts + 1)];
+            System.arraycopy(intValues, 0, tmp, 0, nbInts);
+            intValues = tmp;
+        }
+        intValues[nbInts] = value;
+        return nbInts++;
+    }
+
+    /**
+     * Registers the procedure to apply when the integer at <code>index</code> is restored.
+     */
+    void addProcedure(int index, IStateIntProcedure procedure) {
+        final int n = procedureIdx.length;
+        final int[] tmp1 = new int[n + 1];
+        System.arraycopy(procedureIdx, 0, tmp1, 0, n);
+        tmp1[n] = index;
+        procedureIdx = tmp1;
+        final IStateIntProcedure[] tmp2 = new IStateIntProcedure[n + 1];
+        System.arraycopy(procedures, 0, tmp2, 0, n);
+        tmp2[n] = procedure;
+        procedures = tmp2;
+    }
+
+    int addBool(boolean value) {
+        if (nbBools == boolValues.length) {
+            final boolean[] tmp = new boolean[newSize(boolValues.length, nbBools + 1)];
+            System.arraycopy(boolValues, 0, tmp, 0, nbBools);
+            boolValues = tmp;
+        }
+        boolValues[nbBools] = value;
+        return nbBools++;
+    }
+
+    int addLong(long value) {
+        if (nbLongs == longValues.length) {
+            final long[] tmp = new long[newSize(longValues.length, nbLongs + 1)];
+            System.arraycopy(longValues, 0, tmp, 0, nbLongs);
+            longValues = tmp;
+        }
+        longValues[nbLongs] = value;
+        return nbLongs++;
+    }
+
+    int addDouble(double value) {
+        if (nbDoubles == doubleValues.length) {
+            final double[] tmp = new double[newSize(doubleValues.length, nbDoubles + 1)];
+            System.arraycopy(doubleValues, 0, tmp, 0, nbDoubles);
+            doubleValues = tmp;
+        }
+        doubleValues[nbDoubles] = value;
+        return nbDoubles++;
+    }
+
     @Override
 	public void worldPush() {
 		if (newEl) {
@@ -120,11 +214,16 @@ public class EnvironmentCopying extends AbstractEnvironment {
 		clonedWorldIdxStack.pop();
 	}
 
+    /**
+     * Forgets the recomputable vectors and objects and the saved worlds.
+     * The stored scalars are kept (they may still be referenced by the solver).
+     */
     @Override
     public void clear() {
         for(int i = NB_TYPE; --i>=0;){
             indices[i] = 0;
         }
+        newEl = true;
         clonedWorldIdxStack.clear();
         save.clear();
     }
@@ -39,33 +39,32 @@ import choco.kernel.memory.IStateBool;
  */
 public final class RcBool implements IStateBool, RecomputableElement {
 
-    private EnvironmentCopying environment;
-    private boolean currentValue;
-    private int timeStamp;
+    private final EnvironmentCopying environment;
+
+    /**
+     * Index of the value in the flat array of booleans of the environment.
+     */
+    private final int index;
 
     public RcBool(EnvironmentCopying env, boolean b) {
         environment = env;
-        currentValue = b;
-        environment.add(this);
-        timeStamp = env.getWorldIndex();
+        index = env.addBool(b);
     }
 
     public boolean get() {
-        return currentValue;
+        return environment.boolValues[index];
     }
 
     public void set(boolean b) {
-        timeStamp = environment.getWorldIndex();
-        currentValue = b ;
+        environment.boolValues[index] = b;
     }
 
     public void _set(boolean b, int timeStamp) {
-        this.timeStamp = timeStamp;
-        currentValue = b ;
+        environment.boolValues[index] = b;
     }
 
     public boolean deepCopy() {
-        return currentValue;
+        return get();
     }
 
     public IEnvironment getEnvironment() {
@@ -77,6 +76,6 @@ public final class RcBool implements IStateBool, RecomputableElement {
     }
 
     public int getTimeStamp() {
-        return timeStamp;
+        return environment.getWorldIndex();
     }
 }
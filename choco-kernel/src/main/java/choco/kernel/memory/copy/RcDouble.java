@@ -41,35 +41,33 @@ import choco.kernel.memory.IStateDouble;
 public final class RcDouble implements IStateDouble, RecomputableElement {
 
     private final EnvironmentCopying environment;
-    private double currentValue;
-    private int timeStamp;
+
+    /**
+     * Index of the value in the flat array of doubles of the environment.
+     */
+    private final int index;
 
     public RcDouble(EnvironmentCopying env) {
-        this(env,Double.MAX_VALUE);
+        this(env, Double.MAX_VALUE);
     }
 
     public RcDouble(EnvironmentCopying env, double i ) {
         environment = env;
-        currentValue= i;
-        environment.add(this);
-        timeStamp = environment.getWorldIndex();
+        index = env.addDouble(i);
     }
 
-
     @Override
 	public double add(double delta) {
-		set(currentValue + delta);
-        return currentValue;
+		return environment.doubleValues[index] += delta;
 	}
 
 	@Override
 	public double get() {
-		return currentValue;
+		return environment.doubleValues[index];
 	}
 
 	public void set(double y) {
-        currentValue = y;
-        timeStamp = environment.getWorldIndex();
+        environment.doubleValues[index] = y;
     }
 
     	/**
@@ -80,8 +78,7 @@ public final class RcDouble implements IStateDouble, RecomputableElement {
 	 */
 
 	protected void _set(final double y, final int wstamp) {
-		currentValue = y;
-		timeStamp = wstamp;
+		environment.doubleValues[index] = y;
 	}
 
     public IEnvironment getEnvironment() {
@@ -89,21 +86,19 @@ public final class RcDouble implements IStateDouble, RecomputableElement {
     }
 
     public double deepCopy() {
-        return currentValue;
+        return get();
     }
 
-
-
     public int getType() {
         return DOUBLE;
     }
 
     public int getTimeStamp() {
-        return timeStamp;
+        return environment.getWorldIndex();
     }
 
     @Override
 	public String toString() {
-		return String.valueOf(currentValue);
+		return String.valueOf(get());
 	}
-}
\ No newline at end of file
+}
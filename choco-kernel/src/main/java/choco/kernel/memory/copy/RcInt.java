@@ -40,9 +40,12 @@ import choco.kernel.memory.IStateInt;
  */
 public class RcInt implements IStateInt, RecomputableElement {
 
-    private final EnvironmentCopying environment;
-    private int currentValue;
-    private int timeStamp;
+    protected final EnvironmentCopying environment;
+
+    /**
+     * Index of the value in the flat array of integers of the environment.
+     */
+    protected final int index;
 
     public RcInt(EnvironmentCopying env) {
         this(env,0);
@@ -50,43 +53,35 @@ public class RcInt implements IStateInt, RecomputableElement {
 
     public RcInt(EnvironmentCopying env, int i ) {
         environment = env;
-        currentValue= i;
-        environment.add(this);
-        timeStamp = environment.getWorldIndex();
+        index = env.addInt(i);
     }
 
     
    
     @Override
 	public final int add(int delta) {
-    	timeStamp = environment.getWorldIndex();
-    	currentValue += delta;
-    	return currentValue;
+    	return environment.intValues[index] += delta;
 	}
 
     
 
 	@Override
 	public int increment() {
-		timeStamp = environment.getWorldIndex();
-		return ++currentValue;
+		return ++environment.intValues[index];
 	}
 
 	@Override
 	public int decrement() {
-		timeStamp = environment.getWorldIndex();
-		return --currentValue;
+		return --environment.intValues[index];
 	}
 
 	@Override
 	public final int get() {
-		return currentValue;
+		return environment.intValues[index];
 	}
 
 	public final void set(int y) {
-        //if (y != currentValue)
-        currentValue = y;
-        timeStamp = environment.getWorldIndex();
+        environment.intValues[index] = y;
     }
 
     	/**
@@ -97,8 +92,7 @@ public class RcInt implements IStateInt, RecomputableElement {
 	 */
 
 	protected void _set(final int y, final int wstamp) {
-		currentValue = y;
-		timeStamp = wstamp;
+		environment.intValues[index] = y;
 	}
 
     public final IEnvironment getEnvironment() {
@@ -106,7 +100,7 @@ public class RcInt implements IStateInt, RecomputableElement {
     }
 
     public final int deepCopy() {
-        return currentValue;
+        return get();
     }
 
     
@@ -115,12 +109,15 @@ public class RcInt implements IStateInt, RecomputableElement {
         return INT;
     }
 
+    /**
+     * The value is copied at each world, whatever its last modification.
+     */
     public final int getTimeStamp() {
-        return timeStamp;
+        return environment.getWorldIndex();
     }
     
     @Override
 	public final String toString() {
-		return String.valueOf(currentValue);
+		return String.valueOf(get());
 	}
 }
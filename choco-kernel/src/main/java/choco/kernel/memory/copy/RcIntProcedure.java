@@ -43,6 +43,7 @@ public final class RcIntProcedure extends RcInt {
 	public RcIntProcedure(EnvironmentCopying env, IStateIntProcedure procedure, int i) {
 		super(env, i);
 		this.procedure = procedure;
+		env.addProcedure(index, procedure);
 	}
 
 	@Override
@@ -52,4 +53,4 @@ public final class RcIntProcedure extends RcInt {
 	}
 
 
-}
\ No newline at end of file
+}
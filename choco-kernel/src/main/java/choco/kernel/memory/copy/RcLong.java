@@ -41,8 +41,11 @@ import choco.kernel.memory.IStateLong;
 public final class RcLong implements IStateLong, RecomputableElement {
 
     private final EnvironmentCopying environment;
-    private long currentValue;
-    private int timeStamp;
+
+    /**
+     * Index of the value in the flat array of longs of the environment.
+     */
+    private final int index;
 
     public RcLong(EnvironmentCopying env) {
         this(env, UNKNOWN_LONG);
@@ -50,26 +53,21 @@ public final class RcLong implements IStateLong, RecomputableElement {
 
     public RcLong(EnvironmentCopying env, long i ) {
         environment = env;
-        currentValue= i;
-        environment.add(this);
-        timeStamp = environment.getWorldIndex();
+        index = env.addLong(i);
     }
 
-
     @Override
 	public long add(long delta) {
-		set(currentValue + delta);
-        return currentValue;
+		return environment.longValues[index] += delta;
 	}
 
 	@Override
 	public long get() {
-		return currentValue;
+		return environment.longValues[index];
 	}
 
 	public void set(long y) {
-        currentValue = y;
-        timeStamp = environment.getWorldIndex();
+        environment.longValues[index] = y;
     }
 
     	/**
@@ -80,8 +78,7 @@ public final class RcLong implements IStateLong, RecomputableElement {
 	 */
 
 	protected void _set(final long y, final int wstamp) {
-		currentValue = y;
-		timeStamp = wstamp;
+		environment.longValues[index] = y;
 	}
 
     public IEnvironment getEnvironment() {
@@ -89,21 +86,19 @@ public final class RcLong implements IStateLong, RecomputableElement {
     }
 
     public long deepCopy() {
-        return currentValue;
+        return get();
     }
 
-
-
     public int getType() {
         return LONG;
     }
 
     public int getTimeStamp() {
-        return timeStamp;
+        return environment.getWorldIndex();
     }
 
     @Override
 	public String toString() {
-		return String.valueOf(currentValue);
+		return String.valueOf(get());
 	}
-}
\ No newline at end of file
+}
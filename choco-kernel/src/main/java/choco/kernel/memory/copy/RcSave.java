@@ -27,8 +27,6 @@
 
 package choco.kernel.memory.copy;
 
-import gnu.trove.TIntObjectHashMap;
-
 /*
  * Created by IntelliJ IDEA.
  * User: Julien
@@ -38,164 +36,209 @@ import gnu.trove.TIntObjectHashMap;
  */
 public final class RcSave implements RecomputableElement {
 
+    private final EnvironmentCopying environment;
+
     public RecomputableElement[][] currentElement;
     private int lastSavedWorldIndex;
 
-
-
-    private static TIntObjectHashMap<int []> saveInt;
-    private static TIntObjectHashMap<Object[][]> saveVector;
-    private static TIntObjectHashMap<int[][]> saveIntVector;
-    private static TIntObjectHashMap<boolean[]> saveBool;
-    private static TIntObjectHashMap<long []> saveLong;
-    private static TIntObjectHashMap<double []> saveDouble;
-    private static TIntObjectHashMap<Object []> saveObject;
-
-    static {
-        saveInt = new TIntObjectHashMap<int []>();
-        saveVector = new TIntObjectHashMap<Object[][]>();
-        saveIntVector = new TIntObjectHashMap<int[][]>();
-        saveBool = new TIntObjectHashMap<boolean[]>();
-        saveLong = new TIntObjectHashMap<long[]>();
-        saveDouble = new TIntObjectHashMap<double[]>();
-        saveObject = new TIntObjectHashMap<Object[]>();
-    }
+    /**
+     * Snapshots of the flat arrays of scalars, indexed by world.
+     * The buffers are reused from one dive to another.
+     */
+    private int[][] saveInt;
+    private boolean[][] saveBool;
+    private long[][] saveLong;
+    private double[][] saveDouble;
+
+    /**
+     * Snapshots of the vectors and objects, indexed by world.
+     */
+    private Object[][][] saveVector;
+    private int[][][] saveIntVector;
+    private long[][][] saveLongVector;
+    private double[][][] saveDoubleVector;
+    private Object[][] saveObject;
 
 
     public RcSave(EnvironmentCopying env) {
+        environment = env;
         lastSavedWorldIndex = env.getWorldIndex();
-
+        currentElement = new RecomputableElement[NB_TYPE][0];
         clear();
     }
 
     public void clear(){
+        final int n = 64;
+        saveInt = new int[n][];
+        saveBool = new boolean[n][];
+        saveLong = new long[n][];
+        saveDouble = new double[n][];
+        saveVector = new Object[n][][];
+        saveIntVector = new int[n][][];
+        saveLongVector = new long[n][][];
+        saveDoubleVector = new double[n][][];
+        saveObject = new Object[n][];
+    }
 
-        saveInt.clear();
-        saveVector.clear();
-        saveIntVector.clear();
-        saveBool.clear();
-        saveLong.clear();
-        saveDouble.clear();
-        saveObject.clear();
+    private void ensureWorldCapacity(int worldIndex) {
+        if (worldIndex >= saveInt.length) {
+            final int n = Math.max(worldIndex + 1, (saveInt.length * 3) / 2);
+            int[][] tmpint = new int[n][];
+            System.arraycopy(saveInt, 0, tmpint, 0, saveInt.length);
+            saveInt = tmpint;
+            boolean[][] tmpbool = new boolean[n][];
+            System.arraycopy(saveBool, 0, tmpbool, 0, saveBool.length);
+            saveBool = tmpbool;
+            long[][] tmplong = new long[n][];
+            System.arraycopy(saveLong, 0, tmplong, 0, saveLong.length);
+            saveLong = tmplong;
+            double[][] tmpdouble = new double[n][];
+            System.arraycopy(saveDouble, 0, tmpdouble, 0, saveDouble.length);
+            saveDouble = tmpdouble;
+            Object[][][] tmpvec = new Object[n][][];
+            System.arraycopy(saveVector, 0, tmpvec, 0, saveVector.length);
+            saveVector = tmpvec;
+            int[][][] tmpintvec = new int[n][][];
+            System.arraycopy(saveIntVector, 0, tmpintvec, 0, saveIntVector.length);
+            saveIntVector = tmpintvec;
+            long[][][] tmplongvec = new long[n][][];
+            System.arraycopy(saveLongVector, 0, tmplongvec, 0, saveLongVector.length);
+            saveLongVector = tmplongvec;
+            double[][][] tmpdoublevec = new double[n][][];
+            System.arraycopy(saveDoubleVector, 0, tmpdoublevec, 0, saveDoubleVector.length);
+            saveDoubleVector = tmpdoublevec;
+            Object[][] tmpobject = new Object[n][];
+            System.arraycopy(saveObject, 0, tmpobject, 0, saveObject.length);
+            saveObject = tmpobject;
+        }
     }
 
     public void save(int worldIndex) {
         if (lastSavedWorldIndex >= worldIndex)
             lastSavedWorldIndex = 0;
+        ensureWorldCapacity(worldIndex);
+
+        // scalars: one bulk copy per type
+        int[] tmpint = saveInt[worldIndex];
+        if (tmpint == null || tmpint.length != environment.nbInts) {
+            tmpint = saveInt[worldIndex] = new int[environment.nbInts];
+        }
+        System.arraycopy(environment.intValues, 0, tmpint, 0, tmpint.length);
 
-        boolean [] tmpbool =  new boolean[currentElement[BOOL].length];
-        for (int i = currentElement[BOOL].length ; --i>=0; ) {
-            tmpbool[i] = ((RcBool) currentElement[BOOL][i]).deepCopy();
+        boolean[] tmpbool = saveBool[worldIndex];
+        if (tmpbool == null || tmpbool.length != environment.nbBools) {
+            tmpbool = saveBool[worldIndex] = new boolean[environment.nbBools];
         }
-        saveBool.put(worldIndex,tmpbool);
+        System.arraycopy(environment.boolValues, 0, tmpbool, 0, tmpbool.length);
 
-        int [] tmpint = new int [currentElement[INT].length];
-        for (int i = currentElement[INT].length ; --i>=0; ) {
-            tmpint[i] = ((RcInt) currentElement[INT][i]).deepCopy();
+        long[] tmplong = saveLong[worldIndex];
+        if (tmplong == null || tmplong.length != environment.nbLongs) {
+            tmplong = saveLong[worldIndex] = new long[environment.nbLongs];
         }
-        saveInt.put(worldIndex,tmpint);
+        System.arraycopy(environment.longValues, 0, tmplong, 0, tmplong.length);
 
+        double[] tmpdouble = saveDouble[worldIndex];
+        if (tmpdouble == null || tmpdouble.length != environment.nbDoubles) {
+            tmpdouble = saveDouble[worldIndex] = new double[environment.nbDoubles];
+        }
+        System.arraycopy(environment.doubleValues, 0, tmpdouble, 0, tmpdouble.length);
+
+        // vectors and objects: the copy of the last saved world is shared if the element did not change since
+        final boolean share = worldIndex != 0;
         Object[][] tmpvec = new Object[currentElement[VECTOR].length][];
         for (int i = currentElement[VECTOR].length ; --i>=0; ) {
-            if (worldIndex != 0 && lastSavedWorldIndex >= (currentElement[VECTOR][i]).getTimeStamp() )
-                tmpvec[i] = saveVector.get(lastSavedWorldIndex)[i];
+            if (share && lastSavedWorldIndex >= (currentElement[VECTOR][i]).getTimeStamp() )
+                tmpvec[i] = saveVector[lastSavedWorldIndex][i];
             else
                 tmpvec[i] = ((RcVector) currentElement[VECTOR][i]).deepCopy();
         }
-        saveVector.put(worldIndex,tmpvec);
+        saveVector[worldIndex] = tmpvec;
 
         int[][] tmpintvec = new int [currentElement[INTVECTOR].length][];
         for (int i = currentElement[INTVECTOR].length ; --i>=0; ) {
-            if (worldIndex != 0 && lastSavedWorldIndex >= (currentElement[INTVECTOR][i]).getTimeStamp() )
-                tmpintvec[i] = saveIntVector.get(lastSavedWorldIndex)[i];
+            if (share && lastSavedWorldIndex >= (currentElement[INTVECTOR][i]).getTimeStamp() )
+                tmpintvec[i] = saveIntVector[lastSavedWorldIndex][i];
             else
                 tmpintvec[i] = ((RcIntVector) currentElement[INTVECTOR][i]).deepCopy();
         }
-        saveIntVector.put(worldIndex,tmpintvec);
+        saveIntVector[worldIndex] = tmpintvec;
 
-        long [] tmplong = new long [currentElement[LONG].length];
-        for (int i = currentElement[LONG].length ; --i>=0; ) {
-            tmplong[i] = ((RcLong) currentElement[LONG][i]).deepCopy();
+        long[][] tmplongvec = new long [currentElement[LONGVECTOR].length][];
+        for (int i = currentElement[LONGVECTOR].length ; --i>=0; ) {
+            if (share && lastSavedWorldIndex >= (currentElement[LONGVECTOR][i]).getTimeStamp() )
+                tmplongvec[i] = saveLongVector[lastSavedWorldIndex][i];
+            else
+                tmplongvec[i] = ((RcLongVector) currentElement[LONGVECTOR][i]).deepCopy();
         }
-        saveLong.put(worldIndex,tmplong);
+        saveLongVector[worldIndex] = tmplongvec;
 
-        double[] tmpdouble = new double [currentElement[DOUBLE].length];
-        for (int i = currentElement[DOUBLE].length ; --i>=0; ) {
-            tmpdouble[i] = ((RcDouble) currentElement[DOUBLE][i]).deepCopy();
+        double[][] tmpdoublevec = new double [currentElement[DOUBLEVECTOR].length][];
+        for (int i = currentElement[DOUBLEVECTOR].length ; --i>=0; ) {
+            if (share && lastSavedWorldIndex >= (currentElement[DOUBLEVECTOR][i]).getTimeStamp() )
+                tmpdoublevec[i] = saveDoubleVector[lastSavedWorldIndex][i];
+            else
+                tmpdoublevec[i] = ((RcDoubleVector) currentElement[DOUBLEVECTOR][i]).deepCopy();
         }
-        saveDouble.put(worldIndex,tmpdouble);
+        saveDoubleVector[worldIndex] = tmpdoublevec;
 
         Object[] tmpobject = new Object[currentElement[OBJECT].length];
         for (int i = currentElement[OBJECT].length ; --i>=0; ) {
-            if (worldIndex != 0 && lastSavedWorldIndex >= (currentElement[OBJECT][i]).getTimeStamp() )
-                tmpobject[i] = saveObject.get(lastSavedWorldIndex)[i];
+            if (share && lastSavedWorldIndex >= (currentElement[OBJECT][i]).getTimeStamp() )
+                tmpobject[i] = saveObject[lastSavedWorldIndex][i];
             else
                 tmpobject[i] = ((RcObject) currentElement[OBJECT][i]).deepCopy();
         }
-        saveObject.put(worldIndex,tmpobject);
-
+        saveObject[worldIndex] = tmpobject;
 
         lastSavedWorldIndex = worldIndex;
-
-
     }
 
     public void restore(int worldIndex) {
-        boolean[] tmpbool = saveBool.get(worldIndex);
-        int[] tmpint = saveInt.get(worldIndex);
-        Object[][] tmpvec = saveVector.get(worldIndex);
-        int[][] tmpintvec = saveIntVector.get(worldIndex);
-        long[] tmplong = saveLong.get(worldIndex);
-        double[] tmpdouble = saveDouble.get(worldIndex);
-        Object[] tmpobject = saveObject.get(worldIndex);
-        //saveVector.remove(worldIndex);
-
-        for (int i = tmpbool.length ; --i>=0; )
-            ((RcBool) currentElement[BOOL][i])._set(tmpbool[i], worldIndex);
-        for (int i = tmpint.length ; --i >=0 ; )
-            ((RcInt) currentElement[INT][i])._set(tmpint[i], worldIndex);
+        final int[] tmpint = saveInt[worldIndex];
+        final int[] procedureIdx = environment.procedureIdx;
+        for (int i = procedureIdx.length; --i >= 0;) {
+            final int idx = procedureIdx[i];
+            if (idx < tmpint.length && environment.intValues[idx] != tmpint[idx]) {
+                environment.procedures[i].apply(environment.intValues[idx], tmpint[idx]);
+            }
+        }
+        System.arraycopy(tmpint, 0, environment.intValues, 0, tmpint.length);
+        System.arraycopy(saveBool[worldIndex], 0, environment.boolValues, 0, saveBool[worldIndex].length);
+        System.arraycopy(saveLong[worldIndex], 0, environment.longValues, 0, saveLong[worldIndex].length);
+        System.arraycopy(saveDouble[worldIndex], 0, environment.doubleValues, 0, saveDouble[worldIndex].length);
+
+        final Object[][] tmpvec = saveVector[worldIndex];
         for (int i = tmpvec.length ; --i>=0;)
             ((RcVector) currentElement[VECTOR][i])._set(tmpvec[i], worldIndex);
+        final int[][] tmpintvec = saveIntVector[worldIndex];
         for (int i = tmpintvec.length ; --i>=0;)
             ((RcIntVector) currentElement[INTVECTOR][i])._set(tmpintvec[i], worldIndex);
-        for (int i = tmplong.length ; --i>=0;)
-            ((RcLong) currentElement[LONG][i])._set(tmplong[i], worldIndex);
-        for (int i = tmpdouble.length ; --i>=0;)
-            ((RcDouble) currentElement[DOUBLE][i])._set(tmpdouble[i], worldIndex);
+        final long[][] tmplongvec = saveLongVector[worldIndex];
+        for (int i = tmplongvec.length ; --i>=0;)
+            ((RcLongVector) currentElement[LONGVECTOR][i])._set(tmplongvec[i], worldIndex);
+        final double[][] tmpdoublevec = saveDoubleVector[worldIndex];
+        for (int i = tmpdoublevec.length ; --i>=0;)
+            ((RcDoubleVector) currentElement[DOUBLEVECTOR][i])._set(tmpdoublevec[i], worldIndex);
+        final Object[] tmpobject = saveObject[worldIndex];
         for (int i = tmpobject.length ; --i>=0;)
             ((RcObject) currentElement[OBJECT][i])._set(tmpobject[i], worldIndex);
 
-        if (worldIndex == 0)
-            clearMaps();
-        else
-            remove(worldIndex+1);
-  //          removeLast();
-
-
+        remove(worldIndex+1);
     }
 
+    /**
+     * Releases the copies of vectors and objects of a world (scalar buffers are kept for reuse).
+     */
     public void remove(int worldIndex) {
-        saveInt.remove(worldIndex);
-        saveVector.remove(worldIndex);
-        saveIntVector.remove(worldIndex);
-        saveBool.remove(worldIndex);
-        saveLong.remove(worldIndex);
-        saveDouble.remove(worldIndex);
-        saveObject.remove(worldIndex);
-    }
-
-
-    private void clearMaps() {
-        saveInt.clear();
-        saveVector.clear();
-        saveIntVector.clear();
-        saveBool.clear();
-        saveLong.clear();
-        saveDouble.clear();
-        saveObject.clear();
+        if (worldIndex < saveVector.length) {
+            saveVector[worldIndex] = null;
+            saveIntVector[worldIndex] = null;
+            saveLongVector[worldIndex] = null;
+            saveDoubleVector[worldIndex] = null;
+            saveObject[worldIndex] = null;
+        }
     }
 
-
     public int getType() {
         return -1;
     }
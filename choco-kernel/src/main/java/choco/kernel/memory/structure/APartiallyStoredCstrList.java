@@ -110,6 +110,15 @@ public abstract class APartiallyStoredCstrList<C extends SConstraint> {
         return idx;
 	}
 
+    /**
+	 * Removes a constraint from the propagation lists of the variable until backtracking
+	 * (the constraint is entailed).
+	 * By default, nothing is done: the iterators skip the inactive constraints.
+	 * @param constraintIdx index of the constraint
+	 */
+	public void deactivateConstraint(final int constraintIdx) {
+	}
+
     /**
 	 * Adds a new constraints on the stack of constraints
 	 * the addition can be dynamic (undone upon backtracking) or not.
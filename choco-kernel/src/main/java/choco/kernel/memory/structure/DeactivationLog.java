@@ -0,0 +1,95 @@
+/**
+ *  Copyright (c) 1999-2010, Ecole des Mines de Nantes
+ *  All rights reserved.
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *      * Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *      * Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *      * Neither the name of the Ecole des Mines de Nantes nor the
+ *        names of its contributors may be used to endorse or promote products
+ *        derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ *  EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package choco.kernel.memory.structure;
+
+import choco.kernel.memory.IEnvironment;
+import choco.kernel.memory.IStateInt;
+import choco.kernel.memory.IStateIntProcedure;
+
+/**
+ * Backtrackable log of the deactivations of values in {@link PartiallyStoredIntVector}s.
+ * <p/>
+ * Each deactivation swaps a value into the inactive prefix of its vector and is recorded here.
+ * The number of recorded deactivations is a stored integer: when it is restored upon backtracking,
+ * the swaps are undone in reverse order.
+ * <p/>
+ * The log must be created before the search starts, since the stored integer must exist in
+ * every world where a deactivation may be undone.
+ */
+public final class DeactivationLog implements IStateIntProcedure {
+
+    private final IStateInt size;
+
+    private PartiallyStoredIntVector[] vectors;
+
+    private int[] positions;
+
+    public DeactivationLog(final IEnvironment env) {
+        size = env.makeIntProcedure(this, 0);
+    }
+
+    /**
+     * Records a deactivation.
+     *
+     * @param vector the vector
+     * @param from   global index of the position the deactivated value has been moved from
+     */
+    void add(final PartiallyStoredIntVector vector, final int from) {
+        final int n = size.get();
+        if (vectors == null) {
+            vectors = new PartiallyStoredIntVector[8];
+            positions = new int[8];
+        } else if (n == vectors.length) {
+            final int newSize = n * 3 / 2 + 1;
+            final PartiallyStoredIntVector[] tmpV = new PartiallyStoredIntVector[newSize];
+            System.arraycopy(vectors, 0, tmpV, 0, n);
+            vectors = tmpV;
+            final int[] tmpP = new int[newSize];
+            System.arraycopy(positions, 0, tmpP, 0, n);
+            positions = tmpP;
+        }
+        vectors[n] = vector;
+        positions[n] = from;
+        size.set(n + 1);
+    }
+
+    /**
+     * @return the number of deactivations not undone yet
+     */
+    public int size() {
+        return size.get();
+    }
+
+    @Override
+    public void apply(final int oldVal, final int newVal) {
+        for (int k = oldVal - 1; k >= newVal; k--) {
+            vectors[k].reactivate(positions[k]);
+            vectors[k] = null;
+        }
+    }
+}
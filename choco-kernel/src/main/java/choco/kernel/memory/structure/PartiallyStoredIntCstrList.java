@@ -32,7 +32,6 @@ import choco.kernel.memory.IEnvironment;
 import choco.kernel.memory.structure.iterators.PSCLEIterator;
 import choco.kernel.solver.constraints.AbstractSConstraint;
 import choco.kernel.solver.constraints.SConstraint;
-import choco.kernel.solver.constraints.integer.AbstractIntSConstraint;
 
 /*
 * User : charles
@@ -47,6 +46,7 @@ public final class PartiallyStoredIntCstrList<C extends AbstractSConstraint> ext
     private final int[] eventTypes;
     private final int[] idxEventTypes;
     private PSCLEIterator<C> _iterator;
+    private final DeactivationLog deactivations;
 
     public PartiallyStoredIntCstrList(IEnvironment env, int... eventTypes) {
         super(env);
@@ -58,6 +58,7 @@ public final class PartiallyStoredIntCstrList<C extends AbstractSConstraint> ext
             events[i] = env.makePartiallyStoredIntVector();
             idxEventTypes[eventTypes[i]] = i;
         }
+        deactivations = new DeactivationLog(env);
     }
 
 
@@ -107,15 +108,23 @@ public final class PartiallyStoredIntCstrList<C extends AbstractSConstraint> ext
      */
     public int eraseConstraint(SConstraint c) {
         int idx = super.eraseConstraint(c);
-        int mask = ((AbstractIntSConstraint) c).getFilteredEventMask(indices.get(idx));
-        for (int evt : eventTypes) {
-            if ((mask & evt) != 0) {
-                events[idxEventTypes[evt]].remove(idx);
-            }
+        //the index of the variable in the constraint is already removed: the constraint is removed from every event
+        for (PartiallyStoredIntVector event : events) {
+            event.removeValue(idx);
         }
         return idx;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void deactivateConstraint(final int constraintIdx) {
+        for (PartiallyStoredIntVector event : events) {
+            event.deactivate(constraintIdx, deactivations);
+        }
+    }
+
     public PartiallyStoredIntVector[] getEventsVector() {
         return events;
     }
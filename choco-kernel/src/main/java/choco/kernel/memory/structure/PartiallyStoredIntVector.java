@@ -42,6 +42,10 @@ import static choco.kernel.common.Constant.*;
  * as if they were in a standard array.
  * And integers with large indices (1000000 ... ) are "stored" in a backtrackable
  * manner, as if they were in a StoredIntVector
+ * <p/>
+ * Values can also be deactivated until backtracking ({@link #deactivate(int, DeactivationLog)}):
+ * they are swapped into an inactive prefix of their part, which the iterator skips.
+ * The swaps are recorded in a {@link DeactivationLog} which undoes them upon backtracking.
  */
 public final class PartiallyStoredIntVector {
 
@@ -52,6 +56,11 @@ public final class PartiallyStoredIntVector {
     private final IStateInt nStoredInts;
     private PSIVIterator _iterator;
 
+    /**
+     * Sizes of the inactive prefixes of the static and stored parts.
+     */
+    private int nInactiveStatic, nInactiveStored;
+
     public PartiallyStoredIntVector(final IEnvironment env) {
         staticInts = new int[INITIAL_STATIC_CAPACITY];
         storedInts = new int[INITIAL_STORED_CAPACITY];
@@ -84,10 +93,98 @@ public final class PartiallyStoredIntVector {
         return STORED_OFFSET + nStoredInts.get() - 1;
     }
 
-    public void remove(final int o) {
-        staticInts[o] = staticInts[nStaticInts];
-        staticInts[nStaticInts] = 0;
-        nStaticInts--;
+    /**
+     * Removes (permanently) the value at a position, as {@link PartiallyStoredVector#remove(Object)} does:
+     * the value is replaced by -1, and the trailing removed positions of its part are released
+     * (but not the deactivated ones).
+     *
+     * @param index global index of the position
+     */
+    public void remove(final int index) {
+        if (index < STORED_OFFSET) {
+            staticInts[index] = -1;
+            while (nStaticInts > nInactiveStatic && staticInts[nStaticInts - 1] == -1) {
+                nStaticInts--;
+            }
+        } else {
+            storedInts[index - STORED_OFFSET] = -1;
+            while (nStoredInts.get() > nInactiveStored && storedInts[nStoredInts.get() - 1] == -1) {
+                nStoredInts.add(-1);
+            }
+        }
+    }
+
+    /**
+     * Removes (permanently) a value, replaced by -1 so that the positions of the other values
+     * (and the swaps of the deactivations) are kept.
+     * The iterators of the constraint lists skip the negative values.
+     *
+     * @param value the value to remove
+     */
+    public void removeValue(final int value) {
+        for (int i = 0; i < nStaticInts; i++) {
+            if (staticInts[i] == value) {
+                staticInts[i] = -1;
+            }
+        }
+        final int n = nStoredInts.get();
+        for (int i = 0; i < n; i++) {
+            if (storedInts[i] == value) {
+                storedInts[i] = -1;
+            }
+        }
+    }
+
+    /**
+     * Deactivates a value until backtracking: it is no more iterated.
+     * While the vector is being iterated, only the values already iterated are deactivated,
+     * so that the iteration neither skips nor repeats a value.
+     *
+     * @param value the value to deactivate
+     * @param log   the log undoing the deactivation upon backtracking
+     */
+    public void deactivate(final int value, final DeactivationLog log) {
+        final int limit = (_iterator != null && !_iterator.reusable()) ? _iterator.getIndex() : Integer.MAX_VALUE;
+        for (int i = nInactiveStatic; i < nStaticInts && i <= limit; i++) {
+            if (staticInts[i] == value) {
+                log.add(this, i);
+                staticInts[i] = staticInts[nInactiveStatic];
+                staticInts[nInactiveStatic++] = value;
+            }
+        }
+        final int n = nStoredInts.get();
+        for (int i = nInactiveStored; i < n && STORED_OFFSET + i <= limit; i++) {
+            if (storedInts[i] == value) {
+                log.add(this, STORED_OFFSET + i);
+                storedInts[i] = storedInts[nInactiveStored];
+                storedInts[nInactiveStored++] = value;
+            }
+        }
+    }
+
+    /**
+     * Undoes the last deactivation of a part.
+     *
+     * @param from global index of the position the deactivated value has been moved from
+     */
+    void reactivate(final int from) {
+        if (from < STORED_OFFSET) {
+            final int tmp = staticInts[--nInactiveStatic];
+            staticInts[nInactiveStatic] = staticInts[from];
+            staticInts[from] = tmp;
+        } else {
+            final int i = from - STORED_OFFSET;
+            final int tmp = storedInts[--nInactiveStored];
+            storedInts[nInactiveStored] = storedInts[i];
+            storedInts[i] = tmp;
+        }
+    }
+
+    /**
+     * @return the number of values deactivated until backtracking
+     */
+    public int getNbDeactivated() {
+        return nInactiveStatic + nInactiveStored;
     }
 
     public void ensureStoredCapacity(final int n) {
@@ -125,7 +222,7 @@ public final class PartiallyStoredIntVector {
             assert false;
             _iterator = new PSIVIterator();
         }
-        _iterator.init(nStaticInts, nStoredInts);
+        _iterator.init(nInactiveStatic, nStaticInts, nInactiveStored, nStoredInts);
         return _iterator;
 
     }
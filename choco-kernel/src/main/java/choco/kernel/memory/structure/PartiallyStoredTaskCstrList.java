@@ -33,7 +33,6 @@ import choco.kernel.memory.IStateInt;
 import choco.kernel.memory.structure.iterators.PSCLEIterator;
 import choco.kernel.solver.constraints.AbstractSConstraint;
 import choco.kernel.solver.constraints.SConstraint;
-import choco.kernel.solver.constraints.integer.AbstractIntSConstraint;
 import choco.kernel.solver.propagation.listener.TaskPropagator;
 
 import static choco.kernel.solver.propagation.event.TaskVarEvent.HYPDOMMODbitvector;
@@ -103,10 +102,8 @@ public final class PartiallyStoredTaskCstrList<C extends AbstractSConstraint & T
      */
     public int eraseConstraint(SConstraint c) {
         int idx = super.eraseConstraint(c);
-        int mask = ((AbstractIntSConstraint) c).getFilteredEventMask(indices.get(idx));
-        if ((mask & HYPDOMMODbitvector) != 0) {
-            events.remove(idx);
-        }
+        //the index of the variable in the constraint is already removed: the constraint is removed in any case
+        events.removeValue(idx);
         return idx;
     }
 
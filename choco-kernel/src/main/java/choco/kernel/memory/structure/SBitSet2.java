@@ -141,8 +141,30 @@ public class SBitSet2 implements IStateBitSet
         initWords(nbits);
     }
 
+    /**
+     * Creates a bit set whose words are stored in the given vector.
+     * All bits are initially <code>false</code>.
+     *
+     * @param environment backtrackable environment
+     * @param words a vector of words equal to zero
+     */
+    public SBitSet2(IEnvironment environment, IStateLongVector words) {
+        this.environment = environment;
+        this.wordsInUse = environment.makeInt(0);
+        this.words = words;
+    }
+
+    /**
+     * Returns the number of words needed to store <code>nbits</code> bits.
+     * @param nbits number of bits
+     * @return number of words
+     */
+    public static int wordsFor(int nbits) {
+        return wordIndex(nbits - 1) + 1;
+    }
+
     private void initWords(int nbits) {
-        words = environment.makeLongVector(wordIndex(nbits - 1) + 1,0);
+        words = environment.makeLongVector(wordsFor(nbits),0);
     }
 
 
@@ -155,7 +177,7 @@ public class SBitSet2 implements IStateBitSet
         if (words.size() < wordsRequired) {
             // Allocate larger of doubled size or required size
             int request = Math.max(2 * words.size(), wordsRequired);
-            for (int i = 0; i < request-words.size();i++)
+            for (int i = words.size(); i < request;i++)
             {
                     words.add(0L);
             }
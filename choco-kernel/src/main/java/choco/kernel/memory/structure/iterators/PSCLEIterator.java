@@ -76,6 +76,10 @@ public final class PSCLEIterator<C extends AbstractSConstraint> extends Disposab
     public boolean hasNext() {
         while (cit.hasNext()) {
             final int idx = event.get(cit.next());
+            if (idx < 0) {
+                // removed constraint
+                continue;
+            }
             final C cstr = elements.get(idx);
             if (cstr != cstrCause && cstr.isActive()) {
                 cc.init(cstr, indices.get(idx));
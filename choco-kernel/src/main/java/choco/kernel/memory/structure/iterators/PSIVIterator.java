@@ -44,8 +44,12 @@ public final class PSIVIterator extends DisposableIntIterator {
 
     private int nStoredInts;
 
+    private int firstStored;
+
     private int idx;
 
+    private boolean started;
+
     private boolean stats;
 
     private boolean storeds;
@@ -54,12 +58,23 @@ public final class PSIVIterator extends DisposableIntIterator {
      * Freeze the iterator, cannot be reused.
      */
     public void init(final int theNStaticInts, final IStateInt theNStoredInts) {
+        init(0, theNStaticInts, 0, theNStoredInts);
+    }
+
+    /**
+     * Freeze the iterator, cannot be reused.
+     * The first values of each part are skipped.
+     */
+    public void init(final int theFirstStatic, final int theNStaticInts,
+                     final int theFirstStored, final IStateInt theNStoredInts) {
         super.init();
         this.nStaticInts = theNStaticInts;
         this.nStoredInts = theNStoredInts.get();
-        stats = (nStaticInts > 0);
-        storeds = (nStoredInts > 0);
-        idx = -1;
+        this.firstStored = STORED_OFFSET + theFirstStored;
+        stats = (theFirstStatic < nStaticInts);
+        storeds = (theFirstStored < nStoredInts);
+        idx = theFirstStatic - 1;
+        started = false;
     }
 
     /**
@@ -71,11 +86,11 @@ public final class PSIVIterator extends DisposableIntIterator {
      */
     @Override
     public boolean hasNext() {
-        if (idx == -1) {
+        if (!started) {
             return stats || storeds;
         } else {
             return ((stats && idx < nStaticInts - 1)
-                    || (idx == nStaticInts - 1 && storeds)
+                    || (idx < STORED_OFFSET && storeds)
                     || (storeds && STORED_OFFSET <= idx && idx < STORED_OFFSET + nStoredInts - 1));
         }
     }
@@ -89,10 +104,18 @@ public final class PSIVIterator extends DisposableIntIterator {
      */
     @Override
     public int next() {
+        started = true;
         idx++;
-        if (idx == nStaticInts) {
-            idx = STORED_OFFSET;
+        if (idx >= nStaticInts && idx < STORED_OFFSET) {
+            idx = firstStored;
         }
         return idx;
     }
+
+    /**
+     * @return the index of the last returned element, lower than the first one if none
+     */
+    public int getIndex() {
+        return idx;
+    }
 }
\ No newline at end of file
@@ -37,32 +37,39 @@ import choco.kernel.memory.trailing.trail.*;
  * A environment is associated to each problem.
  * It is responsible for managing backtrackable data.
  */
-public final class EnvironmentTrailing extends AbstractEnvironment {
+public class EnvironmentTrailing extends AbstractEnvironment {
 
 
 	/**
 	 * The maximum numbers of worlds that a
 	 * {@link ITrailStorage} can handle.
 	 */
-	private int maxWorld = 100; //1000;
+	private int maxWorld = MinWorld; //1000;
 
 	/**
 	 * The maximum numbers of updates that a
 	 * {@link ITrailStorage} can handle.
 	 */
-	private static final int MaxHist = 5000;
+	protected static final int MaxHist = 5000;
+
+	/**
+	 * The initial number of worlds that a
+	 * {@link ITrailStorage} can handle.
+	 */
+	private static final int MinWorld = 100;
 
 	//Contains all the {@link ITrailStorage} trails for
 	// storing different kinds of data.
-	private StoredIntTrail intTrail;
+	private IStoredIntTrail intTrail;
     private StoredBoolTrail boolTrail;
     private StoredVectorTrail vectorTrail;
-    private StoredLongTrail longTrail;
+    private IStoredLongTrail longTrail;
     private StoredIntVectorTrail intVectorTrail;
     private StoredDoubleVectorTrail doubleVectorTrail;
-    private StoredDoubleTrail doubleTrail;
+    private IStoredDoubleTrail doubleTrail;
     private StoredBinaryTreeTrail btreeTrail;
     private StoredLongVectorTrail longVectorTrail;
+    private StoredBitSetTrail bitSetTrail;
 
 	/**
 	 * Contains all the {@link ITrailStorage} trails for
@@ -71,14 +78,39 @@ public final class EnvironmentTrailing extends AbstractEnvironment {
 	private ITrailStorage[] trails;
     private int trailSize;
 
+	/**
+	 * Whether the int, long and double trails are stored outside of the heap.
+	 */
+	private final boolean offHeap;
+
 	/**
 	 * Constructs a new <code>IEnvironment</code> with
 	 * the default stack sizes : 50000 and 1000.
 	 */
 
 	public EnvironmentTrailing() {
+		this(false);
+	}
+
+	/**
+	 * Constructs a new <code>IEnvironment</code> whose int, long and double trails
+	 * are possibly stored in direct buffers, outside of the heap.
+	 * Off-heap trails grow by chunks instead of being copied, which keeps very large trails
+	 * away from the garbage collector.
+	 * @param offHeap whether the primitive trails are stored outside of the heap
+	 * @see OffHeapIntTrail
+	 */
+	public EnvironmentTrailing(final boolean offHeap) {
 		trails = new ITrailStorage[0];
         trailSize = 0;
+        this.offHeap = offHeap;
+	}
+
+	/**
+	 * @return true if the int, long and double trails are stored outside of the heap
+	 */
+	public final boolean isOffHeap() {
+		return offHeap;
 	}
 
 	@Override
@@ -101,6 +133,27 @@ public final class EnvironmentTrailing extends AbstractEnvironment {
             trails[i].worldPop(wi);
         }
         currentWorld--;
+        if (memoryBudget > 0 && 4 * getMemoryFootprint() > 3 * memoryBudget) {
+            compact();
+        }
+	}
+
+	/**
+	 * Releases the unused capacity of the trails and of the world stacks.
+	 * Called after backtracking when the footprint gets close to the memory budget:
+	 * the capacity grown in a deep branch is given back once the search is back to shallow worlds.
+	 */
+	private void compact() {
+		for (int i = 0; i < trailSize; i++) {
+			final ITrailStorage trail = trails[i];
+			final int capacity = trail.getCapacity();
+			if (capacity > MaxHist && trail.getSize() < capacity / 4) {
+				trail.resizeUpdateCapacity(Math.max(MaxHist, 2 * trail.getSize()));
+			}
+		}
+		if (maxWorld > MinWorld && currentWorld < maxWorld / 4) {
+			resizeWorldCapacity(Math.max(MinWorld, 2 * currentWorld + 2));
+		}
 	}
 
 	@Override
@@ -193,10 +246,10 @@ public final class EnvironmentTrailing extends AbstractEnvironment {
 		return new StoredVector<T>(this);
 	}
 
-	//    @Override
-	//	public AbstractStateBitSet makeBitSet(int size) {
-	//		return new StoredBitSet(this, size);
-	//	}
+	@Override
+	public IStateBitSet makeBitSet(final int size) {
+		return new StoredBitSet(this, size);
+	}
 
 	@Override
 	public IStateDouble makeFloat() {
@@ -236,6 +289,26 @@ public final class EnvironmentTrailing extends AbstractEnvironment {
 		return s;
 	}
 
+	@Override
+	public TrailStatistics[] getTrailStatistics() {
+		final TrailStatistics[] stats = new TrailStatistics[trailSize];
+		for (int i = 0; i < trailSize; i++) {
+			final ITrailStorage trail = trails[i];
+			stats[i] = new TrailStatistics(trail.getClass().getSimpleName(), trail.getSize(),
+					trail.getPeakSize(), trail.getCapacity(), trail.getMemoryFootprint());
+		}
+		return stats;
+	}
+
+	@Override
+	public long getMemoryFootprint() {
+		long footprint = 0;
+		for (int i = 0; i < trailSize; i++) {
+			footprint += trails[i].getMemoryFootprint();
+		}
+		return footprint;
+	}
+
 	private void resizeWorldCapacity(final int newWorldCapacity) {
 		for (int i = 0; i < trailSize; i++) {
             trails[i].resizeWorldCapacity(newWorldCapacity);
@@ -253,18 +326,35 @@ public final class EnvironmentTrailing extends AbstractEnvironment {
         System.arraycopy(tmp, 0, trails, 0, tmp.length);
     }
 
-    protected StoredIntTrail getIntTrail() {
+    /**
+     * Returns the number of worlds the trails can currently handle.
+     */
+    protected final int getWorldCapacity() {
+        return maxWorld;
+    }
+
+    /**
+     * Registers a trail for a kind of data defined outside this package.
+     * The trail is notified of world changes like the built-in ones.
+     * @param trail a trail able to handle {@link #getWorldCapacity()} worlds
+     */
+    protected final void addTrail(final ITrailStorage trail) {
+        increaseTrail();
+        trails[trailSize++] = trail;
+    }
+
+    protected IStoredIntTrail getIntTrail() {
         if (intTrail == null) {
-            intTrail = new StoredIntTrail(MaxHist, maxWorld);
+            intTrail = offHeap ? new OffHeapIntTrail(maxWorld) : new StoredIntTrail(MaxHist, maxWorld);
             increaseTrail();
             trails[trailSize++] = intTrail;
         }
         return intTrail;
     }
 
-    protected StoredLongTrail getLongTrail() {
+    protected IStoredLongTrail getLongTrail() {
         if (longTrail == null) {
-            longTrail = new StoredLongTrail(MaxHist, maxWorld);
+            longTrail = offHeap ? new OffHeapLongTrail(maxWorld) : new StoredLongTrail(MaxHist, maxWorld);
             increaseTrail();
             trails[trailSize++] = longTrail;
         }
@@ -280,9 +370,9 @@ public final class EnvironmentTrailing extends AbstractEnvironment {
         return boolTrail;
     }
 
-    protected StoredDoubleTrail getDoubleTrail() {
+    protected IStoredDoubleTrail getDoubleTrail() {
         if (doubleTrail == null) {
-            doubleTrail = new StoredDoubleTrail(MaxHist, maxWorld);
+            doubleTrail = offHeap ? new OffHeapDoubleTrail(maxWorld) : new StoredDoubleTrail(MaxHist, maxWorld);
             increaseTrail();
             trails[trailSize++] = doubleTrail;
         }
@@ -325,6 +415,14 @@ public final class EnvironmentTrailing extends AbstractEnvironment {
         return longVectorTrail;
     }
 
+    protected StoredBitSetTrail getBitSetTrail() {
+        if (bitSetTrail == null) {
+            bitSetTrail = new StoredBitSetTrail(MaxHist, maxWorld);
+            increaseTrail();
+            trails[trailSize++] = bitSetTrail;
+        }
+        return bitSetTrail;
+    }
 
     public StoredBinaryTreeTrail getBinaryTreeTrail() {
         if (btreeTrail == null) {
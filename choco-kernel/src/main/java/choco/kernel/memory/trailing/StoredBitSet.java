@@ -0,0 +1,509 @@
+/**
+ *  Copyright (c) 1999-2010, Ecole des Mines de Nantes
+ *  All rights reserved.
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *      * Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *      * Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *      * Neither the name of the Ecole des Mines de Nantes nor the
+ *        names of its contributors may be used to endorse or promote products
+ *        derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ *  EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package choco.kernel.memory.trailing;
+
+import choco.kernel.memory.IStateBitSet;
+import choco.kernel.memory.trailing.trail.StoredBitSetTrail;
+
+import java.util.BitSet;
+
+/**
+ * A backtrackable bitset of a trailing environment.
+ * <p/>
+ * Each 64-bit word has a world stamp and is trailed at most once per world.
+ * The bitset also maintains an index of its non-zero words (one bit per word) and its cardinality.
+ * Both are functions of the words: they are updated on each modification and each restoration of a word,
+ * and are never trailed. Scans such as {@link #nextSetBit(int)} or {@link #prevSetBit(int)} skip
+ * the empty regions 64 words at a time, while {@link #cardinality()} and {@link #isEmpty()} are constant time.
+ */
+public final class StoredBitSet implements IStateBitSet {
+
+	private final static int ADDRESS_BITS_PER_WORD = 6;
+	private final static int BITS_PER_WORD = 1 << ADDRESS_BITS_PER_WORD;
+
+	/* Used to shift left or right for a partial word mask */
+	private static final long WORD_MASK = 0xffffffffffffffffL;
+
+	/**
+	 * The current environment.
+	 */
+	private final EnvironmentTrailing environment;
+
+	protected final StoredBitSetTrail myTrail;
+
+	/**
+	 * The words of the bitset.
+	 */
+	private long[] words;
+
+	/**
+	 * Contains time stamps for all words (the world index of the last update for each word)
+	 */
+	public int[] worldStamps;
+
+	/**
+	 * Index of the non-zero words: the bit <code>u</code> is set iff <code>words[u] != 0</code>.
+	 */
+	private long[] nonZeroWords;
+
+	/**
+	 * The number of bits set.
+	 */
+	private int cardinality;
+
+	/**
+	 * Creates a bit set whose initial size is large enough to explicitly
+	 * represent bits with indices in the range <code>0</code> through
+	 * <code>nbits-1</code>. All bits are initially <code>false</code>.
+	 *
+	 * @param env   the current environment.
+	 * @param nbits the initial size of the bit set.
+	 * @throws NegativeArraySizeException if the specified initial size
+	 *                                    is negative.
+	 */
+	public StoredBitSet(EnvironmentTrailing env, int nbits) {
+		if (nbits < 0)
+			throw new NegativeArraySizeException("nbits < 0: " + nbits);
+		this.environment = env;
+		this.myTrail = env.getBitSetTrail();
+		final int nwords = wordIndex(nbits - 1) + 1;
+		this.words = new long[nwords];
+		this.worldStamps = new int[nwords];
+		this.nonZeroWords = new long[wordIndex(nwords - 1) + 1];
+		final int w = env.getWorldIndex();
+		for (int i = 0; i < nwords; i++) {
+			worldStamps[i] = w;
+		}
+	}
+
+	/**
+	 * Given a bit index, return word index containing it.
+	 */
+	private static int wordIndex(int bitIndex) {
+		return bitIndex >> ADDRESS_BITS_PER_WORD;
+	}
+
+	/**
+	 * Checks that fromIndex ... toIndex is a valid range of bit indices.
+	 */
+	private static void checkRange(int fromIndex, int toIndex) {
+		if (fromIndex < 0)
+			throw new IndexOutOfBoundsException("fromIndex < 0: " + fromIndex);
+		if (toIndex < 0)
+			throw new IndexOutOfBoundsException("toIndex < 0: " + toIndex);
+		if (fromIndex > toIndex)
+			throw new IndexOutOfBoundsException("fromIndex: " + fromIndex + " > toIndex: " + toIndex);
+	}
+
+	/**
+	 * Ensures that the BitSet can hold enough words.
+	 * New words are stamped with the current world, as newly created stored objects.
+	 *
+	 * @param wordsRequired the minimum acceptable number of words.
+	 */
+	public void ensureCapacity(int wordsRequired) {
+		final int oldSize = words.length;
+		if (oldSize < wordsRequired) {
+			final int request = Math.max(2 * oldSize, wordsRequired);
+			final long[] oldWords = words;
+			words = new long[request];
+			System.arraycopy(oldWords, 0, words, 0, oldSize);
+			final int[] oldStamps = worldStamps;
+			worldStamps = new int[request];
+			System.arraycopy(oldStamps, 0, worldStamps, 0, oldSize);
+			final int w = environment.getWorldIndex();
+			for (int i = oldSize; i < request; i++) {
+				worldStamps[i] = w;
+			}
+			final long[] oldIndex = nonZeroWords;
+			nonZeroWords = new long[wordIndex(request - 1) + 1];
+			System.arraycopy(oldIndex, 0, nonZeroWords, 0, oldIndex.length);
+		}
+	}
+
+	/**
+	 * Assigns a word, storing its previous value if it was not already stored in the current world.
+	 */
+	private void setWord(int u, long value) {
+		final long oldValue = words[u];
+		if (value != oldValue) {
+			final int oldStamp = worldStamps[u];
+			if (oldStamp < environment.getWorldIndex()) {
+				myTrail.savePreviousState(this, u, oldValue, oldStamp);
+				worldStamps[u] = environment.getWorldIndex();
+			}
+			update(u, oldValue, value);
+		}
+	}
+
+	/**
+	 * Assigns a word and maintains the index of non-zero words and the cardinality.
+	 */
+	private void update(int u, long oldValue, long value) {
+		words[u] = value;
+		cardinality += Long.bitCount(value) - Long.bitCount(oldValue);
+		if (oldValue == 0) {
+			if (value != 0) {
+				nonZeroWords[wordIndex(u)] |= 1L << u;
+			}
+		} else if (value == 0) {
+			nonZeroWords[wordIndex(u)] &= ~(1L << u);
+		}
+	}
+
+	/**
+	 * Sets a word without storing the previous value.
+	 */
+	public void _set(int u, long value, int stamp) {
+		update(u, words[u], value);
+		worldStamps[u] = stamp;
+	}
+
+	/**
+	 * Returns the index of the first non-zero word at or after <code>u</code>, or -1.
+	 */
+	private int nextNonZeroWord(int u) {
+		int s = wordIndex(u);
+		if (s >= nonZeroWords.length)
+			return -1;
+		long word = nonZeroWords[s] & (WORD_MASK << u);
+		while (word == 0) {
+			if (++s == nonZeroWords.length)
+				return -1;
+			word = nonZeroWords[s];
+		}
+		return (s * BITS_PER_WORD) + Long.numberOfTrailingZeros(word);
+	}
+
+	/**
+	 * Returns the index of the last non-zero word at or before <code>u</code>, or -1.
+	 */
+	private int prevNonZeroWord(int u) {
+		if (u < 0)
+			return -1;
+		int s = wordIndex(u);
+		long word = nonZeroWords[s] & (WORD_MASK >>> -(u + 1));
+		while (word == 0) {
+			if (s-- == 0)
+				return -1;
+			word = nonZeroWords[s];
+		}
+		return (s + 1) * BITS_PER_WORD - 1 - Long.numberOfLeadingZeros(word);
+	}
+
+	private int lastNonZeroWord() {
+		return prevNonZeroWord(words.length - 1);
+	}
+
+	/**
+	 * Returns the words of a bitset.
+	 */
+	private static long[] wordsOf(IStateBitSet set) {
+		if (set instanceof StoredBitSet) {
+			return ((StoredBitSet) set).words;
+		}
+		final long[] w = new long[wordIndex(set.size() - 1) + 1];
+		for (int i = set.nextSetBit(0); i >= 0; i = set.nextSetBit(i + 1)) {
+			w[wordIndex(i)] |= 1L << i;
+		}
+		return w;
+	}
+
+	public int cardinality() {
+		return cardinality;
+	}
+
+	public int size() {
+		return words.length * BITS_PER_WORD;
+	}
+
+	public int capacity() {
+		return words.length * BITS_PER_WORD;
+	}
+
+	public boolean isEmpty() {
+		return cardinality == 0;
+	}
+
+	/**
+	 * Returns the "logical size" of this <code>BitSet</code>: the index of
+	 * the highest set bit in the <code>BitSet</code> plus one. Returns zero
+	 * if the <code>BitSet</code> contains no set bits.
+	 */
+	public int length() {
+		final int u = lastNonZeroWord();
+		if (u < 0)
+			return 0;
+		return BITS_PER_WORD * u + (BITS_PER_WORD - Long.numberOfLeadingZeros(words[u]));
+	}
+
+	public void set(int bitIndex) {
+		if (bitIndex < 0)
+			throw new IndexOutOfBoundsException("bitIndex < 0: " + bitIndex);
+		final int u = wordIndex(bitIndex);
+		ensureCapacity(u + 1);
+		setWord(u, words[u] | (1L << bitIndex));
+	}
+
+	public void set(int bitIndex, boolean value) {
+		if (value)
+			set(bitIndex);
+		else
+			clear(bitIndex);
+	}
+
+	public void set(int fromIndex, int toIndex) {
+		checkRange(fromIndex, toIndex);
+		if (fromIndex == toIndex)
+			return;
+		final int startWordIndex = wordIndex(fromIndex);
+		final int endWordIndex = wordIndex(toIndex - 1);
+		ensureCapacity(endWordIndex + 1);
+
+		final long firstWordMask = WORD_MASK << fromIndex;
+		final long lastWordMask = WORD_MASK >>> -toIndex;
+		if (startWordIndex == endWordIndex) {
+			setWord(startWordIndex, words[startWordIndex] | (firstWordMask & lastWordMask));
+		} else {
+			setWord(startWordIndex, words[startWordIndex] | firstWordMask);
+			for (int i = startWordIndex + 1; i < endWordIndex; i++)
+				setWord(i, WORD_MASK);
+			setWord(endWordIndex, words[endWordIndex] | lastWordMask);
+		}
+	}
+
+	public void clear(int bitIndex) {
+		if (bitIndex < 0)
+			throw new IndexOutOfBoundsException("bitIndex < 0: " + bitIndex);
+		final int u = wordIndex(bitIndex);
+		if (u >= words.length)
+			return;
+		setWord(u, words[u] & ~(1L << bitIndex));
+	}
+
+	public void clear(int fromIndex, int toIndex) {
+		checkRange(fromIndex, toIndex);
+		if (fromIndex == toIndex)
+			return;
+		final int startWordIndex = wordIndex(fromIndex);
+		if (startWordIndex >= words.length)
+			return;
+		int endWordIndex = wordIndex(toIndex - 1);
+		long lastWordMask = WORD_MASK >>> -toIndex;
+		if (endWordIndex >= words.length) {
+			endWordIndex = words.length - 1;
+			lastWordMask = WORD_MASK;
+		}
+
+		final long firstWordMask = WORD_MASK << fromIndex;
+		if (startWordIndex == endWordIndex) {
+			setWord(startWordIndex, words[startWordIndex] & ~(firstWordMask & lastWordMask));
+		} else {
+			setWord(startWordIndex, words[startWordIndex] & ~firstWordMask);
+			for (int i = nextNonZeroWord(startWordIndex + 1); i >= 0 && i < endWordIndex; i = nextNonZeroWord(i + 1))
+				setWord(i, 0);
+			setWord(endWordIndex, words[endWordIndex] & ~lastWordMask);
+		}
+	}
+
+	public void clear() {
+		for (int u = nextNonZeroWord(0); u >= 0; u = nextNonZeroWord(u + 1)) {
+			setWord(u, 0);
+		}
+	}
+
+	public void flip(int bitIndex) {
+		if (bitIndex < 0)
+			throw new IndexOutOfBoundsException("bitIndex < 0: " + bitIndex);
+		final int u = wordIndex(bitIndex);
+		ensureCapacity(u + 1);
+		setWord(u, words[u] ^ (1L << bitIndex));
+	}
+
+	public void flip(int fromIndex, int toIndex) {
+		checkRange(fromIndex, toIndex);
+		if (fromIndex == toIndex)
+			return;
+		final int startWordIndex = wordIndex(fromIndex);
+		final int endWordIndex = wordIndex(toIndex - 1);
+		ensureCapacity(endWordIndex + 1);
+
+		final long firstWordMask = WORD_MASK << fromIndex;
+		final long lastWordMask = WORD_MASK >>> -toIndex;
+		if (startWordIndex == endWordIndex) {
+			setWord(startWordIndex, words[startWordIndex] ^ (firstWordMask & lastWordMask));
+		} else {
+			setWord(startWordIndex, words[startWordIndex] ^ firstWordMask);
+			for (int i = startWordIndex + 1; i < endWordIndex; i++)
+				setWord(i, words[i] ^ WORD_MASK);
+			setWord(endWordIndex, words[endWordIndex] ^ lastWordMask);
+		}
+	}
+
+	public boolean get(int bitIndex) {
+		final int u = wordIndex(bitIndex);
+		return u < words.length && ((words[u] & (1L << bitIndex)) != 0);
+	}
+
+	public int nextSetBit(int fromIndex) {
+		if (fromIndex < 0) {
+			fromIndex = 0;
+		}
+		int u = wordIndex(fromIndex);
+		if (u >= words.length)
+			return -1;
+		final long word = words[u] & (WORD_MASK << fromIndex);
+		if (word != 0)
+			return (u * BITS_PER_WORD) + Long.numberOfTrailingZeros(word);
+		u = nextNonZeroWord(u + 1);
+		return u < 0 ? -1 : (u * BITS_PER_WORD) + Long.numberOfTrailingZeros(words[u]);
+	}
+
+	public int nextClearBit(int fromIndex) {
+		if (fromIndex < 0) {
+			fromIndex = 0;
+		}
+		final int last = lastNonZeroWord();
+		int u = wordIndex(fromIndex);
+		if (u > last)
+			return fromIndex;
+		long word = ~words[u] & (WORD_MASK << fromIndex);
+		while (true) {
+			if (word != 0)
+				return (u * BITS_PER_WORD) + Long.numberOfTrailingZeros(word);
+			if (++u > last)
+				return u * BITS_PER_WORD;
+			word = ~words[u];
+		}
+	}
+
+	public int prevSetBit(int fromIndex) {
+		if (fromIndex < 0) {
+			return -1;
+		}
+		int u = wordIndex(fromIndex);
+		if (u >= words.length)
+			return length() - 1;
+		final long word = words[u] & (WORD_MASK >>> -(fromIndex + 1));
+		if (word != 0)
+			return (u + 1) * BITS_PER_WORD - 1 - Long.numberOfLeadingZeros(word);
+		u = prevNonZeroWord(u - 1);
+		return u < 0 ? -1 : (u + 1) * BITS_PER_WORD - 1 - Long.numberOfLeadingZeros(words[u]);
+	}
+
+	public int prevClearBit(int fromIndex) {
+		if (fromIndex < 0) {
+			return -1;
+		}
+		int u = wordIndex(fromIndex);
+		if (u > lastNonZeroWord())
+			return fromIndex;
+		long word = ~words[u] & (WORD_MASK >>> -(fromIndex + 1));
+		while (true) {
+			if (word != 0)
+				return (u + 1) * BITS_PER_WORD - 1 - Long.numberOfLeadingZeros(word);
+			if (u-- == 0)
+				return -1;
+			word = ~words[u];
+		}
+	}
+
+	public void and(IStateBitSet setI) {
+		if (this == setI)
+			return;
+		final long[] other = wordsOf(setI);
+		for (int u = nextNonZeroWord(0); u >= 0; u = nextNonZeroWord(u + 1)) {
+			setWord(u, u < other.length ? words[u] & other[u] : 0);
+		}
+	}
+
+	public void or(IStateBitSet setI) {
+		if (this == setI)
+			return;
+		final long[] other = wordsOf(setI);
+		for (int u = other.length - 1; u >= 0; u--) {
+			if (other[u] != 0) {
+				ensureCapacity(u + 1);
+				setWord(u, words[u] | other[u]);
+			}
+		}
+	}
+
+	public void xor(IStateBitSet setI) {
+		final long[] other = this == setI ? words.clone() : wordsOf(setI);
+		for (int u = other.length - 1; u >= 0; u--) {
+			if (other[u] != 0) {
+				ensureCapacity(u + 1);
+				setWord(u, words[u] ^ other[u]);
+			}
+		}
+	}
+
+	public void andNot(IStateBitSet setI) {
+		final long[] other = this == setI ? words.clone() : wordsOf(setI);
+		for (int u = nextNonZeroWord(0); u >= 0 && u < other.length; u = nextNonZeroWord(u + 1)) {
+			setWord(u, words[u] & ~other[u]);
+		}
+	}
+
+	public boolean intersects(IStateBitSet setI) {
+		final long[] other = wordsOf(setI);
+		for (int u = nextNonZeroWord(0); u >= 0 && u < other.length; u = nextNonZeroWord(u + 1)) {
+			if ((words[u] & other[u]) != 0)
+				return true;
+		}
+		return false;
+	}
+
+	public IStateBitSet copy() {
+		final StoredBitSet result = new StoredBitSet(environment, this.size());
+		for (int u = nextNonZeroWord(0); u >= 0; u = nextNonZeroWord(u + 1)) {
+			result.setWord(u, words[u]);
+		}
+		return result;
+	}
+
+	public BitSet copyToBitSet() {
+		final BitSet view = new BitSet(this.size());
+		for (int i = this.nextSetBit(0); i >= 0; i = this.nextSetBit(i + 1)) view.set(i, true);
+		return view;
+	}
+
+	public String toString() {
+		final StringBuilder b = new StringBuilder(6 * cardinality + 2);
+		b.append('{');
+		int i = nextSetBit(0);
+		if (i != -1) {
+			b.append(i);
+			for (i = nextSetBit(i + 1); i >= 0; i = nextSetBit(i + 1)) {
+				b.append(", ").append(i);
+			}
+		}
+		b.append('}');
+		return b.toString();
+	}
+}
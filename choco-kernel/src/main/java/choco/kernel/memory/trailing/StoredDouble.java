@@ -28,7 +28,7 @@
 package choco.kernel.memory.trailing;
 
 import choco.kernel.memory.IStateDouble;
-import choco.kernel.memory.trailing.trail.StoredDoubleTrail;
+import choco.kernel.memory.trailing.trail.IStoredDoubleTrail;
 
 
 /**
@@ -44,7 +44,7 @@ public final class StoredDouble extends AbstractStoredObject implements IStateDo
 
 	private double currentValue;
 
-    protected final StoredDoubleTrail myTrail;
+    protected final IStoredDoubleTrail myTrail;
 
 
 	/**
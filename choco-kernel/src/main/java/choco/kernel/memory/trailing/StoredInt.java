@@ -28,7 +28,7 @@
 package choco.kernel.memory.trailing;
 
 import choco.kernel.memory.IStateInt;
-import choco.kernel.memory.trailing.trail.StoredIntTrail;
+import choco.kernel.memory.trailing.trail.IStoredIntTrail;
 
 
 /**
@@ -38,7 +38,7 @@ public class StoredInt extends AbstractStoredObject implements IStateInt {
 
 	private int currentValue;
 
-	protected final StoredIntTrail myTrail;
+	protected final IStoredIntTrail myTrail;
 
 	/**
 	 * Constructs a stored search with an initial value.
@@ -28,11 +28,11 @@
 package choco.kernel.memory.trailing;
 
 import choco.kernel.memory.IStateLong;
-import choco.kernel.memory.trailing.trail.StoredLongTrail;
+import choco.kernel.memory.trailing.trail.IStoredLongTrail;
 
 public final class StoredLong extends AbstractStoredObject implements IStateLong {
 
-    protected final StoredLongTrail myTrail;
+    protected final IStoredLongTrail myTrail;
 
 	private long currentValue;
 
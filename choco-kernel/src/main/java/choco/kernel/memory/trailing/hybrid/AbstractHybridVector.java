@@ -0,0 +1,270 @@
+/**
+ *  Copyright (c) 1999-2010, Ecole des Mines de Nantes
+ *  All rights reserved.
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *      * Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *      * Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *      * Neither the name of the Ecole des Mines de Nantes nor the
+ *        names of its contributors may be used to endorse or promote products
+ *        derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ *  EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package choco.kernel.memory.trailing.hybrid;
+
+import choco.kernel.memory.IStateInt;
+
+/**
+ * Common part of the vectors of an {@link EnvironmentHybrid}.
+ * <p/>
+ * A vector is either trailed, like a {@link choco.kernel.memory.trailing.StoredIntVector},
+ * or copied: its whole array is saved on the first modification of a world.
+ * An adaptive vector measures, for each world, the number of updates relative to its size,
+ * and chooses the strategy of the next world accordingly.
+ */
+abstract class AbstractHybridVector {
+
+	final EnvironmentHybrid environment;
+
+	final HybridTrail myTrail;
+
+	private final HybridStrategy strategy;
+
+	/**
+	 * Whether the array is copied instead of trailed.
+	 */
+	boolean copying;
+
+	/**
+	 * Contains time stamps for all entries (the world index of the last update for each entry)
+	 */
+	int[] worldStamps;
+
+	/**
+	 * The world index of the last copy of the array.
+	 */
+	int copyStamp;
+
+	/**
+	 * A backtrackable search with the size of the vector.
+	 */
+	final IStateInt size;
+
+	/**
+	 * The node in which the current measure started.
+	 */
+	private int measuredNode;
+
+	/**
+	 * Number of updates in the measured node: saved cells when trailing, modifications when copying.
+	 */
+	private int updates;
+
+	/**
+	 * Number of words pushed on the trail in the measured node.
+	 */
+	private int cost;
+
+	AbstractHybridVector(final EnvironmentHybrid env, final int initialCapacity, final int initialSize,
+	                     final HybridStrategy strategy) {
+		final int w = env.getWorldIndex();
+		this.environment = env;
+		this.myTrail = env.getHybridTrail();
+		this.strategy = strategy;
+		this.copying = strategy == HybridStrategy.COPYING;
+		this.worldStamps = new int[initialCapacity];
+		for (int i = 0; i < initialSize; i++) {
+			this.worldStamps[i] = w;
+		}
+		this.copyStamp = w;
+		this.measuredNode = env.getNodeIndex();
+		this.size = env.makeInt(initialSize);
+	}
+
+	final boolean rangeCheck(final int index) {
+		return index < size.get() && index >= 0;
+	}
+
+	final IndexOutOfBoundsException outOfBounds(final int index) {
+		return new IndexOutOfBoundsException("Index: " + index + ", Size: " + size.get());
+	}
+
+	public final int size() {
+		return size.get();
+	}
+
+	public final boolean isEmpty() {
+		return size.get() == 0;
+	}
+
+	/**
+	 * Returns the strategy this vector was built with.
+	 */
+	public final HybridStrategy getStrategy() {
+		return strategy;
+	}
+
+	/**
+	 * Checks whether the vector currently copies its array instead of trailing its cells.
+	 */
+	public final boolean isCopying() {
+		return copying;
+	}
+
+	/**
+	 * Checks if the capacity is great enough, else the capacity
+	 * is extended.
+	 *
+	 * @param minCapacity the necessary capacity.
+	 */
+	public final void ensureCapacity(final int minCapacity) {
+		final int oldCapacity = capacity();
+		if (minCapacity > oldCapacity) {
+			int newCapacity = (oldCapacity * 3) / 2 + 1;
+			if (newCapacity < minCapacity) {
+				newCapacity = minCapacity;
+			}
+			resize(newCapacity);
+		}
+		if (minCapacity > worldStamps.length) {
+			final int[] oldStamps = worldStamps;
+			worldStamps = new int[capacity()];
+			System.arraycopy(oldStamps, 0, worldStamps, 0, oldStamps.length);
+		}
+	}
+
+	/**
+	 * Increases the size of the vector by one.
+	 * As in the trailed vectors, the new entry is not saved.
+	 * @return the index of the new entry
+	 */
+	final int grow() {
+		final int newsize = size.get() + 1;
+		ensureCapacity(newsize);
+		size.set(newsize);
+		worldStamps[newsize - 1] = environment.getWorldIndex();
+		return newsize - 1;
+	}
+
+	/**
+	 * removes the search at the end of the vector.
+	 * does nothing when called on an empty vector
+	 */
+	public final void removeLast() {
+		final int newsize = size.get() - 1;
+		if (newsize >= 0) {
+			size.set(newsize);
+		}
+	}
+
+	/**
+	 * Saves the state of the vector before the modification of an entry.
+	 * @param index index of the modified entry
+	 * @param oldValue the value before the modification
+	 */
+	final void save(final int index, final long oldValue) {
+		final int node = environment.getNodeIndex();
+		if (node != measuredNode) {
+			adapt(node);
+		}
+		final int w = environment.getWorldIndex();
+		if (copying) {
+			updates++;
+			if (copyStamp < w) {
+				final int capacity = capacity();
+				myTrail.saveSnapshot(this, snapshot(), copyStamp);
+				copyStamp = w;
+				cost += capacity + EnvironmentHybrid.ENTRY_WORDS;
+				environment.nbCopies++;
+				environment.nbCopiedCells += capacity;
+			}
+		} else {
+			final int oldStamp = worldStamps[index];
+			if (oldStamp < w) {
+				myTrail.savePreviousState(this, index, oldValue, oldStamp);
+				worldStamps[index] = w;
+				updates++;
+				cost += EnvironmentHybrid.ENTRY_WORDS;
+				environment.nbTrailedCells++;
+			}
+		}
+	}
+
+	/**
+	 * Closes the measure of the previous node: accounts for what the strategy saved
+	 * compared to the other one, and chooses the strategy of the new node.
+	 * @param node the new node
+	 */
+	private void adapt(final int node) {
+		if (updates > 0) {
+			final int capacity = capacity();
+			if (copying) {
+				// trailing would have pushed at most one entry per modification, and per cell
+				environment.copySavings += (long) Math.min(updates, capacity) * EnvironmentHybrid.ENTRY_WORDS - cost;
+			} else {
+				// copying would have pushed the whole array once
+				environment.trailSavings += capacity + EnvironmentHybrid.ENTRY_WORDS - cost;
+			}
+			if (strategy == HybridStrategy.ADAPTIVE) {
+				final double threshold = environment.getThreshold();
+				final int n = Math.max(1, size.get());
+				if (copying) {
+					if (updates < threshold * n / 2) {
+						copying = false;
+						environment.nbSwitchesToTrailing++;
+					}
+				} else if (updates > threshold * n) {
+					copying = true;
+					environment.nbSwitchesToCopying++;
+				}
+			}
+		}
+		measuredNode = node;
+		updates = 0;
+		cost = 0;
+	}
+
+	/**
+	 * Returns the length of the array of the entries.
+	 */
+	abstract int capacity();
+
+	/**
+	 * Replaces the array of the entries by a larger one.
+	 */
+	abstract void resize(int newCapacity);
+
+	/**
+	 * Returns a copy of the array of the entries.
+	 */
+	abstract Object snapshot();
+
+	/**
+	 * Gives back a copy that is no longer needed by the trail.
+	 */
+	abstract void release(Object snapshot);
+
+	/**
+	 * Replaces the array of the entries by a copy, without storing the previous one.
+	 */
+	abstract void _restore(Object snapshot, int stamp);
+
+	/**
+	 * Sets an element without storing the previous value.
+	 */
+	abstract void _set(int index, long val, int stamp);
+}
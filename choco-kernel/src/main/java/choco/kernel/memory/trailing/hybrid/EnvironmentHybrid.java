@@ -0,0 +1,244 @@
+/**
+ *  Copyright (c) 1999-2010, Ecole des Mines de Nantes
+ *  All rights reserved.
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *      * Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *      * Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *      * Neither the name of the Ecole des Mines de Nantes nor the
+ *        names of its contributors may be used to endorse or promote products
+ *        derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ *  EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package choco.kernel.memory.trailing.hybrid;
+
+import choco.kernel.memory.IStateBitSet;
+import choco.kernel.memory.IStateIntVector;
+import choco.kernel.memory.IStateLongVector;
+import choco.kernel.memory.structure.SBitSet2;
+import choco.kernel.memory.trailing.EnvironmentTrailing;
+
+/**
+ * A trailing environment whose vectors and bitsets may be copied instead of trailed.
+ * <p/>
+ * Scalars are trailed as in {@link EnvironmentTrailing}. Each vector (and each bitset, built on a vector of words)
+ * is either trailed cell by cell or copied as a whole on its first modification in a world, see {@link HybridStrategy}.
+ * An adaptive structure switches to copying when the number of cells it updates in a world goes over
+ * <code>threshold * size</code>, and back to trailing when it goes under half of it.
+ * <p/>
+ * The environment counts the words pushed by each strategy and estimates what each one saved
+ * compared to the other: a trail entry costs {@link #ENTRY_WORDS} words, a copy costs the capacity of the array.
+ */
+public final class EnvironmentHybrid extends EnvironmentTrailing {
+
+	/**
+	 * Estimated size of a trail entry, in words: vector, index, value and stamp.
+	 */
+	public static final int ENTRY_WORDS = 4;
+
+	/**
+	 * Ratio of updated cells per world above which copying is cheaper than trailing.
+	 */
+	public static final double DEFAULT_THRESHOLD = 1.0 / ENTRY_WORDS;
+
+	private final HybridStrategy strategy;
+
+	private final double threshold;
+
+	private HybridTrail hybridTrail;
+
+	/**
+	 * Unique index of the node of each world.
+	 */
+	private int[] nodeIndices;
+
+	private int nbNodes;
+
+	long nbTrailedCells;
+
+	long nbCopies;
+
+	long nbCopiedCells;
+
+	long nbSwitchesToCopying;
+
+	long nbSwitchesToTrailing;
+
+	long trailSavings;
+
+	long copySavings;
+
+	/**
+	 * Constructs an environment with adaptive vectors and the default threshold.
+	 */
+	public EnvironmentHybrid() {
+		this(HybridStrategy.ADAPTIVE, DEFAULT_THRESHOLD);
+	}
+
+	/**
+	 * Constructs an environment.
+	 * @param strategy strategy of the vectors and bitsets built without an explicit one
+	 * @param threshold ratio of updated cells per world above which an adaptive structure is copied
+	 */
+	public EnvironmentHybrid(final HybridStrategy strategy, final double threshold) {
+		this.strategy = strategy;
+		this.threshold = threshold;
+		this.nodeIndices = new int[getWorldCapacity()];
+	}
+
+	@Override
+	public void worldPush() {
+		super.worldPush();
+		if (currentWorld == nodeIndices.length) {
+			final int[] tmp = nodeIndices;
+			nodeIndices = new int[tmp.length * 3 / 2 + 1];
+			System.arraycopy(tmp, 0, nodeIndices, 0, tmp.length);
+		}
+		nodeIndices[currentWorld] = ++nbNodes;
+	}
+
+	/**
+	 * Returns an index identifying the current world among all the worlds pushed so far.
+	 */
+	public int getNodeIndex() {
+		return nodeIndices[currentWorld];
+	}
+
+	public HybridStrategy getStrategy() {
+		return strategy;
+	}
+
+	public double getThreshold() {
+		return threshold;
+	}
+
+	HybridTrail getHybridTrail() {
+		if (hybridTrail == null) {
+			hybridTrail = new HybridTrail(MaxHist, getWorldCapacity());
+			addTrail(hybridTrail);
+		}
+		return hybridTrail;
+	}
+
+	@Override
+	public IStateIntVector makeIntVector() {
+		return makeIntVector(0, 0, strategy);
+	}
+
+	@Override
+	public IStateIntVector makeIntVector(final int size, final int initialValue) {
+		return makeIntVector(size, initialValue, strategy);
+	}
+
+	@Override
+	public IStateIntVector makeIntVector(final int[] entries) {
+		return new HybridIntVector(this, entries, strategy);
+	}
+
+	public HybridIntVector makeIntVector(final int size, final int initialValue, final HybridStrategy strategy) {
+		return new HybridIntVector(this, size, initialValue, strategy);
+	}
+
+	@Override
+	public IStateLongVector makeLongVector() {
+		return makeLongVector(0, 0, strategy);
+	}
+
+	@Override
+	public IStateLongVector makeLongVector(final int size, final long initialValue) {
+		return makeLongVector(size, initialValue, strategy);
+	}
+
+	@Override
+	public IStateLongVector makeLongVector(final long[] entries) {
+		return new HybridLongVector(this, entries, strategy);
+	}
+
+	public HybridLongVector makeLongVector(final int size, final long initialValue, final HybridStrategy strategy) {
+		return new HybridLongVector(this, size, initialValue, strategy);
+	}
+
+	/**
+	 * Builds a bitset whose words are stored in a vector of the default strategy.
+	 */
+	@Override
+	public IStateBitSet makeBitSet(final int size) {
+		return new SBitSet2(this, size);
+	}
+
+	/**
+	 * Builds a bitset whose words are stored in a vector of the given strategy.
+	 */
+	public IStateBitSet makeBitSet(final int size, final HybridStrategy strategy) {
+		return new SBitSet2(this, makeLongVector(SBitSet2.wordsFor(size), 0, strategy));
+	}
+
+	/**
+	 * Returns the number of cells pushed on the trail by the trailed structures.
+	 */
+	public long getNbTrailedCells() {
+		return nbTrailedCells;
+	}
+
+	/**
+	 * Returns the number of arrays copied by the copied structures.
+	 */
+	public long getNbCopies() {
+		return nbCopies;
+	}
+
+	/**
+	 * Returns the number of cells copied by the copied structures.
+	 */
+	public long getNbCopiedCells() {
+		return nbCopiedCells;
+	}
+
+	public long getNbSwitchesToCopying() {
+		return nbSwitchesToCopying;
+	}
+
+	public long getNbSwitchesToTrailing() {
+		return nbSwitchesToTrailing;
+	}
+
+	/**
+	 * Returns the number of words trailing saved compared to copying the same structures, in the same worlds.
+	 * A negative value means trailing cost more.
+	 */
+	public long getTrailingSavings() {
+		return trailSavings;
+	}
+
+	/**
+	 * Returns an estimation of the number of words copying saved compared to trailing the same structures,
+	 * in the same worlds. Since copied structures do not know how many distinct cells they updated,
+	 * the cost of trailing is bounded by the number of updates and the capacity, hence overestimated.
+	 * A negative value means copying cost more.
+	 */
+	public long getCopyingSavings() {
+		return copySavings;
+	}
+
+	@Override
+	public String toString() {
+		return "hybrid environment: " + nbTrailedCells + " trailed cells, "
+				+ nbCopies + " copies (" + nbCopiedCells + " cells), "
+				+ nbSwitchesToCopying + " switches to copying, " + nbSwitchesToTrailing + " to trailing, "
+				+ "savings: trailing " + trailSavings + " words, copying " + copySavings + " words";
+	}
+}
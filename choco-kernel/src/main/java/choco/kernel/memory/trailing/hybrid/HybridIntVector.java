@@ -0,0 +1,177 @@
+/**
+ *  Copyright (c) 1999-2010, Ecole des Mines de Nantes
+ *  All rights reserved.
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *      * Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *      * Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *      * Neither the name of the Ecole des Mines de Nantes nor the
+ *        names of its contributors may be used to endorse or promote products
+ *        derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ *  EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package choco.kernel.memory.trailing.hybrid;
+
+import choco.kernel.common.util.iterators.DisposableIntIterator;
+import choco.kernel.memory.IStateIntVector;
+
+/**
+ * A backtrackable vector of ints of an {@link EnvironmentHybrid}, either trailed or copied.
+ */
+public final class HybridIntVector extends AbstractHybridVector implements IStateIntVector {
+
+	/**
+	 * Contains the elements of the vector.
+	 */
+	private int[] elementData;
+
+	/**
+	 * Arrays given back by the trail, reused for the next copies.
+	 */
+	private int[][] spares = new int[4][];
+
+	private int nbSpares;
+
+	HybridIntVector(final EnvironmentHybrid env, final int initialSize, final int initialValue, final HybridStrategy strategy) {
+		super(env, Math.max(MIN_CAPACITY, initialSize), initialSize, strategy);
+		this.elementData = new int[worldStamps.length];
+		for (int i = 0; i < initialSize; i++) {
+			this.elementData[i] = initialValue;
+		}
+	}
+
+	HybridIntVector(final EnvironmentHybrid env, final int[] entries, final HybridStrategy strategy) {
+		super(env, Math.max(MIN_CAPACITY, entries.length), entries.length, strategy);
+		this.elementData = new int[worldStamps.length];
+		System.arraycopy(entries, 0, elementData, 0, entries.length);
+	}
+
+	@Override
+	public void add(final int i) {
+		final int idx = grow();
+		elementData[idx] = i;
+	}
+
+	@Override
+	public boolean contain(final int val) {
+		final int ssize = size.get();
+		for (int i = 0; i < ssize; i++) {
+			if (val == elementData[i]) return true;
+		}
+		return false;
+	}
+
+	@Override
+	public void remove(final int idx) {
+		final int ssize = size.get();
+		for (int j = idx; j < ssize - 1; j++) {
+			quickSet(j, elementData[j + 1]);
+		}
+		removeLast();
+	}
+
+	@Override
+	public int get(final int index) {
+		if (rangeCheck(index)) {
+			return elementData[index];
+		}
+		throw outOfBounds(index);
+	}
+
+	@Override
+	public int quickGet(final int index) {
+		assert (rangeCheck(index));
+		return elementData[index];
+	}
+
+	@Override
+	public int set(final int index, final int val) {
+		if (rangeCheck(index)) {
+			return quickSet(index, val);
+		}
+		throw outOfBounds(index);
+	}
+
+	@Override
+	public int quickSet(final int index, final int val) {
+		assert (rangeCheck(index));
+		final int oldValue = elementData[index];
+		if (val != oldValue) {
+			save(index, oldValue);
+			elementData[index] = val;
+		}
+		return oldValue;
+	}
+
+	@Override
+	public DisposableIntIterator getIterator() {
+		throw new UnsupportedOperationException("not yet implemented");
+	}
+
+	@Override
+	int capacity() {
+		return elementData.length;
+	}
+
+	@Override
+	void resize(final int newCapacity) {
+		final int[] oldData = elementData;
+		elementData = new int[newCapacity];
+		System.arraycopy(oldData, 0, elementData, 0, oldData.length);
+	}
+
+	@Override
+	Object snapshot() {
+		final int n = elementData.length;
+		int[] copy = null;
+		while (copy == null && nbSpares > 0) {
+			copy = spares[--nbSpares];
+			spares[nbSpares] = null;
+			if (copy.length != n) {
+				copy = null;
+			}
+		}
+		if (copy == null) {
+			copy = new int[n];
+		}
+		System.arraycopy(elementData, 0, copy, 0, n);
+		return copy;
+	}
+
+	@Override
+	void release(final Object snapshot) {
+		if (nbSpares == spares.length) {
+			final int[][] tmp = spares;
+			spares = new int[nbSpares * 2][];
+			System.arraycopy(tmp, 0, spares, 0, nbSpares);
+		}
+		spares[nbSpares++] = (int[]) snapshot;
+	}
+
+	@Override
+	void _restore(final Object snapshot, final int stamp) {
+		release(elementData);
+		elementData = (int[]) snapshot;
+		copyStamp = stamp;
+	}
+
+	@Override
+	void _set(final int index, final long val, final int stamp) {
+		elementData[index] = (int) val;
+		worldStamps[index] = stamp;
+	}
+}
@@ -0,0 +1,263 @@
+/**
+ *  Copyright (c) 1999-2010, Ecole des Mines de Nantes
+ *  All rights reserved.
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *      * Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *      * Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *      * Neither the name of the Ecole des Mines de Nantes nor the
+ *        names of its contributors may be used to endorse or promote products
+ *        derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ *  EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package choco.kernel.memory.trailing.hybrid;
+
+import choco.kernel.memory.trailing.trail.ITrailStorage;
+
+import java.util.Arrays;
+
+/**
+ * Implements a trail with the history of all the hybrid vectors.
+ * <p/>
+ * An entry is either the previous value of one cell or a copy of the whole array of a vector.
+ * Both kinds share a single stack: since the entries of a world are restored in the reverse
+ * order of their creation, a vector may change of strategy at any time.
+ */
+final class HybridTrail implements ITrailStorage {
+
+	/**
+	 * Index of the entries holding a copy of the whole array.
+	 */
+	private static final int SNAPSHOT = -1;
+
+	/**
+	 * All the stored vectors.
+	 */
+	private AbstractHybridVector[] vectorStack;
+
+	/**
+	 * Indices of the previous values in the stored vectors, or {@link #SNAPSHOT}.
+	 */
+	private int[] indexStack;
+
+	/**
+	 * Previous values of the stored vector elements.
+	 */
+	private long[] valueStack;
+
+	/**
+	 * Previous arrays of the copied vectors.
+	 */
+	private Object[] snapshotStack;
+
+	/**
+	 * World stamps associated to the previous values
+	 */
+	private int[] stampStack;
+
+	/**
+	 * The last world a vector was modified in.
+	 */
+	private int currentLevel;
+
+	/**
+	 * Starts of levels in all the history arrays.
+	 */
+	private int[] worldStartLevels;
+
+	/**
+	 * capacity of the trailing stack (in terms of number of updates that can be stored)
+	 */
+	private int maxUpdates;
+
+	/**
+	 * Highest level reached by the stacks.
+	 */
+	private int peakLevel;
+
+	/**
+	 * Bytes held by the stored snapshots (counting 8 bytes per element).
+	 */
+	private long snapshotBytes;
+
+	/**
+	 * Constructs a trail with the specified numbers of updates and worlds.
+	 */
+	HybridTrail(final int nUpdates, final int nWorlds) {
+		this.currentLevel = 0;
+		this.maxUpdates = nUpdates;
+		this.vectorStack = new AbstractHybridVector[nUpdates];
+		this.indexStack = new int[nUpdates];
+		this.valueStack = new long[nUpdates];
+		this.snapshotStack = new Object[nUpdates];
+		this.stampStack = new int[nUpdates];
+		this.worldStartLevels = new int[nWorlds];
+	}
+
+	@Override
+	public void clear() {
+		Arrays.fill(snapshotStack, 0, currentLevel, null);
+		currentLevel = 0;
+		snapshotBytes = 0;
+	}
+
+	/**
+	 * Reacts on the modification of an element in a trailed vector.
+	 */
+	void savePreviousState(final AbstractHybridVector vect, final int index, final long oldValue, final int oldStamp) {
+		this.vectorStack[currentLevel] = vect;
+		this.indexStack[currentLevel] = index;
+		this.valueStack[currentLevel] = oldValue;
+		this.stampStack[currentLevel] = oldStamp;
+		currentLevel++;
+		if (currentLevel == maxUpdates) {
+			resizeUpdateCapacity();
+		}
+	}
+
+	/**
+	 * Reacts on the first modification of a copied vector in the current world.
+	 */
+	void saveSnapshot(final AbstractHybridVector vect, final Object snapshot, final int oldStamp) {
+		this.vectorStack[currentLevel] = vect;
+		this.indexStack[currentLevel] = SNAPSHOT;
+		this.snapshotStack[currentLevel] = snapshot;
+		// the value of a snapshot entry is the size of the copied array
+		this.valueStack[currentLevel] = 8L * vect.capacity();
+		this.snapshotBytes += valueStack[currentLevel];
+		this.stampStack[currentLevel] = oldStamp;
+		currentLevel++;
+		if (currentLevel == maxUpdates) {
+			resizeUpdateCapacity();
+		}
+	}
+
+	private void resizeUpdateCapacity() {
+		resizeUpdateCapacity((maxUpdates * 3) / 2);
+	}
+
+	public void resizeUpdateCapacity(final int capacity) {
+		final int newCapacity = Math.max(capacity, currentLevel + 1);
+		final AbstractHybridVector[] tmp1 = new AbstractHybridVector[newCapacity];
+		System.arraycopy(vectorStack, 0, tmp1, 0, currentLevel);
+		vectorStack = tmp1;
+		final int[] tmp2 = new int[newCapacity];
+		System.arraycopy(indexStack, 0, tmp2, 0, currentLevel);
+		indexStack = tmp2;
+		final long[] tmp3 = new long[newCapacity];
+		System.arraycopy(valueStack, 0, tmp3, 0, currentLevel);
+		valueStack = tmp3;
+		final Object[] tmp4 = new Object[newCapacity];
+		System.arraycopy(snapshotStack, 0, tmp4, 0, currentLevel);
+		snapshotStack = tmp4;
+		final int[] tmp5 = new int[newCapacity];
+		System.arraycopy(stampStack, 0, tmp5, 0, currentLevel);
+		stampStack = tmp5;
+		maxUpdates = newCapacity;
+	}
+
+	@Override
+	public void resizeWorldCapacity(final int newWorldCapacity) {
+		final int[] tmp = new int[newWorldCapacity];
+		System.arraycopy(worldStartLevels, 0, tmp, 0, Math.min(worldStartLevels.length, newWorldCapacity));
+		worldStartLevels = tmp;
+	}
+
+	@Override
+	public void worldPush(final int wi) {
+		this.worldStartLevels[wi] = currentLevel;
+	}
+
+	@Override
+	public void worldPop(final int wi) {
+		if (currentLevel > peakLevel) {
+			peakLevel = currentLevel;
+		}
+		final int start = worldStartLevels[wi];
+		while (currentLevel > start) {
+			currentLevel--;
+			final AbstractHybridVector v = vectorStack[currentLevel];
+			final int idx = indexStack[currentLevel];
+			if (idx == SNAPSHOT) {
+				v._restore(snapshotStack[currentLevel], stampStack[currentLevel]);
+				snapshotStack[currentLevel] = null;
+				snapshotBytes -= valueStack[currentLevel];
+			} else {
+				v._set(idx, valueStack[currentLevel], stampStack[currentLevel]);
+			}
+		}
+	}
+
+	/**
+	 * Comits a world: merging it with the previous one.
+	 * <p/>
+	 * As in the other trails, an entry whose stamp is the previous world is discarded,
+	 * since an older one is already stored in the previous world.
+	 */
+	@Override
+	public void worldCommit(final int wi) {
+		if (currentLevel > peakLevel) {
+			peakLevel = currentLevel;
+		}
+		final int startLevel = worldStartLevels[wi];
+		final int prevWorld = wi - 1;
+		int writeIdx = startLevel;
+		for (int level = startLevel; level < currentLevel; level++) {
+			final AbstractHybridVector v = vectorStack[level];
+			final int idx = indexStack[level];
+			final int stamp = stampStack[level];
+			final Object snapshot = snapshotStack[level];
+			if (idx == SNAPSHOT) {
+				v.copyStamp = prevWorld;
+			} else {
+				v.worldStamps[idx] = prevWorld;
+			}
+			if (stamp != prevWorld) {
+				if (writeIdx != level) {
+					vectorStack[writeIdx] = v;
+					indexStack[writeIdx] = idx;
+					valueStack[writeIdx] = valueStack[level];
+					snapshotStack[writeIdx] = snapshot;
+					stampStack[writeIdx] = stamp;
+				}
+				writeIdx++;
+			} else if (idx == SNAPSHOT) {
+				v.release(snapshot);
+				snapshotBytes -= valueStack[level];
+			}
+		}
+		Arrays.fill(snapshotStack, writeIdx, currentLevel, null);
+		currentLevel = writeIdx;
+	}
+
+	@Override
+	public int getSize() {
+		return currentLevel;
+	}
+
+	public int getPeakSize() {
+		return Math.max(peakLevel, currentLevel);
+	}
+
+	public int getCapacity() {
+		return maxUpdates;
+	}
+
+	public long getMemoryFootprint() {
+		return (long) maxUpdates * (2 * REFERENCE_BYTES + 16) + 4L * worldStartLevels.length + snapshotBytes;
+	}
+}
@@ -0,0 +1,221 @@
+/**
+ *  Copyright (c) 1999-2010, Ecole des Mines de Nantes
+ *  All rights reserved.
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *      * Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *      * Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *      * Neither the name of the Ecole des Mines de Nantes nor the
+ *        names of its contributors may be used to endorse or promote products
+ *        derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ *  EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package choco.kernel.memory.trailing.trail;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Base class of the trails storing their former values and stamps outside of the heap.
+ * <p/>
+ * An entry is made of a reference to the stored object, kept on the heap, and of a block of
+ * <code>entryBytes</code> bytes in a direct {@link ByteBuffer}: the former stamp first, then the former value
+ * (aligned on 8 bytes for long and double values).
+ * The stacks are split into chunks of {@link #CHUNK_SIZE} entries: the trail grows by allocating a new chunk,
+ * the existing entries are never copied and the garbage collector does not scan the values.
+ */
+abstract class AbstractOffHeapTrail implements ITrailStorage {
+
+	/**
+	 * log2 of the number of entries of a chunk.
+	 */
+	static final int CHUNK_SHIFT = 16;
+
+	/**
+	 * Number of entries of a chunk.
+	 */
+	static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+
+	/**
+	 * Mask giving the position of an entry in its chunk.
+	 */
+	static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+	/**
+	 * Number of bytes of an entry in the direct buffers.
+	 */
+	private final int entryBytes;
+
+	/**
+	 * Former stamps and values, one direct buffer per chunk.
+	 */
+	protected ByteBuffer[] dataChunks;
+
+	/**
+	 * Stored objects, one array per chunk.
+	 */
+	protected Object[][] refChunks;
+
+	/**
+	 * Number of allocated chunks.
+	 */
+	protected int nbChunks;
+
+	/**
+	 * Points the level of the last entry.
+	 */
+	protected int currentLevel;
+
+	/**
+	 * Highest level reached by the stacks.
+	 */
+	private int peakLevel;
+
+	/**
+	 * A stack of pointers (for each start of a world).
+	 */
+	protected int[] worldStartLevels;
+
+	AbstractOffHeapTrail(final int entryBytes, final int nWorlds) {
+		this.entryBytes = entryBytes;
+		this.dataChunks = new ByteBuffer[4];
+		this.refChunks = new Object[4][];
+		this.worldStartLevels = new int[nWorlds];
+		addChunk();
+	}
+
+	/**
+	 * Allocates the chunk following the last one.
+	 */
+	protected final void addChunk() {
+		if (nbChunks == dataChunks.length) {
+			final ByteBuffer[] tmp1 = new ByteBuffer[nbChunks * 2];
+			System.arraycopy(dataChunks, 0, tmp1, 0, nbChunks);
+			dataChunks = tmp1;
+			final Object[][] tmp2 = new Object[nbChunks * 2][];
+			System.arraycopy(refChunks, 0, tmp2, 0, nbChunks);
+			refChunks = tmp2;
+		}
+		dataChunks[nbChunks] = ByteBuffer.allocateDirect(CHUNK_SIZE * entryBytes).order(ByteOrder.nativeOrder());
+		refChunks[nbChunks] = new Object[CHUNK_SIZE];
+		nbChunks++;
+	}
+
+	/**
+	 * Updates the stamp of a stored object whose world has been merged with the previous one.
+	 */
+	protected abstract void setWorldStamp(Object ref, int stamp);
+
+	@Override
+	public void clear() {
+		currentLevel = 0;
+	}
+
+	@Override
+	public void worldPush(final int wi) {
+		worldStartLevels[wi] = currentLevel;
+	}
+
+	/**
+	 * Comits a world: merging it with the previous one.
+	 * @see StoredIntTrail#worldCommit(int)
+	 */
+	@Override
+	public void worldCommit(final int wi) {
+		updatePeak();
+		final int startLevel = worldStartLevels[wi];
+		final int prevWorld = wi - 1;
+		int writeIdx = startLevel;
+		for (int level = startLevel; level < currentLevel; level++) {
+			final int c = level >>> CHUNK_SHIFT;
+			final int o = level & CHUNK_MASK;
+			final Object ref = refChunks[c][o];
+			setWorldStamp(ref, prevWorld);
+			if (dataChunks[c].getInt(o * entryBytes) != prevWorld) {
+				if (writeIdx != level) {
+					move(c, o, writeIdx >>> CHUNK_SHIFT, writeIdx & CHUNK_MASK);
+				}
+				writeIdx++;
+			}
+		}
+		currentLevel = writeIdx;
+	}
+
+	private void move(final int fromChunk, final int from, final int toChunk, final int to) {
+		refChunks[toChunk][to] = refChunks[fromChunk][from];
+		final ByteBuffer src = dataChunks[fromChunk];
+		final ByteBuffer dst = dataChunks[toChunk];
+		for (int k = 0; k < entryBytes; k += 4) {
+			dst.putInt(to * entryBytes + k, src.getInt(from * entryBytes + k));
+		}
+	}
+
+	/**
+	 * Sets the number of allocated chunks to hold the given capacity.
+	 * Released chunks are freed by the garbage collector.
+	 */
+	@Override
+	public void resizeUpdateCapacity(final int capacity) {
+		final int needed = Math.max(capacity, currentLevel + 1);
+		final int chunks = (needed + CHUNK_MASK) >>> CHUNK_SHIFT;
+		while (nbChunks < chunks) {
+			addChunk();
+		}
+		while (nbChunks > chunks) {
+			nbChunks--;
+			dataChunks[nbChunks] = null;
+			refChunks[nbChunks] = null;
+		}
+	}
+
+	@Override
+	public void resizeWorldCapacity(final int newWorldCapacity) {
+		final int[] tmp = new int[newWorldCapacity];
+		System.arraycopy(worldStartLevels, 0, tmp, 0, Math.min(worldStartLevels.length, newWorldCapacity));
+		worldStartLevels = tmp;
+	}
+
+	/**
+	 * Records the size of the trail before it decreases.
+	 */
+	protected final void updatePeak() {
+		if (currentLevel > peakLevel) {
+			peakLevel = currentLevel;
+		}
+	}
+
+	@Override
+	public int getSize() {
+		return currentLevel;
+	}
+
+	@Override
+	public int getPeakSize() {
+		return Math.max(peakLevel, currentLevel);
+	}
+
+	@Override
+	public int getCapacity() {
+		return nbChunks << CHUNK_SHIFT;
+	}
+
+	@Override
+	public long getMemoryFootprint() {
+		return ((long) nbChunks << CHUNK_SHIFT) * (entryBytes + REFERENCE_BYTES) + 4L * worldStartLevels.length;
+	}
+}
@@ -45,6 +45,11 @@ public interface ITrailStorage {
 	 */
 	final static Logger LOGGER = ChocoLogging.getEngineLogger();
 
+	/**
+	 * Estimated size of an object reference, used by the memory footprints.
+	 */
+	final static int REFERENCE_BYTES = 8;
+
 	/**
 	 * Moving up to the next world.
 	 * <p/>
@@ -84,7 +89,30 @@ public interface ITrailStorage {
 	public int getSize();
 
 	/**
-	 * increase the capacity of the environment to a given number of worlds
+	 * Retrieving the highest size reached by the trail.
+	 */
+	public int getPeakSize();
+
+	/**
+	 * Retrieving the capacity of the trail (number of past values that can be saved without resizing).
+	 */
+	public int getCapacity();
+
+	/**
+	 * Estimating the memory (in bytes) held by the stacks of the trail.
+	 */
+	public long getMemoryFootprint();
+
+	/**
+	 * change the capacity of the trail to a given number of updates, growing or shrinking its stacks.
+	 * The capacity never falls below the number of stored entries.
+	 *
+	 * @param capacity the requested capacity
+	 */
+	public void resizeUpdateCapacity(int capacity);
+
+	/**
+	 * change the capacity of the environment to a given number of worlds
 	 *
 	 * @param newWorldCapacity
 	 */
@@ -0,0 +1,86 @@
+/**
+ *  Copyright (c) 1999-2010, Ecole des Mines de Nantes
+ *  All rights reserved.
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *      * Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *      * Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *      * Neither the name of the Ecole des Mines de Nantes nor the
+ *        names of its contributors may be used to endorse or promote products
+ *        derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ *  EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package choco.kernel.memory.trailing.trail;
+
+import choco.kernel.memory.trailing.StoredLong;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Implementing storage of historical values for backtrackable longs outside of the heap.
+ *
+ * @see AbstractOffHeapTrail
+ */
+public final class OffHeapLongTrail extends AbstractOffHeapTrail implements IStoredLongTrail {
+
+	/**
+	 * Number of bytes of an entry: the former stamp, then the former value at offset 8.
+	 */
+	private static final int ENTRY_BYTES = 16;
+
+	/**
+	 * Constructs a trail with one chunk.
+	 *
+	 * @param nWorlds maximal number of worlds that will be stored
+	 */
+	public OffHeapLongTrail(final int nWorlds) {
+		super(ENTRY_BYTES, nWorlds);
+	}
+
+	@Override
+	public void savePreviousState(final StoredLong v, final long oldValue, final int oldStamp) {
+		final int c = currentLevel >>> CHUNK_SHIFT;
+		if (c == nbChunks) {
+			addChunk();
+		}
+		final int o = currentLevel & CHUNK_MASK;
+		refChunks[c][o] = v;
+		final ByteBuffer data = dataChunks[c];
+		data.putInt(o * ENTRY_BYTES, oldStamp);
+		data.putLong(o * ENTRY_BYTES + 8, oldValue);
+		currentLevel++;
+	}
+
+	@Override
+	public void worldPop(final int wi) {
+		updatePeak();
+		final int start = worldStartLevels[wi];
+		while (currentLevel > start) {
+			currentLevel--;
+			final int c = currentLevel >>> CHUNK_SHIFT;
+			final int o = currentLevel & CHUNK_MASK;
+			final ByteBuffer data = dataChunks[c];
+			((StoredLong) refChunks[c][o])._set(data.getLong(o * ENTRY_BYTES + 8), data.getInt(o * ENTRY_BYTES));
+		}
+	}
+
+	@Override
+	protected void setWorldStamp(final Object ref, final int stamp) {
+		((StoredLong) ref).worldStamp = stamp;
+	}
+}
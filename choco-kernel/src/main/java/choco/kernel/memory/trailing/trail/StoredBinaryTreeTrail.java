@@ -49,6 +49,11 @@ public class StoredBinaryTreeTrail implements ITrailStorage {
 	private int[] worldStartLevels;
 
 	private int maxHist;
+
+	/**
+	 * Highest level reached by the stacks.
+	 */
+	private int peakLevel;
 	private int currentLevel;
 
 	public StoredBinaryTreeTrail(int maxHist, int maxWorld)
@@ -93,28 +98,32 @@ public class StoredBinaryTreeTrail implements ITrailStorage {
 	}
 
 	private void resizeUpdateCapacity() {
-		final int newCapacity = ((maxHist * 3) / 2);
+		resizeUpdateCapacity((maxHist * 3) / 2);
+	}
+
+	public void resizeUpdateCapacity(final int capacity) {
+		final int newCapacity = Math.max(capacity, currentLevel + 1);
 		final IStateBinaryTree[] tmp1 = new IStateBinaryTree[newCapacity];
-		System.arraycopy(treeStack, 0, tmp1, 0, treeStack.length);
+		System.arraycopy(treeStack, 0, tmp1, 0, currentLevel);
 		treeStack = tmp1;
 
 		// then, copy the stack of former values
 		final IStateBinaryTree.Node[] tmp2 = new IStateBinaryTree.Node[newCapacity];
-		System.arraycopy(nodeStack, 0, tmp2, 0, nodeStack.length);
+		System.arraycopy(nodeStack, 0, tmp2, 0, currentLevel);
 		nodeStack = tmp2;
 
 
 		final int[] tmp3 = new int[newCapacity];
-		System.arraycopy(opStack, 0, tmp3, 0, opStack.length);
+		System.arraycopy(opStack, 0, tmp3, 0, currentLevel);
 		opStack = tmp3;
 
 		// then, copy the stack of world stamps
 		final int[] tmp4 = new int[newCapacity];
-		System.arraycopy(oldValues, 0, tmp4, 0, oldValues.length);
+		System.arraycopy(oldValues, 0, tmp4, 0, currentLevel);
 		oldValues = tmp4;
 
 		final int[] tmp5 = new int[newCapacity];
-		System.arraycopy(stampStack, 0, tmp5, 0, stampStack.length);
+		System.arraycopy(stampStack, 0, tmp5, 0, currentLevel);
 		stampStack = tmp5;
 
 		// last update the capacity
@@ -127,6 +136,9 @@ public class StoredBinaryTreeTrail implements ITrailStorage {
 	}
 
 	public void worldPop(int wi) {
+		if (currentLevel > peakLevel) {
+			peakLevel = currentLevel;
+		}
 
 
 
@@ -156,6 +168,9 @@ public class StoredBinaryTreeTrail implements ITrailStorage {
 	}
 
 	public void worldCommit(int wi) {
+		if (currentLevel > peakLevel) {
+			peakLevel = currentLevel;
+		}
 		//TODO
 	}
 
@@ -166,7 +181,19 @@ public class StoredBinaryTreeTrail implements ITrailStorage {
 
 	public void resizeWorldCapacity(int newWorldCapacity) {
 		final int[] tmp = new int[newWorldCapacity];
-		System.arraycopy(worldStartLevels, 0, tmp, 0, worldStartLevels.length);
+		System.arraycopy(worldStartLevels, 0, tmp, 0, Math.min(worldStartLevels.length, newWorldCapacity));
 		worldStartLevels = tmp;
 	}
-}
\ No newline at end of file
+
+	public int getPeakSize() {
+		return Math.max(peakLevel, currentLevel);
+	}
+
+	public int getCapacity() {
+		return maxHist;
+	}
+
+	public long getMemoryFootprint() {
+		return (long) maxHist * (2 * REFERENCE_BYTES + 12) + 4L * worldStartLevels.length;
+	}
+}
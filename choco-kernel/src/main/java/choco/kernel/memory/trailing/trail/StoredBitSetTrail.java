@@ -0,0 +1,235 @@
+/**
+ *  Copyright (c) 1999-2010, Ecole des Mines de Nantes
+ *  All rights reserved.
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *      * Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *      * Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *      * Neither the name of the Ecole des Mines de Nantes nor the
+ *        names of its contributors may be used to endorse or promote products
+ *        derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ *  EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package choco.kernel.memory.trailing.trail;
+
+import choco.kernel.memory.trailing.StoredBitSet;
+
+
+/**
+ * Implements a trail with the history of the words of all the stored bitsets.
+ */
+public class StoredBitSetTrail implements ITrailStorage {
+
+
+	/**
+	 * All the stored bitsets.
+	 */
+
+	private StoredBitSet[] bitSetStack;
+
+
+	/**
+	 * Indices of the previous words in the stored bitsets.
+	 */
+
+	private int[] indexStack;
+
+
+	/**
+	 * Previous values of the stored words.
+	 */
+
+	private long[] valueStack;
+
+
+	/**
+	 * World stamps associated to the previous values
+	 */
+
+	private int[] stampStack;
+
+	/**
+	 * The last world a bitset was modified in.
+	 */
+
+	private int currentLevel;
+
+
+	/**
+	 * Starts of levels in all the history arrays.
+	 */
+
+	private int[] worldStartLevels;
+
+	/**
+	 * capacity of the trailing stack (in terms of number of updates that can be stored)
+	 */
+	private int maxUpdates = 0;
+
+	/**
+	 * Highest level reached by the stacks.
+	 */
+	private int peakLevel;
+
+
+	/**
+	 * Constructs a trail for the specified environment with the
+	 * specified numbers of updates and worlds.
+	 */
+
+	public StoredBitSetTrail(int nUpdates, int nWorlds) {
+		this.currentLevel = 0;
+		maxUpdates = nUpdates;
+		this.bitSetStack = new StoredBitSet[nUpdates];
+		this.indexStack = new int[nUpdates];
+		this.valueStack = new long[nUpdates];
+		this.stampStack = new int[nUpdates];
+		this.worldStartLevels = new int[nWorlds];
+	}
+
+    @Override
+    public void clear() {
+		currentLevel = 0;
+    }
+
+	/**
+	 * Reacts on the modification of a word in a stored bitset.
+	 */
+
+	public void savePreviousState(StoredBitSet set, int index, long oldValue, int oldStamp) {
+		this.bitSetStack[currentLevel] = set;
+		this.indexStack[currentLevel] = index;
+		this.stampStack[currentLevel] = oldStamp;
+		this.valueStack[currentLevel] = oldValue;
+		currentLevel++;
+		if (currentLevel == maxUpdates)
+			resizeUpdateCapacity();
+	}
+
+	private void resizeUpdateCapacity() {
+		resizeUpdateCapacity((maxUpdates * 3) / 2);
+	}
+
+	public void resizeUpdateCapacity(final int capacity) {
+		final int newCapacity = Math.max(capacity, currentLevel + 1);
+		// first, copy the stack of bitsets
+		final StoredBitSet[] tmp1 = new StoredBitSet[newCapacity];
+		System.arraycopy(bitSetStack, 0, tmp1, 0, currentLevel);
+		bitSetStack = tmp1;
+		// then, copy the stack of former values
+		final long[] tmp2 = new long[newCapacity];
+		System.arraycopy(valueStack, 0, tmp2, 0, currentLevel);
+		valueStack = tmp2;
+		// then, copy the stack of world stamps
+		final int[] tmp3 = new int[newCapacity];
+		System.arraycopy(stampStack, 0, tmp3, 0, currentLevel);
+		stampStack = tmp3;
+		// then, copy the stack of indices
+		final int[] tmp4 = new int[newCapacity];
+		System.arraycopy(indexStack, 0, tmp4, 0, currentLevel);
+		indexStack = tmp4;
+
+		// last update the capacity
+		maxUpdates = newCapacity;
+	}
+
+	public void resizeWorldCapacity(int newWorldCapacity) {
+		final int[] tmp = new int[newWorldCapacity];
+		System.arraycopy(worldStartLevels, 0, tmp, 0, Math.min(worldStartLevels.length, newWorldCapacity));
+		worldStartLevels = tmp;
+	}
+
+	/**
+	 * Moving up to the next world.
+     * @param wi
+     */
+
+	public void worldPush(int wi) {
+		this.worldStartLevels[wi] = currentLevel;
+	}
+
+
+	/**
+	 * Moving down to the previous world.
+     * @param wi
+     */
+
+	public void worldPop(int wi) {
+		if (currentLevel > peakLevel) {
+			peakLevel = currentLevel;
+		}
+		final int start = worldStartLevels[wi];
+		while (currentLevel > start) {
+			currentLevel--;
+			bitSetStack[currentLevel]._set(indexStack[currentLevel], valueStack[currentLevel], stampStack[currentLevel]);
+		}
+	}
+
+
+	/**
+	 * Comits a world: merging it with the previous one.
+     * @param wi
+     */
+
+	public void worldCommit(int wi) {
+		if (currentLevel > peakLevel) {
+			peakLevel = currentLevel;
+		}
+		// same principle as StoredIntVectorTrail
+		int startLevel = worldStartLevels[wi];
+		int prevWorld = wi - 1;
+		int writeIdx = startLevel;
+		for (int level = startLevel; level < currentLevel; level++) {
+			StoredBitSet set = bitSetStack[level];
+			int idx = indexStack[level];
+			long val = valueStack[level];
+			int stamp = stampStack[level];
+			set.worldStamps[idx] = prevWorld;
+			if (stamp != prevWorld) {
+				if (writeIdx != level) {
+					valueStack[writeIdx] = val;
+					indexStack[writeIdx] = idx;
+					bitSetStack[writeIdx] = set;
+					stampStack[writeIdx] = stamp;
+				}
+				writeIdx++;
+			}
+		}
+		currentLevel = writeIdx;
+	}
+
+
+	/**
+	 * Returns the current size of the stack.
+	 */
+
+	public int getSize() {
+		return currentLevel;
+	}
+
+	public int getPeakSize() {
+		return Math.max(peakLevel, currentLevel);
+	}
+
+	public int getCapacity() {
+		return maxUpdates;
+	}
+
+	public long getMemoryFootprint() {
+		return (long) maxUpdates * (REFERENCE_BYTES + 16) + 4L * worldStartLevels.length;
+	}
+}
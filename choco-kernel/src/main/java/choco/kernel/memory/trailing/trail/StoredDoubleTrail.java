@@ -34,7 +34,7 @@ import choco.kernel.memory.trailing.StoredDouble;
  * A backtrackable float variable trail storing past values 
  * of all the float variables.
  */
-public class StoredDoubleTrail implements ITrailStorage {
+public class StoredDoubleTrail implements IStoredDoubleTrail {
 
 	/**
 	 * Stack of backtrackable search variables.
@@ -68,6 +68,11 @@ public class StoredDoubleTrail implements ITrailStorage {
 	 */
 	private int maxUpdates = 0;
 
+	/**
+	 * Highest level reached by the stacks.
+	 */
+	private int peakLevel;
+
 	/**
 	 * Constructs a trail with predefined size.
      * @param nUpdates maximal number of updates that will be stored
@@ -101,6 +106,9 @@ public class StoredDoubleTrail implements ITrailStorage {
      * @param wi
      */
 	public void worldPop(int wi) {
+		if (currentLevel > peakLevel) {
+			peakLevel = currentLevel;
+		}
 		while (currentLevel > worldStartLevels[wi]) {
 			currentLevel--;
 			final StoredDouble v = variableStack[currentLevel];
@@ -121,6 +129,9 @@ public class StoredDoubleTrail implements ITrailStorage {
      * @param wi
      */
 	public void worldCommit(int wi) {
+		if (currentLevel > peakLevel) {
+			peakLevel = currentLevel;
+		}
 		// principle:
 		//   currentLevel decreases to end of previous world
 		//   updates of the committed world are scanned:
@@ -177,18 +188,22 @@ public class StoredDoubleTrail implements ITrailStorage {
 	 * Resizes the data structure to manage more values.
 	 */
 	private void resizeUpdateCapacity() {
-		final int newCapacity = ((maxUpdates * 3) / 2);
+		resizeUpdateCapacity((maxUpdates * 3) / 2);
+	}
+
+	public void resizeUpdateCapacity(final int capacity) {
+		final int newCapacity = Math.max(capacity, currentLevel + 1);
 		// first, copy the stack of variables
 		final StoredDouble[] tmp1 = new StoredDouble[newCapacity];
-		System.arraycopy(variableStack, 0, tmp1, 0, variableStack.length);
+		System.arraycopy(variableStack, 0, tmp1, 0, currentLevel);
 		variableStack = tmp1;
 		// then, copy the stack of former values
 		final double[] tmp2 = new double[newCapacity];
-		System.arraycopy(valueStack, 0, tmp2, 0, valueStack.length);
+		System.arraycopy(valueStack, 0, tmp2, 0, currentLevel);
 		valueStack = tmp2;
 		// then, copy the stack of world stamps
 		final int[] tmp3 = new int[newCapacity];
-		System.arraycopy(stampStack, 0, tmp3, 0, stampStack.length);
+		System.arraycopy(stampStack, 0, tmp3, 0, currentLevel);
 		stampStack = tmp3;
 		// last update the capacity
 		maxUpdates = newCapacity;
@@ -201,7 +216,19 @@ public class StoredDoubleTrail implements ITrailStorage {
 	 */
 	public void resizeWorldCapacity(final int newWorldCapacity) {
 		final int[] tmp = new int[newWorldCapacity];
-		System.arraycopy(worldStartLevels, 0, tmp, 0, worldStartLevels.length);
+		System.arraycopy(worldStartLevels, 0, tmp, 0, Math.min(worldStartLevels.length, newWorldCapacity));
 		worldStartLevels = tmp;
 	}
+
+	public int getPeakSize() {
+		return Math.max(peakLevel, currentLevel);
+	}
+
+	public int getCapacity() {
+		return maxUpdates;
+	}
+
+	public long getMemoryFootprint() {
+		return (long) maxUpdates * (REFERENCE_BYTES + 12) + 4L * worldStartLevels.length;
+	}
 }
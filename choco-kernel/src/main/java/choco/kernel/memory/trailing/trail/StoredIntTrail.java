@@ -35,7 +35,7 @@ import choco.kernel.memory.trailing.StoredInt;
  *
  * @see ITrailStorage
  */
-public final class StoredIntTrail implements ITrailStorage {
+public final class StoredIntTrail implements IStoredIntTrail {
 
 
 	/**
@@ -78,6 +78,11 @@ public final class StoredIntTrail implements ITrailStorage {
 	 */
 	private int maxUpdates = 0;
 
+	/**
+	 * Highest level reached by the stacks.
+	 */
+	private int peakLevel;
+
 
 	/**
 	 * Constructs a trail with predefined size.
@@ -117,6 +122,9 @@ public final class StoredIntTrail implements ITrailStorage {
      */
 
 	public void worldPop(int wi) {
+		if (currentLevel > peakLevel) {
+			peakLevel = currentLevel;
+		}
 		while (currentLevel > worldStartLevels[wi]) {
 			currentLevel--;
 			final StoredInt v = variableStack[currentLevel];
@@ -140,6 +148,9 @@ public final class StoredIntTrail implements ITrailStorage {
      */
 
 	public void worldCommit(int wi) {
+		if (currentLevel > peakLevel) {
+			peakLevel = currentLevel;
+		}
 		// principle:
 		//   currentLevel decreases to end of previous world
 		//   updates of the committed world are scanned:
@@ -180,18 +191,22 @@ public final class StoredIntTrail implements ITrailStorage {
 	}
 
 	private void resizeUpdateCapacity() {
-		final int newCapacity = ((maxUpdates * 3) / 2);
+		resizeUpdateCapacity((maxUpdates * 3) / 2);
+	}
+
+	public void resizeUpdateCapacity(final int capacity) {
+		final int newCapacity = Math.max(capacity, currentLevel + 1);
 		// first, copy the stack of variables
 		final StoredInt[] tmp1 = new StoredInt[newCapacity];
-		System.arraycopy(variableStack, 0, tmp1, 0, variableStack.length);
+		System.arraycopy(variableStack, 0, tmp1, 0, currentLevel);
 		variableStack = tmp1;
 		// then, copy the stack of former values
 		final int[] tmp2 = new int[newCapacity];
-		System.arraycopy(valueStack, 0, tmp2, 0, valueStack.length);
+		System.arraycopy(valueStack, 0, tmp2, 0, currentLevel);
 		valueStack = tmp2;
 		// then, copy the stack of world stamps
 		final int[] tmp3 = new int[newCapacity];
-		System.arraycopy(stampStack, 0, tmp3, 0, stampStack.length);
+		System.arraycopy(stampStack, 0, tmp3, 0, currentLevel);
 		stampStack = tmp3;
 		// last update the capacity
 		maxUpdates = newCapacity;
@@ -199,8 +214,19 @@ public final class StoredIntTrail implements ITrailStorage {
 
 	public void resizeWorldCapacity(int newWorldCapacity) {
 		final int[] tmp = new int[newWorldCapacity];
-		System.arraycopy(worldStartLevels, 0, tmp, 0, worldStartLevels.length);
+		System.arraycopy(worldStartLevels, 0, tmp, 0, Math.min(worldStartLevels.length, newWorldCapacity));
 		worldStartLevels = tmp;
 	}
-}
 
+	public int getPeakSize() {
+		return Math.max(peakLevel, currentLevel);
+	}
+
+	public int getCapacity() {
+		return maxUpdates;
+	}
+
+	public long getMemoryFootprint() {
+		return (long) maxUpdates * (REFERENCE_BYTES + 8) + 4L * worldStartLevels.length;
+	}
+}
@@ -30,7 +30,7 @@ package choco.kernel.memory.trailing.trail;
 import choco.kernel.memory.trailing.StoredLong;
 
 
-public class StoredLongTrail implements ITrailStorage {
+public class StoredLongTrail implements IStoredLongTrail {
 
 
 	/**
@@ -73,6 +73,11 @@ public class StoredLongTrail implements ITrailStorage {
 	 */
 	private int maxUpdates = 0;
 
+	/**
+	 * Highest level reached by the stacks.
+	 */
+	private int peakLevel;
+
 
 	/**
 	 * Constructs a trail with predefined size.
@@ -112,6 +117,9 @@ public class StoredLongTrail implements ITrailStorage {
      */
 
 	public void worldPop(int wi) {
+		if (currentLevel > peakLevel) {
+			peakLevel = currentLevel;
+		}
 		while (currentLevel > worldStartLevels[wi]) {
 			currentLevel--;
 			final StoredLong v = variableStack[currentLevel];
@@ -135,7 +143,28 @@ public class StoredLongTrail implements ITrailStorage {
      */
 
 	public void worldCommit(int wi) {
-		// TODO
+		if (currentLevel > peakLevel) {
+			peakLevel = currentLevel;
+		}
+		// principle: see StoredIntTrail#worldCommit
+		final int startLevel = worldStartLevels[wi];
+		final int prevWorld = wi - 1;
+		int writeIdx = startLevel;
+		for (int level = startLevel; level < currentLevel; level++) {
+			final StoredLong var = variableStack[level];
+			final long val = valueStack[level];
+			final int stamp = stampStack[level];
+			var.worldStamp = prevWorld;
+			if (stamp != prevWorld) {
+				if (writeIdx != level) {
+					valueStack[writeIdx] = val;
+					variableStack[writeIdx] = var;
+					stampStack[writeIdx] = stamp;
+				}
+				writeIdx++;
+			}
+		}
+		currentLevel = writeIdx;
 	}
 
 
@@ -154,18 +183,22 @@ public class StoredLongTrail implements ITrailStorage {
 	}
 
 	private void resizeUpdateCapacity() {
-		final int newCapacity = ((maxUpdates * 3) / 2);
+		resizeUpdateCapacity((maxUpdates * 3) / 2);
+	}
+
+	public void resizeUpdateCapacity(final int capacity) {
+		final int newCapacity = Math.max(capacity, currentLevel + 1);
 		// first, copy the stack of variables
 		final StoredLong[] tmp1 = new StoredLong[newCapacity];
-		System.arraycopy(variableStack, 0, tmp1, 0, variableStack.length);
+		System.arraycopy(variableStack, 0, tmp1, 0, currentLevel);
 		variableStack = tmp1;
 		// then, copy the stack of former values
 		final long[] tmp2 = new long[newCapacity];
-		System.arraycopy(valueStack, 0, tmp2, 0, valueStack.length);
+		System.arraycopy(valueStack, 0, tmp2, 0, currentLevel);
 		valueStack = tmp2;
 		// then, copy the stack of world stamps
 		final int[] tmp3 = new int[newCapacity];
-		System.arraycopy(stampStack, 0, tmp3, 0, stampStack.length);
+		System.arraycopy(stampStack, 0, tmp3, 0, currentLevel);
 		stampStack = tmp3;
 		// last update the capacity
 		maxUpdates = newCapacity;
@@ -173,8 +206,19 @@ public class StoredLongTrail implements ITrailStorage {
 
 	public void resizeWorldCapacity(int newWorldCapacity) {
 		final int[] tmp = new int[newWorldCapacity];
-		System.arraycopy(worldStartLevels, 0, tmp, 0, worldStartLevels.length);
+		System.arraycopy(worldStartLevels, 0, tmp, 0, Math.min(worldStartLevels.length, newWorldCapacity));
 		worldStartLevels = tmp;
 	}
 
+	public int getPeakSize() {
+		return Math.max(peakLevel, currentLevel);
+	}
+
+	public int getCapacity() {
+		return maxUpdates;
+	}
+
+	public long getMemoryFootprint() {
+		return (long) maxUpdates * (REFERENCE_BYTES + 12) + 4L * worldStartLevels.length;
+	}
 }
@@ -83,6 +83,11 @@ public class StoredLongVectorTrail implements ITrailStorage
 	 */
 	private int maxUpdates = 0;
 
+	/**
+	 * Highest level reached by the stacks.
+	 */
+	private int peakLevel;
+
 
 	/**
 	 * Constructs a trail for the specified environment with the
@@ -119,22 +124,26 @@ public class StoredLongVectorTrail implements ITrailStorage
 	}
 
 	private void resizeUpdateCapacity() {
-		final int newCapacity = ((maxUpdates * 3) / 2);
+		resizeUpdateCapacity((maxUpdates * 3) / 2);
+	}
+
+	public void resizeUpdateCapacity(final int capacity) {
+		final int newCapacity = Math.max(capacity, currentLevel + 1);
 		// first, copy the stack of variables
 		final StoredLongVector[] tmp1 = new StoredLongVector[newCapacity];
-		System.arraycopy(vectorStack, 0, tmp1, 0, vectorStack.length);
+		System.arraycopy(vectorStack, 0, tmp1, 0, currentLevel);
 		vectorStack = tmp1;
 		// then, copy the stack of former values
 		final long[] tmp2 = new long[newCapacity];
-		System.arraycopy(valueStack, 0, tmp2, 0, valueStack.length);
+		System.arraycopy(valueStack, 0, tmp2, 0, currentLevel);
 		valueStack = tmp2;
 		// then, copy the stack of world stamps
 		final int[] tmp3 = new int[newCapacity];
-		System.arraycopy(stampStack, 0, tmp3, 0, stampStack.length);
+		System.arraycopy(stampStack, 0, tmp3, 0, currentLevel);
 		stampStack = tmp3;
 		// then, copy the stack of indices
 		final int[] tmp4 = new int[newCapacity];
-		System.arraycopy(indexStack, 0, tmp4, 0, indexStack.length);
+		System.arraycopy(indexStack, 0, tmp4, 0, currentLevel);
 		indexStack = tmp4;
 
 		// last update the capacity
@@ -143,7 +152,7 @@ public class StoredLongVectorTrail implements ITrailStorage
 
 	public void resizeWorldCapacity(int newWorldCapacity) {
 		final int[] tmp = new int[newWorldCapacity];
-		System.arraycopy(worldStartLevels, 0, tmp, 0, worldStartLevels.length);
+		System.arraycopy(worldStartLevels, 0, tmp, 0, Math.min(worldStartLevels.length, newWorldCapacity));
 		worldStartLevels = tmp;
 	}
 
@@ -163,6 +172,9 @@ public class StoredLongVectorTrail implements ITrailStorage
      */
 
 	public void worldPop(int wi) {
+		if (currentLevel > peakLevel) {
+			peakLevel = currentLevel;
+		}
 		while (currentLevel > worldStartLevels[wi]) {
 			currentLevel--;
 			StoredLongVector v = vectorStack[currentLevel];
@@ -177,6 +189,9 @@ public class StoredLongVectorTrail implements ITrailStorage
      */
 
 	public void worldCommit(int wi) {
+		if (currentLevel > peakLevel) {
+			peakLevel = currentLevel;
+		}
 		// principle:
 		//   currentLevel decreases to end of previous world
 		//   updates of the committed world are scanned:
@@ -213,4 +228,16 @@ public class StoredLongVectorTrail implements ITrailStorage
 	public int getSize() {
 		return currentLevel;
 	}
+
+	public int getPeakSize() {
+		return Math.max(peakLevel, currentLevel);
+	}
+
+	public int getCapacity() {
+		return maxUpdates;
+	}
+
+	public long getMemoryFootprint() {
+		return (long) maxUpdates * (REFERENCE_BYTES + 16) + 4L * worldStartLevels.length;
+	}
 }
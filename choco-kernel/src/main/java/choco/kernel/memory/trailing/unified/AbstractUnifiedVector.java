@@ -0,0 +1,122 @@
+/**
+ *  Copyright (c) 1999-2010, Ecole des Mines de Nantes
+ *  All rights reserved.
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *      * Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *      * Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *      * Neither the name of the Ecole des Mines de Nantes nor the
+ *        names of its contributors may be used to endorse or promote products
+ *        derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ *  EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package choco.kernel.memory.trailing.unified;
+
+import choco.kernel.memory.IStateInt;
+
+/**
+ * Common part of the stored vectors of an {@link EnvironmentUnifiedTrailing}:
+ * the entries of a vector are a block of consecutive cells.
+ */
+abstract class AbstractUnifiedVector {
+
+	/**
+	 * Minimal capacity of a vector
+	 */
+	static final int MIN_CAPACITY = 8;
+
+	final EnvironmentUnifiedTrailing environment;
+
+	/**
+	 * Handle of the first cell of the block.
+	 */
+	int base;
+
+	/**
+	 * Number of cells of the block.
+	 */
+	private int capacity;
+
+	/**
+	 * A backtrackable search with the size of the vector.
+	 */
+	final IStateInt size;
+
+	AbstractUnifiedVector(final EnvironmentUnifiedTrailing env, final int initialSize, final long initialValue, final boolean objects) {
+		this.environment = env;
+		this.capacity = Math.max(MIN_CAPACITY, initialSize);
+		this.base = objects ? env.allocateObjects(capacity) : env.allocate(capacity, initialValue);
+		this.size = env.makeInt(initialSize);
+	}
+
+	final boolean rangeCheck(final int index) {
+		return index < size.get() && index >= 0;
+	}
+
+	final IndexOutOfBoundsException outOfBounds(final int index) {
+		return new IndexOutOfBoundsException("Index: " + index + ", Size: " + size.get());
+	}
+
+	public final int size() {
+		return size.get();
+	}
+
+	public final boolean isEmpty() {
+		return size.get() == 0;
+	}
+
+	/**
+	 * Checks if the capacity is great enough, else the block is moved to a larger one.
+	 *
+	 * @param minCapacity the necessary capacity.
+	 */
+	public final void ensureCapacity(final int minCapacity) {
+		if (minCapacity > capacity) {
+			int newCapacity = (capacity * 3) / 2 + 1;
+			if (newCapacity < minCapacity) {
+				newCapacity = minCapacity;
+			}
+			base = environment.relocate(base, capacity, newCapacity);
+			capacity = newCapacity;
+		}
+	}
+
+	/**
+	 * Increases the size of the vector by one.
+	 * @return the handle of the new entry, stamped with the current world
+	 */
+	final int grow() {
+		final int newsize = size.get() + 1;
+		ensureCapacity(newsize);
+		size.set(newsize);
+		final int h = base + 2 * (newsize - 1);
+		environment.values[h + 1] = environment.getWorldIndex();
+		return h;
+	}
+
+	/**
+	 * removes the search at the end of the vector.
+	 * does nothing when called on an empty vector
+	 */
+	public final void removeLast() {
+		final int newsize = size.get() - 1;
+		if (newsize >= 0) {
+			size.set(newsize);
+		}
+	}
+}
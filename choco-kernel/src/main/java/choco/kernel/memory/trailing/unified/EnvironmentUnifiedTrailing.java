@@ -0,0 +1,509 @@
+/**
+ *  Copyright (c) 1999-2010, Ecole des Mines de Nantes
+ *  All rights reserved.
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *      * Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *      * Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *      * Neither the name of the Ecole des Mines de Nantes nor the
+ *        names of its contributors may be used to endorse or promote products
+ *        derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ *  EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package choco.kernel.memory.trailing.unified;
+
+import choco.kernel.memory.*;
+
+/**
+ * An environment where every backtrackable primitive is trailed into one single stack.
+ * <p/>
+ * Each stored cell (an integer, a boolean, a long, a double, an entry of a stored vector)
+ * is identified by a compact handle: the position of its current value in a flat <code>long[]</code>,
+ * immediately followed by its world stamp (both are read together on update).
+ * A trail entry is made of two consecutive longs of a <code>long[]</code> stack:
+ * the tagged handle packed with the former world stamp, then the former value.
+ * <p/>
+ * Pushing a world is a single store, popping a world is one loop over the trail,
+ * whatever the kind of the stored data.
+ * <p/>
+ * Note: stored binary trees are not supported by this environment.
+ */
+public final class EnvironmentUnifiedTrailing extends AbstractEnvironment {
+
+	/**
+	 * Number of bits of a handle. The two upper bits of a key are tags.
+	 * A handle is always even.
+	 */
+	static final int HANDLE_MASK = (1 << 30) - 1;
+
+	/**
+	 * Tag of integer cells which call a procedure when they are restored.
+	 */
+	static final int PROCEDURE = 1 << 30;
+
+	/**
+	 * Tag of object cells (the former value is kept in {@link #objectTrail}).
+	 */
+	static final int OBJECT = 1 << 31;
+
+	private static final long STAMP_MASK = 0xFFFFFFFFL;
+
+	/**
+	 * Initial number of cells.
+	 */
+	private static final int INITIAL_CELLS = 512;
+
+	/**
+	 * Initial number of updates that the trail can handle.
+	 */
+	private static final int MaxHist = 5000;
+
+	/**
+	 * Current value (at the handle) and world stamp (next to the handle) of the cells.
+	 * Doubles are stored as raw long bits.
+	 */
+	long[] values;
+
+	/**
+	 * Current values of the object cells, indexed by the half of the handle (lazily allocated).
+	 */
+	Object[] objects;
+
+	/**
+	 * Procedures of the procedure cells, indexed by the half of the handle (lazily allocated).
+	 */
+	private IStateIntProcedure[] procedures;
+
+	/**
+	 * Number of allocated cells.
+	 */
+	private int nbCells;
+
+	/**
+	 * The interleaved trail: (key << 32 | former stamp), former value.
+	 */
+	private long[] trail;
+
+	/**
+	 * Former values of object cells, indexed by the half of the position of the entry in the trail.
+	 */
+	private Object[] objectTrail;
+
+	/**
+	 * Points the first free position of the trail.
+	 */
+	private int trailTop;
+
+	/**
+	 * A stack of pointers (for each start of a world).
+	 */
+	private int[] worldStartLevels;
+
+	/**
+	 * Highest position reached by the top of the trail.
+	 */
+	private int peakTop;
+
+	public EnvironmentUnifiedTrailing() {
+		values = new long[2 * INITIAL_CELLS];
+		trail = new long[2 * MaxHist];
+		worldStartLevels = new int[100];
+	}
+
+	@Override
+	public void worldPush() {
+		if (++currentWorld == worldStartLevels.length) {
+			resizeWorldCapacity();
+		}
+		worldStartLevels[currentWorld] = trailTop;
+	}
+
+	@Override
+	public void worldPop() {
+		if (trailTop > peakTop) {
+			peakTop = trailTop;
+		}
+		final int start = worldStartLevels[currentWorld];
+		final long[] t = trail;
+		final long[] v = values;
+		int top = trailTop;
+		while (top > start) {
+			top -= 2;
+			final long head = t[top];
+			final int key = (int) (head >>> 32);
+			if ((key & ~HANDLE_MASK) == 0) {
+				v[key] = t[top + 1];
+				v[key + 1] = (int) head;
+			} else {
+				restoreTagged(key, top, head);
+			}
+		}
+		trailTop = top;
+		currentWorld--;
+	}
+
+	private void restoreTagged(final int key, final int top, final long head) {
+		final int h = key & HANDLE_MASK;
+		if ((key & OBJECT) != 0) {
+			objects[h >> 1] = objectTrail[top >> 1];
+			objectTrail[top >> 1] = null;
+		} else {
+			final int restored = (int) trail[top + 1];
+			procedures[h >> 1].apply((int) values[h], restored);
+			values[h] = restored;
+		}
+		values[h + 1] = (int) head;
+	}
+
+	@Override
+	public void worldCommit() {
+		if (currentWorld == 0) {
+			throw new IllegalStateException("Commit in world 0?");
+		}
+		if (trailTop > peakTop) {
+			peakTop = trailTop;
+		}
+		// principle: see StoredIntTrail#worldCommit, updates whose stamp is the previous world are discarded
+		final int prevWorld = currentWorld - 1;
+		int writeIdx = worldStartLevels[currentWorld];
+		for (int level = writeIdx; level < trailTop; level += 2) {
+			final long head = trail[level];
+			final int key = (int) (head >>> 32);
+			values[(key & HANDLE_MASK) + 1] = prevWorld;
+			if ((int) head != prevWorld) {
+				if (writeIdx != level) {
+					trail[writeIdx] = head;
+					trail[writeIdx + 1] = trail[level + 1];
+					if ((key & OBJECT) != 0) {
+						objectTrail[writeIdx >> 1] = objectTrail[level >> 1];
+					}
+				}
+				writeIdx += 2;
+			}
+		}
+		if (objectTrail != null) {
+			for (int level = writeIdx; level < trailTop; level += 2) {
+				objectTrail[level >> 1] = null;
+			}
+		}
+		trailTop = writeIdx;
+		currentWorld--;
+	}
+
+	@Override
+	public void clear() {
+		if (objectTrail != null) {
+			for (int i = trailTop >> 1; --i >= 0;) {
+				objectTrail[i] = null;
+			}
+		}
+		trailTop = 0;
+	}
+
+	/**
+	 * Returns the number of saved past values.
+	 * @return size of the trail
+	 */
+	public int getTrailSize() {
+		return trailTop >> 1;
+	}
+
+	@Override
+	public TrailStatistics[] getTrailStatistics() {
+		// the object trail is parallel to the long[] one: 8 more bytes per entry once allocated
+		final int capacity = trail.length >> 1;
+		final long footprint = 8L * trail.length + 4L * worldStartLevels.length
+				+ (objectTrail == null ? 0 : 8L * objectTrail.length);
+		return new TrailStatistics[]{
+				new TrailStatistics("unified", trailTop >> 1, Math.max(peakTop, trailTop) >> 1, capacity, footprint)
+		};
+	}
+
+	//****************************************************************************************************************//
+	//************************************* CELLS ********************************************************************//
+	//****************************************************************************************************************//
+
+	/**
+	 * Allocates <code>n</code> consecutive cells, stamped with the current world.
+	 * The handle of the i-th cell is the handle of the first one plus <code>2*i</code>.
+	 * @param n number of cells
+	 * @param initialValue initial value of each cell
+	 * @return the handle of the first cell
+	 */
+	int allocate(final int n, final long initialValue) {
+		final int base = 2 * nbCells;
+		ensureCellCapacity(nbCells + n);
+		for (int h = base; h < base + 2 * n; h += 2) {
+			values[h] = initialValue;
+			values[h + 1] = currentWorld;
+		}
+		nbCells += n;
+		return base;
+	}
+
+	/**
+	 * Allocates a cell whose procedure is applied each time its value is restored.
+	 * @return the tagged key of the cell
+	 */
+	int allocate(final IStateIntProcedure procedure, final int initialValue) {
+		final int h = allocate(1, initialValue);
+		if (procedures == null) {
+			procedures = new IStateIntProcedure[values.length >> 1];
+		}
+		procedures[h >> 1] = procedure;
+		return h | PROCEDURE;
+	}
+
+	/**
+	 * Allocates <code>n</code> consecutive object cells, stamped with the current world.
+	 * @return the handle of the first cell
+	 */
+	int allocateObjects(final int n) {
+		if (objects == null) {
+			objects = new Object[values.length >> 1];
+			objectTrail = new Object[trail.length >> 1];
+		}
+		return allocate(n, 0);
+	}
+
+	/**
+	 * Moves a block of cells to a larger one (used by growing vectors).
+	 * Trailed updates of the old block are redirected to the new one.
+	 * @param base handle of the first cell of the block
+	 * @param length number of cells in the block
+	 * @param newLength number of cells of the new block
+	 * @return the handle of the first cell of the new block
+	 */
+	int relocate(final int base, final int length, final int newLength) {
+		final int newBase = allocate(newLength, 0);
+		System.arraycopy(values, base, values, newBase, 2 * length);
+		if (objects != null) {
+			System.arraycopy(objects, base >> 1, objects, newBase >> 1, length);
+			for (int i = base >> 1; i < (base >> 1) + length; i++) {
+				objects[i] = null;
+			}
+		}
+		for (int level = 0; level < trailTop; level += 2) {
+			final long head = trail[level];
+			final int key = (int) (head >>> 32);
+			final int h = key & HANDLE_MASK;
+			if (h >= base && h < base + 2 * length) {
+				final int newKey = (key & ~HANDLE_MASK) | (newBase + h - base);
+				trail[level] = ((long) newKey << 32) | (head & STAMP_MASK);
+			}
+		}
+		return newBase;
+	}
+
+	/**
+	 * Saves the current value of a cell, if it has not been saved yet in the current world.
+	 * @param key the (tagged) handle of a primitive cell
+	 */
+	void save(final int key) {
+		final int h = key & HANDLE_MASK;
+		final int stamp = (int) values[h + 1];
+		if (stamp < currentWorld) {
+			push(key, stamp, values[h]);
+			values[h + 1] = currentWorld;
+		}
+	}
+
+	/**
+	 * Saves the current value of an object cell, if it has not been saved yet in the current world.
+	 * @param h the handle of an object cell
+	 */
+	void saveObject(final int h) {
+		final int stamp = (int) values[h + 1];
+		if (stamp < currentWorld) {
+			objectTrail[trailTop >> 1] = objects[h >> 1];
+			push(h | OBJECT, stamp, 0);
+			values[h + 1] = currentWorld;
+		}
+	}
+
+	private void push(final int key, final int stamp, final long value) {
+		if (trailTop + 2 > trail.length) {
+			resizeUpdateCapacity();
+		}
+		trail[trailTop] = ((long) key << 32) | (stamp & STAMP_MASK);
+		trail[trailTop + 1] = value;
+		trailTop += 2;
+	}
+
+	private void ensureCellCapacity(final int n) {
+		final int capacity = values.length >> 1;
+		if (n > capacity) {
+			int newCapacity = (capacity * 3) / 2;
+			if (newCapacity < n) {
+				newCapacity = n;
+			}
+			if (2 * newCapacity > HANDLE_MASK) {
+				throw new MemoryException("too many stored cells: " + n);
+			}
+			final long[] tmp1 = new long[2 * newCapacity];
+			System.arraycopy(values, 0, tmp1, 0, 2 * nbCells);
+			values = tmp1;
+			if (objects != null) {
+				final Object[] tmp3 = new Object[newCapacity];
+				System.arraycopy(objects, 0, tmp3, 0, nbCells);
+				objects = tmp3;
+			}
+			if (procedures != null) {
+				final IStateIntProcedure[] tmp4 = new IStateIntProcedure[newCapacity];
+				System.arraycopy(procedures, 0, tmp4, 0, nbCells);
+				procedures = tmp4;
+			}
+		}
+	}
+
+	private void resizeUpdateCapacity() {
+		final int newCapacity = ((trail.length * 3) / 2) & ~1;
+		final long[] tmp = new long[newCapacity];
+		System.arraycopy(trail, 0, tmp, 0, trailTop);
+		trail = tmp;
+		if (objectTrail != null) {
+			final Object[] tmp2 = new Object[newCapacity >> 1];
+			System.arraycopy(objectTrail, 0, tmp2, 0, trailTop >> 1);
+			objectTrail = tmp2;
+		}
+	}
+
+	private void resizeWorldCapacity() {
+		final int[] tmp = new int[(worldStartLevels.length * 3) / 2];
+		System.arraycopy(worldStartLevels, 0, tmp, 0, worldStartLevels.length);
+		worldStartLevels = tmp;
+	}
+
+	//****************************************************************************************************************//
+	//************************************* FACTORY ******************************************************************//
+	//****************************************************************************************************************//
+
+	@Override
+	public IStateInt makeInt() {
+		return makeInt(0);
+	}
+
+	@Override
+	public IStateInt makeInt(final int initialValue) {
+		return new UnifiedInt(this, allocate(1, initialValue));
+	}
+
+	@Override
+	public IStateInt makeIntProcedure(final IStateIntProcedure procedure, final int initialValue) {
+		return new UnifiedInt(this, allocate(procedure, initialValue));
+	}
+
+	@Override
+	public IStateBool makeBool(final boolean initialValue) {
+		return new UnifiedBool(this, allocate(1, initialValue ? 1 : 0));
+	}
+
+	@Override
+	public IStateLong makeLong() {
+		return makeLong(0);
+	}
+
+	@Override
+	public IStateLong makeLong(final int init) {
+		return new UnifiedLong(this, allocate(1, init));
+	}
+
+	@Override
+	public IStateDouble makeFloat() {
+		return makeFloat(Double.NaN);
+	}
+
+	@Override
+	public IStateDouble makeFloat(final double initialValue) {
+		return new UnifiedDouble(this, allocate(1, Double.doubleToRawLongBits(initialValue)));
+	}
+
+	@Override
+	public IStateIntVector makeIntVector() {
+		return new UnifiedIntVector(this, 0, 0);
+	}
+
+	@Override
+	public IStateIntVector makeIntVector(final int size, final int initialValue) {
+		return new UnifiedIntVector(this, size, initialValue);
+	}
+
+	@Override
+	public IStateIntVector makeIntVector(final int[] entries) {
+		final UnifiedIntVector v = new UnifiedIntVector(this, entries.length, 0);
+		for (int i = 0; i < entries.length; i++) {
+			values[v.base + 2 * i] = entries[i];
+		}
+		return v;
+	}
+
+	@Override
+	public IStateLongVector makeLongVector() {
+		return new UnifiedLongVector(this, 0, 0);
+	}
+
+	@Override
+	public IStateLongVector makeLongVector(final int size, final long initialValue) {
+		return new UnifiedLongVector(this, size, initialValue);
+	}
+
+	@Override
+	public IStateLongVector makeLongVector(final long[] entries) {
+		final UnifiedLongVector v = new UnifiedLongVector(this, entries.length, 0);
+		for (int i = 0; i < entries.length; i++) {
+			values[v.base + 2 * i] = entries[i];
+		}
+		return v;
+	}
+
+	@Override
+	public IStateDoubleVector makeDoubleVector() {
+		return new UnifiedDoubleVector(this, 0, 0);
+	}
+
+	@Override
+	public IStateDoubleVector makeDoubleVector(final int size, final double initialValue) {
+		return new UnifiedDoubleVector(this, size, initialValue);
+	}
+
+	@Override
+	public IStateDoubleVector makeDoubleVector(final double[] entries) {
+		final UnifiedDoubleVector v = new UnifiedDoubleVector(this, entries.length, 0);
+		for (int i = 0; i < entries.length; i++) {
+			values[v.base + 2 * i] = Double.doubleToRawLongBits(entries[i]);
+		}
+		return v;
+	}
+
+	@Override
+	public <T> IStateVector<T> makeVector() {
+		return new UnifiedVector<T>(this);
+	}
+
+	@Override
+	public IStateBinaryTree makeBinaryTree(final int inf, final int sup) {
+		throw (new UnsupportedOperationException());
+	}
+
+	@Override
+	public IStateObject makeObject(final Object obj) {
+		final int h = allocateObjects(1);
+		objects[h >> 1] = obj;
+		return new UnifiedObject(this, h);
+	}
+}
@@ -0,0 +1,69 @@
+/**
+ *  Copyright (c) 1999-2010, Ecole des Mines de Nantes
+ *  All rights reserved.
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *      * Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *      * Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *      * Neither the name of the Ecole des Mines de Nantes nor the
+ *        names of its contributors may be used to endorse or promote products
+ *        derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ *  EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package choco.kernel.memory.trailing.unified;
+
+import choco.kernel.memory.IEnvironment;
+import choco.kernel.memory.IStateBool;
+
+/**
+ * A backtrackable boolean stored in a cell of an {@link EnvironmentUnifiedTrailing}.
+ */
+public final class UnifiedBool implements IStateBool {
+
+	private final EnvironmentUnifiedTrailing environment;
+
+	private final int handle;
+
+	UnifiedBool(final EnvironmentUnifiedTrailing env, final int handle) {
+		this.environment = env;
+		this.handle = handle;
+	}
+
+	@Override
+	public boolean get() {
+		return environment.values[handle] != 0;
+	}
+
+	@Override
+	public void set(final boolean b) {
+		if (b != get()) {
+			environment.save(handle);
+			environment.values[handle] = b ? 1 : 0;
+		}
+	}
+
+	@Override
+	public IEnvironment getEnvironment() {
+		return environment;
+	}
+
+	@Override
+	public String toString() {
+		return String.valueOf(get());
+	}
+}
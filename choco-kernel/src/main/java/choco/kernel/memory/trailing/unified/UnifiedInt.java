@@ -0,0 +1,92 @@
+/**
+ *  Copyright (c) 1999-2010, Ecole des Mines de Nantes
+ *  All rights reserved.
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *      * Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *      * Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *      * Neither the name of the Ecole des Mines de Nantes nor the
+ *        names of its contributors may be used to endorse or promote products
+ *        derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ *  EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package choco.kernel.memory.trailing.unified;
+
+import choco.kernel.memory.IEnvironment;
+import choco.kernel.memory.IStateInt;
+
+/**
+ * A backtrackable integer stored in a cell of an {@link EnvironmentUnifiedTrailing}.
+ */
+public final class UnifiedInt implements IStateInt {
+
+	private final EnvironmentUnifiedTrailing environment;
+
+	/**
+	 * Handle of the cell, possibly tagged as a procedure cell.
+	 */
+	private final int key;
+
+	private final int handle;
+
+	UnifiedInt(final EnvironmentUnifiedTrailing env, final int key) {
+		this.environment = env;
+		this.key = key;
+		this.handle = key & EnvironmentUnifiedTrailing.HANDLE_MASK;
+	}
+
+	@Override
+	public int get() {
+		return (int) environment.values[handle];
+	}
+
+	@Override
+	public void set(final int y) {
+		if (y != get()) {
+			environment.save(key);
+			environment.values[handle] = y;
+		}
+	}
+
+	@Override
+	public int add(final int delta) {
+		final int y = get() + delta;
+		set(y);
+		return y;
+	}
+
+	@Override
+	public int increment() {
+		return add(1);
+	}
+
+	@Override
+	public int decrement() {
+		return add(-1);
+	}
+
+	@Override
+	public IEnvironment getEnvironment() {
+		return environment;
+	}
+
+	@Override
+	public String toString() {
+		return String.valueOf(get());
+	}
+}
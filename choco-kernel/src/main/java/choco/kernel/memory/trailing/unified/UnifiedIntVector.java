@@ -0,0 +1,104 @@
+/**
+ *  Copyright (c) 1999-2010, Ecole des Mines de Nantes
+ *  All rights reserved.
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *      * Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *      * Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *      * Neither the name of the Ecole des Mines de Nantes nor the
+ *        names of its contributors may be used to endorse or promote products
+ *        derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ *  EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package choco.kernel.memory.trailing.unified;
+
+import choco.kernel.common.util.iterators.DisposableIntIterator;
+import choco.kernel.memory.IStateIntVector;
+
+/**
+ * A backtrackable vector of integers stored in a block of cells of an {@link EnvironmentUnifiedTrailing}.
+ */
+public final class UnifiedIntVector extends AbstractUnifiedVector implements IStateIntVector {
+
+	UnifiedIntVector(final EnvironmentUnifiedTrailing env, final int initialSize, final int initialValue) {
+		super(env, initialSize, initialValue, false);
+	}
+
+	@Override
+	public void add(final int i) {
+		final int h = grow();
+		environment.values[h] = i;
+	}
+
+	@Override
+	public boolean contain(final int val) {
+		final int ssize = size.get();
+		for (int i = 0; i < ssize; i++) {
+			if (val == quickGet(i)) return true;
+		}
+		return false;
+	}
+
+	@Override
+	public void remove(final int i) {
+		final int ssize = size.get();
+		for (int j = i; j < ssize - 1; j++) {
+			quickSet(j, quickGet(j + 1));
+		}
+		removeLast();
+	}
+
+	@Override
+	public int get(final int index) {
+		if (rangeCheck(index)) {
+			return quickGet(index);
+		}
+		throw outOfBounds(index);
+	}
+
+	@Override
+	public int quickGet(final int index) {
+		assert (rangeCheck(index));
+		return (int) environment.values[base + 2 * index];
+	}
+
+	@Override
+	public int set(final int index, final int val) {
+		if (rangeCheck(index)) {
+			return quickSet(index, val);
+		}
+		throw outOfBounds(index);
+	}
+
+	@Override
+	public int quickSet(final int index, final int val) {
+		assert (rangeCheck(index));
+		final int h = base + 2 * index;
+		final int oldValue = (int) environment.values[h];
+		if (val != oldValue) {
+			environment.save(h);
+			environment.values[h] = val;
+		}
+		return oldValue;
+	}
+
+	@Override
+	public DisposableIntIterator getIterator() {
+		throw new UnsupportedOperationException("not yet implemented");
+	}
+}
@@ -0,0 +1,71 @@
+/**
+ *  Copyright (c) 1999-2010, Ecole des Mines de Nantes
+ *  All rights reserved.
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *      * Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *      * Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *      * Neither the name of the Ecole des Mines de Nantes nor the
+ *        names of its contributors may be used to endorse or promote products
+ *        derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ *  EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package choco.kernel.memory.trailing.unified;
+
+import choco.kernel.memory.IStateVector;
+
+/**
+ * A backtrackable vector of objects stored in a block of object cells of an {@link EnvironmentUnifiedTrailing}.
+ */
+public final class UnifiedVector<E> extends AbstractUnifiedVector implements IStateVector<E> {
+
+	UnifiedVector(final EnvironmentUnifiedTrailing env) {
+		super(env, 0, 0, true);
+	}
+
+	@Override
+	public boolean add(final E i) {
+		final int h = grow();
+		environment.objects[h >> 1] = i;
+		return true;
+	}
+
+	@SuppressWarnings({"unchecked"})
+	@Override
+	public E get(final int index) {
+		if (rangeCheck(index)) {
+			return (E) environment.objects[(base >> 1) + index];
+		}
+		throw outOfBounds(index);
+	}
+
+	@SuppressWarnings({"unchecked"})
+	@Override
+	public E set(final int index, final E val) {
+		if (rangeCheck(index)) {
+			final int h = base + 2 * index;
+			final E oldValue = (E) environment.objects[h >> 1];
+			if (val != oldValue) {
+				environment.saveObject(h);
+				environment.objects[h >> 1] = val;
+			}
+			return oldValue;
+		}
+		throw outOfBounds(index);
+	}
+}
@@ -63,7 +63,7 @@ public final class ManagerFactory {
 		}
 	}
 
-	public static VariableManager<?> loadVariableManager(String name) {
+	public static synchronized VariableManager<?> loadVariableManager(String name) {
 		VariableManager<?> vm = VM_MAP.get(name);
 		if( vm == null) {
 			vm = (VariableManager<?>) loadManager(name);
@@ -72,7 +72,7 @@ public final class ManagerFactory {
 		return vm;
 	}
 
-	public static ExpressionManager loadExpressionManager(String name) {
+	public static synchronized ExpressionManager loadExpressionManager(String name) {
 		ExpressionManager em = EM_MAP.get(name);
 		if( em == null) {
 			em = (ExpressionManager) loadManager(name);
@@ -81,7 +81,7 @@ public final class ManagerFactory {
 		return em;
 	}
 
-	public static ConstraintManager<?> loadConstraintManager(String name) {
+	public static synchronized ConstraintManager<?> loadConstraintManager(String name) {
 		ConstraintManager<?> cm = CM_MAP.get(name);
 		if( cm == null) {
 			cm = (ConstraintManager<?>) loadManager(name);
@@ -90,7 +90,7 @@ public final class ManagerFactory {
 		return cm;	
 	}
 	
-	public static void clear() {
+	public static synchronized void clear() {
 		VM_MAP.clear();
 		EM_MAP.clear();
 		CM_MAP.clear();
@@ -40,35 +40,38 @@ import choco.kernel.common.util.objects.Pair;
  * Date: 10 aot 2009
  * Time: 13:35:09
  * To change this template use File | Settings | File Templates.
+ *
+ * Options and statistics are instance fields: each geost constraint owns its options,
+ * so that solvers running concurrently do not share them.
  */
 public class GeostOptions {
 
-    public static long timeFixObj=0L;
-    public static long timeFixAllObj=0L;
-    public static long timePruneFix=0L;
-    public static long timeGetFR=0L;
-    public static long timeIsFeasible=0L;
-
-    public static long GetFRCalled=0L;
-    public static long PruneFixCalled=0L;
-    public static long timefilterWithGreedyMode=0L;
-    public static long timefilterWithoutGreedyMode=0L;
-    public static long handleSolution1 = 0L;
-    public static long handleSolution2 = 0L;
-    public static long handleSolution3 = 0L;
-    public static boolean[][] memo_objects;
-    public static boolean clipping=false;
-    public static int interval_size=-1;//size of the interval in IntervalBranching
+    public long timeFixObj=0L;
+    public long timeFixAllObj=0L;
+    public long timePruneFix=0L;
+    public long timeGetFR=0L;
+    public long timeIsFeasible=0L;
+
+    public long GetFRCalled=0L;
+    public long PruneFixCalled=0L;
+    public long timefilterWithGreedyMode=0L;
+    public long timefilterWithoutGreedyMode=0L;
+    public long handleSolution1 = 0L;
+    public long handleSolution2 = 0L;
+    public long handleSolution3 = 0L;
+    public boolean[][] memo_objects;
+    public boolean clipping=false;
+    public int interval_size=-1;//size of the interval in IntervalBranching
 //    public static long sum_jumps=0;
-    public static long GetFRCalls=0;
-    public static long deltaOne=0;
-    public static long deltaZero=0;
-    public static HashMap<Integer, HashMap<Integer,Integer>> delta= new HashMap<Integer, HashMap<Integer,Integer>>();
-    public static HashMap<Integer,HashMap<Integer, List<Integer>>> succDelta= new HashMap<Integer, HashMap<Integer, List<Integer>>>();
-
-    public static ObjectOutput serial=null;
-    public static FileOutputStream fileSerial=null;
-    public static double[][] prop={{0.66,0.66,0.66}};
+    public long GetFRCalls=0;
+    public long deltaOne=0;
+    public long deltaZero=0;
+    public HashMap<Integer, HashMap<Integer,Integer>> delta= new HashMap<Integer, HashMap<Integer,Integer>>();
+    public HashMap<Integer,HashMap<Integer, List<Integer>>> succDelta= new HashMap<Integer, HashMap<Integer, List<Integer>>>();
+
+    public ObjectOutput serial=null;
+    public FileOutputStream fileSerial=null;
+    public double[][] prop={{0.66,0.66,0.66}};
     //public static double[][] prop={{0.25,0.75,1.0},{0.75,0.25,1.0},{0.33,0.66,1.0},{0.66,0.33,1.0},{0.33,0.33},{0.66,0.66},{0.25,0.25},{0.75,0.75},{0.2,0.8},{0.8,0.2},{1.0,0.5},{0.5,1.0},{1.0,0.2},{0.2,1.0},{1.0,0.8},{0.8,1.0}};
     //public static double[][] prop={{1.0,0.8}};
 
@@ -77,40 +80,40 @@ public class GeostOptions {
     //public static double[] prop={0.001,0.002,0.003,0.004,0.005,0.006,0.007,0.008,0.009};
     //public static double[] prop={0.01,0.02,0.03,0.04,0.05,0.06,0.07,0.08,0.09};
 
-    public static boolean boxModeOnly=true;
-    public static boolean propModeOnly=false;
-    public static boolean deltaModeOnly=false;
-    public static boolean circleRandom=false;
-    public static boolean vizuRandom=false;
-    public static boolean firstTimeGetDeltaFR=false;
-    public static boolean debug=false;
-    public static boolean findboxinterout =false;
-    public static boolean findboxinteroutonly =false;
-    public static boolean findboxtriangle=false;
-    public static boolean singleboxonly=false;
-    public static boolean mixmode=false;
-    public static boolean intersection=false;
-    public static boolean deltasucc=false;
-    public static boolean usevectorbox=false;
-    public static boolean useinterbox=false;
-    public static boolean processing=false;
-    public static boolean unaryCirclePackingHeuristic=false;
-    public static boolean viewsol=false;
-
-
-    public static int phase=1;
-    public static int nbr_jumps=0;
-    public static int max_nbr_jumps=0; //maximum nbr of jumps for all propagations steps
-    public static int sum_jumps=0; //maximum nbr of jumps for all propagations steps
-    public static long sum_square_jumps=0; //maximum nbr of jumps for all propagations steps
-    public static int nbr_propagations=0;
-
-    public static boolean worst_increase=true; //associated with 'worst_point'; indicates wether increase was true or false when worst point was detected
-    public static int state_FR=0;
-    public static int nbr_steps=0;
-
-    public static boolean memoisation=false;
-    public static boolean increment=false;
+    public boolean boxModeOnly=true;
+    public boolean propModeOnly=false;
+    public boolean deltaModeOnly=false;
+    public boolean circleRandom=false;
+    public boolean vizuRandom=false;
+    public boolean firstTimeGetDeltaFR=false;
+    public boolean debug=false;
+    public boolean findboxinterout =false;
+    public boolean findboxinteroutonly =false;
+    public boolean findboxtriangle=false;
+    public boolean singleboxonly=false;
+    public boolean mixmode=false;
+    public boolean intersection=false;
+    public boolean deltasucc=false;
+    public boolean usevectorbox=false;
+    public boolean useinterbox=false;
+    public boolean processing=false;
+    public boolean unaryCirclePackingHeuristic=false;
+    public boolean viewsol=false;
+
+
+    public int phase=1;
+    public int nbr_jumps=0;
+    public int max_nbr_jumps=0; //maximum nbr of jumps for all propagations steps
+    public int sum_jumps=0; //maximum nbr of jumps for all propagations steps
+    public long sum_square_jumps=0; //maximum nbr of jumps for all propagations steps
+    public int nbr_propagations=0;
+
+    public boolean worst_increase=true; //associated with 'worst_point'; indicates wether increase was true or false when worst point was detected
+    public int state_FR=0;
+    public int nbr_steps=0;
+
+    public boolean memoisation=false;
+    public boolean increment=false;
     public HashMap<Pair<Integer,Integer>, Boolean> included=null;
 
     public boolean propag_failed=false;//Used in CirclePackingHeuristics and GeometricKernel only
@@ -207,6 +207,24 @@ public class Configuration extends Properties {
 	@Default(value = "9223372036854775807")
 	public static final String RESTART_LIMIT_BOUND = "cp.restart.limit.value";
 
+	/**
+	 * <br/><b>Goal</b>: Memory budget of the environment in bytes. Close to the budget, the trails release their unused capacity
+	 * when backtracking. If the budget is reached, the search is stopped by a {@link choco.kernel.solver.search.limit.Limit#MEMORY} limit.
+	 * <br/><b>Type</b>: long
+	 * <br/><b>Default value</b>: 0 (no budget)
+	 */
+	@Default(value = "0")
+	public static final String MEMORY_BUDGET = "cp.memory.budget";
+
+	/**
+	 * <br/><b>Goal</b>: Store the int, long and double trails of the default environment outside of the heap,
+	 * in direct buffers growing by chunks. It reduces the garbage collection pauses on very large search trees.
+	 * <br/><b>Type</b>: boolean
+	 * <br/><b>Default value</b>: false
+	 */
+	@Default(value = "false")
+	public static final String TRAIL_OFF_HEAP = "cp.trail.offheap";
+
 	/**
 	 * <br/><b>Goal</b>: Enforce the use of shaving before starting the search.
 	 * <br/><i>The shaving mechanism is related to singloton consistency</i>.
@@ -250,6 +268,16 @@ public class Configuration extends Properties {
 	@Default(value = "1000")
 	public static final String INIT_IMPACT_TIME_LIMIT = "cp.init.impact.limit.time.value";
 
+	/**
+	 * <br/><b>Goal</b>: number of workers probing the root node in parallel,
+	 * for the initialization step of impact based search and for shaving.
+	 * <br/><i>Each worker reads the model of the solver: the solver must have read a model</i>.
+	 * <br/><b>Type</b>: int
+	 * <br/><b>Default value</b>: 1 (sequential probing)
+	 */
+	@Default(value = "1")
+	public static final String INIT_PROBING_NB_WORKERS = "cp.init.probing.nbWorkers";
+
 	
 	/**
 	 * <br/><b>Goal</b>: Apply a bottom-up search algorithm (optimization).
@@ -262,6 +290,30 @@ public class Configuration extends Properties {
 	@Default(value = VALUE_FALSE)
 	public static final String BOTTOM_UP = "cp.search.bottom_up";
 
+	/**
+	 * <br/><b>Goal</b>: Fail limit of each iteration of the large neighborhood search.
+	 * <br/><b>Type</b>: long
+	 * <br/><b>Default value</b>: 100
+	 */
+	@Default(value = "100")
+	public static final String LNS_FAIL_LIMIT = "cp.lns.limit.fail.value";
+
+	/**
+	 * <br/><b>Goal</b>: Maximum number of iterations of the large neighborhood search.
+	 * <br/><b>Type</b>: int
+	 * <br/><b>Default value</b>: 1000
+	 */
+	@Default(value = "1000")
+	public static final String LNS_ITERATION_LIMIT = "cp.lns.limit.iteration.value";
+
+	/**
+	 * <br/><b>Goal</b>: Time limit of the large neighborhood search in milliseconds, checked between two iterations.
+	 * <br/><b>Type</b>: long
+	 * <br/><b>Default value</b>: 9223372036854775807 (no limit)
+	 */
+	@Default(value = "9223372036854775807")
+	public static final String LNS_TIME_LIMIT = "cp.lns.limit.time.value";
+
 	/**
 	 * <br/><b>Goal</b>:
 	 * <br/><b>Type</b>: int
@@ -286,6 +338,38 @@ public class Configuration extends Properties {
 	@Default(value = VALUE_TRUE)
 	public static final String LAST_SOLUTION_POOL= "cp.solution.pool.last";
 
+	/**
+	 * <br/><b>Goal</b>: Determine if a pool recording all solutions stores them in a compact columnar form.
+	 * <br/><b>Type</b>: boolean
+	 * <br/><b>Default value</b>: false
+	 */
+	@Default(value = VALUE_FALSE)
+	public static final String COLUMNAR_SOLUTION_POOL= "cp.solution.pool.columnar";
+
+	/**
+	 * <br/><b>Goal</b>: Number of bytes of a columnar solution pool kept in the heap, the next solutions are spilled to a memory-mapped file.
+	 * <br/><b>Type</b>: long
+	 * <br/><b>Default value</b>: 9223372036854775807 (no spill)
+	 */
+	@Default(value = "9223372036854775807")
+	public static final String COLUMNAR_SOLUTION_POOL_HEAP= "cp.solution.pool.columnar.heap";
+
+	/**
+	 * <br/><b>Goal</b>: Determine if the solution counter multiplies the counts of the independent components of the constraint graph.
+	 * <br/><b>Type</b>: boolean
+	 * <br/><b>Default value</b>: true
+	 */
+	@Default(value = VALUE_TRUE)
+	public static final String COUNTING_COMPONENTS= "cp.count.components";
+
+	/**
+	 * <br/><b>Goal</b>: Number of component counts cached by the solution counter (0 disables the cache).
+	 * <br/><b>Type</b>: int
+	 * <br/><b>Default value</b>: 100000
+	 */
+	@Default(value = "100000")
+	public static final String COUNTING_CACHE_CAPACITY= "cp.count.cache.capacity";
+
 	/**
 	 * <br/><b>Goal</b>:
 	 * <br/><b>Type</b>: boolean
@@ -336,6 +420,26 @@ public class Configuration extends Properties {
 	@Default(value = "1234567")
 	public static final String CEQ_ORDER = "cp.propagation.constraints.order";
 
+	/**
+	 * <br/><b>Goal</b>: learn the priority of each constraint from its measured propagation cost and pruning yield,
+	 * instead of using the static priority declared by the constraint (the CEQ_ORDER permutation still applies).
+	 * The priorities depend on measured times: the search is no longer deterministic.
+	 * <br/><b>Type</b>: boolean
+	 * <br/><b>Default value</b>: false
+	 */
+	@Default(value = "false")
+	public static final String CEQ_ADAPTIVE = "cp.propagation.constraints.adaptive";
+
+	/**
+	 * <br/><b>Goal</b>: each time a variable is instantiated, ask its active constraints whether they are entailed
+	 * ({@link choco.kernel.solver.propagation.Propagator#isEntailed()}) and remove the entailed ones from the
+	 * propagation lists of their variables until backtracking.
+	 * <br/><b>Type</b>: boolean
+	 * <br/><b>Default value</b>: false
+	 */
+	@Default(value = "false")
+	public static final String ENTAILMENT_CHECK = "cp.propagation.entailment";
+
 	/**
 	 * <br/><b>Goal</b>: display (verbose) information about search every x nodes.
 	 * <br/><b>Type</b>: int
@@ -344,6 +448,14 @@ public class Configuration extends Properties {
 	@Default(value = "5000")
 	public static final String EVERY_X_NODES= "cp.logging.every";
 
+	/**
+	 * <br/><b>Goal</b>: period in milliseconds of the reports sent to the progress monitor of the solver.
+	 * <br/><b>Type</b>: long
+	 * <br/><b>Default value</b>: 1000
+	 */
+	@Default(value = "1000")
+	public static final String PROGRESS_PERIOD= "cp.logging.progress.period";
+
 	/**
 	 * <br/><b>Goal</b>: maximal depth for the trace of the search tree.
 	 * <br/><b>Type</b>: int
@@ -31,6 +31,7 @@ import choco.kernel.solver.Solver;
 import choco.kernel.solver.SolverException;
 import choco.kernel.solver.branch.Extension;
 import choco.kernel.solver.propagation.Propagator;
+import choco.kernel.solver.variables.AbstractVar;
 import choco.kernel.solver.variables.Var;
 
 import java.util.Arrays;
@@ -85,7 +86,7 @@ public abstract class AbstractSConstraint<V extends Var> extends Propagator impl
 	 * @param name A name for the extension (should be an UID, like the anbsolute path for instance)
 	 * @return a number that can be used for specifying an extension (setExtension method)
 	 */
-	public static int getAbstractSConstraintExtensionNumber(String name) {
+	public static synchronized int getAbstractSConstraintExtensionNumber(String name) {
 		Integer index = REGISTERED_ABSTRACTSCONSTRAINT_EXTENSIONS.get(name);
 		if (index == null) {
 			index = ABSTRACTSCONSTRAINT_EXTENSIONS_NB++;
@@ -193,6 +194,20 @@ public abstract class AbstractSConstraint<V extends Var> extends Propagator impl
 		}
 	}
 
+	/**
+	 * Removes the constraint from the propagation lists of its variables, until backtracking.
+	 */
+	@Override
+	protected void deactivateListeners() {
+		final int n = getNbVars();
+		for (int i = 0; i < n; i++) {
+			final V v = getVarQuick(i);
+			if (v instanceof AbstractVar) {
+				((AbstractVar) v).deactivateConstraint(cIndices[i]);
+			}
+		}
+	}
+
 	/**
 	 * Let <i>v</i> be the <i>i</i>-th var of <i>c</i>, records that <i>c</i> is the
 	 * <i>n</i>-th constraint involving <i>v</i>.
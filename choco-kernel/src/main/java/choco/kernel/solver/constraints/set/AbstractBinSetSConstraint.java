@@ -27,6 +27,7 @@
 
 package choco.kernel.solver.constraints.set;
 
+import choco.kernel.common.util.iterators.DisposableIntIterator;
 import choco.kernel.solver.variables.set.SetVar;
 
 
@@ -45,5 +46,39 @@ public abstract class AbstractBinSetSConstraint extends AbstractLargeSetSConstra
         this.v1 = v1;
     }
 
-    
+    /**
+     * Checks whether the enveloppe of a set is included in the kernel of another one:
+     * every value which may belong to the first set surely belongs to the second one.
+     */
+    protected static boolean isEnveloppeIncludedInKernel(SetVar sv1, SetVar sv2) {
+        DisposableIntIterator it = sv1.getDomain().getEnveloppeIterator();
+        try {
+            while (it.hasNext()) {
+                if (!sv2.isInDomainKernel(it.next())) {
+                    return false;
+                }
+            }
+        } finally {
+            it.dispose();
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether the kernel of a set is included in the enveloppe of another one:
+     * every value which surely belongs to the first set may belong to the second one.
+     */
+    protected static boolean isKernelIncludedInEnveloppe(SetVar sv1, SetVar sv2) {
+        DisposableIntIterator it = sv1.getDomain().getKernelIterator();
+        try {
+            while (it.hasNext()) {
+                if (!sv2.isInDomainEnveloppe(it.next())) {
+                    return false;
+                }
+            }
+        } finally {
+            it.dispose();
+        }
+        return true;
+    }
 }
@@ -175,9 +175,23 @@ public abstract class Propagator implements EventListener {
 
     /**
 	 * records that a constraint is now entailed (therefore it is now useless to propagate it again)
+	 * The constraint is also removed from the propagation lists of its variables, until backtracking:
+	 * an entailed constraint must not be re-activated before backtracking.
 	 */
 	public final void setEntailed() {
-		setPassive();
+		if (active != null && active.get()) {
+			setPassive();
+			deactivateListeners();
+		} else {
+			setPassive();
+		}
+	}
+
+	/**
+	 * Removes the constraint from the propagation lists of its variables, until backtracking.
+	 * Does nothing by default, inactive constraints being skipped when iterating the lists.
+	 */
+	protected void deactivateListeners() {
 	}
 
     /**
@@ -47,7 +47,7 @@ public class ShavingTools {
 
 	public boolean detectLuckySolution = false;
 
-	private int nbRemovals;
+	protected int nbRemovals;
 
 	/**
 	 * 
@@ -106,7 +106,7 @@ public class ShavingTools {
 	}
 
 
-	protected final void shaveVars() throws ContradictionException, LuckySolutionException {
+	protected void shaveVars() throws ContradictionException, LuckySolutionException {
 		nbRemovals = 0;
 		for (IntDomainVar var : vars) {
 			if( ! var.isInstantiated() ) {
@@ -227,7 +227,7 @@ public class ShavingTools {
 	}
 
 
-	final static class LuckySolutionException extends Exception {
+	protected final static class LuckySolutionException extends Exception {
 
 		private static final long serialVersionUID = -1476316199858738423L;
 
@@ -89,6 +89,15 @@ public class ConstraintEvent implements PropagationEvent {
     return priority;
   }
 
+  /**
+   * Changes the priority of the var (adaptive scheduling of the propagation engine).
+   * It must not be called while the var is in a queue.
+   */
+
+  public void setPriority(int priority) {
+    this.priority = priority;
+  }
+
 
   /**
    * Propagates the var: awake or propagate depending on the init status.
@@ -100,6 +100,7 @@ public class TaskVarEvent <C extends AbstractSConstraint & TaskPropagator>extend
         try{
             while(cit.hasNext()){
                 Couple<C> cc = cit.next();
+                if (profiler != null) profiler.fineEvent(cc.c);
                 cc.c.awakeOnHypDomMod(cc.i);
             }
         }finally{
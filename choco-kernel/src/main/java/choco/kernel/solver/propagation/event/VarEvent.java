@@ -29,6 +29,7 @@ package choco.kernel.solver.propagation.event;
 
 import choco.kernel.solver.ContradictionException;
 import choco.kernel.solver.constraints.SConstraint;
+import choco.kernel.solver.propagation.profiling.PropagationProfiler;
 import choco.kernel.solver.variables.Var;
 
 /**
@@ -88,6 +89,16 @@ public abstract class VarEvent <E extends Var> implements PropagationEvent{
    */
   protected int propagatedEvents = 0;
 
+  /**
+   * position of the event in the ring buffer of the variable event queue holding it, -1 if none
+   */
+  private int queueIndex = -1;
+
+  /**
+   * profiler notified of each fine-grained event while the event is propagated, null if profiling is off
+   */
+  protected PropagationProfiler profiler;
+
     /**
    * Constructs a variable event for the specified variable and with the given
    * basic events.
@@ -214,6 +225,28 @@ public abstract class VarEvent <E extends Var> implements PropagationEvent{
     return (eventType != EMPTYEVENT);
   }
 
+  /**
+   * Returns the position of the event in the queue holding it (intrusive queues only).
+   *
+   * @return the position, or -1 if no queue holds the event
+   */
+  public final int getQueueIndex() {
+    return queueIndex;
+  }
+
+  public final void setQueueIndex(int queueIndex) {
+    this.queueIndex = queueIndex;
+  }
+
+  /**
+   * Sets the profiler notified while the event is propagated.
+   *
+   * @param profiler the profiler, or null to stop profiling
+   */
+  public final void setProfiler(PropagationProfiler profiler) {
+    this.profiler = profiler;
+  }
+
   public void recordEventTypeAndCause(int basicEvt, final SConstraint constraint, final boolean forceAwake) {
     // if no such event was active on the same variable
 //    if ((oldCause == NOEVENT) || (eventType == EMPTYEVENT)) {  // note: these two tests should be equivalent
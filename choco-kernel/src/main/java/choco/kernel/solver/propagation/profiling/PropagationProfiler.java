@@ -0,0 +1,334 @@
+/**
+ *  Copyright (c) 1999-2010, Ecole des Mines de Nantes
+ *  All rights reserved.
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *      * Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *      * Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *      * Neither the name of the Ecole des Mines de Nantes nor the
+ *        names of its contributors may be used to endorse or promote products
+ *        derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ *  EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package choco.kernel.solver.propagation.profiling;
+
+import choco.kernel.common.logging.ChocoLogging;
+import choco.kernel.solver.constraints.SConstraint;
+import choco.kernel.solver.propagation.Propagator;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Records, for each propagator, the calls of the propagation engine, the failures and the time spent.
+ * <p/>
+ * The queues of the engine report each coarse-grained event ({@link #coarseEvent(Propagator)}) and,
+ * through the variable events, each fine-grained event ({@link #fineEvent(Propagator)}).
+ * The elapsed time is charged to the propagator of the last reported event until the next event,
+ * the end of the event ({@link #endEvent()}) or a contradiction ({@link #failure()}).
+ * <p/>
+ * The profiler is opt-in: the engine and the events only test a field against <code>null</code>
+ * when it is not installed.
+ * <p/>
+ * The profiler is read (and reset) from JMX threads while the solver thread records the events:
+ * the counters are guarded by a single lock, and the statistics returned are copies.
+ * A reset requested during a fixpoint is applied by the solver thread at the end of the fixpoint.
+ */
+public final class PropagationProfiler implements PropagationProfilerMXBean {
+
+	protected final static Logger LOGGER = ChocoLogging.getEngineLogger();
+
+	private static final Comparator<PropagatorStatistics> BY_TIME = new Comparator<PropagatorStatistics>() {
+		@Override
+		public int compare(PropagatorStatistics o1, PropagatorStatistics o2) {
+			return o1.nanos < o2.nanos ? 1 : o1.nanos == o2.nanos ? 0 : -1;
+		}
+	};
+
+	/**
+	 * Guards the statistics and the counters.
+	 */
+	private final Object lock = new Object();
+
+	private final Map<Propagator, PropagatorStatistics> statistics = new IdentityHashMap<Propagator, PropagatorStatistics>();
+
+	/**
+	 * Statistics of the propagator being propagated, if any.
+	 */
+	private PropagatorStatistics current;
+
+	/**
+	 * Start of the current measure.
+	 */
+	private long start;
+
+	private long nbFixpoints;
+
+	private long nbFailedFixpoints;
+
+	private long fixpointNanos;
+
+	/**
+	 * Whether the solver thread is computing a fixpoint.
+	 */
+	private boolean running;
+
+	/**
+	 * Whether a reset is postponed to the end of the current fixpoint.
+	 */
+	private boolean resetRequested;
+
+	private ObjectName objectName;
+
+	private PropagatorStatistics getStatistics(final Propagator propagator) {
+		PropagatorStatistics stats = statistics.get(propagator);
+		if (stats == null) {
+			final String type = propagator instanceof SConstraint ?
+					String.valueOf(((SConstraint) propagator).getConstraintType()) : "UNKNOWN";
+			stats = new PropagatorStatistics(propagator.getClass().getSimpleName() + '#' + statistics.size(), type);
+			statistics.put(propagator, stats);
+		}
+		return stats;
+	}
+
+	private void switchTo(final Propagator propagator) {
+		final long now = System.nanoTime();
+		if (current != null) {
+			current.nanos += now - start;
+		}
+		current = getStatistics(propagator);
+		start = now;
+	}
+
+	/**
+	 * A propagator is awaken or propagated.
+	 */
+	public void coarseEvent(final Propagator propagator) {
+		synchronized (lock) {
+			switchTo(propagator);
+			current.nbAwakes++;
+		}
+	}
+
+	/**
+	 * A propagator reacts on a variable event.
+	 */
+	public void fineEvent(final Propagator propagator) {
+		synchronized (lock) {
+			switchTo(propagator);
+			current.nbFineEvents++;
+		}
+	}
+
+	/**
+	 * The current event has been propagated.
+	 */
+	public void endEvent() {
+		synchronized (lock) {
+			if (current != null) {
+				current.nanos += System.nanoTime() - start;
+				current = null;
+			}
+		}
+	}
+
+	/**
+	 * The current event has been interrupted by a contradiction.
+	 */
+	public void failure() {
+		synchronized (lock) {
+			if (current != null) {
+				current.nbFailures++;
+			}
+			endEvent();
+		}
+	}
+
+	/**
+	 * A call to the propagation engine starts.
+	 * @return the value of {@link System#nanoTime()} to give to {@link #endFixpoint(long, boolean)}
+	 */
+	public long startFixpoint() {
+		synchronized (lock) {
+			running = true;
+		}
+		return System.nanoTime();
+	}
+
+	/**
+	 * A call to the propagation engine ends.
+	 * If a reset has been requested meanwhile, it is applied and the fixpoint is not counted.
+	 * @param startNanos value of {@link System#nanoTime()} when the call started
+	 * @param failed whether the fixpoint ended by a contradiction
+	 */
+	public void endFixpoint(final long startNanos, final boolean failed) {
+		synchronized (lock) {
+			endEvent();
+			running = false;
+			if (resetRequested) {
+				clear();
+			} else {
+				nbFixpoints++;
+				if (failed) {
+					nbFailedFixpoints++;
+				}
+				fixpointNanos += System.nanoTime() - startNanos;
+			}
+		}
+	}
+
+	@Override
+	public long getNbFixpoints() {
+		synchronized (lock) {
+			return nbFixpoints;
+		}
+	}
+
+	@Override
+	public long getNbFailedFixpoints() {
+		synchronized (lock) {
+			return nbFailedFixpoints;
+		}
+	}
+
+	@Override
+	public long getFixpointNanos() {
+		synchronized (lock) {
+			return fixpointNanos;
+		}
+	}
+
+	@Override
+	public PropagatorStatistics[] getPropagatorStatistics() {
+		final PropagatorStatistics[] stats;
+		synchronized (lock) {
+			stats = new PropagatorStatistics[statistics.size()];
+			int i = 0;
+			for (PropagatorStatistics s : statistics.values()) {
+				stats[i++] = s.copy();
+			}
+		}
+		Arrays.sort(stats, BY_TIME);
+		return stats;
+	}
+
+	@Override
+	public PropagatorStatistics[] getTypeStatistics() {
+		final Map<String, PropagatorStatistics> types = new LinkedHashMap<String, PropagatorStatistics>();
+		synchronized (lock) {
+			for (PropagatorStatistics stats : statistics.values()) {
+				PropagatorStatistics typeStats = types.get(stats.getType());
+				if (typeStats == null) {
+					typeStats = new PropagatorStatistics(stats.getType(), stats.getType());
+					types.put(stats.getType(), typeStats);
+				}
+				typeStats.add(stats);
+			}
+		}
+		final PropagatorStatistics[] stats = types.values().toArray(new PropagatorStatistics[types.size()]);
+		Arrays.sort(stats, BY_TIME);
+		return stats;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * During a fixpoint, the reset is postponed to its end.
+	 */
+	@Override
+	public void reset() {
+		synchronized (lock) {
+			if (running) {
+				resetRequested = true;
+			} else {
+				clear();
+			}
+		}
+	}
+
+	private void clear() {
+		statistics.clear();
+		current = null;
+		nbFixpoints = nbFailedFixpoints = fixpointNanos = 0;
+		resetRequested = false;
+	}
+
+	/**
+	 * Registers the profiler in the platform MBean server.
+	 * @param name value of the <code>name</code> key of the object name
+	 * @return the object name of the profiler, or null if the registration failed
+	 */
+	public ObjectName register(final String name) {
+		try {
+			final ObjectName on = new ObjectName("choco:type=PropagationProfiler,name=" + ObjectName.quote(name));
+			ManagementFactory.getPlatformMBeanServer().registerMBean(this, on);
+			objectName = on;
+		} catch (JMException e) {
+			LOGGER.log(Level.WARNING, "cant register the propagation profiler", e);
+		}
+		return objectName;
+	}
+
+	/**
+	 * Unregisters the profiler from the platform MBean server, if registered.
+	 */
+	public void unregister() {
+		if (objectName != null) {
+			final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			try {
+				server.unregisterMBean(objectName);
+			} catch (JMException e) {
+				LOGGER.log(Level.WARNING, "cant unregister the propagation profiler", e);
+			}
+			objectName = null;
+		}
+	}
+
+	/**
+	 * Builds a report of the fixpoints, the constraint types and the most expensive propagators.
+	 * @param nbPropagators maximal number of propagators listed
+	 */
+	public String report(final int nbPropagators) {
+		final StringBuilder b = new StringBuilder(256);
+		synchronized (lock) {
+			b.append("Propagation profile: ").append(nbFixpoints).append(" fixpoints (")
+					.append(nbFailedFixpoints).append(" failed) in ").append(fixpointNanos / 1000000).append(" ms");
+		}
+		for (PropagatorStatistics stats : getTypeStatistics()) {
+			b.append("\n  ").append(stats);
+		}
+		final PropagatorStatistics[] top = getPropagatorStatistics();
+		for (int i = 0; i < Math.min(nbPropagators, top.length); i++) {
+			b.append("\n    ").append(top[i]);
+		}
+		return b.toString();
+	}
+
+	@Override
+	public String toString() {
+		return report(10);
+	}
+}
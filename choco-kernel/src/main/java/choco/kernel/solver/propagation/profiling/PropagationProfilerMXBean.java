@@ -0,0 +1,64 @@
+/**
+ *  Copyright (c) 1999-2010, Ecole des Mines de Nantes
+ *  All rights reserved.
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *      * Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *      * Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *      * Neither the name of the Ecole des Mines de Nantes nor the
+ *        names of its contributors may be used to endorse or promote products
+ *        derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ *  EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package choco.kernel.solver.propagation.profiling;
+
+/**
+ * Management interface of a {@link PropagationProfiler}, exported through JMX.
+ */
+public interface PropagationProfilerMXBean {
+
+	/**
+	 * @return the number of calls to the propagation engine
+	 */
+	long getNbFixpoints();
+
+	/**
+	 * @return the number of fixpoints ended by a contradiction
+	 */
+	long getNbFailedFixpoints();
+
+	/**
+	 * @return the cumulative time spent computing fixpoints, in nanoseconds
+	 */
+	long getFixpointNanos();
+
+	/**
+	 * @return the statistics of each propagator, by decreasing propagation time
+	 */
+	PropagatorStatistics[] getPropagatorStatistics();
+
+	/**
+	 * @return the statistics aggregated by constraint type, by decreasing propagation time
+	 */
+	PropagatorStatistics[] getTypeStatistics();
+
+	/**
+	 * Resets all the counters, at the end of the current fixpoint if any.
+	 */
+	void reset();
+}
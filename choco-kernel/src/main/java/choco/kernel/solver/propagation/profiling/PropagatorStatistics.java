@@ -0,0 +1,113 @@
+/**
+ *  Copyright (c) 1999-2010, Ecole des Mines de Nantes
+ *  All rights reserved.
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *      * Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *      * Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *      * Neither the name of the Ecole des Mines de Nantes nor the
+ *        names of its contributors may be used to endorse or promote products
+ *        derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ *  EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package choco.kernel.solver.propagation.profiling;
+
+/**
+ * Counters of the propagation of one propagator, or of all the propagators of a constraint type.
+ * Times are wall-clock nanoseconds spent in the propagator's awake, propagate and awakeOn... methods.
+ */
+public final class PropagatorStatistics {
+
+	private final String name;
+
+	private final String type;
+
+	long nbAwakes;
+
+	long nbFineEvents;
+
+	long nbFailures;
+
+	long nanos;
+
+	public PropagatorStatistics(String name, String type) {
+		this.name = name;
+		this.type = type;
+	}
+
+	/**
+	 * @return the name of the propagator (or of the type for aggregated statistics)
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return the constraint type of the propagator
+	 */
+	public String getType() {
+		return type;
+	}
+
+	/**
+	 * @return the number of coarse-grained calls (awake and propagate)
+	 */
+	public long getNbAwakes() {
+		return nbAwakes;
+	}
+
+	/**
+	 * @return the number of fine-grained events (awakeOnInf, awakeOnRemovals, ...)
+	 */
+	public long getNbFineEvents() {
+		return nbFineEvents;
+	}
+
+	/**
+	 * @return the number of contradictions raised while propagating
+	 */
+	public long getNbFailures() {
+		return nbFailures;
+	}
+
+	/**
+	 * @return the cumulative propagation time in nanoseconds
+	 */
+	public long getNanos() {
+		return nanos;
+	}
+
+	final PropagatorStatistics copy() {
+		final PropagatorStatistics stats = new PropagatorStatistics(name, type);
+		stats.add(this);
+		return stats;
+	}
+
+	final void add(PropagatorStatistics stats) {
+		nbAwakes += stats.nbAwakes;
+		nbFineEvents += stats.nbFineEvents;
+		nbFailures += stats.nbFailures;
+		nanos += stats.nanos;
+	}
+
+	@Override
+	public String toString() {
+		return name + " [" + type + "]: " + (nanos / 1000000) + " ms, " + nbAwakes + " awakes, "
+				+ nbFineEvents + " fine events, " + nbFailures + " failures";
+	}
+}
@@ -282,6 +282,7 @@ public abstract class AbstractGlobalSearchStrategy extends AbstractSearchStrateg
 	public void newTreeSearch() throws ContradictionException {
 		assert(solver.getSearchStrategy() == this);
 		baseWorld = solver.getWorldIndex();
+		encounteredLimit = null;
 		resetSolutions();
 		initialTrace.setBranching(this.mainGoal);
 		solver.getPropagationEngine().getFailMeasure().safeReset();
@@ -298,6 +299,8 @@ public abstract class AbstractGlobalSearchStrategy extends AbstractSearchStrateg
 
 
 	public void endTreeSearch() {
+		//the limit manager can notice a cancellation which stopped a propagation
+		limitManager.endTreeSearch();
 		if ( ! solutionPool.isEmpty() && (!stopAtFirstSol)) {
 			solver.worldPopUntil(baseWorld);
 			solver.worldPush();
@@ -305,8 +308,10 @@ public abstract class AbstractGlobalSearchStrategy extends AbstractSearchStrateg
 		}
 		if (!isEncounteredLimit() && !existsSolution()) {
 			solver.setFeasible(Boolean.FALSE);
+		} else if (isEncounteredLimit() && solver.isFeasible() == Boolean.FALSE) {
+			//the initial propagation has been stopped
+			solver.setFeasible(null);
 		}
-		limitManager.endTreeSearch();
 		if (LOGGER.isLoggable(Level.INFO)) {
 			if( isEncounteredLimit() ) {
 				LOGGER.log(Level.INFO, "- Search incompleted: Exiting on limit reached\n  Limit: {0}\n{1}", 
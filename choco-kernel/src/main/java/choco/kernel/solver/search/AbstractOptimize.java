@@ -34,6 +34,8 @@ import choco.kernel.solver.Solver;
 import choco.kernel.solver.SolverException;
 import choco.kernel.solver.variables.Var;
 
+import java.util.logging.Level;
+
 
 
 
@@ -53,6 +55,16 @@ public abstract class AbstractOptimize extends AbstractGlobalSearchStrategy {
 	 */
 	protected final IObjectiveManager objManager;
 
+	/**
+	 * a solution checked at the root node, which becomes the incumbent solution if it is feasible.
+	 */
+	private Solution solutionHint;
+
+	/**
+	 * whether the optimization cut of the solution hint is infeasible at the root node, i.e. the hint is optimal.
+	 */
+	private boolean optimalHint;
+
 	/**
 	 * constructor
 	 * @param solver the solver
@@ -72,10 +84,59 @@ public abstract class AbstractOptimize extends AbstractGlobalSearchStrategy {
 		return objManager;
 	}
 
+	public final Solution getSolutionHint() {
+		return solutionHint;
+	}
+
+	public final void setSolutionHint(Solution solutionHint) {
+		this.solutionHint = solutionHint;
+	}
+
 	@Override
 	public void newFeasibleRootState() {
 		super.newFeasibleRootState();
 		objManager.initBounds();
+		optimalHint = false;
+		if (solutionHint != null) {
+			checkSolutionHint();
+		}
+	}
+
+	/**
+	 * Instantiates the integer variables to their hinted values and propagates in a new world.
+	 * If every decision variable and the objective are instantiated without contradiction, the hint is recorded as
+	 * a solution, and its optimization cut is propagated at the root node before the search.
+	 */
+	protected void checkSolutionHint() {
+		boolean feasible = false;
+		solver.worldPush();
+		try {
+			final int n = Math.min(solver.getNbIntVars(), solutionHint.getNbIntValues());
+			for (int i = 0; i < n; i++) {
+				final int val = solutionHint.getIntValue(i);
+				if (val != Solution.NULL) {
+					solver.getIntVarQuick(i).setVal(val);
+				}
+			}
+			solver.propagate();
+			feasible = solver.checkDecisionVariables() && objective.isInstantiated();
+			if (feasible) {
+				recordSolution();
+			}
+		} catch (ContradictionException e) {
+			if (LOGGER.isLoggable(Level.CONFIG)) {
+				LOGGER.config("- Solution hint: infeasible");
+			}
+		}
+		solver.worldPop();
+		if (feasible) {
+			try {
+				postDynamicCut();
+				solver.propagate();
+			} catch (ContradictionException e) {
+				optimalHint = true;
+			}
+		}
 	}
 
 
@@ -114,7 +175,7 @@ public abstract class AbstractOptimize extends AbstractGlobalSearchStrategy {
 
 	@Override
 	public Boolean nextSolution() {
-		if( objManager.isTargetInfeasible()) {
+		if( objManager.isTargetInfeasible() || optimalHint) {
 			//the search is finished as the optimum has been proven by the bounding mechanism.
 			return Boolean.FALSE;
 		}else {
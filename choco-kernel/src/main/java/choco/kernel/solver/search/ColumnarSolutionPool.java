@@ -0,0 +1,564 @@
+/**
+ *  Copyright (c) 1999-2010, Ecole des Mines de Nantes
+ *  All rights reserved.
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *      * Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *      * Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *      * Neither the name of the Ecole des Mines de Nantes nor the
+ *        names of its contributors may be used to endorse or promote products
+ *        derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ *  EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package choco.kernel.solver.search;
+
+import choco.kernel.solver.Solution;
+import choco.kernel.solver.SolverException;
+import choco.kernel.solver.Solver;
+import choco.kernel.solver.variables.real.RealInterval;
+import choco.kernel.solver.variables.real.RealIntervalConstant;
+import gnu.trove.TIntIntHashMap;
+import gnu.trove.TLongArrayList;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A pool keeping every solution in a compact columnar form.
+ * <p/>
+ * Each variable is a column whose values are dictionary-encoded: a solution stores for each variable the code of its
+ * value in the dictionary of the variable. The codes are stored on one, two or four bytes depending on the size of the
+ * dictionary, in chunks of {@value #CHUNK_ROWS} solutions. The chunks are allocated in the heap until a budget is
+ * exhausted, then in a memory-mapped temporary file. The regions of the file released when a column is widened are
+ * reused by the next chunks of the same size.
+ * <p/>
+ * The pool keeps the values of the variables, the objective value and the solution count of each solution,
+ * but not the other search measures. As in the other pools, the solution of index 0 is the last (best) one.
+ * The solutions are decoded on demand: {@link #asList()} is a random access view building a new {@link Solution} for
+ * each access, while {@link #iterator()} and {@link #export(Appendable)} stream the solutions in the order they were found.
+ */
+public final class ColumnarSolutionPool extends AbstractSolutionPool {
+
+	private final static int CHUNK_SHIFT = 12;
+
+	public final static int CHUNK_ROWS = 1 << CHUNK_SHIFT;
+
+	private final static int CHUNK_MASK = CHUNK_ROWS - 1;
+
+	private final static Object NULL_KEY = new Object();
+
+	private final long heapBudget;
+
+	private final File spillDirectory;
+
+	private long heapBytes;
+
+	private long spilledBytes;
+
+	private long spillLength;
+
+	private File spillFile;
+
+	private RandomAccessFile spillAccess;
+
+	/**
+	 * The offsets of the chunks mapped in the spill file.
+	 */
+	private final IdentityHashMap<ByteBuffer, Long> spillOffsets = new IdentityHashMap<ByteBuffer, Long>();
+
+	/**
+	 * The offsets of the released regions of the spill file, indexed by their width.
+	 */
+	private final TLongArrayList[] freeRegions = new TLongArrayList[5];
+
+	private final Solution buffer;
+
+	private IntColumn[] intColumns;
+
+	private ObjectColumn[] setColumns;
+
+	private ObjectColumn[] realColumns;
+
+	private IntColumn objectiveColumn;
+
+	private int rows;
+
+	/**
+	 * @param strategy the strategy recording the solutions
+	 * @param heapBudget the number of bytes of the chunks allocated in the heap, the next chunks are memory-mapped
+	 * @param spillDirectory the directory of the memory-mapped file, the default temporary directory if null
+	 */
+	public ColumnarSolutionPool(AbstractGlobalSearchStrategy strategy, long heapBudget, File spillDirectory) {
+		super(strategy, Integer.MAX_VALUE);
+		this.heapBudget = heapBudget;
+		this.spillDirectory = spillDirectory;
+		this.buffer = new Solution(strategy.solver);
+	}
+
+	//*****************************************************************//
+	//*******************  RECORDING  *********************************//
+	//***************************************************************//
+
+	@Override
+	public void recordSolution(Solver solver) {
+		strategy.writeSolution(buffer);
+		if (intColumns == null) {
+			initColumns();
+		}
+		final int row = rows;
+		for (int i = 0; i < intColumns.length; i++) {
+			intColumns[i].put(row, buffer.getIntValue(i));
+		}
+		for (int i = 0; i < setColumns.length; i++) {
+			final int[] value = buffer.getSetValue(i);
+			setColumns[i].put(row, value == null ? NULL_KEY : new IntArrayKey(value));
+		}
+		for (int i = 0; i < realColumns.length; i++) {
+			final RealInterval value = buffer.getRealValue(i);
+			realColumns[i].put(row, value == null ? NULL_KEY : new RealKey(value.getInf(), value.getSup()));
+		}
+		objectiveColumn.put(row, buffer.getObjectiveValue());
+		rows++;
+	}
+
+	private void initColumns() {
+		intColumns = new IntColumn[buffer.getNbIntValues()];
+		for (int i = 0; i < intColumns.length; i++) {
+			intColumns[i] = new IntColumn();
+		}
+		setColumns = new ObjectColumn[buffer.getNbSetValues()];
+		for (int i = 0; i < setColumns.length; i++) {
+			setColumns[i] = new ObjectColumn();
+		}
+		realColumns = new ObjectColumn[buffer.getNbRealValues()];
+		for (int i = 0; i < realColumns.length; i++) {
+			realColumns[i] = new ObjectColumn();
+		}
+		objectiveColumn = new IntColumn();
+	}
+
+	@Override
+	public void clear() {
+		rows = 0;
+		intColumns = null;
+		setColumns = null;
+		realColumns = null;
+		objectiveColumn = null;
+		heapBytes = 0;
+		closeSpillFile();
+	}
+
+	private void closeSpillFile() {
+		if (spillAccess != null) {
+			try {
+				spillAccess.close();
+			} catch (IOException e) {
+				LOGGER.warning("- Solution pool: cannot close the spill file " + spillFile);
+			}
+			if (spillFile.exists() && !spillFile.delete()) {
+				//a region still mapped keeps the file open until it is garbage collected
+				LOGGER.warning("- Solution pool: cannot delete the spill file " + spillFile + ", deleted on exit");
+				spillFile.deleteOnExit();
+			}
+			spillAccess = null;
+			spillFile = null;
+			spilledBytes = 0;
+			spillLength = 0;
+			spillOffsets.clear();
+			Arrays.fill(freeRegions, null);
+		}
+	}
+
+	/**
+	 * Allocates a chunk in the heap, or in the spill file once the heap budget is exhausted.
+	 */
+	private ByteBuffer allocate(int bytes) {
+		if (heapBytes + bytes <= heapBudget) {
+			heapBytes += bytes;
+			return ByteBuffer.allocate(bytes);
+		}
+		try {
+			if (spillAccess == null) {
+				spillFile = File.createTempFile("choco-solutions", ".bin", spillDirectory);
+				spillAccess = new RandomAccessFile(spillFile, "rw");
+				//the mapped regions stay valid once the file is unlinked, where the platform allows it,
+				//otherwise the file is deleted once the channel is closed
+				if (!spillFile.delete()) {
+					LOGGER.fine("- Solution pool: the spill file " + spillFile + " is deleted on closing");
+				}
+			}
+			final TLongArrayList free = freeRegions[bytes >>> CHUNK_SHIFT];
+			final long offset;
+			if (free != null && !free.isEmpty()) {
+				offset = free.remove(free.size() - 1);
+			} else {
+				offset = spillLength;
+				spillLength += bytes;
+			}
+			final ByteBuffer chunk = spillAccess.getChannel().map(FileChannel.MapMode.READ_WRITE, offset, bytes);
+			spillOffsets.put(chunk, offset);
+			spilledBytes += bytes;
+			return chunk;
+		} catch (IOException e) {
+			throw new SolverException("cannot spill the solution pool: " + e.getMessage());
+		}
+	}
+
+	private void release(ByteBuffer chunk) {
+		final Long offset = spillOffsets.remove(chunk);
+		if (offset == null) {
+			heapBytes -= chunk.capacity();
+		} else {
+			final int width = chunk.capacity() >>> CHUNK_SHIFT;
+			if (freeRegions[width] == null) {
+				freeRegions[width] = new TLongArrayList();
+			}
+			freeRegions[width].add(offset);
+			spilledBytes -= chunk.capacity();
+		}
+	}
+
+	//*****************************************************************//
+	//*******************  ACCESS  ************************************//
+	//***************************************************************//
+
+	@Override
+	public int size() {
+		return rows;
+	}
+
+	@Override
+	public Solution getBestSolution() {
+		return rows == 0 ? null : getSolution(0);
+	}
+
+	/**
+	 * Decodes a solution.
+	 * @param index the index of the solution, 0 being the last one
+	 * @return a new solution
+	 */
+	public Solution getSolution(int index) {
+		if (index < 0 || index >= rows) {
+			throw new IndexOutOfBoundsException("solution " + index + " of " + rows);
+		}
+		final Solution sol = new Solution(strategy.solver);
+		readRow(rows - 1 - index, sol);
+		return sol;
+	}
+
+	private void readRow(int row, Solution sol) {
+		for (int i = 0; i < intColumns.length; i++) {
+			sol.recordIntValue(i, intColumns[i].get(row));
+		}
+		for (int i = 0; i < setColumns.length; i++) {
+			final Object key = setColumns[i].get(row);
+			sol.recordSetValue(i, key == NULL_KEY ? null : ((IntArrayKey) key).values.clone());
+		}
+		for (int i = 0; i < realColumns.length; i++) {
+			final Object key = realColumns[i].get(row);
+			sol.recordRealValue(i, key == NULL_KEY ? null : new RealIntervalConstant(((RealKey) key).inf, ((RealKey) key).sup));
+		}
+		sol.recordIntObjective(objectiveColumn.get(row));
+		sol.recordSolutionCount(row + 1);
+	}
+
+	/**
+	 * @return a random access view of the solutions, each access decoding a new solution.
+	 */
+	@Override
+	public List<Solution> asList() {
+		return new AbstractList<Solution>() {
+			@Override
+			public Solution get(int index) {
+				return getSolution(index);
+			}
+
+			@Override
+			public int size() {
+				return rows;
+			}
+		};
+	}
+
+	/**
+	 * Streams the solutions in the order they were found.
+	 * The solutions are decoded in a buffer reused from one solution to the next.
+	 */
+	public Iterator<Solution> iterator() {
+		return new Iterator<Solution>() {
+
+			private final Solution sol = new Solution(strategy.solver);
+
+			private int row;
+
+			@Override
+			public boolean hasNext() {
+				return row < rows;
+			}
+
+			@Override
+			public Solution next() {
+				if (row >= rows) {
+					throw new NoSuchElementException();
+				}
+				readRow(row++, sol);
+				return sol;
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	/**
+	 * Writes the solutions in the order they were found, one line per solution: the values of the integer,
+	 * set and real variables separated by commas. An uninstantiated variable is an empty field.
+	 */
+	public void export(Appendable out) throws IOException {
+		for (int row = 0; row < rows; row++) {
+			boolean first = true;
+			for (IntColumn column : intColumns) {
+				if (!first) out.append(',');
+				first = false;
+				final int value = column.get(row);
+				if (value != Solution.NULL) out.append(String.valueOf(value));
+			}
+			for (ObjectColumn column : setColumns) {
+				if (!first) out.append(',');
+				first = false;
+				final Object key = column.get(row);
+				if (key != NULL_KEY) {
+					final int[] values = ((IntArrayKey) key).values;
+					out.append('{');
+					for (int k = 0; k < values.length; k++) {
+						if (k > 0) out.append(' ');
+						out.append(String.valueOf(values[k]));
+					}
+					out.append('}');
+				}
+			}
+			for (ObjectColumn column : realColumns) {
+				if (!first) out.append(',');
+				first = false;
+				final Object key = column.get(row);
+				if (key != NULL_KEY) {
+					out.append('[').append(String.valueOf(((RealKey) key).inf)).append(' ');
+					out.append(String.valueOf(((RealKey) key).sup)).append(']');
+				}
+			}
+			out.append('\n');
+		}
+	}
+
+	/**
+	 * @return the number of bytes of the chunks allocated in the heap.
+	 */
+	public long getHeapBytes() {
+		return heapBytes;
+	}
+
+	/**
+	 * @return the number of bytes of the chunks mapped in the spill file.
+	 */
+	public long getSpilledBytes() {
+		return spilledBytes;
+	}
+
+	/**
+	 * @return the length of the spill file, including the released regions.
+	 */
+	public long getSpillFileBytes() {
+		return spillLength;
+	}
+
+	//*****************************************************************//
+	//*******************  COLUMNS  ***********************************//
+	//***************************************************************//
+
+	/**
+	 * The codes of a column, on one, two or four bytes.
+	 */
+	private abstract class Column {
+
+		private int width = 1;
+
+		private final ArrayList<ByteBuffer> chunks = new ArrayList<ByteBuffer>();
+
+		final void putCode(int row, int code) {
+			final int needed = code < 0x100 ? 1 : (code < 0x10000 ? 2 : 4);
+			if (needed > width) {
+				widen(needed);
+			}
+			final int chunk = row >>> CHUNK_SHIFT;
+			if (chunk == chunks.size()) {
+				chunks.add(allocate(CHUNK_ROWS * width));
+			}
+			write(chunks.get(chunk), row & CHUNK_MASK, code);
+		}
+
+		final int getCode(int row) {
+			return read(chunks.get(row >>> CHUNK_SHIFT), row & CHUNK_MASK);
+		}
+
+		private void write(ByteBuffer chunk, int offset, int code) {
+			switch (width) {
+			case 1: chunk.put(offset, (byte) code); break;
+			case 2: chunk.putShort(offset << 1, (short) code); break;
+			default: chunk.putInt(offset << 2, code);
+			}
+		}
+
+		private int read(ByteBuffer chunk, int offset) {
+			switch (width) {
+			case 1: return chunk.get(offset) & 0xFF;
+			case 2: return chunk.getShort(offset << 1) & 0xFFFF;
+			default: return chunk.getInt(offset << 2);
+			}
+		}
+
+		/**
+		 * Re-encodes the codes recorded so far on a larger width.
+		 */
+		private void widen(int newWidth) {
+			final int oldWidth = width;
+			for (int c = 0; c < chunks.size(); c++) {
+				final ByteBuffer old = chunks.get(c);
+				width = oldWidth;
+				final int[] codes = new int[CHUNK_ROWS];
+				for (int k = 0; k < CHUNK_ROWS; k++) {
+					codes[k] = read(old, k);
+				}
+				release(old);
+				final ByteBuffer chunk = allocate(CHUNK_ROWS * newWidth);
+				width = newWidth;
+				for (int k = 0; k < CHUNK_ROWS; k++) {
+					write(chunk, k, codes[k]);
+				}
+				chunks.set(c, chunk);
+			}
+			width = newWidth;
+		}
+	}
+
+	private final class IntColumn extends Column {
+
+		private final TIntIntHashMap codes = new TIntIntHashMap();
+
+		private int[] values = new int[4];
+
+		private int nbValues;
+
+		void put(int row, int value) {
+			int code;
+			if (codes.containsKey(value)) {
+				code = codes.get(value);
+			} else {
+				code = nbValues++;
+				if (code == values.length) {
+					values = Arrays.copyOf(values, 2 * code);
+				}
+				values[code] = value;
+				codes.put(value, code);
+			}
+			putCode(row, code);
+		}
+
+		int get(int row) {
+			return values[getCode(row)];
+		}
+	}
+
+	private final class ObjectColumn extends Column {
+
+		private final HashMap<Object, Integer> codes = new HashMap<Object, Integer>();
+
+		private final ArrayList<Object> values = new ArrayList<Object>();
+
+		void put(int row, Object value) {
+			Integer code = codes.get(value);
+			if (code == null) {
+				code = values.size();
+				values.add(value);
+				codes.put(value, code);
+			}
+			putCode(row, code);
+		}
+
+		Object get(int row) {
+			return values.get(getCode(row));
+		}
+	}
+
+	private static final class IntArrayKey {
+
+		private final int[] values;
+
+		private final int hash;
+
+		IntArrayKey(int[] values) {
+			this.values = values;
+			this.hash = Arrays.hashCode(values);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof IntArrayKey && Arrays.equals(values, ((IntArrayKey) o).values);
+		}
+	}
+
+	private static final class RealKey {
+
+		private final double inf;
+
+		private final double sup;
+
+		RealKey(double inf, double sup) {
+			this.inf = inf;
+			this.sup = sup;
+		}
+
+		@Override
+		public int hashCode() {
+			final long bits = Double.doubleToLongBits(inf) * 31 + Double.doubleToLongBits(sup);
+			return (int) (bits ^ (bits >>> 32));
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof RealKey && Double.compare(inf, ((RealKey) o).inf) == 0
+					&& Double.compare(sup, ((RealKey) o).sup) == 0;
+		}
+	}
+}
@@ -27,6 +27,7 @@
 
 package choco.kernel.solver.search;
 
+import java.io.File;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedList;
@@ -90,6 +91,20 @@ public final class SolutionPoolFactory {
 		return new AllSolutionsPool(strategy);
 	}
 
+	/**
+	 * records all solution in a compact columnar form, in the heap.
+	 */
+	public static ColumnarSolutionPool makeColumnarSolutionPool(AbstractGlobalSearchStrategy strategy) {
+		return new ColumnarSolutionPool(strategy, Long.MAX_VALUE, null);
+	}
+
+	/**
+	 * records all solution in a compact columnar form, in the heap up to a budget in bytes, then in a memory-mapped file.
+	 */
+	public static ColumnarSolutionPool makeColumnarSolutionPool(AbstractGlobalSearchStrategy strategy, long heapBudget, File spillDirectory) {
+		return new ColumnarSolutionPool(strategy, heapBudget, spillDirectory);
+	}
+
 	public static ISolutionPool makeDefaultSolutionPool(AbstractGlobalSearchStrategy strategy, int capacity, boolean lastsols) {
 		if(capacity == 1) return lastsols ? makeLastSolution(strategy) : makeFirstSolution(strategy);
 		else if(capacity == Integer.MAX_VALUE) return makeAllSolutions(strategy);
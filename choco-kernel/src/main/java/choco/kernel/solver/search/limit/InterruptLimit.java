@@ -0,0 +1,73 @@
+/**
+ *  Copyright (c) 1999-2010, Ecole des Mines de Nantes
+ *  All rights reserved.
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *      * Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *      * Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *      * Neither the name of the Ecole des Mines de Nantes nor the
+ *        names of its contributors may be used to endorse or promote products
+ *        derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ *  EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package choco.kernel.solver.search.limit;
+
+import choco.kernel.solver.search.AbstractGlobalSearchStrategy;
+
+/**
+ * Stops the search once interrupted, possibly by another thread.
+ * The interruption is checked at each node, so the search stops at the next node.
+ * The limit reads a {@link CancellationToken}, which can be shared with the solver or with other searches.
+ */
+public final class InterruptLimit extends AbstractGlobalSearchLimit {
+
+	private volatile CancellationToken token;
+
+	public InterruptLimit(AbstractGlobalSearchStrategy theStrategy) {
+		this(theStrategy, new CancellationToken());
+	}
+
+	public InterruptLimit(AbstractGlobalSearchStrategy theStrategy, CancellationToken token) {
+		super(theStrategy, 1, Limit.INTERRUPT);
+		this.token = token;
+	}
+
+	public CancellationToken getCancellationToken() {
+		return token;
+	}
+
+	public void setCancellationToken(CancellationToken token) {
+		this.token = token;
+	}
+
+	/**
+	 * Requests the search to stop: cancels the token.
+	 */
+	public void interrupt() {
+		token.cancel();
+	}
+
+	public boolean isInterrupted() {
+		return token.isCancelled();
+	}
+
+	@Override
+	public long getNb() {
+		return isInterrupted() ? 1 : 0;
+	}
+
+}
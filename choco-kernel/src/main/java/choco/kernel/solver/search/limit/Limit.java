@@ -43,6 +43,8 @@ public enum Limit {
     FAIL("Fails"),
     SOLUTION("Solutions"),
     RESTART("Restarts"),
+    MEMORY("Trail memory (bytes)"),
+    INTERRUPT("Interruptions"),
     UNDEF("");
 
     private final String unit;
@@ -78,7 +78,10 @@ public class MeasuresBean implements IMeasures {
 		nodeCount += toAdd.getNodeCount();
 		backtrackCount += toAdd.getBackTrackCount();
 		restartCount += toAdd.getRestartCount();
-		failCount += toAdd.getFailCount();
+		if (toAdd.getFailCount() > 0) {
+			//a negative fail count means that the fails are not measured
+			failCount += toAdd.getFailCount();
+		}
 		solutionCount += toAdd.getSolutionCount();
 	}
 	
@@ -0,0 +1,102 @@
+/**
+ *  Copyright (c) 1999-2010, Ecole des Mines de Nantes
+ *  All rights reserved.
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *      * Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *      * Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *      * Neither the name of the Ecole des Mines de Nantes nor the
+ *        names of its contributors may be used to endorse or promote products
+ *        derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ *  EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package choco.kernel.solver.search.measure;
+
+/**
+ * An immutable snapshot of a running search, given to an {@link IProgressMonitor}.
+ */
+public final class SearchProgress {
+
+	private final long timeCount;
+
+	private final long nodeCount;
+
+	private final double nodeRate;
+
+	private final int depth;
+
+	private final long solutionCount;
+
+	private final Number bestBound;
+
+	public SearchProgress(long timeCount, long nodeCount, double nodeRate, int depth, long solutionCount, Number bestBound) {
+		this.timeCount = timeCount;
+		this.nodeCount = nodeCount;
+		this.nodeRate = nodeRate;
+		this.depth = depth;
+		this.solutionCount = solutionCount;
+		this.bestBound = bestBound;
+	}
+
+	/**
+	 * @return the time in milliseconds elapsed since the beginning of the search.
+	 */
+	public long getTimeCount() {
+		return timeCount;
+	}
+
+	public long getNodeCount() {
+		return nodeCount;
+	}
+
+	/**
+	 * @return the number of nodes per second since the previous report.
+	 */
+	public double getNodeRate() {
+		return nodeRate;
+	}
+
+	/**
+	 * @return the depth of the current node in the search tree.
+	 */
+	public int getDepth() {
+		return depth;
+	}
+
+	public long getSolutionCount() {
+		return solutionCount;
+	}
+
+	/**
+	 * @return the objective value of the best solution, or null if there is no objective or no solution yet.
+	 */
+	public Number getBestBound() {
+		return bestBound;
+	}
+
+	@Override
+	public String toString() {
+		final StringBuilder b = new StringBuilder();
+		b.append(timeCount).append(" ms, ").append(nodeCount).append(" nodes (");
+		b.append((long) nodeRate).append(" nodes/s), depth ").append(depth).append(", ");
+		b.append(solutionCount).append(" solutions");
+		if (bestBound != null) {
+			b.append(", best bound ").append(bestBound);
+		}
+		return b.toString();
+	}
+}
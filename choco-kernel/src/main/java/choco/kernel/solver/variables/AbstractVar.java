@@ -80,7 +80,7 @@ public abstract class AbstractVar implements Var {
 	 * @param name A name for the extension (should be an UID, like the absolute path for instance)
 	 * @return a number that can be used for specifying an extension (setExtension method)
 	 */
-	public static int getAbstractVarExtensionNumber(String name) {
+	public static synchronized int getAbstractVarExtensionNumber(String name) {
 		Integer ind = REGISTERED_ABSTRACTVAR_EXTENSIONS.get(name);
 		if (ind == null) {
 			ind = ABSTRACTVAR_EXTENSIONS_NB++;
@@ -245,6 +245,14 @@ public abstract class AbstractVar implements Var {
 		constraints.eraseConstraint(c);
 	}
 
+	/**
+	 * Removes an entailed constraint from the propagation lists of the variable, until backtracking.
+	 * @param constraintIndex index of the constraint among the constraints of the variable
+	 */
+	public void deactivateConstraint(final int constraintIndex) {
+		constraints.deactivateConstraint(constraintIndex);
+	}
+
 	// ============================================
 	// Managing Listeners.
 	// ============================================
@@ -95,7 +95,7 @@ public final class TaskVar<C extends AbstractSConstraint & TaskPropagator> exten
 	 * @param name A name for the extension (should be an UID, like the absolute path for instance)
 	 * @return a number that can be used for specifying an extension (setExtension method)
 	 */
-	public static int getTaskVarExtensionNumber(String name) {
+	public static synchronized int getTaskVarExtensionNumber(String name) {
 		Integer ind = REGISTERED_TASKVAR_EXTENSIONS.get(name);
 		if (ind == null) {
 			ind = TASKVAR_EXTENSIONS_NB++;
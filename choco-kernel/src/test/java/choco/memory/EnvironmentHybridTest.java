@@ -0,0 +1,217 @@
+/**
+ *  Copyright (c) 1999-2010, Ecole des Mines de Nantes
+ *  All rights reserved.
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *      * Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *      * Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *      * Neither the name of the Ecole des Mines de Nantes nor the
+ *        names of its contributors may be used to endorse or promote products
+ *        derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ *  EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package choco.memory;
+
+import choco.kernel.common.logging.ChocoLogging;
+import choco.kernel.memory.IStateBitSet;
+import choco.kernel.memory.IStateInt;
+import choco.kernel.memory.IStateIntVector;
+import choco.kernel.memory.IStateLongVector;
+import choco.kernel.memory.trailing.EnvironmentTrailing;
+import choco.kernel.memory.trailing.hybrid.EnvironmentHybrid;
+import choco.kernel.memory.trailing.hybrid.HybridIntVector;
+import choco.kernel.memory.trailing.hybrid.HybridStrategy;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+import java.util.logging.Logger;
+
+/**
+ * Tests of the environment trailing or copying each vector.
+ */
+public class EnvironmentHybridTest {
+
+	protected final static Logger LOGGER = ChocoLogging.getTestLogger();
+
+	@Test
+	public void testTrailedVector() {
+		final EnvironmentHybrid env = new EnvironmentHybrid();
+		final HybridIntVector v = env.makeIntVector(100, 0, HybridStrategy.TRAILING);
+		env.worldPush();
+		v.set(3, 1);
+		v.set(3, 2);
+		v.set(5, 1);
+		Assert.assertEquals(2, env.getTrailSize());
+		env.worldPop();
+		Assert.assertEquals(0, v.get(3));
+		Assert.assertEquals(0, v.get(5));
+		Assert.assertEquals(2, env.getNbTrailedCells());
+		Assert.assertEquals(0, env.getNbCopies());
+	}
+
+	@Test
+	public void testCopiedVector() {
+		final EnvironmentHybrid env = new EnvironmentHybrid();
+		final HybridIntVector v = env.makeIntVector(100, 0, HybridStrategy.COPYING);
+		for (int w = 1; w <= 10; w++) {
+			env.worldPush();
+			for (int i = 0; i < 100; i++) {
+				v.set(i, w);
+			}
+			Assert.assertEquals(w, env.getTrailSize());
+		}
+		for (int w = 10; w >= 1; w--) {
+			Assert.assertEquals(w, v.get(w));
+			env.worldPop();
+		}
+		for (int i = 0; i < 100; i++) {
+			Assert.assertEquals(0, v.get(i));
+		}
+		Assert.assertEquals(0, env.getNbTrailedCells());
+		Assert.assertEquals(10, env.getNbCopies());
+		Assert.assertTrue(v.isCopying());
+	}
+
+	@Test
+	public void testAdaptiveSwitch() {
+		final EnvironmentHybrid env = new EnvironmentHybrid();
+		final HybridIntVector dense = env.makeIntVector(100, 0, HybridStrategy.ADAPTIVE);
+		final HybridIntVector sparse = env.makeIntVector(100, 0, HybridStrategy.ADAPTIVE);
+		for (int w = 1; w <= 5; w++) {
+			env.worldPush();
+			for (int i = 0; i < 100; i++) {
+				dense.set(i, w);
+			}
+			sparse.set(w, w);
+		}
+		Assert.assertTrue(dense.isCopying());
+		Assert.assertFalse(sparse.isCopying());
+		Assert.assertEquals(1, env.getNbSwitchesToCopying());
+		for (int w = 5; w >= 1; w--) {
+			env.worldPop();
+		}
+		for (int i = 0; i < 100; i++) {
+			Assert.assertEquals(0, dense.get(i));
+			Assert.assertEquals(0, sparse.get(i));
+		}
+		// copying the dense vector saves words, trailing the sparse one too
+		Assert.assertTrue(env.getCopyingSavings() > 0);
+		Assert.assertTrue(env.getTrailingSavings() > 0);
+		for (int w = 1; w <= 3; w++) {
+			env.worldPush();
+			dense.set(0, w);
+		}
+		Assert.assertFalse(dense.isCopying());
+		Assert.assertEquals(1, env.getNbSwitchesToTrailing());
+	}
+
+	/**
+	 * Compares each strategy with the {@link EnvironmentTrailing} on random updates,
+	 * alternating worlds with few and many updates.
+	 */
+	@Test
+	public void testAgainstTrailing() {
+		for (HybridStrategy strategy : HybridStrategy.values()) {
+			final Random r = new Random(0);
+			final EnvironmentTrailing ref = new EnvironmentTrailing();
+			final EnvironmentHybrid env = new EnvironmentHybrid(strategy, EnvironmentHybrid.DEFAULT_THRESHOLD);
+			final int n = 50;
+			final IStateIntVector x = ref.makeIntVector(n, 0), y = env.makeIntVector(n, 0);
+			final IStateLongVector lx = ref.makeLongVector(), ly = env.makeLongVector();
+			final IStateInt size = ref.makeInt(0);
+			int nbUpdates = 1;
+			for (int k = 0; k < 20000; k++) {
+				final int action = r.nextInt(20);
+				if (action == 0 && ref.getWorldIndex() > 0) {
+					ref.worldPop();
+					env.worldPop();
+				} else if (action == 1 && ref.getWorldIndex() > 0) {
+					ref.worldCommit();
+					env.worldCommit();
+				} else if (action == 2) {
+					ref.worldPush();
+					env.worldPush();
+					nbUpdates = r.nextBoolean() ? 1 : n;
+				} else if (action == 3 && ref.getWorldIndex() == 0 && lx.size() < 200) {
+					// as with the trailed vectors, additions are not restored after a commit
+					final long v = r.nextLong();
+					lx.add(v);
+					ly.add(v);
+					size.set(lx.size());
+				} else {
+					for (int u = 0; u < nbUpdates; u++) {
+						final int i = r.nextInt(n);
+						final int v = r.nextInt(100);
+						x.set(i, v);
+						y.set(i, v);
+						if (lx.size() > 0) {
+							final int j = r.nextInt(lx.size());
+							lx.set(j, v * 3L);
+							ly.set(j, v * 3L);
+						}
+					}
+				}
+				Assert.assertEquals(lx.size(), ly.size());
+				for (int i = 0; i < n; i++) {
+					Assert.assertEquals(x.get(i), y.get(i));
+				}
+				for (int i = 0; i < lx.size(); i++) {
+					Assert.assertEquals(lx.get(i), ly.get(i));
+				}
+			}
+			LOGGER.info(strategy + " " + env);
+		}
+	}
+
+	@Test
+	public void testBitSet() {
+		for (HybridStrategy strategy : HybridStrategy.values()) {
+			final Random r = new Random(1);
+			final EnvironmentHybrid env = new EnvironmentHybrid();
+			final IStateBitSet b = env.makeBitSet(300, strategy);
+			final BitSet[] history = new BitSet[1000];
+			BitSet current = new BitSet();
+			for (int k = 0; k < 5000; k++) {
+				final int action = r.nextInt(10);
+				if (action == 0 && env.getWorldIndex() > 0) {
+					env.worldPop();
+					current = history[env.getWorldIndex()];
+				} else if (action == 1 && env.getWorldIndex() < history.length - 1) {
+					history[env.getWorldIndex()] = (BitSet) current.clone();
+					env.worldPush();
+				} else {
+					final int from = r.nextInt(300);
+					final int to = from + r.nextInt(300 - from + 1);
+					if (action < 5) {
+						b.set(from, to);
+						current.set(from, to);
+					} else if (action < 8) {
+						b.clear(from);
+						current.clear(from);
+					} else {
+						b.clear(from, to);
+						current.clear(from, to);
+					}
+				}
+				Assert.assertEquals(current, b.copyToBitSet());
+				Assert.assertEquals(current.cardinality(), b.cardinality());
+			}
+		}
+	}
+}
@@ -0,0 +1,139 @@
+/**
+ *  Copyright (c) 1999-2010, Ecole des Mines de Nantes
+ *  All rights reserved.
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *      * Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *      * Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *      * Neither the name of the Ecole des Mines de Nantes nor the
+ *        names of its contributors may be used to endorse or promote products
+ *        derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ *  EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package choco.memory;
+
+import choco.kernel.memory.IStateDouble;
+import choco.kernel.memory.IStateInt;
+import choco.kernel.memory.IStateLong;
+import choco.kernel.memory.TrailStatistics;
+import choco.kernel.memory.trailing.EnvironmentTrailing;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Tests of the trails stored outside of the heap.
+ */
+public class EnvironmentOffHeapTest {
+
+	@Test
+	public void testPushPop() {
+		final EnvironmentTrailing env = new EnvironmentTrailing(true);
+		final IStateInt i = env.makeInt(1);
+		final IStateLong l = env.makeLong(2);
+		final IStateDouble d = env.makeFloat(3.5);
+		env.worldPush();
+		i.set(10);
+		l.set(Long.MAX_VALUE);
+		d.set(-0.25);
+		env.worldPush();
+		i.set(20);
+		env.worldPop();
+		Assert.assertEquals(10, i.get());
+		Assert.assertEquals(Long.MAX_VALUE, l.get());
+		Assert.assertEquals(-0.25, d.get(), 0);
+		env.worldPop();
+		Assert.assertEquals(1, i.get());
+		Assert.assertEquals(2, l.get());
+		Assert.assertEquals(3.5, d.get(), 0);
+	}
+
+	/**
+	 * Random updates, pushes, pops and commits over several chunks, checked against the heap trails.
+	 */
+	@Test
+	public void testRandom() {
+		final Random rand = new Random(0);
+		final int n = 5000;
+		final EnvironmentTrailing ref = new EnvironmentTrailing();
+		final EnvironmentTrailing env = new EnvironmentTrailing(true);
+		final IStateInt[] ri = new IStateInt[n], ei = new IStateInt[n];
+		final IStateLong[] rl = new IStateLong[n], el = new IStateLong[n];
+		final IStateDouble[] rd = new IStateDouble[n], ed = new IStateDouble[n];
+		for (int k = 0; k < n; k++) {
+			ri[k] = ref.makeInt(k);
+			ei[k] = env.makeInt(k);
+			rl[k] = ref.makeLong(k);
+			el[k] = env.makeLong(k);
+			rd[k] = ref.makeFloat(k);
+			ed[k] = env.makeFloat(k);
+		}
+		for (int step = 0; step < 3000; step++) {
+			final int op = rand.nextInt(10);
+			if (op < 6 || ref.getWorldIndex() == 0) {
+				ref.worldPush();
+				env.worldPush();
+				for (int u = rand.nextInt(500); u > 0; u--) {
+					final int k = rand.nextInt(n);
+					final int v = rand.nextInt();
+					ri[k].set(v);
+					ei[k].set(v);
+					rl[k].set(7L * v);
+					el[k].set(7L * v);
+					rd[k].set(v / 3.0);
+					ed[k].set(v / 3.0);
+				}
+			} else if (op < 9) {
+				ref.worldPop();
+				env.worldPop();
+			} else {
+				ref.worldCommit();
+				env.worldCommit();
+			}
+			Assert.assertEquals(ref.getTrailSize(), env.getTrailSize());
+			for (int k = 0; k < n; k += 7) {
+				Assert.assertEquals(ri[k].get(), ei[k].get());
+				Assert.assertEquals(rl[k].get(), el[k].get());
+				Assert.assertEquals(rd[k].get(), ed[k].get(), 0);
+			}
+		}
+		for (TrailStatistics stats : env.getTrailStatistics()) {
+			Assert.assertTrue(stats.toString(), stats.getPeakSize() > 65536);
+		}
+	}
+
+	@Test
+	public void testMemoryBudget() {
+		final EnvironmentTrailing env = new EnvironmentTrailing(true);
+		final IStateInt x = env.makeInt(0);
+		for (int w = 1; w <= 300000; w++) {
+			env.worldPush();
+			x.set(w);
+		}
+		final TrailStatistics stats = env.getTrailStatistics()[0];
+		Assert.assertEquals(5 * 65536, stats.getCapacity());
+		env.setMemoryBudget(env.getMemoryFootprint());
+		while (env.getWorldIndex() > 0) {
+			env.worldPop();
+		}
+		Assert.assertEquals(0, x.get());
+		Assert.assertTrue(env.getTrailStatistics()[0].getCapacity() < stats.getCapacity());
+		Assert.assertTrue(4 * env.getMemoryFootprint() <= 3 * env.getMemoryBudget());
+	}
+}
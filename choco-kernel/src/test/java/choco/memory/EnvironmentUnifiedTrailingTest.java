@@ -0,0 +1,197 @@
+/**
+ *  Copyright (c) 1999-2010, Ecole des Mines de Nantes
+ *  All rights reserved.
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *      * Redistributions of source code must retain the above copyright
+ *        notice, this list of conditions and the following disclaimer.
+ *      * Redistributions in binary form must reproduce the above copyright
+ *        notice, this list of conditions and the following disclaimer in the
+ *        documentation and/or other materials provided with the distribution.
+ *      * Neither the name of the Ecole des Mines de Nantes nor the
+ *        names of its contributors may be used to endorse or promote products
+ *        derived from this software without specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE REGENTS AND CONTRIBUTORS ``AS IS'' AND ANY
+ *  EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL THE REGENTS AND CONTRIBUTORS BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package choco.memory;
+
+import choco.kernel.memory.*;
+import choco.kernel.memory.trailing.EnvironmentTrailing;
+import choco.kernel.memory.trailing.unified.EnvironmentUnifiedTrailing;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Tests of the environment trailing every primitive into one single stack.
+ */
+public class EnvironmentUnifiedTrailingTest {
+
+	private EnvironmentUnifiedTrailing env;
+
+	@Before
+	public void setUp() {
+		env = new EnvironmentUnifiedTrailing();
+	}
+
+	@Test
+	public void testInt() {
+		IStateInt x1 = env.makeInt(0);
+		Assert.assertEquals(0, env.getTrailSize());
+		for (int i = 1; i <= 100; i++) {
+			env.worldPush();
+			x1.set(i);
+			x1.set(2 * i);
+			x1.set(i);
+			Assert.assertEquals(i, env.getWorldIndex());
+			Assert.assertEquals(i, env.getTrailSize());
+			Assert.assertEquals(i, x1.get());
+		}
+		for (int i = 100; i >= 1; i--) {
+			env.worldPop();
+			Assert.assertEquals(i - 1, env.getWorldIndex());
+			Assert.assertEquals(i - 1, env.getTrailSize());
+			Assert.assertEquals(i - 1, x1.get());
+		}
+	}
+
+	@Test
+	public void testMixedTypes() {
+		IStateInt i = env.makeInt(3);
+		IStateBool b = env.makeBool(true);
+		IStateLong l = env.makeLong(7);
+		IStateDouble d = env.makeFloat(1.5);
+		env.worldPush();
+		i.add(2);
+		b.set(false);
+		l.set(Long.MAX_VALUE);
+		d.set(-0.25);
+		Assert.assertEquals(5, i.get());
+		Assert.assertFalse(b.get());
+		Assert.assertEquals(Long.MAX_VALUE, l.get());
+		Assert.assertEquals(-0.25, d.get(), 0.0);
+		Assert.assertEquals(4, env.getTrailSize());
+		env.worldPop();
+		Assert.assertEquals(3, i.get());
+		Assert.assertTrue(b.get());
+		Assert.assertEquals(7, l.get());
+		Assert.assertEquals(1.5, d.get(), 0.0);
+	}
+
+	@Test
+	public void testProcedure() {
+		final int[] calls = new int[2];
+		IStateInt p = env.makeIntProcedure(new IStateIntProcedure() {
+			@Override
+			public void apply(int oldVal, int newVal) {
+				calls[0] = oldVal;
+				calls[1] = newVal;
+			}
+		}, 10);
+		env.worldPush();
+		p.set(4);
+		env.worldPop();
+		Assert.assertEquals(10, p.get());
+		Assert.assertEquals(4, calls[0]);
+		Assert.assertEquals(10, calls[1]);
+	}
+
+	@Test
+	public void testVectorGrowth() {
+		IStateIntVector v = env.makeIntVector(2, 0);
+		env.worldPush();
+		v.set(0, 5);
+		for (int k = 0; k < 100; k++) {
+			v.add(k);
+		}
+		env.worldPush();
+		v.set(0, 6);
+		v.set(50, -1);
+		Assert.assertEquals(102, v.size());
+		env.worldPop();
+		Assert.assertEquals(5, v.get(0));
+		Assert.assertEquals(48, v.get(50));
+		env.worldPop();
+		Assert.assertEquals(0, v.get(0));
+		Assert.assertEquals(2, v.size());
+	}
+
+	@Test
+	public void testObjectVector() {
+		IStateVector<String> v = env.makeVector();
+		v.add("a");
+		v.add("b");
+		env.worldPush();
+		v.set(1, "c");
+		v.add("d");
+		Assert.assertEquals("c", v.get(1));
+		env.worldPop();
+		Assert.assertEquals(2, v.size());
+		Assert.assertEquals("b", v.get(1));
+	}
+
+	@Test
+	public void testCommit() {
+		IStateInt x = env.makeInt(0);
+		env.worldPush();
+		x.set(1);
+		env.worldPush();
+		x.set(2);
+		env.worldCommit();
+		Assert.assertEquals(1, env.getWorldIndex());
+		Assert.assertEquals(1, env.getTrailSize());
+		env.worldPop();
+		Assert.assertEquals(0, x.get());
+	}
+
+	/**
+	 * Compares the unified environment with the {@link EnvironmentTrailing} on random updates.
+	 */
+	@Test
+	public void testAgainstTrailing() {
+		final Random r = new Random(0);
+		final EnvironmentTrailing ref = new EnvironmentTrailing();
+		final int n = 50;
+		final IStateInt[] x = new IStateInt[n], y = new IStateInt[n];
+		for (int i = 0; i < n; i++) {
+			x[i] = ref.makeInt(i);
+			y[i] = env.makeInt(i);
+		}
+		final IStateLongVector lx = ref.makeLongVector(n, 0), ly = env.makeLongVector(n, 0);
+		for (int k = 0; k < 10000; k++) {
+			final int action = r.nextInt(10);
+			if (action == 0 && ref.getWorldIndex() > 0) {
+				ref.worldPop();
+				env.worldPop();
+			} else if (action == 1) {
+				ref.worldPush();
+				env.worldPush();
+			} else {
+				final int i = r.nextInt(n);
+				final int v = r.nextInt(100);
+				x[i].set(v);
+				y[i].set(v);
+				lx.set(i, v * 3L);
+				ly.set(i, v * 3L);
+			}
+			for (int i = 0; i < n; i++) {
+				Assert.assertEquals(x[i].get(), y[i].get());
+				Assert.assertEquals(lx.get(i), ly.get(i));
+			}
+		}
+	}
+}
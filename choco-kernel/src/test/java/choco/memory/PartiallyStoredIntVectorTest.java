@@ -31,6 +31,8 @@ import choco.kernel.common.Constant;
 import choco.kernel.common.logging.ChocoLogging;
 import choco.kernel.common.util.iterators.DisposableIntIterator;
 import choco.kernel.memory.IEnvironment;
+import choco.kernel.memory.copy.EnvironmentCopying;
+import choco.kernel.memory.structure.DeactivationLog;
 import choco.kernel.memory.structure.PartiallyStoredIntVector;
 import choco.kernel.memory.trailing.EnvironmentTrailing;
 import org.junit.After;
@@ -38,6 +40,10 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
 import java.util.logging.Logger;
 
 import static org.junit.Assert.assertEquals;
@@ -158,4 +164,114 @@ public class PartiallyStoredIntVectorTest {
 
 
     }
+
+    private static List<Integer> values(PartiallyStoredIntVector vector) {
+        final List<Integer> values = new ArrayList<Integer>();
+        final DisposableIntIterator it = vector.getIndexIterator();
+        while (it.hasNext()) {
+            values.add(vector.get(it.next()));
+        }
+        it.dispose();
+        Collections.sort(values);
+        return values;
+    }
+
+    private static void testDeactivate(IEnvironment env, long seed) {
+        final Random rand = new Random(seed);
+        final PartiallyStoredIntVector vector = env.makePartiallyStoredIntVector();
+        final DeactivationLog log = new DeactivationLog(env);
+        final List<List<Integer>> expected = new ArrayList<List<Integer>>();
+        final List<Integer> current = new ArrayList<Integer>();
+        int next = 0;
+        for (int i = 0; i < 5; i++) {
+            vector.staticAdd(next);
+            current.add(next++);
+        }
+        for (int op = 0; op < 2000; op++) {
+            final int r = rand.nextInt(10);
+            if (r < 3) {
+                expected.add(new ArrayList<Integer>(current));
+                env.worldPush();
+            } else if (r < 5 && env.getWorldIndex() > 0) {
+                env.worldPop();
+                current.clear();
+                current.addAll(expected.remove(expected.size() - 1));
+            } else if (r < 7) {
+                if (rand.nextBoolean()) {
+                    vector.add(next);
+                } else {
+                    // a static value stays in the lower worlds
+                    vector.staticAdd(next);
+                    for (List<Integer> l : expected) {
+                        l.add(next);
+                    }
+                }
+                current.add(next++);
+            } else if (!current.isEmpty()) {
+                final Integer value = current.remove(rand.nextInt(current.size()));
+                vector.deactivate(value, log);
+            }
+            final List<Integer> sorted = new ArrayList<Integer>(current);
+            Collections.sort(sorted);
+            assertEquals(sorted, values(vector));
+        }
+    }
+
+    @Test
+    public void testDeactivate() {
+        for (int seed = 0; seed < 20; seed++) {
+            testDeactivate(new EnvironmentTrailing(), seed);
+            testDeactivate(new EnvironmentCopying(), seed);
+        }
+    }
+
+    @Test
+    public void testDeactivateWhileIterating() {
+        final DeactivationLog log = new DeactivationLog(env);
+        for (int i = 0; i < 4; i++) {
+            vector.staticAdd(i);
+            vector.add(4 + i);
+        }
+        env.worldPush();
+        final List<Integer> seen = new ArrayList<Integer>();
+        final DisposableIntIterator it = vector.getIndexIterator();
+        while (it.hasNext()) {
+            final int value = vector.get(it.next());
+            seen.add(value);
+            // the current value and a value not iterated yet
+            vector.deactivate(value, log);
+            vector.deactivate(7, log);
+        }
+        it.dispose();
+        assertEquals(8, seen.size());
+        assertEquals(8, vector.getNbDeactivated());
+        assertTrue(values(vector).isEmpty());
+        env.worldPop();
+        assertEquals(0, vector.getNbDeactivated());
+        assertEquals(8, values(vector).size());
+    }
+
+    @Test
+    public void testRemoveKeepsPositions() {
+        final DeactivationLog log = new DeactivationLog(env);
+        for (int i = 0; i < 4; i++) {
+            vector.staticAdd(10 + i);
+        }
+        env.worldPush();
+        vector.deactivate(10, log);
+        // a removed position is emptied, the other values keep their positions
+        vector.remove(1);
+        assertEquals(-1, vector.get(1));
+        assertEquals(12, vector.get(2));
+        assertEquals(4, vector.size());
+        // the trailing removed positions are released, but not the deactivated prefix
+        vector.remove(3);
+        vector.remove(2);
+        assertEquals(1, vector.size());
+        assertEquals(1, vector.getNbDeactivated());
+        env.worldPop();
+        assertEquals(0, vector.getNbDeactivated());
+        assertEquals(1, vector.size());
+        assertEquals(10, vector.get(0));
+    }
 }
@@ -35,6 +35,8 @@ import static org.junit.Assert.*;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.BitSet;
+import java.util.Random;
 import java.util.logging.Logger;
 /**
  * Created by IntelliJ IDEA.
@@ -104,22 +106,23 @@ public class StoredBitSetTest {
     for (int i = 0; i < 5; i++) {
       assertTrue(bSetA.get(i));
     }
-    assertEquals(2, env.getTrailSize());
+    // a word is trailed once per world
+    assertEquals(1, env.getTrailSize());
     bSetA.set(2);
     bSetA.set(3);
-    assertEquals(2, env.getTrailSize());
+    assertEquals(1, env.getTrailSize());
     for (int i = 0; i < 5; i++) {
       assertTrue(bSetA.get(i));
     }
     env.worldPush();
     bSetA.set(2);
-    assertEquals(2, env.getTrailSize());
+    assertEquals(1, env.getTrailSize());
     assertTrue(bSetA.get(2));
     env.worldPop();
 
     bSetA.clear(2);
     assertFalse(bSetA.get(2));
-    assertEquals(2, env.getTrailSize());
+    assertEquals(1, env.getTrailSize());
     env.worldPop();
     assertEquals(0, env.getTrailSize());
     assertEquals(0, env.getWorldIndex());
@@ -153,9 +156,9 @@ public class StoredBitSetTest {
     for (int i = 0; i < 5; i++) {
       assertTrue(bSetB.get(i));
     }
-    assertEquals(2, env.getTrailSize());
+    assertEquals(1, env.getTrailSize());
     bSetB.set(64);
-    assertEquals(2, env.getTrailSize());
+    assertEquals(1, env.getTrailSize());
 
     assertTrue(bSetB.get(64));
     assertFalse(bSetB.get(63));
@@ -251,4 +254,87 @@ public class StoredBitSetTest {
 	env.worldPop();
 	assertEquals(bSetB.cardinality(), 3);
   }
+
+  /**
+   * Scans over large empty regions.
+   */
+  @Test
+  public void testSparse() {
+    LOGGER.finer("testSparse");
+    IStateBitSet b = env.makeBitSet(100000);
+    b.set(0, 100000);
+    env.worldPush();
+    b.clear(1, 99999);
+    assertEquals(2, b.cardinality());
+    assertEquals(99999, b.nextSetBit(1));
+    assertEquals(0, b.prevSetBit(99998));
+    assertEquals(1, b.nextClearBit(0));
+    b.clear(0);
+    b.clear(99999);
+    assertTrue(b.isEmpty());
+    assertEquals(-1, b.nextSetBit(0));
+    assertEquals(-1, b.prevSetBit(99999));
+    env.worldPop();
+    assertEquals(100000, b.cardinality());
+    assertEquals(100000, b.nextClearBit(0));
+  }
+
+  /**
+   * Compares random updates, backtracks and commits with a {@link BitSet}.
+   */
+  @Test
+  public void testRandom() {
+    LOGGER.finer("testRandom");
+    final Random r = new Random(0);
+    final IStateBitSet b = env.makeBitSet(1000);
+    final IStateBitSet o = env.makeBitSet(1000);
+    final BitSet[] history = new BitSet[5000];
+    BitSet current = new BitSet();
+    for (int k = 0; k < 20000; k++) {
+      final int action = r.nextInt(12);
+      final int from = r.nextInt(1000);
+      final int to = from + r.nextInt(1000 - from + 1);
+      if (action == 0 && env.getWorldIndex() > 0) {
+        env.worldPop();
+        current = history[env.getWorldIndex()];
+      } else if (action == 1 && env.getWorldIndex() > 0) {
+        env.worldCommit();
+      } else if (action == 2) {
+        history[env.getWorldIndex()] = (BitSet) current.clone();
+        env.worldPush();
+      } else if (action == 3) {
+        b.set(from, to);
+        current.set(from, to);
+      } else if (action == 4) {
+        b.clear(from, to);
+        current.clear(from, to);
+      } else if (action == 5) {
+        b.flip(from, to);
+        current.flip(from, to);
+      } else if (action == 6) {
+        b.clear(from);
+        current.clear(from);
+      } else if (action == 7) {
+        o.clear();
+        o.set(from, to);
+        final BitSet other = new BitSet();
+        other.set(from, to);
+        switch (r.nextInt(4)) {
+          case 0: b.and(o); current.and(other); break;
+          case 1: b.or(o); current.or(other); break;
+          case 2: b.xor(o); current.xor(other); break;
+          default: b.andNot(o); current.andNot(other);
+        }
+      } else {
+        b.set(from);
+        current.set(from);
+      }
+      assertEquals(current, b.copyToBitSet());
+      assertEquals(current.cardinality(), b.cardinality());
+      assertEquals(current.isEmpty(), b.isEmpty());
+      assertEquals(current.nextSetBit(from), b.nextSetBit(from));
+      assertEquals(current.nextClearBit(from), b.nextClearBit(from));
+      assertEquals(current.previousSetBit(from), b.prevSetBit(from));
+    }
+  }
 }
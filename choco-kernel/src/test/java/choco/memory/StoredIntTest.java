@@ -29,6 +29,7 @@ package choco.memory;
 
 import choco.kernel.common.logging.ChocoLogging;
 import choco.kernel.memory.IStateInt;
+import choco.kernel.memory.TrailStatistics;
 import choco.kernel.memory.copy.EnvironmentCopying;
 import choco.kernel.memory.trailing.EnvironmentTrailing;
 import org.junit.After;
@@ -162,5 +163,47 @@ public class StoredIntTest {
         Assert.assertEquals(t1.get(), c1.get());
     }
 
-
-}
\ No newline at end of file
+    /**
+     * testing the statistics of the trails and the release of their capacity under a memory budget
+     */
+    @Test
+    public void testMemoryBudget() {
+        final IStateInt[] xs = new IStateInt[10000];
+        for (int i = 0; i < xs.length; i++) {
+            xs[i] = env.makeInt(0);
+        }
+        final long initialFootprint = env.getMemoryFootprint();
+        Assert.assertEquals(1, env.getTrailStatistics().length);
+        for (int w = 1; w <= 200; w++) {
+            env.worldPush();
+            for (int i = 0; i < xs.length; i += 20) {
+                xs[i].set(w);
+            }
+        }
+        TrailStatistics stats = env.getTrailStatistics()[0];
+        Assert.assertEquals(100000, stats.getSize());
+        Assert.assertTrue(stats.getCapacity() > stats.getSize());
+        final long deepFootprint = env.getMemoryFootprint();
+        Assert.assertTrue(deepFootprint > initialFootprint);
+        Assert.assertEquals(deepFootprint, stats.getMemoryFootprint());
+        // without budget, backtracking keeps the capacity
+        env.worldPop();
+        Assert.assertEquals(deepFootprint, env.getMemoryFootprint());
+        env.setMemoryBudget(deepFootprint + 1);
+        Assert.assertFalse(env.isMemoryBudgetExceeded());
+        while (env.getWorldIndex() > 1) {
+            env.worldPop();
+        }
+        stats = env.getTrailStatistics()[0];
+        Assert.assertEquals(500, stats.getSize());
+        Assert.assertEquals(100000, stats.getPeakSize());
+        Assert.assertTrue(4 * env.getMemoryFootprint() <= 3 * env.getMemoryBudget());
+        Assert.assertTrue(stats.getCapacity() < stats.getPeakSize());
+        env.worldPop();
+        for (IStateInt x : xs) {
+            Assert.assertEquals(0, x.get());
+        }
+        env.setMemoryBudget(env.getMemoryFootprint());
+        Assert.assertTrue(env.isMemoryBudgetExceeded());
+    }
+}
@@ -181,6 +181,9 @@ public class XcspModel extends AbstractInstanceModel {
 				isFeasible = s.setDomOverWeg(s, timeLimitPP);
 				//((DomOverWDegBranching) s.tempGoal).setRandomVarTies(seed);
 				break;
+			case HEAPDOMOVERWDEG:
+				isFeasible = s.setHeapDomOverWDeg(s, defaultConf.readDouble(XcspSettings.WEIGHT_DECAY));
+				break;
 			case IMPACT:
 				isFeasible = s.setImpact(s, timeLimitPP);
 				//((ImpactBasedBranching) s.tempGoal).setRandomVarTies(seed);
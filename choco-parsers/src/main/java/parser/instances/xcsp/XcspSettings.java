@@ -34,7 +34,7 @@ public class XcspSettings extends BasicSettings {
 	private static final long serialVersionUID = -6142621495638857916L;
 
     public enum Heuristic {
-        DOMOVERDEG, DOMOVERWDEG, IMPACT, VERSATILE, SIMPLE
+        DOMOVERDEG, DOMOVERWDEG, IMPACT, VERSATILE, SIMPLE, HEAPDOMOVERWDEG
     }
 
     /**
@@ -53,6 +53,14 @@ public class XcspSettings extends BasicSettings {
 	@Default(value = VALUE_FALSE)
 	public static final String SINGLETON_CONSISTENCY= "xcsp.singletonConsistency";
 
+	/**
+	 * <br/><b>Goal</b>: decay of the constraint weights after each failure (HEAPDOMOVERWDEG heuristic)
+	 * <br/><b>Type</b>: double in ]0,1]
+	 * <br/><b>Default value</b>: 1
+	 */
+	@Default(value = "1")
+	public static final String WEIGHT_DECAY= "xcsp.weightDecay";
+
     /**
 	 * <br/><b>Goal</b>: external check of the solution
 	 * <br/><b>Type</b>: boolean